@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.api;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous object cache service. Operations of {@link ObjCacheService} do not block the calling thread, they
+ * return futures completed with the result of the operation or exceptionally with
+ * {@link com.codeveo.objcache.common.ObjCacheException}. Objects passed to write operations are serialized
+ * asynchronously, so they must not be modified until the returned future is completed.
+ *
+ */
+public interface ObjCacheAsyncService {
+
+    /**
+     * Count all documents under given collection
+     *
+     * @param aCollection collection
+     * @return future of objects count
+     */
+    CompletableFuture<Long> countByCollection(String aCollection);
+
+    /**
+     * Count all documents under given collection matching given predicate
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @return future of objects count
+     */
+    CompletableFuture<Long> countByPredicate(String aCollection, ObjCachePredicate aPredicate);
+
+    /**
+     * Count all documents under given collection and containing given properties
+     *
+     * @param aCollection collection
+     * @param someProperties properties
+     * @return future of objects count
+     */
+    CompletableFuture<Long> countByProperties(String aCollection, Map<String, Object> someProperties);
+
+    /**
+     * Create new object
+     *
+     * @param aCollection collection to create under
+     * @param anObjectKey object key
+     * @param someProperties object properties
+     * @param anObject object data
+     * @return future of object meta data
+     */
+    CompletableFuture<ObjCacheEntityMeta> create(
+        String aCollection,
+        String anObjectKey,
+        SerializerType aSerializerType,
+        Map<String, Object> someProperties,
+        Object anObject);
+
+    /**
+     * Create new object
+     *
+     * @param aCollection collection to create under
+     * @param anObjectKey object key
+     * @param someProperties object properties
+     * @param anObject object data
+     * @param anExpirationTime expiration time
+     * @return future of object meta data
+     */
+    CompletableFuture<ObjCacheEntityMeta> create(
+        String aCollection,
+        String anObjectKey,
+        SerializerType aSerializerType,
+        Map<String, Object> someProperties,
+        Object anObject,
+        ZonedDateTime anExpirationTime);
+
+    /**
+     * Create new objects in a single transaction. An object which already exists is reported as failed and does not
+     * affect the others.
+     *
+     * @param aCollection collection to create under
+     * @param aSerializerType serializer of the objects
+     * @param someItems objects to create
+     * @return future of results in the order of given objects
+     */
+    CompletableFuture<List<ObjCacheBatchResult>> createAll(
+        String aCollection,
+        SerializerType aSerializerType,
+        List<ObjCacheBatchItem> someItems);
+
+    /**
+     * Delete object
+     *
+     * @param aCollection collection the object exists under
+     * @param anObjectKey object key
+     * @return future of deleted objects count
+     */
+    CompletableFuture<Integer> delete(String aCollection, String anObjectKey);
+
+    /**
+     * Delete objects of given keys
+     *
+     * @param aCollection collection the objects exist under
+     * @param someObjectKeys object keys
+     * @return future of deleted objects count
+     */
+    CompletableFuture<Integer> deleteAll(String aCollection, Collection<String> someObjectKeys);
+
+    /**
+     * Delete all object under given collection
+     *
+     * @param aCollection collection
+     * @return future of deleted objects count
+     */
+    CompletableFuture<Integer> deleteByCollection(String aCollection);
+
+    /**
+     * Delete objects by given collection and matching given predicate
+     *
+     * @param aCollection collection the objects exist under
+     * @param aPredicate predicate over object properties
+     * @return future of deleted objects count
+     */
+    CompletableFuture<Integer> deleteByPredicate(String aCollection, ObjCachePredicate aPredicate);
+
+    /**
+     * Delete object by given collection and containing given properties
+     *
+     * @param aCollection collection the object exists under
+     * @param someProperties object properties
+     * @return future of deleted objects count
+     */
+    CompletableFuture<Integer> deleteByProperties(String aCollection, Map<String, Object> someProperties);
+
+    /**
+     * Estimate number of documents under given collection. Small collections are counted exactly, large ones are
+     * estimated from a sample of the collection without reading all of its documents.
+     *
+     * @param aCollection collection
+     * @return future of estimated objects count
+     */
+    CompletableFuture<ObjCacheCountEstimate> estimateCountByCollection(String aCollection);
+
+    /**
+     * Estimate number of documents under given collection and containing given properties. Small results are counted
+     * exactly, large ones are estimated from a sample of the collection without reading all of its documents.
+     *
+     * @param aCollection collection
+     * @param someProperties properties
+     * @return future of estimated objects count
+     */
+    CompletableFuture<ObjCacheCountEstimate> estimateCountByProperties(
+        String aCollection,
+        Map<String, Object> someProperties);
+
+    /**
+     * Find object by collection and key
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @return future of found object or empty
+     */
+    <T> CompletableFuture<Optional<T>> find(String aCollection, String anObjectKey, Class<T> aClass);
+
+    /**
+     * Find objects by collection and keys
+     *
+     * @param aCollection collection
+     * @param someObjectKeys object keys
+     * @return future of found objects by object key, keys of objects which do not exist are missing
+     */
+    <T> CompletableFuture<Map<String, T>> findAll(
+        String aCollection,
+        Collection<String> someObjectKeys,
+        Class<T> aClass);
+
+    /**
+     * Find all documents under given collection
+     *
+     * @param aCollection collection
+     * @return future of all documents under given collection
+     */
+    <T> CompletableFuture<List<T>> findByCollection(String aCollection, Class<T> aClass);
+
+    /**
+     * Pass all documents under given collection one by one to given consumer without loading them all into memory
+     *
+     * @param aCollection collection
+     * @param aConsumer consumer of found documents, called within the running query on the executor thread
+     * @return future of number of consumed documents
+     */
+    <T> CompletableFuture<Long> findByCollection(String aCollection, Class<T> aClass, Consumer<? super T> aConsumer);
+
+    /**
+     * Find all documents under given collection matching given predicate
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @return future of found documents
+     */
+    <T> CompletableFuture<List<T>> findByPredicate(String aCollection, ObjCachePredicate aPredicate, Class<T> aClass);
+
+    /**
+     * Pass all documents under given collection matching given predicate one by one to given consumer without loading
+     * them all into memory
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @param aConsumer consumer of found documents, called within the running query on the executor thread
+     * @return future of number of consumed documents
+     */
+    <T> CompletableFuture<Long> findByPredicate(
+        String aCollection,
+        ObjCachePredicate aPredicate,
+        Class<T> aClass,
+        Consumer<? super T> aConsumer);
+
+    /**
+     * Find all documents under given collection and containing given properties
+     *
+     * @param aCollection collection
+     * @param someProperties object properties
+     * @return future of found documents
+     */
+    <T> CompletableFuture<List<T>> findByProperties(
+        String aCollection,
+        Map<String, Object> someProperties,
+        Class<T> aClass);
+
+    /**
+     * Pass all documents under given collection and containing given properties one by one to given consumer without
+     * loading them all into memory
+     *
+     * @param aCollection collection
+     * @param someProperties object properties
+     * @param aConsumer consumer of found documents, called within the running query on the executor thread
+     * @return future of number of consumed documents
+     */
+    <T> CompletableFuture<Long> findByProperties(
+        String aCollection,
+        Map<String, Object> someProperties,
+        Class<T> aClass,
+        Consumer<? super T> aConsumer);
+
+    /**
+     * Find keys of documents under given collection and containing given properties ordered by object key without
+     * reading the documents
+     *
+     * @param aCollection collection
+     * @param someProperties object properties, all documents of the collection if null or empty
+     * @return future of found object keys
+     */
+    CompletableFuture<List<String>> findKeys(String aCollection, Map<String, Object> someProperties);
+
+    /**
+     * Find meta data of documents under given collection and containing given properties ordered by object key
+     * without reading the documents
+     *
+     * @param aCollection collection
+     * @param someProperties object properties, all documents of the collection if null or empty
+     * @return future of found meta data
+     */
+    CompletableFuture<List<ObjCacheEntityMeta>> findMeta(String aCollection, Map<String, Object> someProperties);
+
+    /**
+     * Find single page of documents under given collection ordered by object key
+     *
+     * @param aCollection collection
+     * @param aPageSize maximum number of documents of the page
+     * @param aPageToken token of the page returned with the previous page, null for the first page
+     * @return future of found documents and token of the next page
+     */
+    <T> CompletableFuture<ObjCachePage<T>> findPageByCollection(
+        String aCollection,
+        Class<T> aClass,
+        int aPageSize,
+        String aPageToken);
+
+    /**
+     * Find single page of documents under given collection matching given predicate ordered by object key
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @param aPageSize maximum number of documents of the page
+     * @param aPageToken token of the page returned with the previous page, null for the first page
+     * @return future of found documents and token of the next page
+     */
+    <T> CompletableFuture<ObjCachePage<T>> findPageByPredicate(
+        String aCollection,
+        ObjCachePredicate aPredicate,
+        Class<T> aClass,
+        int aPageSize,
+        String aPageToken);
+
+    /**
+     * Find single page of documents under given collection and containing given properties ordered by object key
+     *
+     * @param aCollection collection
+     * @param someProperties object properties
+     * @param aPageSize maximum number of documents of the page
+     * @param aPageToken token of the page returned with the previous page, null for the first page
+     * @return future of found documents and token of the next page
+     */
+    <T> CompletableFuture<ObjCachePage<T>> findPageByProperties(
+        String aCollection,
+        Map<String, Object> someProperties,
+        Class<T> aClass,
+        int aPageSize,
+        String aPageToken);
+
+    /**
+     * Find properties of documents by collection and keys without reading the documents
+     *
+     * @param aCollection collection
+     * @param someObjectKeys object keys
+     * @return future of found properties by object key, keys of objects which do not exist are missing
+     */
+    CompletableFuture<Map<String, Map<String, Object>>> findProperties(
+        String aCollection,
+        Collection<String> someObjectKeys);
+
+    /**
+     * Find object or load it by the loader and put it with given time to live if it does not exist or has expired.
+     * Concurrent calls missing the same object share the result of a single loader call, so the returned object must
+     * be treated as immutable.
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @param aClass object class
+     * @param aSerializerType serializer type of a loaded object
+     * @param aLoader loader of a missing object, a null object is returned but not stored
+     * @param aTimeToLive time to live of a loaded object, null if it never expires
+     * @return future of found or loaded object
+     */
+    <T> CompletableFuture<T> getOrLoad(
+        String aCollection,
+        String anObjectKey,
+        Class<T> aClass,
+        SerializerType aSerializerType,
+        Supplier<T> aLoader,
+        Duration aTimeToLive);
+
+    /**
+     * Create new object or overwrite existing object regardless of its version. The version of an overwritten object
+     * is incremented, an expired object is overwritten as a new object of version 1.
+     *
+     * @param aCollection collection to put under
+     * @param anObjectKey object key
+     * @param aSerializerType serializer type
+     * @param someProperties object properties
+     * @param anObject object data
+     * @return future of object meta data
+     */
+    CompletableFuture<ObjCacheEntityMeta> put(
+        String aCollection,
+        String anObjectKey,
+        SerializerType aSerializerType,
+        Map<String, Object> someProperties,
+        Object anObject);
+
+    /**
+     * Create new object or overwrite existing object regardless of its version. The version of an overwritten object
+     * is incremented, an expired object is overwritten as a new object of version 1.
+     *
+     * @param aCollection collection to put under
+     * @param anObjectKey object key
+     * @param aSerializerType serializer type
+     * @param someProperties object properties
+     * @param anObject object data
+     * @param anExpirationTime expiration time
+     * @return future of object meta data
+     */
+    CompletableFuture<ObjCacheEntityMeta> put(
+        String aCollection,
+        String anObjectKey,
+        SerializerType aSerializerType,
+        Map<String, Object> someProperties,
+        Object anObject,
+        ZonedDateTime anExpirationTime);
+
+    /**
+     * Update existing object of given version
+     *
+     *
+     * @param aCollection collection the object exists under
+     * @param anObjectKey object key
+     * @param aVersion object version to update
+     * @param someProperties object properties
+     * @param anObject object data
+     * @param anExpirationTime expiration time
+     * @return future of object meta data
+     */
+    CompletableFuture<ObjCacheEntityMeta> update(
+        String aCollection,
+        String anObjectKey,
+        Integer aVersion,
+        Map<String, Object> someProperties,
+        Object anObject,
+        ZonedDateTime anExpirationTime);
+
+    /**
+     * Update existing object with version
+     *
+     *
+     * @param aCollection collection the object exists under
+     * @param anObjectKey object key
+     * @param someProperties object properties
+     * @param aVersion object version
+     * @param anObject object data
+     * @return future of object meta data
+     */
+    CompletableFuture<ObjCacheEntityMeta> update(
+        String aCollection,
+        String anObjectKey,
+        Map<String, Object> someProperties,
+        Integer aVersion,
+        Object anObject);
+
+    /**
+     * Update existing objects of given versions in a single transaction. Each object is checked against its own
+     * version, a conflicting or not existing object is reported as failed and does not affect the others.
+     *
+     * @param aCollection collection the objects exist under
+     * @param someItems objects to update
+     * @return future of results in the order of given objects
+     */
+    CompletableFuture<List<ObjCacheBatchResult>> updateAll(String aCollection, List<ObjCacheBatchItem> someItems);
+}
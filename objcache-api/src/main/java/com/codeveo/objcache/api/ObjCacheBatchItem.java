@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.api;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * Single object of a batch create or update.
+ *
+ */
+public class ObjCacheBatchItem {
+
+    private final String objectKey;
+
+    private final Integer version;
+
+    private final Map<String, Object> properties;
+
+    private final Object object;
+
+    private final ZonedDateTime expirationTime;
+
+    /**
+     * Constructs a new instance of class ObjCacheBatchItem to be created.
+     *
+     * @param anObjectKey object key
+     * @param someProperties object properties
+     * @param anObject object data
+     * @param anExpirationTime expiration time
+     */
+    public ObjCacheBatchItem(
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        this(anObjectKey, null, someProperties, anObject, anExpirationTime);
+    }
+
+    /**
+     * Constructs a new instance of class ObjCacheBatchItem to be updated. The expiration time replaces the stored
+     * one.
+     *
+     * @param anObjectKey object key
+     * @param aVersion object version to update
+     * @param someProperties object properties
+     * @param anObject object data
+     * @param anExpirationTime expiration time
+     */
+    public ObjCacheBatchItem(
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        super();
+        objectKey = anObjectKey;
+        version = aVersion;
+        properties = someProperties;
+        object = anObject;
+        expirationTime = anExpirationTime;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    public Object getObject() {
+        return object;
+    }
+
+    public ZonedDateTime getExpirationTime() {
+        return expirationTime;
+    }
+}
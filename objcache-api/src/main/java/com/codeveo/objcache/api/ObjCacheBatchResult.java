@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.api;
+
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+
+/**
+ * Outcome of a single object of a batch operation. Either the object meta data of the stored object or the error
+ * code of the failure is present.
+ *
+ */
+public class ObjCacheBatchResult {
+
+    private final String objectKey;
+
+    private final ObjCacheEntityMeta meta;
+
+    private final ObjCacheErrorCodeType errorCode;
+
+    /**
+     * Constructs a new instance of class ObjCacheBatchResult of a stored object.
+     *
+     * @param aMeta object meta data
+     */
+    public ObjCacheBatchResult(final ObjCacheEntityMeta aMeta) {
+        this(aMeta.getObjectKey(), aMeta, null);
+    }
+
+    /**
+     * Constructs a new instance of class ObjCacheBatchResult of a failed object.
+     *
+     * @param anObjectKey object key
+     * @param anErrorCode error code (e.g. OLC conflict)
+     */
+    public ObjCacheBatchResult(final String anObjectKey, final ObjCacheErrorCodeType anErrorCode) {
+        this(anObjectKey, null, anErrorCode);
+    }
+
+    private ObjCacheBatchResult(
+        final String anObjectKey,
+        final ObjCacheEntityMeta aMeta,
+        final ObjCacheErrorCodeType anErrorCode) {
+        super();
+        objectKey = anObjectKey;
+        meta = aMeta;
+        errorCode = anErrorCode;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public ObjCacheEntityMeta getMeta() {
+        return meta;
+    }
+
+    public ObjCacheErrorCodeType getErrorCode() {
+        return errorCode;
+    }
+
+    public boolean isSuccessful() {
+        return errorCode == null;
+    }
+}
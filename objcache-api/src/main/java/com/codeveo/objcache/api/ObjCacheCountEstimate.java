@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.api;
+
+/**
+ * Estimated number of objects.
+ *
+ */
+public class ObjCacheCountEstimate {
+
+    private final long count;
+
+    private final long errorBound;
+
+    private final boolean exact;
+
+    /**
+     * Constructs a new instance of class ObjCacheCountEstimate.
+     *
+     * @param aCount estimated count
+     * @param anErrorBound error bound of the estimated count
+     * @param isExact whether the count has been counted exactly
+     */
+    public ObjCacheCountEstimate(final long aCount, final long anErrorBound, final boolean isExact) {
+        super();
+        count = aCount;
+        errorBound = anErrorBound;
+        exact = isExact;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Error bound of the count, the actual count is within <i>count ± error bound</i> with 95% confidence, 0 if the
+     * count is exact.
+     *
+     * @return error bound
+     */
+    public long getErrorBound() {
+        return errorBound;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjCacheCountEstimate [count=" + count + ", errorBound=" + errorBound + ", exact=" + exact + "]";
+    }
+}
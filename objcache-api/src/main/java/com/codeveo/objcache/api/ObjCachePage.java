@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.api;
+
+import java.util.List;
+
+/**
+ * Single page of found objects together with the token of the next page.
+ *
+ * @param <T> object type
+ */
+public class ObjCachePage<T> {
+
+    private final List<T> objects;
+
+    private final String nextToken;
+
+    /**
+     * Constructs a new instance of class ObjCachePage.
+     *
+     * @param someObjects objects of the page
+     * @param aNextToken opaque token of the next page, null if this is the last page
+     */
+    public ObjCachePage(final List<T> someObjects, final String aNextToken) {
+        super();
+        objects = someObjects;
+        nextToken = aNextToken;
+    }
+
+    public List<T> getObjects() {
+        return objects;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Predicate over top level object properties evaluated by the database, e.g.
+ *
+ * <pre>
+ * and(eq("status", "open"), between("priority", 1, 3), not(exists("closedBy")))
+ * </pre>
+ *
+ * Property values are strings, finite numbers or booleans. Comparisons are typed, a property of another type than the
+ * compared value does not match. A predicate over a missing property is unknown and so is its negation, i.e.
+ * {@code not(eq("a", 1))} matches only objects having property {@code a} with another value.
+ *
+ */
+public final class ObjCachePredicate {
+
+    /**
+     * Predicate operator.
+     */
+    public enum Operator {
+        EQ,
+        IN,
+        GT,
+        GE,
+        LT,
+        LE,
+        BETWEEN,
+        EXISTS,
+        AND,
+        OR,
+        NOT
+    }
+
+    private final Operator operator;
+
+    private final String propertyKey;
+
+    private final List<Object> values;
+
+    private final List<ObjCachePredicate> predicates;
+
+    private ObjCachePredicate(
+        final Operator anOperator,
+        final String aPropertyKey,
+        final List<Object> someValues,
+        final List<ObjCachePredicate> somePredicates) {
+        operator = anOperator;
+        propertyKey = aPropertyKey;
+        values = someValues;
+        predicates = somePredicates;
+    }
+
+    /**
+     * Property equals given value.
+     *
+     * @param aPropertyKey property key
+     * @param aValue value
+     * @return predicate
+     */
+    public static ObjCachePredicate eq(final String aPropertyKey, final Object aValue) {
+        return property(Operator.EQ, aPropertyKey, aValue);
+    }
+
+    /**
+     * Property equals one of given values.
+     *
+     * @param aPropertyKey property key
+     * @param someValues values, at least one
+     * @return predicate
+     */
+    public static ObjCachePredicate in(final String aPropertyKey, final Object... someValues) {
+        return in(aPropertyKey, Arrays.asList(someValues));
+    }
+
+    /**
+     * Property equals one of given values.
+     *
+     * @param aPropertyKey property key
+     * @param someValues values, at least one
+     * @return predicate
+     */
+    public static ObjCachePredicate in(final String aPropertyKey, final List<?> someValues) {
+        Validate.notEmpty(someValues, "Values must be not empty");
+        return property(Operator.IN, aPropertyKey, someValues.toArray());
+    }
+
+    /**
+     * Property is greater than given value.
+     *
+     * @param aPropertyKey property key
+     * @param aValue value
+     * @return predicate
+     */
+    public static ObjCachePredicate gt(final String aPropertyKey, final Object aValue) {
+        return property(Operator.GT, aPropertyKey, aValue);
+    }
+
+    /**
+     * Property is greater than or equal to given value.
+     *
+     * @param aPropertyKey property key
+     * @param aValue value
+     * @return predicate
+     */
+    public static ObjCachePredicate ge(final String aPropertyKey, final Object aValue) {
+        return property(Operator.GE, aPropertyKey, aValue);
+    }
+
+    /**
+     * Property is less than given value.
+     *
+     * @param aPropertyKey property key
+     * @param aValue value
+     * @return predicate
+     */
+    public static ObjCachePredicate lt(final String aPropertyKey, final Object aValue) {
+        return property(Operator.LT, aPropertyKey, aValue);
+    }
+
+    /**
+     * Property is less than or equal to given value.
+     *
+     * @param aPropertyKey property key
+     * @param aValue value
+     * @return predicate
+     */
+    public static ObjCachePredicate le(final String aPropertyKey, final Object aValue) {
+        return property(Operator.LE, aPropertyKey, aValue);
+    }
+
+    /**
+     * Property is between given values, both inclusive.
+     *
+     * @param aPropertyKey property key
+     * @param aLowValue low value
+     * @param aHighValue high value
+     * @return predicate
+     */
+    public static ObjCachePredicate between(
+        final String aPropertyKey,
+        final Object aLowValue,
+        final Object aHighValue) {
+        return property(Operator.BETWEEN, aPropertyKey, aLowValue, aHighValue);
+    }
+
+    /**
+     * Property exists.
+     *
+     * @param aPropertyKey property key
+     * @return predicate
+     */
+    public static ObjCachePredicate exists(final String aPropertyKey) {
+        return property(Operator.EXISTS, aPropertyKey);
+    }
+
+    /**
+     * All given predicates are true.
+     *
+     * @param somePredicates predicates, at least one
+     * @return predicate
+     */
+    public static ObjCachePredicate and(final ObjCachePredicate... somePredicates) {
+        return composite(Operator.AND, somePredicates);
+    }
+
+    /**
+     * Any of given predicates is true.
+     *
+     * @param somePredicates predicates, at least one
+     * @return predicate
+     */
+    public static ObjCachePredicate or(final ObjCachePredicate... somePredicates) {
+        return composite(Operator.OR, somePredicates);
+    }
+
+    /**
+     * Given predicate is false.
+     *
+     * @param aPredicate predicate
+     * @return predicate
+     */
+    public static ObjCachePredicate not(final ObjCachePredicate aPredicate) {
+        return composite(Operator.NOT, aPredicate);
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Key of the property, null for {@link Operator#AND}, {@link Operator#OR} and {@link Operator#NOT}.
+     *
+     * @return property key
+     */
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    /**
+     * Compared values of a property predicate.
+     *
+     * @return values
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Predicates combined by {@link Operator#AND}, {@link Operator#OR} or negated by {@link Operator#NOT}.
+     *
+     * @return predicates
+     */
+    public List<ObjCachePredicate> getPredicates() {
+        return predicates;
+    }
+
+    @Override
+    public String toString() {
+        switch (operator) {
+            case AND:
+            case OR:
+            case NOT:
+                return operator + predicates.toString();
+            default:
+                return operator + "[" + propertyKey + (values.isEmpty() ? "" : ", " + values) + "]";
+        }
+    }
+
+    private static ObjCachePredicate property(
+        final Operator anOperator,
+        final String aPropertyKey,
+        final Object... someValues) {
+        Validate.notBlank(aPropertyKey, "Property key must be not blank");
+        for (final Object theValue : someValues) {
+            Validate
+                .isTrue(
+                    theValue instanceof String || theValue instanceof Number || theValue instanceof Boolean,
+                    "Value of property '%s' must be a string, number or boolean: %s",
+                    aPropertyKey,
+                    theValue);
+            // JSON has no NaN nor infinity, such a value would be compared as a string
+            Validate
+                .isTrue(
+                    !(theValue instanceof Double && !Double.isFinite((Double) theValue))
+                        && !(theValue instanceof Float && !Float.isFinite((Float) theValue)),
+                    "Value of property '%s' must be a finite number: %s",
+                    aPropertyKey,
+                    theValue);
+        }
+        return new ObjCachePredicate(
+            anOperator,
+            aPropertyKey,
+            Collections.unmodifiableList(Arrays.asList(someValues)),
+            Collections.emptyList());
+    }
+
+    private static ObjCachePredicate composite(final Operator anOperator, final ObjCachePredicate... somePredicates) {
+        Validate.notEmpty(somePredicates, "Predicates must be not empty");
+        Validate.noNullElements(somePredicates, "Predicates must be not null");
+        return new ObjCachePredicate(
+            anOperator,
+            null,
+            Collections.emptyList(),
+            Collections.unmodifiableList(Arrays.asList(somePredicates)));
+    }
+}
@@ -17,10 +17,14 @@
  ******************************************************************************/
 package com.codeveo.objcache.api;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.codeveo.objcache.common.ObjCacheException;
 
@@ -39,6 +43,16 @@ public interface ObjCacheService {
      */
     long countByCollection(String aCollection) throws ObjCacheException;
 
+    /**
+     * Count all documents under given collection matching given predicate
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @return objects count
+     * @throws ObjCacheException
+     */
+    long countByPredicate(String aCollection, ObjCachePredicate aPredicate) throws ObjCacheException;
+
     /**
      * Count all documents under given collection and containing given properties
      *
@@ -87,6 +101,22 @@ public interface ObjCacheService {
         ZonedDateTime anExpirationTime)
         throws ObjCacheException;
 
+    /**
+     * Create new objects in a single transaction. An object which already exists is reported as failed and does not
+     * affect the others.
+     *
+     * @param aCollection collection to create under
+     * @param aSerializerType serializer of the objects
+     * @param someItems objects to create
+     * @return results in the order of given objects
+     * @throws ObjCacheException
+     */
+    List<ObjCacheBatchResult> createAll(
+        String aCollection,
+        SerializerType aSerializerType,
+        List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException;
+
     /**
      * Delete object
      *
@@ -96,6 +126,16 @@ public interface ObjCacheService {
      */
     int delete(String aCollection, String anObjectKey) throws ObjCacheException;
 
+    /**
+     * Delete objects of given keys
+     *
+     * @param aCollection collection the objects exist under
+     * @param someObjectKeys object keys
+     * @return deleted objects count
+     * @throws ObjCacheException
+     */
+    int deleteAll(String aCollection, Collection<String> someObjectKeys) throws ObjCacheException;
+
     /**
      * Delete all object under given collection
      *
@@ -104,6 +144,16 @@ public interface ObjCacheService {
      */
     int deleteByCollection(String aCollection) throws ObjCacheException;
 
+    /**
+     * Delete objects by given collection and matching given predicate
+     *
+     * @param aCollection collection the objects exist under
+     * @param aPredicate predicate over object properties
+     * @return number of deleted objects
+     * @throws ObjCacheException
+     */
+    int deleteByPredicate(String aCollection, ObjCachePredicate aPredicate) throws ObjCacheException;
+
     /**
      * Delete object by given collection and containing given properties
      *
@@ -113,6 +163,28 @@ public interface ObjCacheService {
      */
     int deleteByProperties(String aCollection, Map<String, Object> someProperties) throws ObjCacheException;
 
+    /**
+     * Estimate number of documents under given collection. Small collections are counted exactly, large ones are
+     * estimated from a sample of the collection without reading all of its documents.
+     *
+     * @param aCollection collection
+     * @return estimated objects count
+     * @throws ObjCacheException
+     */
+    ObjCacheCountEstimate estimateCountByCollection(String aCollection) throws ObjCacheException;
+
+    /**
+     * Estimate number of documents under given collection and containing given properties. Small results are counted
+     * exactly, large ones are estimated from a sample of the collection without reading all of its documents.
+     *
+     * @param aCollection collection
+     * @param someProperties properties
+     * @return estimated objects count
+     * @throws ObjCacheException
+     */
+    ObjCacheCountEstimate estimateCountByProperties(String aCollection, Map<String, Object> someProperties)
+        throws ObjCacheException;
+
     /**
      * Find object by collection and key
      *
@@ -123,6 +195,17 @@ public interface ObjCacheService {
      */
     <T> Optional<T> find(String aCollection, String anObjectKey, Class<T> aClass) throws ObjCacheException;
 
+    /**
+     * Find objects by collection and keys
+     *
+     * @param aCollection collection
+     * @param someObjectKeys object keys
+     * @return found objects by object key, keys of objects which do not exist are missing
+     * @throws ObjCacheException
+     */
+    <T> Map<String, T> findAll(String aCollection, Collection<String> someObjectKeys, Class<T> aClass)
+        throws ObjCacheException;
+
     /**
      * Find all documents under given collection
      *
@@ -132,6 +215,45 @@ public interface ObjCacheService {
      */
     <T> List<T> findByCollection(String aCollection, Class<T> aClass) throws ObjCacheException;
 
+    /**
+     * Pass all documents under given collection one by one to given consumer without loading them all into memory
+     *
+     * @param aCollection collection
+     * @param aConsumer consumer of found documents, called within the running query
+     * @return number of consumed documents
+     * @throws ObjCacheException
+     */
+    <T> long findByCollection(String aCollection, Class<T> aClass, Consumer<? super T> aConsumer)
+        throws ObjCacheException;
+
+    /**
+     * Find all documents under given collection matching given predicate
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @return found documents
+     * @throws ObjCacheException
+     */
+    <T> List<T> findByPredicate(String aCollection, ObjCachePredicate aPredicate, Class<T> aClass)
+        throws ObjCacheException;
+
+    /**
+     * Pass all documents under given collection matching given predicate one by one to given consumer without loading
+     * them all into memory
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @param aConsumer consumer of found documents, called within the running query
+     * @return number of consumed documents
+     * @throws ObjCacheException
+     */
+    <T> long findByPredicate(
+        String aCollection,
+        ObjCachePredicate aPredicate,
+        Class<T> aClass,
+        Consumer<? super T> aConsumer)
+        throws ObjCacheException;
+
     /**
      * Find all documents under given collection and containing given properties
      *
@@ -142,6 +264,170 @@ public interface ObjCacheService {
     <T> List<T> findByProperties(String aCollection, Map<String, Object> someProperties, Class<T> aClass)
         throws ObjCacheException;
 
+    /**
+     * Pass all documents under given collection and containing given properties one by one to given consumer without
+     * loading them all into memory
+     *
+     * @param aCollection collection
+     * @param someProperties object properties
+     * @param aConsumer consumer of found documents, called within the running query
+     * @return number of consumed documents
+     * @throws ObjCacheException
+     */
+    <T> long findByProperties(
+        String aCollection,
+        Map<String, Object> someProperties,
+        Class<T> aClass,
+        Consumer<? super T> aConsumer)
+        throws ObjCacheException;
+
+    /**
+     * Find keys of documents under given collection and containing given properties ordered by object key without
+     * reading the documents
+     *
+     * @param aCollection collection
+     * @param someProperties object properties, all documents of the collection if null or empty
+     * @return found object keys
+     * @throws ObjCacheException
+     */
+    List<String> findKeys(String aCollection, Map<String, Object> someProperties) throws ObjCacheException;
+
+    /**
+     * Find meta data of documents under given collection and containing given properties ordered by object key
+     * without reading the documents
+     *
+     * @param aCollection collection
+     * @param someProperties object properties, all documents of the collection if null or empty
+     * @return found meta data
+     * @throws ObjCacheException
+     */
+    List<ObjCacheEntityMeta> findMeta(String aCollection, Map<String, Object> someProperties)
+        throws ObjCacheException;
+
+    /**
+     * Find single page of documents under given collection ordered by object key
+     *
+     * @param aCollection collection
+     * @param aPageSize maximum number of documents of the page
+     * @param aPageToken token of the page returned with the previous page, null for the first page
+     * @return found documents and token of the next page
+     * @throws ObjCacheException
+     */
+    <T> ObjCachePage<T> findPageByCollection(String aCollection, Class<T> aClass, int aPageSize, String aPageToken)
+        throws ObjCacheException;
+
+    /**
+     * Find single page of documents under given collection matching given predicate ordered by object key
+     *
+     * @param aCollection collection
+     * @param aPredicate predicate over object properties
+     * @param aPageSize maximum number of documents of the page
+     * @param aPageToken token of the page returned with the previous page, null for the first page
+     * @return found documents and token of the next page
+     * @throws ObjCacheException
+     */
+    <T> ObjCachePage<T> findPageByPredicate(
+        String aCollection,
+        ObjCachePredicate aPredicate,
+        Class<T> aClass,
+        int aPageSize,
+        String aPageToken)
+        throws ObjCacheException;
+
+    /**
+     * Find single page of documents under given collection and containing given properties ordered by object key
+     *
+     * @param aCollection collection
+     * @param someProperties object properties
+     * @param aPageSize maximum number of documents of the page
+     * @param aPageToken token of the page returned with the previous page, null for the first page
+     * @return found documents and token of the next page
+     * @throws ObjCacheException
+     */
+    <T> ObjCachePage<T> findPageByProperties(
+        String aCollection,
+        Map<String, Object> someProperties,
+        Class<T> aClass,
+        int aPageSize,
+        String aPageToken)
+        throws ObjCacheException;
+
+    /**
+     * Find properties of documents by collection and keys without reading the documents
+     *
+     * @param aCollection collection
+     * @param someObjectKeys object keys
+     * @return found properties by object key, keys of objects which do not exist are missing
+     * @throws ObjCacheException
+     */
+    Map<String, Map<String, Object>> findProperties(String aCollection, Collection<String> someObjectKeys)
+        throws ObjCacheException;
+
+    /**
+     * Find object or load it by the loader and put it with given time to live if it does not exist or has expired.
+     * Concurrent calls of this service missing the same object share the result of a single loader call, so the
+     * returned object must be treated as immutable.
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @param aClass object class
+     * @param aSerializerType serializer type of a loaded object
+     * @param aLoader loader of a missing object, a null object is returned but not stored
+     * @param aTimeToLive time to live of a loaded object, null if it never expires
+     * @return found or loaded object
+     * @throws ObjCacheException
+     */
+    <T> T getOrLoad(
+        String aCollection,
+        String anObjectKey,
+        Class<T> aClass,
+        SerializerType aSerializerType,
+        Supplier<T> aLoader,
+        Duration aTimeToLive)
+        throws ObjCacheException;
+
+    /**
+     * Create new object or overwrite existing object regardless of its version. The version of an overwritten object
+     * is incremented, an expired object is overwritten as a new object of version 1.
+     *
+     * @param aCollection collection to put under
+     * @param anObjectKey object key
+     * @param aSerializerType serializer type
+     * @param someProperties object properties
+     * @param anObject object data
+     * @return object meta data
+     * @throws ObjCacheException
+     */
+    ObjCacheEntityMeta put(
+        String aCollection,
+        String anObjectKey,
+        SerializerType aSerializerType,
+        Map<String, Object> someProperties,
+        Object anObject)
+        throws ObjCacheException;
+
+    /**
+     * Create new object or overwrite existing object regardless of its version. The version of an overwritten object
+     * is incremented, an expired object is overwritten as a new object of version 1.
+     *
+     * @param aCollection collection to put under
+     * @param anObjectKey object key
+     * @param aSerializerType serializer type
+     * @param someProperties object properties
+     * @param anObject object data
+     * @param anExpirationTime expiration time
+     * @return object meta data
+     * @throws ObjCacheException
+     */
+    ObjCacheEntityMeta put(
+        String aCollection,
+        String anObjectKey,
+        SerializerType aSerializerType,
+        Map<String, Object> someProperties,
+        Object anObject,
+        ZonedDateTime anExpirationTime)
+        throws ObjCacheException;
+
     /**
      * Update existing object of given version
      *
@@ -183,4 +469,15 @@ public interface ObjCacheService {
         Integer aVersion,
         Object anObject)
         throws ObjCacheException;
+
+    /**
+     * Update existing objects of given versions in a single transaction. Each object is checked against its own
+     * version, a conflicting or not existing object is reported as failed and does not affect the others.
+     *
+     * @param aCollection collection the objects exist under
+     * @param someItems objects to update
+     * @return results in the order of given objects
+     * @throws ObjCacheException
+     */
+    List<ObjCacheBatchResult> updateAll(String aCollection, List<ObjCacheBatchItem> someItems) throws ObjCacheException;
 }
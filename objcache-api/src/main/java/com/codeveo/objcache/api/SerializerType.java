@@ -19,5 +19,21 @@ package com.codeveo.objcache.api;
 
 public enum SerializerType {
     JSON,
-    JAVA_BASE64
+    JAVA_BASE64,
+    /**
+     * Java serialization stored as raw bytes in the binary column
+     */
+    JAVA,
+    /**
+     * JSON compressed with Deflate when big enough, stored in the binary column
+     */
+    JSON_DEFLATE,
+    /**
+     * Java serialization compressed with Deflate when big enough, stored in the binary column
+     */
+    JAVA_DEFLATE,
+    /**
+     * Jackson Smile (binary JSON), stored in the binary column
+     */
+    SMILE
 }
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark payload, an object graph of a configurable number of items.
+ *
+ */
+public class BenchmarkObj implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+
+    private long timestamp;
+
+    private Map<String, String> attributes;
+
+    private List<Item> items;
+
+    public BenchmarkObj() {
+    }
+
+    /**
+     * Create payload of given number of items.
+     *
+     * @param anItemCount number of items
+     * @return payload
+     */
+    public static BenchmarkObj create(final int anItemCount) {
+        final BenchmarkObj theObj = new BenchmarkObj();
+        theObj.name = "benchmark-" + anItemCount;
+        theObj.timestamp = 1_540_000_000_000L;
+        theObj.attributes = new LinkedHashMap<>();
+        theObj.items = new ArrayList<>(anItemCount);
+        for (int i = 0; i < anItemCount; i++) {
+            theObj.attributes.put("attribute" + i, "value of attribute " + i);
+
+            final Item theItem = new Item();
+            theItem.code = "item-" + i;
+            theItem.quantity = i;
+            theItem.price = i * 1.5;
+            theItem.active = i % 2 == 0;
+            theObj.items.add(theItem);
+        }
+        return theObj;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String aName) {
+        name = aName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final long aTimestamp) {
+        timestamp = aTimestamp;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(final Map<String, String> someAttributes) {
+        attributes = someAttributes;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(final List<Item> someItems) {
+        items = someItems;
+    }
+
+    public static class Item implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String code;
+
+        private int quantity;
+
+        private double price;
+
+        private boolean active;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(final String aCode) {
+            code = aCode;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(final int aQuantity) {
+            quantity = aQuantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(final double aPrice) {
+            price = aPrice;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(final boolean anActive) {
+            active = anActive;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark launcher accepting the standard JMH command line options. Unless told otherwise the results are written
+ * as JSON (to <i>jmh-result.json</i> by default) and the GC profiler reports the allocation rate of every
+ * benchmark, so results of releases can be compared by tools.
+ *
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(final String[] someArgs) throws Exception {
+        final CommandLineOptions theCommandLineOptions = new CommandLineOptions(someArgs);
+        if (theCommandLineOptions.shouldHelp()) {
+            theCommandLineOptions.showHelp();
+            return;
+        }
+        if (theCommandLineOptions.shouldList()) {
+            new Runner(theCommandLineOptions).list();
+            return;
+        }
+
+        final ChainedOptionsBuilder theOptions = new OptionsBuilder().parent(theCommandLineOptions);
+        if (!theCommandLineOptions.getResultFormat().hasValue()) {
+            theOptions.resultFormat(ResultFormatType.JSON);
+        }
+        if (theCommandLineOptions.getProfilers().isEmpty()) {
+            theOptions.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(theOptions.build()).run();
+    }
+}
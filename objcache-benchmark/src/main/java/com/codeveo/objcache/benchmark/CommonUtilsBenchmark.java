@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.benchmark;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codeveo.objcache.common.ObjCacheCommonUtils;
+import com.codeveo.objcache.common.ObjCacheJsonUtils;
+
+/**
+ * Throughput of the common JSON and date time helpers used on every service call (object properties are converted
+ * to JSON by each query).
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommonUtilsBenchmark {
+
+    private final ObjCacheJsonUtils jsonUtils = new ObjCacheJsonUtils();
+
+    private Map<String, Object> properties;
+
+    private String propertiesJson;
+
+    private ZonedDateTime dateTime;
+
+    @Setup
+    public void setUp() {
+        properties = new LinkedHashMap<>();
+        properties.put("type", "order");
+        properties.put("customerId", 123456);
+        properties.put("active", true);
+        properties.put("region", "eu-central");
+        propertiesJson = jsonUtils.toJson(properties);
+        dateTime = ZonedDateTime.of(2018, 10, 20, 12, 30, 0, 0, ZoneId.of("Europe/Bratislava"));
+    }
+
+    @Benchmark
+    public String toJson() {
+        return jsonUtils.toJson(properties);
+    }
+
+    @Benchmark
+    public Map<?, ?> fromJson() {
+        return jsonUtils.fromJson(propertiesJson, Map.class);
+    }
+
+    @Benchmark
+    public String jsonOrDefaultToString() {
+        return ObjCacheCommonUtils.jsonOrDefaultToString(properties);
+    }
+
+    @Benchmark
+    public String formatDateTimeWithZoneSameInstant() {
+        return ObjCacheCommonUtils.formatDateTimeWithZoneSameInstant(dateTime, ZoneOffset.UTC);
+    }
+}
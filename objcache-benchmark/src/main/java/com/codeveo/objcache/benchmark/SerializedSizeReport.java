@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializer;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactoryImpl;
+
+/**
+ * Prints sizes of the benchmark payloads serialized by every serializer as CSV
+ * (serializer type, item count, stored bytes).
+ *
+ */
+public final class SerializedSizeReport {
+
+    private static final int[] ITEM_COUNTS = { 10, 100, 1000 };
+
+    private SerializedSizeReport() {
+    }
+
+    public static void main(final String[] someArgs) {
+        final ObjCacheSerializerDeserializerFactoryImpl theFactory = new ObjCacheSerializerDeserializerFactoryImpl();
+
+        System.out.println("serializerType,itemCount,bytes");
+        for (final SerializerType theSerializerType : SerializerType.values()) {
+            final ObjCacheSerializerDeserializer theSerDer = theFactory.getSerializer(theSerializerType);
+            for (final int theItemCount : ITEM_COUNTS) {
+                final BenchmarkObj theObject = BenchmarkObj.create(theItemCount);
+                final int theSize =
+                    theSerDer instanceof ObjCacheBinarySerializerDeserializer
+                        ? ((ObjCacheBinarySerializerDeserializer) theSerDer)
+                            .serializeBinary("benchmark", "key", theObject).length
+                        : theSerDer.serialize("benchmark", "key", theObject).getBytes(StandardCharsets.UTF_8).length;
+                System.out.println(theSerializerType + "," + theItemCount + "," + theSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializer;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactoryImpl;
+
+/**
+ * Serialization and deserialization throughput of the serializers across payload sizes. Sizes of the serialized
+ * payloads are printed by {@link SerializedSizeReport}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private static final String COLLECTION = "benchmark";
+
+    private static final String OBJECT_KEY = "key";
+
+    @Param({ "JSON", "JAVA_BASE64", "JAVA", "JSON_DEFLATE", "JAVA_DEFLATE", "SMILE" })
+    private SerializerType serializerType;
+
+    @Param({ "10", "100", "1000" })
+    private int itemCount;
+
+    private ObjCacheSerializerDeserializer serDer;
+
+    private BenchmarkObj object;
+
+    private String serializedText;
+
+    private byte[] serializedBinary;
+
+    @Setup
+    public void setUp() {
+        serDer = new ObjCacheSerializerDeserializerFactoryImpl().getSerializer(serializerType);
+        object = BenchmarkObj.create(itemCount);
+        if (serDer instanceof ObjCacheBinarySerializerDeserializer) {
+            serializedBinary =
+                ((ObjCacheBinarySerializerDeserializer) serDer).serializeBinary(COLLECTION, OBJECT_KEY, object);
+        } else {
+            serializedText = serDer.serialize(COLLECTION, OBJECT_KEY, object);
+        }
+    }
+
+    @Benchmark
+    public Object serialize() {
+        if (serDer instanceof ObjCacheBinarySerializerDeserializer) {
+            return ((ObjCacheBinarySerializerDeserializer) serDer).serializeBinary(COLLECTION, OBJECT_KEY, object);
+        }
+        return serDer.serialize(COLLECTION, OBJECT_KEY, object);
+    }
+
+    @Benchmark
+    public BenchmarkObj deserialize() {
+        if (serDer instanceof ObjCacheBinarySerializerDeserializer) {
+            return ((ObjCacheBinarySerializerDeserializer) serDer)
+                .deserializeBinary(
+                    COLLECTION,
+                    OBJECT_KEY,
+                    new ByteArrayInputStream(serializedBinary),
+                    BenchmarkObj.class);
+        }
+        return serDer.deserialize(COLLECTION, OBJECT_KEY, serializedText, BenchmarkObj.class);
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheInMemoryService;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactoryImpl;
+import com.codeveo.objcache.impl.ObjCacheServiceImpl;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * End-to-end throughput of the object cache service operations against a local PostgreSQL database with the object
+ * cache schema, or against the in-memory storage. The database is configured by system properties
+ * <i>objcache.benchmark.url</i>, <i>objcache.benchmark.username</i> and <i>objcache.benchmark.password</i> (the test
+ * database by default). All objects of the benchmark collection are deleted before and after each trial.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final String COLLECTION = "benchmark";
+
+    private static final int OBJECT_COUNT = 1000;
+
+    private static final int FIND_ALL_KEY_COUNT = 50;
+
+    private static final Map<String, Object> PROPERTIES = ImmutableMap.of("type", "benchmark", "group", 1);
+
+    /**
+     * Storage of the benchmarked service.
+     */
+    public enum Storage {
+        DATABASE,
+        MEMORY
+    }
+
+    @Param({ "DATABASE", "MEMORY" })
+    private Storage storage;
+
+    @Param({ "JSON", "SMILE" })
+    private SerializerType serializerType;
+
+    @Param({ "10" })
+    private int itemCount;
+
+    private BasicDataSource dataSource;
+
+    private ObjCacheService service;
+
+    private BenchmarkObj object;
+
+    private List<String> findAllKeys;
+
+    private final AtomicLong keySequence = new AtomicLong();
+
+    private ObjCacheEntityMeta updatedMeta;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (storage == Storage.MEMORY) {
+            service = new ObjCacheInMemoryService(new ObjCacheSerializerDeserializerFactoryImpl());
+        } else {
+            dataSource = new BasicDataSource();
+            dataSource
+                .setUrl(
+                    System.getProperty("objcache.benchmark.url", "jdbc:postgresql://localhost:5432/test_cdv_objcache"));
+            dataSource.setUsername(System.getProperty("objcache.benchmark.username", "testobjcache"));
+            dataSource.setPassword(System.getProperty("objcache.benchmark.password", "testobjcache"));
+
+            final JdbcTemplate theJdbcTemplate = new JdbcTemplate(dataSource);
+            final TransactionTemplate theTxTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            service =
+                new ObjCacheServiceImpl(
+                    theTxTemplate,
+                    theJdbcTemplate,
+                    new ObjCacheSerializerDeserializerFactoryImpl());
+        }
+        service.deleteByCollection(COLLECTION);
+
+        object = BenchmarkObj.create(itemCount);
+        findAllKeys = new ArrayList<>(FIND_ALL_KEY_COUNT);
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            service.create(COLLECTION, "object" + i, serializerType, PROPERTIES, object);
+            if (i < FIND_ALL_KEY_COUNT) {
+                findAllKeys.add("object" + i);
+            }
+        }
+        updatedMeta = service.create(COLLECTION, "updated", serializerType, PROPERTIES, object);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service.deleteByCollection(COLLECTION);
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public Object find() {
+        return service.find(COLLECTION, "object" + (keySequence.incrementAndGet() % OBJECT_COUNT), BenchmarkObj.class);
+    }
+
+    @Benchmark
+    public Object findAll() {
+        return service.findAll(COLLECTION, findAllKeys, BenchmarkObj.class);
+    }
+
+    @Benchmark
+    public long countByProperties() {
+        return service.countByProperties(COLLECTION, PROPERTIES);
+    }
+
+    @Benchmark
+    public ObjCacheEntityMeta create() {
+        return service
+            .create(COLLECTION, "created" + keySequence.incrementAndGet(), serializerType, PROPERTIES, object);
+    }
+
+    @Benchmark
+    public ObjCacheEntityMeta put() {
+        final String theObjectKey = "object" + (keySequence.incrementAndGet() % OBJECT_COUNT);
+        return service.put(COLLECTION, theObjectKey, serializerType, PROPERTIES, object);
+    }
+
+    @Benchmark
+    public synchronized ObjCacheEntityMeta update() {
+        updatedMeta = service.update(COLLECTION, "updated", PROPERTIES, updatedMeta.getVersion(), object);
+        return updatedMeta;
+    }
+}
@@ -71,7 +71,19 @@ public class ObjCacheJsonUtils {
      * @return object mapper
      */
     public static ObjectMapper createDefaultObjectMapper() {
-        return new ObjectMapper()
+        return configureDefaultObjectMapper(new ObjectMapper());
+    }
+
+    /**
+     * Configure given object mapper (e.g. one of a binary JSON format) with the features of the default object
+     * mapper.
+     *
+     * @param anObjectMapper object mapper
+     * @return configured object mapper
+     * @see #createDefaultObjectMapper()
+     */
+    public static ObjectMapper configureDefaultObjectMapper(final ObjectMapper anObjectMapper) {
+        return anObjectMapper
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true)
             .configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true)
             .configure(DeserializationFeature.READ_ENUMS_USING_TO_STRING, true)
@@ -0,0 +1,70 @@
+--#-------------------------------------------------------------------------------
+--# Copyright 2018 Codeveo Ltd.
+--# 
+--# Written by Ladislav Klenovic <lklenovic@codeveo.com>
+--# 
+--# Licensed under the Apache License, Version 2.0 (the "License"); you may not
+--# use this file except in compliance with the License.  You may obtain a copy
+--# of the License at
+--# 
+--#   http://www.apache.org/licenses/LICENSE-2.0
+--# 
+--# Unless required by applicable law or agreed to in writing, software
+--# distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+--# WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+--# License for the specific language governing permissions and limitations under
+--# the License.
+--#-------------------------------------------------------------------------------
+-- Alternative to schema-postgresql.sql (PostgreSQL 11+): t_objcache partitioned by collection_id. Objects of all
+-- collections are stored in the default partition until a collection gets a dedicated partition by
+-- objcache_create_collection_partition, e.g. SELECT objcache_create_collection_partition('orders');
+-- Queries of a collection then touch only its partition and deleteByCollection truncates the partition.
+CREATE TABLE IF NOT EXISTS public.t_objcache(
+      id SERIAL NOT NULL,
+      collection_id VARCHAR(64) NOT NULL,
+      object_key VARCHAR(64) NOT NULL,
+      serializer_type VARCHAR(16) NOT NULL,
+      version INTEGER NOT NULL,
+      object_data TEXT,
+      object_data_bin BYTEA,
+      properties jsonb,
+      expiration_time TIMESTAMP WITH TIME ZONE,
+      
+      PRIMARY KEY(collection_id, id),
+      UNIQUE(collection_id, object_key)
+) PARTITION BY LIST (collection_id);
+
+CREATE TABLE IF NOT EXISTS public.t_objcache_default PARTITION OF public.t_objcache DEFAULT;
+
+-- indexes of the partitioned table are created on every partition
+CREATE INDEX IF NOT EXISTS idx_id ON public.t_objcache (id);
+CREATE INDEX IF NOT EXISTS idx_properties ON public.t_objcache USING gin (properties);
+CREATE INDEX IF NOT EXISTS idx_expiration_time ON public.t_objcache (expiration_time) WHERE expiration_time IS NOT NULL;
+
+CREATE SEQUENCE IF NOT EXISTS public.objcache_sequence;
+
+-- move objects of a collection from the default partition into a new partition of the collection; the default
+-- partition is locked until the end of the transaction, so writers of collections stored in it wait meanwhile
+CREATE OR REPLACE FUNCTION public.objcache_create_collection_partition(a_collection VARCHAR) RETURNS VOID AS $$
+DECLARE
+    v_partition TEXT := 't_objcache_'
+        || left(regexp_replace(lower(a_collection), '[^a-z0-9_]', '_', 'g'), 40)
+        || '_'
+        || left(md5(a_collection), 8);
+BEGIN
+    -- objects written between the copy and the delete would be lost, those written after the delete would make the
+    -- attach fail
+    LOCK TABLE public.t_objcache_default IN SHARE ROW EXCLUSIVE MODE;
+    EXECUTE format('CREATE TABLE public.%I (LIKE public.t_objcache INCLUDING DEFAULTS)', v_partition);
+    EXECUTE format(
+        'INSERT INTO public.%I SELECT * FROM public.t_objcache_default WHERE collection_id = %L',
+        v_partition,
+        a_collection);
+    -- the default partition must not contain objects of the collection when the new partition is attached
+    DELETE FROM public.t_objcache_default WHERE collection_id = a_collection;
+    EXECUTE format(
+        'ALTER TABLE public.t_objcache ATTACH PARTITION public.%I FOR VALUES IN (%L)',
+        v_partition,
+        a_collection);
+END;
+$$ LANGUAGE plpgsql;
@@ -22,15 +22,20 @@ CREATE TABLE IF NOT EXISTS public.t_objcache(
       serializer_type VARCHAR(16) NOT NULL,
       version INTEGER NOT NULL,
       object_data TEXT,
+      object_data_bin BYTEA,
       properties jsonb,
       expiration_time TIMESTAMP WITH TIME ZONE,
       
       UNIQUE(collection_id, object_key)
 );
 
+-- binary object data of schemas created by older versions
+ALTER TABLE public.t_objcache ADD COLUMN IF NOT EXISTS object_data_bin BYTEA;
+
 CREATE INDEX IF NOT EXISTS idx_collection_id ON public.t_objcache (collection_id);
 CREATE INDEX IF NOT EXISTS idx_object_key ON public.t_objcache (object_key);
 CREATE INDEX IF NOT EXISTS idx_collection_key ON public.t_objcache (collection_id, object_key);
 CREATE INDEX IF NOT EXISTS idx_properties ON public.t_objcache USING gin (properties);
+CREATE INDEX IF NOT EXISTS idx_expiration_time ON public.t_objcache (expiration_time) WHERE expiration_time IS NOT NULL;
 
 CREATE SEQUENCE IF NOT EXISTS public.objcache_sequence;
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.lang3.Validate;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Serializer compressing the output of another serializer with Deflate.
+ * <p>
+ * Only payloads of at least the threshold size are compressed, smaller ones (and the ones which do not get smaller)
+ * are stored as they are, so small objects do not pay the compression CPU cost. The first byte of the stored data
+ * tells whether the rest is compressed.
+ * <p>
+ * Deflaters and inflaters are taken from small bounded pools and reset before each use instead of allocating their
+ * native zlib state on every call. They are not kept per thread, because threads of a virtual thread per task
+ * executor would never reuse them. Instances not fitting into a pool are ended at once instead of leaving their
+ * native state to the garbage collector.
+ *
+ */
+public class DeflateObjSerializerDeserializer implements ObjCacheBinarySerializerDeserializer {
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private static final byte UNCOMPRESSED = 0;
+
+    private static final byte COMPRESSED = 1;
+
+    private final SerializerType serializerType;
+
+    private final ObjCacheSerializerDeserializer delegate;
+
+    private final int threshold;
+
+    /**
+     * Maximum number of idle deflaters and inflaters kept by each pool.
+     */
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final ZlibPool<Deflater> deflaters =
+        new ZlibPool<>(() -> new Deflater(Deflater.BEST_SPEED), Deflater::reset, Deflater::end);
+
+    private final ZlibPool<Inflater> inflaters = new ZlibPool<>(Inflater::new, Inflater::reset, Inflater::end);
+
+    /**
+     * Constructs a new instance of class DeflateObjSerializerDeserializer.
+     *
+     * @param aSerializerType serializer type of the compressed data
+     * @param aDelegate serializer of the uncompressed data
+     * @param aThreshold minimal size in bytes of the uncompressed data to be compressed
+     */
+    public DeflateObjSerializerDeserializer(
+        final SerializerType aSerializerType,
+        final ObjCacheSerializerDeserializer aDelegate,
+        final int aThreshold) {
+        serializerType = Validate.notNull(aSerializerType, "Serializer type is required");
+        delegate = Validate.notNull(aDelegate, "Serializer is required");
+        Validate.isTrue(aThreshold >= 0, "Threshold must be not negative");
+        threshold = aThreshold;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer#serializeBinary(java.lang.String,
+     *      java.lang.String, java.lang.Object)
+     */
+    @Override
+    public byte[] serializeBinary(final String aCollectionId, final String anObjectKey, final Object anObject) {
+        final byte[] theData = serializeUncompressed(aCollectionId, anObjectKey, anObject);
+        if (theData == null) {
+            return null;
+        }
+
+        final ObjCacheOutputBuffer theBuffer = ObjCacheOutputBuffer.acquire();
+        try {
+            if (theData.length >= threshold) {
+                final Deflater theDeflater = deflaters.acquire();
+                theBuffer.write(COMPRESSED);
+                // deflater passed in is not ended by the stream
+                try (final DeflaterOutputStream theDos = new DeflaterOutputStream(theBuffer, theDeflater)) {
+                    theDos.write(theData);
+                } finally {
+                    deflaters.release(theDeflater);
+                }
+
+                if (theBuffer.size() < theData.length + 1) {
+                    return theBuffer.toByteArray();
+                }
+            }
+
+            final byte[] theUncompressed = new byte[theData.length + 1];
+            theUncompressed[0] = UNCOMPRESSED;
+            System.arraycopy(theData, 0, theUncompressed, 1, theData.length);
+            return theUncompressed;
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0003,
+                anException,
+                aCollectionId,
+                anObjectKey);
+        } finally {
+            theBuffer.release();
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer#deserializeBinary(java.lang.String,
+     *      java.lang.String, java.io.InputStream, java.lang.Class)
+     */
+    @Override
+    public <T> T deserializeBinary(
+        final String aCollectionId,
+        final String anObjectKey,
+        final InputStream aSerializedObject,
+        final Class<T> aClass) {
+        try {
+            final int theHeader = aSerializedObject.read();
+            if (theHeader == COMPRESSED) {
+                final Inflater theInflater = inflaters.acquire();
+                try (final InflaterInputStream theIis = new InflaterInputStream(aSerializedObject, theInflater)) {
+                    return deserializeUncompressed(aCollectionId, anObjectKey, theIis, aClass);
+                } finally {
+                    inflaters.release(theInflater);
+                }
+            }
+            Validate.validState(theHeader == UNCOMPRESSED, "Unknown compression header %s", theHeader);
+
+            return deserializeUncompressed(aCollectionId, anObjectKey, aSerializedObject, aClass);
+        } catch (final ObjCacheException anException) {
+            throw anException;
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0004,
+                anException,
+                aCollectionId,
+                anObjectKey);
+        }
+    }
+
+    @Override
+    public SerializerType getSerializerType() {
+        return serializerType;
+    }
+
+    private byte[] serializeUncompressed(final String aCollectionId, final String anObjectKey, final Object anObject) {
+        if (delegate instanceof ObjCacheBinarySerializerDeserializer) {
+            return ((ObjCacheBinarySerializerDeserializer) delegate)
+                .serializeBinary(aCollectionId, anObjectKey, anObject);
+        }
+
+        final String theData = delegate.serialize(aCollectionId, anObjectKey, anObject);
+        return theData != null ? theData.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private <T> T deserializeUncompressed(
+        final String aCollectionId,
+        final String anObjectKey,
+        final InputStream aSerializedObject,
+        final Class<T> aClass)
+        throws Exception {
+        if (delegate instanceof ObjCacheBinarySerializerDeserializer) {
+            return ((ObjCacheBinarySerializerDeserializer) delegate)
+                .deserializeBinary(aCollectionId, anObjectKey, aSerializedObject, aClass);
+        }
+
+        return delegate
+            .deserialize(
+                aCollectionId,
+                anObjectKey,
+                new String(ByteStreams.toByteArray(aSerializedObject), StandardCharsets.UTF_8),
+                aClass);
+    }
+
+    /**
+     * Bounded pool of deflaters or inflaters.
+     */
+    private static final class ZlibPool<T> {
+
+        private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        private final Supplier<T> factory;
+
+        private final Consumer<T> resetter;
+
+        private final Consumer<T> finisher;
+
+        private ZlibPool(final Supplier<T> aFactory, final Consumer<T> aResetter, final Consumer<T> aFinisher) {
+            factory = aFactory;
+            resetter = aResetter;
+            finisher = aFinisher;
+        }
+
+        /**
+         * Take idle instance reset for a new use or create a new one.
+         */
+        private T acquire() {
+            final T theInstance = idle.poll();
+            if (theInstance == null) {
+                return factory.get();
+            }
+
+            idleCount.decrementAndGet();
+            resetter.accept(theInstance);
+            return theInstance;
+        }
+
+        /**
+         * Return instance to the pool, or end it if the pool is full.
+         */
+        private void release(final T anInstance) {
+            if (idleCount.incrementAndGet() <= POOL_SIZE) {
+                idle.offer(anInstance);
+            } else {
+                idleCount.decrementAndGet();
+                finisher.accept(anInstance);
+            }
+        }
+    }
+}
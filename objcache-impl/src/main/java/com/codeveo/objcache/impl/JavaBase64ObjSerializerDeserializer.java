@@ -18,7 +18,6 @@
 package com.codeveo.objcache.impl;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Base64;
@@ -36,18 +35,21 @@ public class JavaBase64ObjSerializerDeserializer implements ObjCacheSerializerDe
      */
     @Override
     public String serialize(final String aCollectionId, final String anObjectKey, final Object anObject) {
-        try (
-            final ByteArrayOutputStream theBaos = new ByteArrayOutputStream();
-            final ObjectOutputStream theOos = new ObjectOutputStream(theBaos)) {
+        final ObjCacheOutputBuffer theBuffer = ObjCacheOutputBuffer.acquire();
+        try {
+            final ObjectOutputStream theOos = new ObjectOutputStream(theBuffer);
             theOos.writeObject(anObject);
+            theOos.flush();
 
-            return Base64.getEncoder().encodeToString(theBaos.toByteArray());
+            return theBuffer.toBase64String();
         } catch (final Exception anException) {
             throw new ObjCacheException(
                 ObjCacheErrorCodeType.OBJCACHE_EC_0003,
                 anException,
                 aCollectionId,
                 anObjectKey);
+        } finally {
+            theBuffer.release();
         }
     }
 
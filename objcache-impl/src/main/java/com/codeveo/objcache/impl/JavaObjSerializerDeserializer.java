@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+
+public class JavaObjSerializerDeserializer implements ObjCacheBinarySerializerDeserializer {
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer#serializeBinary(java.lang.String,
+     *      java.lang.String, java.lang.Object)
+     */
+    @Override
+    public byte[] serializeBinary(final String aCollectionId, final String anObjectKey, final Object anObject) {
+        final ObjCacheOutputBuffer theBuffer = ObjCacheOutputBuffer.acquire();
+        try {
+            final ObjectOutputStream theOos = new ObjectOutputStream(theBuffer);
+            theOos.writeObject(anObject);
+            theOos.flush();
+
+            return theBuffer.toByteArray();
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0003,
+                anException,
+                aCollectionId,
+                anObjectKey);
+        } finally {
+            theBuffer.release();
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer#deserializeBinary(java.lang.String,
+     *      java.lang.String, java.io.InputStream, java.lang.Class)
+     */
+    @Override
+    public <T> T deserializeBinary(
+        final String aCollectionId,
+        final String anObjectKey,
+        final InputStream aSerializedObject,
+        final Class<T> aClass) {
+        try (final ObjectInputStream theOis = new ObjectInputStream(aSerializedObject)) {
+            return aClass.cast(theOis.readObject());
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0004,
+                anException,
+                aCollectionId,
+                anObjectKey);
+        }
+    }
+
+    @Override
+    public SerializerType getSerializerType() {
+        return SerializerType.JAVA;
+    }
+}
@@ -21,11 +21,11 @@ import com.codeveo.objcache.api.SerializerType;
 import com.codeveo.objcache.common.ObjCacheErrorCodeType;
 import com.codeveo.objcache.common.ObjCacheException;
 import com.codeveo.objcache.common.ObjCacheJsonUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class JsonObjSerializerDeserializer implements ObjCacheSerializerDeserializer {
 
-    private static final ObjectMapper MAPPER = ObjCacheJsonUtils.createDefaultObjectMapper();
+    private static final ObjCacheJacksonCodec CODEC =
+        new ObjCacheJacksonCodec(ObjCacheJsonUtils.createDefaultObjectMapper());
 
     /**
      * Overrides an inherit method or implements an abstract method.
@@ -36,7 +36,7 @@ public class JsonObjSerializerDeserializer implements ObjCacheSerializerDeserial
     @Override
     public String serialize(final String aCollectionId, final String anObjectKey, final Object anObject) {
         try {
-            return anObject != null ? MAPPER.writeValueAsString(anObject) : null;
+            return anObject != null ? CODEC.writer(anObject).writeValueAsString(anObject) : null;
         } catch (final Exception anException) {
             throw new ObjCacheException(
                 ObjCacheErrorCodeType.OBJCACHE_EC_0003,
@@ -59,7 +59,7 @@ public class JsonObjSerializerDeserializer implements ObjCacheSerializerDeserial
         final String aSerializedObject,
         Class<T> aClass) {
         try {
-            return MAPPER.readValue(aSerializedObject, aClass);
+            return CODEC.reader(aClass).readValue(aSerializedObject);
         } catch (final Exception anException) {
             throw new ObjCacheException(
                 ObjCacheErrorCodeType.OBJCACHE_EC_0004,
@@ -0,0 +1,699 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codeveo.objcache.api.ObjCacheAsyncService;
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Asynchronous object cache service running operations of a blocking service on an executor. Serialization and
+ * deserialization of objects run on the executor as well, the calling thread only submits the operation.
+ * <p>
+ * Unless an executor is given, operations run on virtual threads when the JDK supports them (Java 21+) and on a
+ * bounded pool of {@link #DEFAULT_MAX_THREADS} daemon threads otherwise. Either way the number of operations
+ * running at once is limited by the connection pool of the data source, an operation waiting for a connection
+ * blocks only its executor thread.
+ * <p>
+ * Operations waiting for a thread of the pool are queued up to {@link #DEFAULT_QUEUE_CAPACITY_PER_THREAD} per
+ * thread. When the queue is full, the operation runs on the calling thread, which so cannot submit further
+ * operations faster than the database completes them.
+ *
+ */
+public class ObjCacheAsyncServiceImpl implements ObjCacheAsyncService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjCacheAsyncServiceImpl.class);
+
+    /**
+     * Default number of threads of the bounded pool used when virtual threads are not supported. Operations
+     * submitted while all threads are busy wait in a queue of bounded capacity, see
+     * {@link #DEFAULT_QUEUE_CAPACITY_PER_THREAD}.
+     */
+    public static final int DEFAULT_MAX_THREADS = 32;
+
+    /**
+     * Default number of operations waiting in the queue of the bounded pool per thread of the pool. An operation
+     * submitted when the queue is full runs on the calling thread.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY_PER_THREAD = 16;
+
+    private final ObjCacheService delegate;
+
+    private final Executor executor;
+
+    /**
+     * Executor created by this service and shut down by {@link #shutdown()}, null for a given executor.
+     */
+    private final ExecutorService ownExecutor;
+
+    /**
+     * Create service running operations on virtual threads or on a bounded pool of {@link #DEFAULT_MAX_THREADS}
+     * threads.
+     *
+     * @param aDelegate blocking service
+     */
+    public ObjCacheAsyncServiceImpl(final ObjCacheService aDelegate) {
+        this(aDelegate, DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Create service running operations on virtual threads or on a bounded pool of given size.
+     *
+     * @param aDelegate blocking service
+     * @param aMaxThreads maximum number of threads of the pool used when virtual threads are not supported
+     */
+    public ObjCacheAsyncServiceImpl(final ObjCacheService aDelegate, final int aMaxThreads) {
+        this(aDelegate, aMaxThreads, aMaxThreads * DEFAULT_QUEUE_CAPACITY_PER_THREAD);
+    }
+
+    /**
+     * Create service running operations on virtual threads or on a bounded pool of given size and queue capacity.
+     *
+     * @param aDelegate blocking service
+     * @param aMaxThreads maximum number of threads of the pool used when virtual threads are not supported
+     * @param aQueueCapacity maximum number of operations waiting for a thread of the pool
+     */
+    public ObjCacheAsyncServiceImpl(final ObjCacheService aDelegate, final int aMaxThreads, final int aQueueCapacity) {
+        delegate = Validate.notNull(aDelegate, "Delegate service is required");
+        ownExecutor = createDefaultExecutor(aMaxThreads, aQueueCapacity);
+        executor = ownExecutor;
+    }
+
+    /**
+     * Create service running operations on given executor.
+     *
+     * @param aDelegate blocking service
+     * @param anExecutor executor of operations, not shut down by this service
+     */
+    public ObjCacheAsyncServiceImpl(final ObjCacheService aDelegate, final Executor anExecutor) {
+        delegate = Validate.notNull(aDelegate, "Delegate service is required");
+        executor = Validate.notNull(anExecutor, "Executor is required");
+        ownExecutor = null;
+    }
+
+    /**
+     * Create executor of virtual threads if supported by the running JDK, a bounded pool of daemon threads
+     * otherwise, queuing up to {@link #DEFAULT_QUEUE_CAPACITY_PER_THREAD} operations per thread.
+     *
+     * @param aMaxThreads maximum number of threads of the pool
+     * @return executor
+     */
+    public static ExecutorService createDefaultExecutor(final int aMaxThreads) {
+        return createDefaultExecutor(aMaxThreads, aMaxThreads * DEFAULT_QUEUE_CAPACITY_PER_THREAD);
+    }
+
+    /**
+     * Create executor of virtual threads if supported by the running JDK, a bounded pool of daemon threads
+     * otherwise. An operation submitted to the pool when its queue is full runs on the calling thread, after the
+     * pool has been shut down it is rejected.
+     *
+     * @param aMaxThreads maximum number of threads of the pool
+     * @param aQueueCapacity maximum number of operations waiting for a thread of the pool
+     * @return executor
+     */
+    public static ExecutorService createDefaultExecutor(final int aMaxThreads, final int aQueueCapacity) {
+        Validate.isTrue(aMaxThreads > 0, "Maximum number of threads must be a positive number");
+        Validate.isTrue(aQueueCapacity > 0, "Queue capacity must be a positive number");
+
+        try {
+            // the project is compiled for Java 8, virtual threads are looked up at runtime
+            final ExecutorService theExecutor =
+                (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            LOGGER.debug("Running asynchronous operations on virtual threads");
+            return theExecutor;
+        } catch (final ReflectiveOperationException | UnsupportedOperationException anException) {
+            LOGGER.debug("Virtual threads not supported, running asynchronous operations on {} threads", aMaxThreads);
+        }
+
+        final ThreadPoolExecutor theExecutor =
+            new ThreadPoolExecutor(
+                aMaxThreads,
+                aMaxThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(aQueueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("objcache-async-%d").setDaemon(true).build(),
+                (aTask, anExecutor) -> {
+                    // unlike CallerRunsPolicy, an operation is not dropped silently after shutdown, which would
+                    // leave its future incomplete forever
+                    if (anExecutor.isShutdown()) {
+                        throw new RejectedExecutionException("Asynchronous object cache service has been shut down");
+                    }
+                    aTask.run();
+                });
+        theExecutor.allowCoreThreadTimeOut(true);
+        return theExecutor;
+    }
+
+    /**
+     * Shut down the executor created by this service, operations already submitted are completed. Does nothing if
+     * the executor has been given.
+     */
+    public void shutdown() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#countByCollection(java.lang.String)
+     */
+    @Override
+    public CompletableFuture<Long> countByCollection(final String aCollection) {
+        return CompletableFuture.supplyAsync(() -> delegate.countByCollection(aCollection), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#countByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public CompletableFuture<Long> countByPredicate(final String aCollection, final ObjCachePredicate aPredicate) {
+        return CompletableFuture.supplyAsync(() -> delegate.countByPredicate(aCollection, aPredicate), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#countByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public CompletableFuture<Long> countByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties) {
+        return CompletableFuture.supplyAsync(() -> delegate.countByProperties(aCollection, someProperties), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<ObjCacheEntityMeta> create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.create(aCollection, anObjectKey, aSerializerType, someProperties, anObject),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public CompletableFuture<ObjCacheEntityMeta> create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate
+                    .create(
+                        aCollection,
+                        anObjectKey,
+                        aSerializerType,
+                        someProperties,
+                        anObject,
+                        anExpirationTime),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#createAll(java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.List)
+     */
+    @Override
+    public CompletableFuture<List<ObjCacheBatchResult>> createAll(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final List<ObjCacheBatchItem> someItems) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.createAll(aCollection, aSerializerType, someItems),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#delete(java.lang.String, java.lang.String)
+     */
+    @Override
+    public CompletableFuture<Integer> delete(final String aCollection, final String anObjectKey) {
+        return CompletableFuture.supplyAsync(() -> delegate.delete(aCollection, anObjectKey), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#deleteAll(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public CompletableFuture<Integer> deleteAll(final String aCollection, final Collection<String> someObjectKeys) {
+        return CompletableFuture.supplyAsync(() -> delegate.deleteAll(aCollection, someObjectKeys), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#deleteByCollection(java.lang.String)
+     */
+    @Override
+    public CompletableFuture<Integer> deleteByCollection(final String aCollection) {
+        return CompletableFuture.supplyAsync(() -> delegate.deleteByCollection(aCollection), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#deleteByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public CompletableFuture<Integer> deleteByPredicate(final String aCollection, final ObjCachePredicate aPredicate) {
+        return CompletableFuture.supplyAsync(() -> delegate.deleteByPredicate(aCollection, aPredicate), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#deleteByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public CompletableFuture<Integer> deleteByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties) {
+        return CompletableFuture.supplyAsync(() -> delegate.deleteByProperties(aCollection, someProperties), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#estimateCountByCollection(java.lang.String)
+     */
+    @Override
+    public CompletableFuture<ObjCacheCountEstimate> estimateCountByCollection(final String aCollection) {
+        return CompletableFuture.supplyAsync(() -> delegate.estimateCountByCollection(aCollection), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#estimateCountByProperties(java.lang.String,
+     *      java.util.Map)
+     */
+    @Override
+    public CompletableFuture<ObjCacheCountEstimate> estimateCountByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties) {
+        return CompletableFuture
+            .supplyAsync(() -> delegate.estimateCountByProperties(aCollection, someProperties), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#find(java.lang.String, java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> CompletableFuture<Optional<T>> find(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass) {
+        return CompletableFuture.supplyAsync(() -> delegate.find(aCollection, anObjectKey, aClass), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findAll(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> CompletableFuture<Map<String, T>> findAll(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass) {
+        return CompletableFuture.supplyAsync(() -> delegate.findAll(aCollection, someObjectKeys, aClass), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findByCollection(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> CompletableFuture<List<T>> findByCollection(final String aCollection, final Class<T> aClass) {
+        return CompletableFuture.supplyAsync(() -> delegate.findByCollection(aCollection, aClass), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findByCollection(java.lang.String, java.lang.Class,
+     *      java.util.function.Consumer)
+     */
+    @Override
+    public <T> CompletableFuture<Long> findByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer) {
+        return CompletableFuture.supplyAsync(() -> delegate.findByCollection(aCollection, aClass, aConsumer), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class)
+     */
+    @Override
+    public <T> CompletableFuture<List<T>> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass) {
+        return CompletableFuture.supplyAsync(() -> delegate.findByPredicate(aCollection, aPredicate, aClass), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> CompletableFuture<Long> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer) {
+        return CompletableFuture
+            .supplyAsync(() -> delegate.findByPredicate(aCollection, aPredicate, aClass, aConsumer), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> CompletableFuture<List<T>> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.findByProperties(aCollection, someProperties, aClass),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> CompletableFuture<Long> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.findByProperties(aCollection, someProperties, aClass, aConsumer),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findKeys(java.lang.String, java.util.Map)
+     */
+    @Override
+    public CompletableFuture<List<String>> findKeys(
+        final String aCollection,
+        final Map<String, Object> someProperties) {
+        return CompletableFuture.supplyAsync(() -> delegate.findKeys(aCollection, someProperties), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findMeta(java.lang.String, java.util.Map)
+     */
+    @Override
+    public CompletableFuture<List<ObjCacheEntityMeta>> findMeta(
+        final String aCollection,
+        final Map<String, Object> someProperties) {
+        return CompletableFuture.supplyAsync(() -> delegate.findMeta(aCollection, someProperties), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findPageByCollection(java.lang.String, java.lang.Class, int,
+     *      java.lang.String)
+     */
+    @Override
+    public <T> CompletableFuture<ObjCachePage<T>> findPageByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.findPageByCollection(aCollection, aClass, aPageSize, aPageToken),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findPageByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> CompletableFuture<ObjCachePage<T>> findPageByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.findPageByPredicate(aCollection, aPredicate, aClass, aPageSize, aPageToken),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findPageByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> CompletableFuture<ObjCachePage<T>> findPageByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.findPageByProperties(aCollection, someProperties, aClass, aPageSize, aPageToken),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#findProperties(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public CompletableFuture<Map<String, Map<String, Object>>> findProperties(
+        final String aCollection,
+        final Collection<String> someObjectKeys) {
+        return CompletableFuture.supplyAsync(() -> delegate.findProperties(aCollection, someObjectKeys), executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#getOrLoad(java.lang.String, java.lang.String,
+     *      java.lang.Class, com.codeveo.objcache.api.SerializerType, java.util.function.Supplier,
+     *      java.time.Duration)
+     */
+    @Override
+    public <T> CompletableFuture<T> getOrLoad(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.getOrLoad(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<ObjCacheEntityMeta> put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.put(aCollection, anObjectKey, aSerializerType, someProperties, anObject),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public CompletableFuture<ObjCacheEntityMeta> put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate
+                    .put(
+                        aCollection,
+                        anObjectKey,
+                        aSerializerType,
+                        someProperties,
+                        anObject,
+                        anExpirationTime),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#update(java.lang.String, java.lang.String, java.lang.Integer,
+     *      java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public CompletableFuture<ObjCacheEntityMeta> update(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.update(aCollection, anObjectKey, aVersion, someProperties, anObject, anExpirationTime),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#update(java.lang.String, java.lang.String, java.util.Map,
+     *      java.lang.Integer, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<ObjCacheEntityMeta> update(
+        final String aCollection,
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Integer aVersion,
+        final Object anObject) {
+        return CompletableFuture
+            .supplyAsync(
+                () -> delegate.update(aCollection, anObjectKey, someProperties, aVersion, anObject),
+                executor);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheAsyncService#updateAll(java.lang.String, java.util.List)
+     */
+    @Override
+    public CompletableFuture<List<ObjCacheBatchResult>> updateAll(
+        final String aCollection,
+        final List<ObjCacheBatchItem> someItems) {
+        return CompletableFuture.supplyAsync(() -> delegate.updateAll(aCollection, someItems), executor);
+    }
+}
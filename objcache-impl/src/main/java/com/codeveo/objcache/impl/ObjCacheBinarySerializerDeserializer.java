@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * Serializer producing raw bytes. Objects serialized by a binary serializer are stored in the binary column, so the
+ * bytes go straight to JDBC without any text encoding. The textual methods encode the bytes with Base64 and are
+ * meant only for places where a textual form is unavoidable.
+ *
+ */
+public interface ObjCacheBinarySerializerDeserializer extends ObjCacheSerializerDeserializer {
+
+    byte[] serializeBinary(String aCollectionId, String anObjectKey, Object anObject);
+
+    <T> T deserializeBinary(String aCollectionId, String anObjectKey, InputStream aSerializedObject, Class<T> aClass);
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheSerializerDeserializer#serialize(java.lang.String, java.lang.String,
+     *      java.lang.Object)
+     */
+    @Override
+    default String serialize(final String aCollectionId, final String anObjectKey, final Object anObject) {
+        return Base64.getEncoder().encodeToString(serializeBinary(aCollectionId, anObjectKey, anObject));
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheSerializerDeserializer#deserialize(java.lang.String, java.lang.String,
+     *      java.lang.String, java.lang.Class)
+     */
+    @Override
+    default <T> T deserialize(
+        final String aCollectionId,
+        final String anObjectKey,
+        final String aSerializedObject,
+        final Class<T> aClass) {
+        return deserializeBinary(
+            aCollectionId,
+            anObjectKey,
+            new ByteArrayInputStream(Base64.getDecoder().decode(aSerializedObject)),
+            aClass);
+    }
+}
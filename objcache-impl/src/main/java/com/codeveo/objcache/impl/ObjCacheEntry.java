@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+
+/**
+ * Object found by an object cache service together with its meta data.
+ *
+ * @param <T> object class
+ */
+final class ObjCacheEntry<T> {
+
+    private final T object;
+
+    private final ObjCacheEntityMeta meta;
+
+    /**
+     * Constructs a new instance of class ObjCacheEntry.
+     *
+     * @param anObject object, null if it has not been found
+     * @param aMeta object meta data, null if it is not known
+     */
+    ObjCacheEntry(final T anObject, final ObjCacheEntityMeta aMeta) {
+        object = anObject;
+        meta = aMeta;
+    }
+
+    T getObject() {
+        return object;
+    }
+
+    ObjCacheEntityMeta getMeta() {
+        return meta;
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheException;
+
+/**
+ * Object cache service able to find objects together with their meta data, which lets services in front of it,
+ * e.g. {@link ObjCacheNearCacheService}, learn the version and the expiration time of the objects they read.
+ *
+ */
+interface ObjCacheEntryFinder {
+
+    /**
+     * Find object with its meta data.
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @param aClass object class
+     * @return found object or empty
+     * @throws ObjCacheException
+     * @see ObjCacheService#find(String, String, Class)
+     */
+    <T> Optional<ObjCacheEntry<T>> findEntry(String aCollection, String anObjectKey, Class<T> aClass)
+        throws ObjCacheException;
+
+    /**
+     * Find objects with their meta data.
+     *
+     * @param aCollection collection
+     * @param someObjectKeys object keys
+     * @param aClass object class
+     * @return found objects by object key
+     * @throws ObjCacheException
+     * @see ObjCacheService#findAll(String, Collection, Class)
+     */
+    <T> Map<String, ObjCacheEntry<T>> findAllEntries(
+        String aCollection,
+        Collection<String> someObjectKeys,
+        Class<T> aClass)
+        throws ObjCacheException;
+
+    /**
+     * Find object with its meta data or load it and put it if it does not exist or has expired.
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @param aClass object class
+     * @param aSerializerType serializer type of a loaded object
+     * @param aLoader loader of a missing object, a null object is returned but not stored
+     * @param aTimeToLive time to live of a loaded object, null if it never expires
+     * @return found or loaded object
+     * @throws ObjCacheException
+     * @see ObjCacheService#getOrLoad(String, String, Class, SerializerType, Supplier, Duration)
+     */
+    <T> ObjCacheEntry<T> getOrLoadEntry(
+        String aCollection,
+        String anObjectKey,
+        Class<T> aClass,
+        SerializerType aSerializerType,
+        Supplier<T> aLoader,
+        Duration aTimeToLive)
+        throws ObjCacheException;
+
+    /**
+     * Find object by given service, the meta data is not known if the service is not an entry finder.
+     *
+     * @see #findEntry(String, String, Class)
+     */
+    static <T> Optional<ObjCacheEntry<T>> findEntry(
+        final ObjCacheService aService,
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        if (aService instanceof ObjCacheEntryFinder) {
+            return ((ObjCacheEntryFinder) aService).findEntry(aCollection, anObjectKey, aClass);
+        }
+
+        return aService.find(aCollection, anObjectKey, aClass).map(anObject -> new ObjCacheEntry<>(anObject, null));
+    }
+
+    /**
+     * Find objects by given service, the meta data is not known if the service is not an entry finder.
+     *
+     * @see #findAllEntries(String, Collection, Class)
+     */
+    static <T> Map<String, ObjCacheEntry<T>> findAllEntries(
+        final ObjCacheService aService,
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        if (aService instanceof ObjCacheEntryFinder) {
+            return ((ObjCacheEntryFinder) aService).findAllEntries(aCollection, someObjectKeys, aClass);
+        }
+
+        final Map<String, ObjCacheEntry<T>> theEntries = new LinkedHashMap<>();
+        aService
+            .findAll(aCollection, someObjectKeys, aClass)
+            .forEach((anObjectKey, anObject) -> theEntries.put(anObjectKey, new ObjCacheEntry<>(anObject, null)));
+        return theEntries;
+    }
+
+    /**
+     * Find or load object by given service, the meta data is not known if the service is not an entry finder.
+     *
+     * @see #getOrLoadEntry(String, String, Class, SerializerType, Supplier, Duration)
+     */
+    static <T> ObjCacheEntry<T> getOrLoadEntry(
+        final ObjCacheService aService,
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        if (aService instanceof ObjCacheEntryFinder) {
+            return ((ObjCacheEntryFinder) aService)
+                .getOrLoadEntry(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive);
+        }
+
+        return new ObjCacheEntry<>(
+            aService.getOrLoad(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive),
+            null);
+    }
+}
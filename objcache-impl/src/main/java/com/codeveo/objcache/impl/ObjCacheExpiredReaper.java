@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Background service deleting expired objects.
+ * <p>
+ * Expired objects are only hidden from reads by the object cache service. The reaper periodically deletes them in
+ * bounded batches, each batch in its own short transaction. Rows locked by other transactions are skipped, so
+ * several reapers (e.g. one per application node) do not block each other nor the writers. The number of deleted
+ * rows per second, the number of batches per run and the number of concurrently deleting workers are limited.
+ * <p>
+ * Start with {@link #start()} and stop with {@link #stop()} (e.g. as Spring init and destroy methods), or run single
+ * purges via {@link #purge()}.
+ *
+ */
+public class ObjCacheExpiredReaper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjCacheExpiredReaper.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static final int DEFAULT_MAX_BATCHES_PER_RUN = 100;
+
+    public static final double DEFAULT_MAX_ROWS_PER_SECOND = 10000;
+
+    public static final int DEFAULT_CONCURRENCY = 1;
+
+    public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    private final TransactionTemplate txTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxBatchesPerRun = DEFAULT_MAX_BATCHES_PER_RUN;
+
+    private int concurrency = DEFAULT_CONCURRENCY;
+
+    private long intervalSeconds = DEFAULT_INTERVAL_SECONDS;
+
+    private RateLimiter rateLimiter = RateLimiter.create(DEFAULT_MAX_ROWS_PER_SECOND);
+
+    private final LongAdder runCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder purgedCount = new LongAdder();
+
+    private final LongAdder timeSpentNanos = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService workers;
+
+    public ObjCacheExpiredReaper(final TransactionTemplate aTxTemplate, final JdbcTemplate aJdbcTemplate) {
+        txTemplate = Validate.notNull(aTxTemplate, "Transaction template is required");
+        jdbcTemplate = Validate.notNull(aJdbcTemplate, "JDBC template is required");
+    }
+
+    /**
+     * Set maximum number of objects deleted by a single batch.
+     *
+     * @param aBatchSize batch size
+     */
+    public void setBatchSize(final int aBatchSize) {
+        Validate.isTrue(aBatchSize > 0, "Batch size must be a positive number");
+        batchSize = aBatchSize;
+    }
+
+    /**
+     * Set maximum number of batches of a single purge run, the rest is left to the next run.
+     *
+     * @param aMaxBatchesPerRun maximum number of batches
+     */
+    public void setMaxBatchesPerRun(final int aMaxBatchesPerRun) {
+        Validate.isTrue(aMaxBatchesPerRun > 0, "Maximum batches per run must be a positive number");
+        maxBatchesPerRun = aMaxBatchesPerRun;
+    }
+
+    /**
+     * Set maximum number of deleted objects per second shared by all workers.
+     *
+     * @param aMaxRowsPerSecond maximum rate
+     */
+    public void setMaxRowsPerSecond(final double aMaxRowsPerSecond) {
+        Validate.isTrue(aMaxRowsPerSecond > 0, "Maximum rows per second must be a positive number");
+        rateLimiter = RateLimiter.create(aMaxRowsPerSecond);
+    }
+
+    /**
+     * Set number of workers deleting batches concurrently during a scheduled run.
+     *
+     * @param aConcurrency number of workers
+     */
+    public void setConcurrency(final int aConcurrency) {
+        Validate.isTrue(aConcurrency > 0, "Concurrency must be a positive number");
+        concurrency = aConcurrency;
+    }
+
+    /**
+     * Set delay between the end of a purge run and the start of the next one.
+     *
+     * @param anIntervalSeconds interval in seconds
+     */
+    public void setIntervalSeconds(final long anIntervalSeconds) {
+        Validate.isTrue(anIntervalSeconds > 0, "Interval must be a positive number");
+        intervalSeconds = anIntervalSeconds;
+    }
+
+    /**
+     * Start periodic purging.
+     */
+    public synchronized void start() {
+        Validate.validState(scheduler == null, "Reaper is already started");
+
+        scheduler =
+            Executors
+                .newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("objcache-reaper").setDaemon(true).build());
+        if (concurrency > 1) {
+            workers =
+                Executors
+                    .newFixedThreadPool(
+                        concurrency,
+                        new ThreadFactoryBuilder().setNameFormat("objcache-reaper-%d").setDaemon(true).build());
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                purge();
+            } catch (final Exception anException) {
+                LOGGER.warn("Purging of expired objects failed", anException);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop periodic purging, a running batch is let to finish.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * Delete expired objects until there are none or the maximum number of batches is reached.
+     *
+     * @return number of deleted objects
+     * @throws ObjCacheException
+     */
+    public long purge() throws ObjCacheException {
+        final long theStart = System.nanoTime();
+        final AtomicInteger theRemainingBatches = new AtomicInteger(maxBatchesPerRun);
+        long thePurgedCount = 0;
+        try {
+            final ExecutorService theWorkers = workers;
+            if (theWorkers == null) {
+                thePurgedCount = purgeBatches(theRemainingBatches);
+            } else {
+                final List<Future<Long>> theFutures = new ArrayList<>(concurrency);
+                for (int i = 0; i < concurrency; i++) {
+                    theFutures.add(theWorkers.submit(() -> purgeBatches(theRemainingBatches)));
+                }
+                for (final Future<Long> theFuture : theFutures) {
+                    thePurgedCount += theFuture.get();
+                }
+            }
+        } catch (final InterruptedException anException) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException anException) {
+            throw anException.getCause() instanceof ObjCacheException
+                ? (ObjCacheException) anException.getCause()
+                : new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException.getCause(),
+                    "Error occured while deleting expired objects");
+        } finally {
+            final long theTimeSpentNanos = System.nanoTime() - theStart;
+            runCount.increment();
+            timeSpentNanos.add(theTimeSpentNanos);
+            if (thePurgedCount > 0) {
+                LOGGER
+                    .info(
+                        "Purged {} expired objects in {} ms",
+                        thePurgedCount,
+                        TimeUnit.NANOSECONDS.toMillis(theTimeSpentNanos));
+            }
+        }
+
+        return thePurgedCount;
+    }
+
+    /**
+     * Get statistics of all purge runs so far.
+     *
+     * @return statistics snapshot
+     */
+    public ObjCacheExpiredReaperStats getStats() {
+        return new ObjCacheExpiredReaperStats(
+            runCount.sum(),
+            batchCount.sum(),
+            purgedCount.sum(),
+            TimeUnit.NANOSECONDS.toMillis(timeSpentNanos.sum()));
+    }
+
+    private long purgeBatches(final AtomicInteger aRemainingBatches) {
+        final String theQuery = ObjCacheQueries.DELETE_EXPIRED_BATCH;
+        long thePurgedCount = 0;
+        while (aRemainingBatches.getAndDecrement() > 0 && !Thread.currentThread().isInterrupted()) {
+            rateLimiter.acquire(batchSize);
+
+            LOGGER.debug("Running query '{}'", theQuery);
+
+            final int theCount =
+                txTemplate.execute(aStatus -> {
+                    try {
+                        return jdbcTemplate
+                            .update(theQuery, ObjCacheQueries.timestamp(ZonedDateTime.now()), batchSize);
+                    } catch (final Exception anException) {
+                        throw new ObjCacheException(
+                            ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                            anException,
+                            "Error occured while deleting expired objects");
+                    }
+                });
+            batchCount.increment();
+            purgedCount.add(theCount);
+            thePurgedCount += theCount;
+
+            if (theCount < batchSize) {
+                break;
+            }
+        }
+
+        return thePurgedCount;
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+/**
+ * Expired object reaper statistics snapshot.
+ *
+ */
+public class ObjCacheExpiredReaperStats {
+
+    private final long runCount;
+
+    private final long batchCount;
+
+    private final long purgedCount;
+
+    private final long timeSpentMillis;
+
+    /**
+     * Constructs a new instance of class ObjCacheExpiredReaperStats.
+     *
+     * @param aRunCount number of finished purge runs
+     * @param aBatchCount number of executed delete batches
+     * @param aPurgedCount number of deleted expired objects
+     * @param aTimeSpentMillis total time spent by purge runs
+     */
+    public ObjCacheExpiredReaperStats(
+        final long aRunCount,
+        final long aBatchCount,
+        final long aPurgedCount,
+        final long aTimeSpentMillis) {
+        runCount = aRunCount;
+        batchCount = aBatchCount;
+        purgedCount = aPurgedCount;
+        timeSpentMillis = aTimeSpentMillis;
+    }
+
+    public long getRunCount() {
+        return runCount;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public long getPurgedCount() {
+        return purgedCount;
+    }
+
+    public long getTimeSpentMillis() {
+        return timeSpentMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjCacheExpiredReaperStats [runCount="
+            + runCount
+            + ", batchCount="
+            + batchCount
+            + ", purgedCount="
+            + purgedCount
+            + ", timeSpentMillis="
+            + timeSpentMillis
+            + "]";
+    }
+}
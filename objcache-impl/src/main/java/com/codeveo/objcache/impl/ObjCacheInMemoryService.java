@@ -0,0 +1,1529 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Object cache service keeping objects in the memory of the process instead of the database, e.g. for latency
+ * critical collections which need not survive a restart, or to run tests and benchmarks without a database.
+ * <p>
+ * Objects are stored serialized by their serializer, so found objects are copies like the ones read from the
+ * database, and follow the semantics of {@link ObjCacheServiceImpl}: versions, expiration (an expired object is not
+ * found, still blocks its key for create until it is purged and is replaced as a new object by put), containment of
+ * properties and predicates (see {@link ObjCacheJsonMatcher}) and the error codes. Objects of a collection are kept
+ * ordered by object key, so keys, meta data and pages are ordered by Java string order.
+ * <p>
+ * Reads do not lock. Writes of an object lock only a stripe of the keys of its collection. Top level property values
+ * (and elements of array values) are indexed, so searches by properties or by predicates of equalities check only
+ * objects having one of the searched values. Batch writes are not atomic as a whole, each object is written on its
+ * own. Expired objects are removed by {@link #purgeExpired()}, which should be called periodically.
+ *
+ */
+public class ObjCacheInMemoryService implements ObjCacheService, ObjCacheEntryFinder {
+
+    /**
+     * Number of locks of the object keys of a collection.
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final ObjCacheSerializerDeserializerFactory objSerDerFactory;
+
+    private final ConcurrentMap<String, CollectionStore> collections = new ConcurrentHashMap<>();
+
+    private final ObjCacheReadThrough readThrough = new ObjCacheReadThrough();
+
+    /**
+     * Constructs a new instance of class ObjCacheInMemoryService.
+     *
+     * @param anObjSerDerFactory serializers of the stored objects
+     */
+    public ObjCacheInMemoryService(final ObjCacheSerializerDeserializerFactory anObjSerDerFactory) {
+        objSerDerFactory = Validate.notNull(anObjSerDerFactory, "ObjCache serializer factory is required");
+    }
+
+    /**
+     * Remove expired objects of all collections.
+     *
+     * @return number of removed objects
+     */
+    public int purgeExpired() {
+        final ZonedDateTime theNow = ZonedDateTime.now();
+        int theCount = 0;
+        for (final CollectionStore theStore : collections.values()) {
+            for (final StoredObject theObject : theStore.objects.values()) {
+                if (theObject.isExpired(theNow)) {
+                    theCount += theStore.remove(theObject.objectKey, aCurrent -> aCurrent.isExpired(theNow));
+                }
+            }
+        }
+        return theCount;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByCollection(java.lang.String)
+     */
+    @Override
+    public long countByCollection(final String aCollection) throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            return (long) select(aCollection, Search.ALL, null, ZonedDateTime.now(), Integer.MAX_VALUE).size();
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public long countByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aPredicate, "Predicate must be not null");
+
+            return (long) select(aCollection, Search.of(aPredicate), null, ZonedDateTime.now(), Integer.MAX_VALUE)
+                .size();
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public long countByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            return (long) select(aCollection, Search.of(someProperties), null, ZonedDateTime.now(), Integer.MAX_VALUE)
+                .size();
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        return createCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, null);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return createCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#createAll(java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> createAll(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aSerializerType, "Serializer type must be not null");
+            Validate.notNull(someItems, "Items must be not null");
+
+            final ObjCacheBatchResult[] theResults = new ObjCacheBatchResult[someItems.size()];
+            final StoredObject[] theObjects = new StoredObject[someItems.size()];
+            for (int i = 0; i < someItems.size(); i++) {
+                final ObjCacheBatchItem theItem = someItems.get(i);
+                Validate.notBlank(theItem.getObjectKey(), "Object key must be not blank");
+
+                try {
+                    theObjects[i] =
+                        new StoredObject(
+                            theItem.getObjectKey(),
+                            aSerializerType,
+                            serializeObjectData(
+                                aCollection,
+                                theItem.getObjectKey(),
+                                aSerializerType,
+                                theItem.getObject()),
+                            ObjCacheJsonMatcher.toJson(theItem.getProperties()),
+                            1,
+                            theItem.getExpirationTime());
+                } catch (final Exception anException) {
+                    theResults[i] =
+                        new ObjCacheBatchResult(
+                            theItem.getObjectKey(),
+                            ObjCacheServiceImpl.batchErrorCode(anException));
+                }
+            }
+
+            final CollectionStore theStore = collections.computeIfAbsent(aCollection, aKey -> new CollectionStore());
+            for (int i = 0; i < theObjects.length; i++) {
+                if (theObjects[i] == null) {
+                    continue;
+                }
+                theResults[i] =
+                    theStore.insert(theObjects[i])
+                        ? new ObjCacheBatchResult(theObjects[i].toMeta(aCollection))
+                        : new ObjCacheBatchResult(theObjects[i].objectKey, ObjCacheErrorCodeType.OBJCACHE_EC_0005);
+            }
+
+            return Arrays.asList(theResults);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#delete(java.lang.String, java.lang.String)
+     */
+    @Override
+    public int delete(final String aCollection, final String anObjectKey) throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notBlank(anObjectKey, "Object key must be not blank");
+
+            final CollectionStore theStore = collections.get(aCollection);
+            return theStore != null ? theStore.remove(anObjectKey, aCurrent -> true) : 0;
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteAll(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public int deleteAll(final String aCollection, final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+            final CollectionStore theStore = collections.get(aCollection);
+            if (theStore == null) {
+                return 0;
+            }
+
+            int theCount = 0;
+            for (final String theObjectKey : new LinkedHashSet<>(someObjectKeys)) {
+                if (theObjectKey != null) {
+                    theCount += theStore.remove(theObjectKey, aCurrent -> true);
+                }
+            }
+            return theCount;
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByCollection(java.lang.String)
+     */
+    @Override
+    public int deleteByCollection(final String aCollection) throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            return deleteBySearch(aCollection, Search.ALL);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public int deleteByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aPredicate, "Predicate must be not null");
+
+            return deleteBySearch(aCollection, Search.of(aPredicate));
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public int deleteByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            return deleteBySearch(aCollection, Search.of(someProperties));
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method. Objects in memory are always counted exactly.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByCollection(java.lang.String)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByCollection(final String aCollection) throws ObjCacheException {
+        return new ObjCacheCountEstimate(countByCollection(aCollection), 0, true);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method. Objects in memory are always counted exactly.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return new ObjCacheCountEstimate(countByProperties(aCollection, someProperties), 0, true);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#find(java.lang.String, java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> Optional<T> find(final String aCollection, final String anObjectKey, final Class<T> aClass)
+        throws ObjCacheException {
+        return findEntry(aCollection, anObjectKey, aClass).map(ObjCacheEntry::getObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Optional<ObjCacheEntry<T>> findEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return write(aCollection, anObjectKey, () -> {
+            final StoredObject theObject = findObject(aCollection, anObjectKey, ZonedDateTime.now());
+            final T theValue = theObject != null ? deserialize(aCollection, theObject, aClass) : null;
+            return theValue != null
+                ? Optional.of(new ObjCacheEntry<>(theValue, theObject.toMeta(aCollection)))
+                : Optional.empty();
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findAll(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, T> findAll(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        final Map<String, T> theObjects = new LinkedHashMap<>();
+        findAllEntries(aCollection, someObjectKeys, aClass)
+            .forEach((anObjectKey, anEntry) -> theObjects.put(anObjectKey, anEntry.getObject()));
+        return theObjects;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findAllEntries(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, ObjCacheEntry<T>> findAllEntries(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+            final ZonedDateTime theNow = ZonedDateTime.now();
+            final Map<String, ObjCacheEntry<T>> theEntries = new LinkedHashMap<>();
+            for (final String theObjectKey : someObjectKeys) {
+                final StoredObject theObject = findObject(aCollection, theObjectKey, theNow);
+                if (theObject != null) {
+                    theEntries
+                        .put(
+                            theObjectKey,
+                            new ObjCacheEntry<>(
+                                deserialize(aCollection, theObject, aClass),
+                                theObject.toMeta(aCollection)));
+                }
+            }
+            return theEntries;
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByCollection(final String aCollection, final Class<T> aClass) throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            return findBySearch(aCollection, Search.ALL, aClass);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class,
+     *      java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aConsumer, "Consumer must be not null");
+
+            return consumeBySearch(aCollection, Search.ALL, aClass, aConsumer);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aPredicate, "Predicate must be not null");
+
+            return findBySearch(aCollection, Search.of(aPredicate), aClass);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aPredicate, "Predicate must be not null");
+            Validate.notNull(aConsumer, "Consumer must be not null");
+
+            return consumeBySearch(aCollection, Search.of(aPredicate), aClass, aConsumer);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            return findBySearch(aCollection, Search.of(someProperties), aClass);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aConsumer, "Consumer must be not null");
+
+            return consumeBySearch(aCollection, Search.of(someProperties), aClass, aConsumer);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findKeys(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<String> findKeys(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            final List<String> theObjectKeys = new ArrayList<>();
+            for (final StoredObject theObject : select(
+                aCollection,
+                projectionSearch(someProperties),
+                null,
+                ZonedDateTime.now(),
+                Integer.MAX_VALUE)) {
+                theObjectKeys.add(theObject.objectKey);
+            }
+            return theObjectKeys;
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findMeta(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<ObjCacheEntityMeta> findMeta(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+
+            final List<ObjCacheEntityMeta> theMetas = new ArrayList<>();
+            for (final StoredObject theObject : select(
+                aCollection,
+                projectionSearch(someProperties),
+                null,
+                ZonedDateTime.now(),
+                Integer.MAX_VALUE)) {
+                theMetas.add(theObject.toMeta(aCollection));
+            }
+            return theMetas;
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByCollection(java.lang.String, java.lang.Class, int,
+     *      java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.isTrue(aPageSize > 0, "Page size must be a positive number");
+
+            return findPage(aCollection, Search.ALL, aClass, aPageSize, aPageToken);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(aPredicate, "Predicate must be not null");
+            Validate.isTrue(aPageSize > 0, "Page size must be a positive number");
+
+            return findPage(aCollection, Search.of(aPredicate), aClass, aPageSize, aPageToken);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.isTrue(aPageSize > 0, "Page size must be a positive number");
+
+            return findPage(aCollection, Search.of(someProperties), aClass, aPageSize, aPageToken);
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findProperties(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public Map<String, Map<String, Object>> findProperties(
+        final String aCollection,
+        final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+            final ZonedDateTime theNow = ZonedDateTime.now();
+            final Map<String, Map<String, Object>> theProperties = new LinkedHashMap<>();
+            for (final String theObjectKey : someObjectKeys) {
+                final StoredObject theObject = findObject(aCollection, theObjectKey, theNow);
+                if (theObject != null) {
+                    theProperties.put(theObjectKey, ObjCacheJsonMatcher.toProperties(theObject.properties));
+                }
+            }
+            return theProperties;
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#getOrLoad(java.lang.String, java.lang.String, java.lang.Class,
+     *      com.codeveo.objcache.api.SerializerType, java.util.function.Supplier, java.time.Duration)
+     */
+    @Override
+    public <T> T getOrLoad(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return getOrLoadEntry(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive).getObject();
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#getOrLoadEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class, com.codeveo.objcache.api.SerializerType, java.util.function.Supplier,
+     *      java.time.Duration)
+     */
+    @Override
+    public <T> ObjCacheEntry<T> getOrLoadEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return readThrough.getOrLoad(this, aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        return putCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, null);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return putCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String,
+     *      java.lang.Integer, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return updateCommon(aCollection, anObjectKey, aVersion, someProperties, anObject, true, anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String, java.util.Map,
+     *      java.lang.Integer, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Integer aVersion,
+        final Object anObject)
+        throws ObjCacheException {
+        return updateCommon(aCollection, anObjectKey, aVersion, someProperties, anObject, false, null);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#updateAll(java.lang.String, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> updateAll(final String aCollection, final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notNull(someItems, "Items must be not null");
+
+            for (final ObjCacheBatchItem theItem : someItems) {
+                Validate.notBlank(theItem.getObjectKey(), "Object key must be not blank");
+                Validate
+                    .isTrue(
+                        theItem.getVersion() != null && theItem.getVersion() > 0,
+                        "Version must be a positive number");
+            }
+
+            final List<ObjCacheBatchResult> theResults = new ArrayList<>(someItems.size());
+            for (final ObjCacheBatchItem theItem : someItems) {
+                try {
+                    theResults
+                        .add(
+                            new ObjCacheBatchResult(
+                                updateObject(
+                                    aCollection,
+                                    theItem.getObjectKey(),
+                                    theItem.getVersion(),
+                                    theItem.getProperties(),
+                                    theItem.getObject(),
+                                    true,
+                                    theItem.getExpirationTime())));
+                } catch (final Exception anException) {
+                    theResults
+                        .add(
+                            new ObjCacheBatchResult(
+                                theItem.getObjectKey(),
+                                ObjCacheServiceImpl.batchErrorCode(anException)));
+                }
+            }
+            return theResults;
+        });
+    }
+
+    private ObjCacheEntityMeta createCommon(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        return write(aCollection, anObjectKey, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notBlank(anObjectKey, "Object key must be not blank");
+            Validate.notNull(aSerializerType, "Serializer type must be not null");
+
+            final StoredObject theObject =
+                new StoredObject(
+                    anObjectKey,
+                    aSerializerType,
+                    serializeObjectData(aCollection, anObjectKey, aSerializerType, anObject),
+                    ObjCacheJsonMatcher.toJson(someProperties),
+                    1,
+                    anExpirationTime);
+            // an expired object blocks its key until it is purged like a row not deleted yet
+            if (!collections.computeIfAbsent(aCollection, aKey -> new CollectionStore()).insert(theObject)) {
+                throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0005, anObjectKey, aCollection);
+            }
+
+            return theObject.toMeta(aCollection);
+        });
+    }
+
+    private ObjCacheEntityMeta putCommon(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        return write(aCollection, anObjectKey, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notBlank(anObjectKey, "Object key must be not blank");
+            Validate.notNull(aSerializerType, "Serializer type must be not null");
+
+            final Object theObjectData = serializeObjectData(aCollection, anObjectKey, aSerializerType, anObject);
+            final JsonNode theProperties = ObjCacheJsonMatcher.toJson(someProperties);
+            final CollectionStore theStore = collections.computeIfAbsent(aCollection, aKey -> new CollectionStore());
+            final Lock theLock = theStore.locks.get(anObjectKey);
+            theLock.lock();
+            try {
+                final StoredObject theCurrent = theStore.objects.get(anObjectKey);
+                // an expired object is replaced as if it has been deleted
+                final StoredObject theObject =
+                    new StoredObject(
+                        anObjectKey,
+                        aSerializerType,
+                        theObjectData,
+                        theProperties,
+                        theCurrent != null && !theCurrent.isExpired(ZonedDateTime.now()) ? theCurrent.version + 1 : 1,
+                        anExpirationTime);
+                theStore.replace(theCurrent, theObject);
+
+                return theObject.toMeta(aCollection);
+            } finally {
+                theLock.unlock();
+            }
+        });
+    }
+
+    private ObjCacheEntityMeta updateCommon(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final boolean withExpTime,
+        final ZonedDateTime anExpirationTime) {
+        return query(aCollection, () -> {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notBlank(anObjectKey, "Object key must be not blank");
+            Validate.isTrue(aVersion != null && aVersion > 0, "Version must be a positive number");
+
+            return updateObject(
+                aCollection,
+                anObjectKey,
+                aVersion,
+                someProperties,
+                anObject,
+                withExpTime,
+                anExpirationTime);
+        });
+    }
+
+    /**
+     * Update single object of given version, the object is serialized by its current serializer.
+     *
+     * @throws ObjCacheException with code {@link ObjCacheErrorCodeType#OBJCACHE_EC_0006} if the object is not found
+     *         and {@link ObjCacheErrorCodeType#OBJCACHE_EC_0002} if it has another version
+     */
+    private ObjCacheEntityMeta updateObject(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final boolean withExpTime,
+        final ZonedDateTime anExpirationTime)
+        throws IOException {
+        final JsonNode theProperties = ObjCacheJsonMatcher.toJson(someProperties);
+        final CollectionStore theStore = collections.get(aCollection);
+        final Lock theLock = theStore != null ? theStore.locks.get(anObjectKey) : null;
+        if (theLock != null) {
+            theLock.lock();
+        }
+        try {
+            final StoredObject theCurrent = theStore != null ? theStore.objects.get(anObjectKey) : null;
+            if (theCurrent == null || theCurrent.isExpired(ZonedDateTime.now())) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    String
+                        .format(
+                            "The object with collection %s and key %s not found (deleted or expired)",
+                            aCollection,
+                            anObjectKey));
+            }
+            if (!aVersion.equals(theCurrent.version)) {
+                throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0002, anObjectKey, aCollection);
+            }
+
+            final StoredObject theObject =
+                new StoredObject(
+                    anObjectKey,
+                    theCurrent.serializerType,
+                    serializeObjectData(aCollection, anObjectKey, theCurrent.serializerType, anObject),
+                    theProperties,
+                    aVersion + 1,
+                    withExpTime ? anExpirationTime : theCurrent.expirationTime);
+            theStore.replace(theCurrent, theObject);
+
+            return new ObjCacheEntityMeta(
+                aCollection,
+                anObjectKey,
+                theCurrent.serializerType,
+                aVersion + 1,
+                anExpirationTime);
+        } finally {
+            if (theLock != null) {
+                theLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Find object which has not expired.
+     *
+     * @return object or null if not found
+     */
+    private StoredObject findObject(final String aCollection, final String anObjectKey, final ZonedDateTime aNow) {
+        final CollectionStore theStore = aCollection != null ? collections.get(aCollection) : null;
+        final StoredObject theObject =
+            theStore != null && anObjectKey != null ? theStore.objects.get(anObjectKey) : null;
+        return theObject != null && !theObject.isExpired(aNow) ? theObject : null;
+    }
+
+    /**
+     * Select objects matching search ordered by object key.
+     *
+     * @param anAfterObjectKey only objects of greater keys are selected, null for all
+     * @param aNow current time to skip expired objects, null to select expired objects too
+     * @param aLimit maximum number of selected objects
+     */
+    private List<StoredObject> select(
+        final String aCollection,
+        final Search aSearch,
+        final String anAfterObjectKey,
+        final ZonedDateTime aNow,
+        final int aLimit) {
+        final List<StoredObject> theSelected = new ArrayList<>();
+        final CollectionStore theStore = collections.get(aCollection);
+        if (theStore == null) {
+            return theSelected;
+        }
+
+        final Iterator<StoredObject> theObjects = theStore.candidates(aSearch, anAfterObjectKey);
+        while (theObjects.hasNext() && theSelected.size() < aLimit) {
+            final StoredObject theObject = theObjects.next();
+            if ((aNow == null || !theObject.isExpired(aNow)) && aSearch.matches(theObject.properties)) {
+                theSelected.add(theObject);
+            }
+        }
+        return theSelected;
+    }
+
+    private <T> List<T> findBySearch(final String aCollection, final Search aSearch, final Class<T> aClass) {
+        final List<T> theObjects = new ArrayList<>();
+        for (final StoredObject theObject : select(
+            aCollection,
+            aSearch,
+            null,
+            ZonedDateTime.now(),
+            Integer.MAX_VALUE)) {
+            theObjects.add(deserialize(aCollection, theObject, aClass));
+        }
+        return theObjects;
+    }
+
+    private <T> long consumeBySearch(
+        final String aCollection,
+        final Search aSearch,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer) {
+        long theCount = 0;
+        for (final StoredObject theObject : select(
+            aCollection,
+            aSearch,
+            null,
+            ZonedDateTime.now(),
+            Integer.MAX_VALUE)) {
+            aConsumer.accept(deserialize(aCollection, theObject, aClass));
+            theCount++;
+        }
+        return theCount;
+    }
+
+    /**
+     * Find page selecting one object more than the page size to find out whether there is a next page. The token of
+     * the next page is the last object key of the page like the one of the database service.
+     */
+    private <T> ObjCachePage<T> findPage(
+        final String aCollection,
+        final Search aSearch,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken) {
+        final List<StoredObject> theSelected =
+            select(
+                aCollection,
+                aSearch,
+                ObjCacheServiceImpl.decodePageToken(aPageToken),
+                ZonedDateTime.now(),
+                aPageSize + 1);
+        final boolean hasNext = theSelected.size() > aPageSize;
+        final List<T> theObjects = new ArrayList<>(aPageSize);
+        for (final StoredObject theObject : hasNext ? theSelected.subList(0, aPageSize) : theSelected) {
+            theObjects.add(deserialize(aCollection, theObject, aClass));
+        }
+
+        return new ObjCachePage<>(
+            theObjects,
+            hasNext ? ObjCacheServiceImpl.encodePageToken(theSelected.get(aPageSize - 1).objectKey) : null);
+    }
+
+    /**
+     * Delete objects matching search including expired ones.
+     */
+    private int deleteBySearch(final String aCollection, final Search aSearch) {
+        final CollectionStore theStore = collections.get(aCollection);
+        if (theStore == null) {
+            return 0;
+        }
+
+        int theCount = 0;
+        for (final StoredObject theObject : select(aCollection, aSearch, null, null, Integer.MAX_VALUE)) {
+            theCount += theStore.remove(theObject.objectKey, aCurrent -> aSearch.matches(aCurrent.properties));
+        }
+        return theCount;
+    }
+
+    /**
+     * Search of a projection by given properties or the whole collection if there are none.
+     */
+    private static Search projectionSearch(final Map<String, Object> someProperties) throws IOException {
+        return someProperties == null || someProperties.isEmpty() ? Search.ALL : Search.of(someProperties);
+    }
+
+    /**
+     * Serialize object into the object data of the serializer, bytes of binary serializers and text of the others.
+     */
+    private Object serializeObjectData(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Object anObject) {
+        final ObjCacheSerializerDeserializer theSerializer = objSerDerFactory.getSerializer(aSerializerType);
+        if (theSerializer instanceof ObjCacheBinarySerializerDeserializer) {
+            return ((ObjCacheBinarySerializerDeserializer) theSerializer)
+                .serializeBinary(aCollection, anObjectKey, anObject);
+        }
+        return theSerializer.serialize(aCollection, anObjectKey, anObject);
+    }
+
+    private <T> T deserialize(final String aCollection, final StoredObject anObject, final Class<T> aClass) {
+        final ObjCacheSerializerDeserializer theDeserializer = objSerDerFactory.getSerializer(anObject.serializerType);
+        if (theDeserializer instanceof ObjCacheBinarySerializerDeserializer) {
+            return anObject.objectData != null
+                ? ((ObjCacheBinarySerializerDeserializer) theDeserializer)
+                    .deserializeBinary(
+                        aCollection,
+                        anObject.objectKey,
+                        new ByteArrayInputStream((byte[]) anObject.objectData),
+                        aClass)
+                : null;
+        }
+        return theDeserializer.deserialize(aCollection, anObject.objectKey, (String) anObject.objectData, aClass);
+    }
+
+    /**
+     * Run query, failures other than object cache ones are reported as query errors like by the database service.
+     */
+    private static <R> R query(final String aCollection, final Callable<R> aQuery) {
+        try {
+            return aQuery.call();
+        } catch (final ObjCacheException anException) {
+            throw anException;
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                anException,
+                "Error occured while running query for collection '" + aCollection + "'");
+        }
+    }
+
+    /**
+     * Run write of an object, failures other than object cache ones are reported as persisting errors like by the
+     * database service.
+     */
+    private static <R> R write(final String aCollection, final String anObjectKey, final Callable<R> aWrite) {
+        try {
+            return aWrite.call();
+        } catch (final ObjCacheException anException) {
+            throw anException;
+        } catch (final Exception anException) {
+            throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0005, anException, anObjectKey, aCollection);
+        }
+    }
+
+    /**
+     * Objects of a collection ordered by object key with the index of their property values.
+     */
+    private static final class CollectionStore {
+
+        private final ConcurrentNavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+
+        /**
+         * Keys of objects by top level property key and index value of the property (or of an element of an array
+         * property), see {@link ObjCacheJsonMatcher#indexValue(JsonNode)}.
+         */
+        private final ConcurrentMap<String, ConcurrentMap<Object, Set<String>>> index = new ConcurrentHashMap<>();
+
+        private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+
+        /**
+         * Insert object unless an object of its key exists.
+         *
+         * @return true if inserted
+         */
+        private boolean insert(final StoredObject anObject) {
+            final Lock theLock = locks.get(anObject.objectKey);
+            theLock.lock();
+            try {
+                if (objects.containsKey(anObject.objectKey)) {
+                    return false;
+                }
+                replace(null, anObject);
+                return true;
+            } finally {
+                theLock.unlock();
+            }
+        }
+
+        /**
+         * Remove object of given key if it matches condition.
+         *
+         * @return number of removed objects
+         */
+        private int remove(final String anObjectKey, final java.util.function.Predicate<StoredObject> aCondition) {
+            final Lock theLock = locks.get(anObjectKey);
+            theLock.lock();
+            try {
+                final StoredObject theCurrent = objects.get(anObjectKey);
+                if (theCurrent == null || !aCondition.test(theCurrent)) {
+                    return 0;
+                }
+                replace(theCurrent, null);
+                return 1;
+            } finally {
+                theLock.unlock();
+            }
+        }
+
+        /**
+         * Replace current object by a new one, either of them may be null. Must be called holding the lock of the
+         * object key. The new object is indexed before it is visible and the current one is unindexed after, so an
+         * index read never misses a visible object.
+         */
+        private void replace(final StoredObject aCurrent, final StoredObject aNew) {
+            final Set<Map.Entry<String, Object>> theNewPostings =
+                aNew != null ? postings(aNew.properties) : Collections.emptySet();
+            if (aNew != null) {
+                for (final Map.Entry<String, Object> thePosting : theNewPostings) {
+                    index
+                        .computeIfAbsent(thePosting.getKey(), aKey -> new ConcurrentHashMap<>())
+                        .compute(thePosting.getValue(), (aValue, someObjectKeys) -> {
+                            final Set<String> theObjectKeys =
+                                someObjectKeys != null ? someObjectKeys : ConcurrentHashMap.newKeySet();
+                            theObjectKeys.add(aNew.objectKey);
+                            return theObjectKeys;
+                        });
+                }
+                objects.put(aNew.objectKey, aNew);
+            } else {
+                objects.remove(aCurrent.objectKey);
+            }
+
+            if (aCurrent != null) {
+                for (final Map.Entry<String, Object> thePosting : postings(aCurrent.properties)) {
+                    final ConcurrentMap<Object, Set<String>> theValues = index.get(thePosting.getKey());
+                    if (theValues != null && !theNewPostings.contains(thePosting)) {
+                        theValues.computeIfPresent(thePosting.getValue(), (aValue, someObjectKeys) -> {
+                            someObjectKeys.remove(aCurrent.objectKey);
+                            return someObjectKeys.isEmpty() ? null : someObjectKeys;
+                        });
+                    }
+                }
+            }
+        }
+
+        /**
+         * Objects which may match search ordered by object key, all objects if the search cannot use the index.
+         */
+        private Iterator<StoredObject> candidates(final Search aSearch, final String anAfterObjectKey) {
+            final Set<String> theObjectKeys = aSearch.candidates(this);
+            if (theObjectKeys == null) {
+                return (anAfterObjectKey != null ? objects.tailMap(anAfterObjectKey, false) : objects)
+                    .values()
+                    .iterator();
+            }
+
+            final TreeSet<String> theSortedKeys = new TreeSet<>(theObjectKeys);
+            final Iterator<String> theKeys =
+                (anAfterObjectKey != null ? theSortedKeys.tailSet(anAfterObjectKey, false) : theSortedKeys)
+                    .iterator();
+            return new Iterator<StoredObject>() {
+
+                private StoredObject next = advance();
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public StoredObject next() {
+                    final StoredObject theObject = next;
+                    next = advance();
+                    return theObject;
+                }
+
+                /**
+                 * Objects removed since the keys were read are skipped.
+                 */
+                private StoredObject advance() {
+                    while (theKeys.hasNext()) {
+                        final StoredObject theObject = objects.get(theKeys.next());
+                        if (theObject != null) {
+                            return theObject;
+                        }
+                    }
+                    return null;
+                }
+            };
+        }
+
+        /**
+         * Keys of objects having given property value.
+         */
+        private Set<String> objectKeys(final String aPropertyKey, final Object anIndexValue) {
+            final ConcurrentMap<Object, Set<String>> theValues = index.get(aPropertyKey);
+            final Set<String> theObjectKeys = theValues != null ? theValues.get(anIndexValue) : null;
+            return theObjectKeys != null ? theObjectKeys : Collections.emptySet();
+        }
+
+        /**
+         * Index entries of properties, property keys with index values of scalar top level properties and scalar
+         * elements of array properties.
+         */
+        private static Set<Map.Entry<String, Object>> postings(final JsonNode someProperties) {
+            final Set<Map.Entry<String, Object>> thePostings = new HashSet<>();
+            final Iterator<Map.Entry<String, JsonNode>> theFields = someProperties.fields();
+            while (theFields.hasNext()) {
+                final Map.Entry<String, JsonNode> theField = theFields.next();
+                if (theField.getValue().isArray()) {
+                    for (final JsonNode theElement : theField.getValue()) {
+                        addPosting(thePostings, theField.getKey(), theElement);
+                    }
+                } else {
+                    addPosting(thePostings, theField.getKey(), theField.getValue());
+                }
+            }
+            return thePostings;
+        }
+
+        private static void addPosting(
+            final Set<Map.Entry<String, Object>> somePostings,
+            final String aPropertyKey,
+            final JsonNode aValue) {
+            final Object theIndexValue = ObjCacheJsonMatcher.indexValue(aValue);
+            if (theIndexValue != null) {
+                somePostings.add(new AbstractMap.SimpleImmutableEntry<>(aPropertyKey, theIndexValue));
+            }
+        }
+    }
+
+    /**
+     * Search of objects either by contained properties or by a predicate, or of all objects.
+     */
+    private static final class Search {
+
+        private static final Search ALL = new Search(null, null);
+
+        private final JsonNode properties;
+
+        private final ObjCachePredicate predicate;
+
+        private Search(final JsonNode someProperties, final ObjCachePredicate aPredicate) {
+            properties = someProperties;
+            predicate = aPredicate;
+        }
+
+        private static Search of(final Map<String, Object> someProperties) throws IOException {
+            return new Search(ObjCacheJsonMatcher.toJson(someProperties), null);
+        }
+
+        private static Search of(final ObjCachePredicate aPredicate) {
+            return new Search(null, aPredicate);
+        }
+
+        private boolean matches(final JsonNode someProperties) {
+            if (properties != null) {
+                return ObjCacheJsonMatcher.contains(someProperties, properties);
+            } else if (predicate != null) {
+                return ObjCacheJsonMatcher.matches(someProperties, predicate);
+            }
+            return true;
+        }
+
+        /**
+         * Keys of objects which may match the search, null if all objects have to be checked.
+         */
+        private Set<String> candidates(final CollectionStore aStore) {
+            if (properties != null) {
+                return candidates(aStore, properties);
+            } else if (predicate != null) {
+                return candidates(aStore, predicate);
+            }
+            return null;
+        }
+
+        /**
+         * Objects containing properties have all their scalar values, so the fewest objects having one of the values
+         * are the candidates.
+         */
+        private static Set<String> candidates(final CollectionStore aStore, final JsonNode someProperties) {
+            if (!someProperties.isObject()) {
+                return null;
+            }
+
+            Set<String> theCandidates = null;
+            final Iterator<Map.Entry<String, JsonNode>> theFields = someProperties.fields();
+            while (theFields.hasNext()) {
+                final Map.Entry<String, JsonNode> theField = theFields.next();
+                final JsonNode theValue =
+                    theField.getValue().isArray() && theField.getValue().size() > 0
+                        ? theField.getValue().get(0)
+                        : theField.getValue();
+                final Object theIndexValue = ObjCacheJsonMatcher.indexValue(theValue);
+                if (theIndexValue != null) {
+                    final Set<String> theObjectKeys = aStore.objectKeys(theField.getKey(), theIndexValue);
+                    if (theCandidates == null || theObjectKeys.size() < theCandidates.size()) {
+                        theCandidates = theObjectKeys;
+                    }
+                }
+            }
+            return theCandidates;
+        }
+
+        /**
+         * Equalities are looked up in the index, conjunctions take the fewest candidates of their parts and
+         * disjunctions all candidates of their parts. Other conditions check all objects.
+         */
+        private static Set<String> candidates(final CollectionStore aStore, final ObjCachePredicate aPredicate) {
+            switch (aPredicate.getOperator()) {
+                case EQ:
+                case IN:
+                    final Set<String> theValuesCandidates = new HashSet<>();
+                    for (final Object theValue : aPredicate.getValues()) {
+                        theValuesCandidates
+                            .addAll(
+                                aStore
+                                    .objectKeys(aPredicate.getPropertyKey(), ObjCacheJsonMatcher.indexValue(theValue)));
+                    }
+                    return theValuesCandidates;
+                case AND:
+                    Set<String> theAndCandidates = null;
+                    for (final ObjCachePredicate thePredicate : aPredicate.getPredicates()) {
+                        final Set<String> theCandidates = candidates(aStore, thePredicate);
+                        if (theCandidates != null
+                            && (theAndCandidates == null || theCandidates.size() < theAndCandidates.size())) {
+                            theAndCandidates = theCandidates;
+                        }
+                    }
+                    return theAndCandidates;
+                case OR:
+                    final Set<String> theOrCandidates = new HashSet<>();
+                    for (final ObjCachePredicate thePredicate : aPredicate.getPredicates()) {
+                        final Set<String> theCandidates = candidates(aStore, thePredicate);
+                        if (theCandidates == null) {
+                            return null;
+                        }
+                        theOrCandidates.addAll(theCandidates);
+                    }
+                    return theOrCandidates;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Stored object, the object data are bytes of binary serializers and text of the others.
+     */
+    private static final class StoredObject {
+
+        private final String objectKey;
+
+        private final SerializerType serializerType;
+
+        private final Object objectData;
+
+        private final JsonNode properties;
+
+        private final int version;
+
+        private final ZonedDateTime expirationTime;
+
+        private StoredObject(
+            final String anObjectKey,
+            final SerializerType aSerializerType,
+            final Object anObjectData,
+            final JsonNode someProperties,
+            final int aVersion,
+            final ZonedDateTime anExpirationTime) {
+            objectKey = anObjectKey;
+            serializerType = aSerializerType;
+            objectData = anObjectData;
+            properties = someProperties;
+            version = aVersion;
+            expirationTime = anExpirationTime;
+        }
+
+        private boolean isExpired(final ZonedDateTime aNow) {
+            return expirationTime != null && !expirationTime.isAfter(aNow);
+        }
+
+        private ObjCacheEntityMeta toMeta(final String aCollection) {
+            return new ObjCacheEntityMeta(aCollection, objectKey, serializerType, version, expirationTime);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang3.Validate;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codeveo.objcache.common.ObjCacheJsonUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Background service dispatching invalidations published by object cache services of all nodes to in-process
+ * subscribers.
+ * <p>
+ * {@link ObjCacheServiceImpl} with an invalidation channel set (see
+ * {@link ObjCacheServiceImpl#setInvalidationChannel(String)}) publishes keys of written objects, or just the
+ * collection of objects deleted by a query, as PostgreSQL notifications delivered when the writing transaction
+ * commits. The listener keeps a connection of its own listening to the channel and passes received invalidations to
+ * the subscribers, e.g. {@link ObjCacheNearCacheService}. Writes of this node are received as well. When the
+ * connection is lost, notifications sent meanwhile are lost too, so after reconnecting the subscribers are told to
+ * invalidate everything. The connection stops listening before it is closed, still a data source of its own (not
+ * shared with the services) is preferable, so a connection which fails to stop listening is not reused.
+ * <p>
+ * Start with {@link #start()} and stop with {@link #stop()} (e.g. as Spring init and destroy methods).
+ *
+ */
+public class ObjCacheInvalidationListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjCacheInvalidationListener.class);
+
+    private static final ObjectMapper MAPPER = ObjCacheJsonUtils.createDefaultObjectMapper();
+
+    private static final TypeReference<List<String>> PAYLOAD_TYPE = new TypeReference<List<String>>() {
+    };
+
+    /**
+     * Maximum size of a notification payload accepted by PostgreSQL is 8000 bytes.
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    public static final String DEFAULT_CHANNEL = "objcache_invalidation";
+
+    public static final int DEFAULT_POLL_TIMEOUT_MILLIS = 500;
+
+    public static final long DEFAULT_RECONNECT_DELAY_MILLIS = 1000;
+
+    private final DataSource dataSource;
+
+    private final List<ObjCacheInvalidationSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private String channel = DEFAULT_CHANNEL;
+
+    private int pollTimeoutMillis = DEFAULT_POLL_TIMEOUT_MILLIS;
+
+    private long reconnectDelayMillis = DEFAULT_RECONNECT_DELAY_MILLIS;
+
+    private final LongAdder receivedCount = new LongAdder();
+
+    private volatile boolean running;
+
+    private ExecutorService listener;
+
+    public ObjCacheInvalidationListener(final DataSource aDataSource) {
+        dataSource = Validate.notNull(aDataSource, "Data source is required");
+    }
+
+    /**
+     * Set channel of the notifications, must match the invalidation channel of the object cache services.
+     *
+     * @param aChannel channel
+     */
+    public void setChannel(final String aChannel) {
+        channel = validateChannel(aChannel);
+    }
+
+    /**
+     * Set maximum time the listener waits for notifications before checking whether it has been stopped.
+     *
+     * @param aPollTimeoutMillis timeout in milliseconds
+     */
+    public void setPollTimeoutMillis(final int aPollTimeoutMillis) {
+        Validate.isTrue(aPollTimeoutMillis > 0, "Poll timeout must be a positive number");
+        pollTimeoutMillis = aPollTimeoutMillis;
+    }
+
+    /**
+     * Set delay between a lost connection and the next attempt to connect.
+     *
+     * @param aReconnectDelayMillis delay in milliseconds
+     */
+    public void setReconnectDelayMillis(final long aReconnectDelayMillis) {
+        Validate.isTrue(aReconnectDelayMillis > 0, "Reconnect delay must be a positive number");
+        reconnectDelayMillis = aReconnectDelayMillis;
+    }
+
+    /**
+     * Set subscribers in addition to the already subscribed ones.
+     *
+     * @param someSubscribers subscribers
+     */
+    public void setSubscribers(final Collection<ObjCacheInvalidationSubscriber> someSubscribers) {
+        Validate.notNull(someSubscribers, "Subscribers must be not null");
+        someSubscribers.forEach(this::subscribe);
+    }
+
+    /**
+     * Subscribe to invalidations received from now on.
+     *
+     * @param aSubscriber subscriber
+     */
+    public void subscribe(final ObjCacheInvalidationSubscriber aSubscriber) {
+        subscribers.add(Validate.notNull(aSubscriber, "Subscriber must be not null"));
+    }
+
+    /**
+     * Unsubscribe from invalidations.
+     *
+     * @param aSubscriber subscriber
+     */
+    public void unsubscribe(final ObjCacheInvalidationSubscriber aSubscriber) {
+        subscribers.remove(aSubscriber);
+    }
+
+    /**
+     * Get number of invalidations received so far.
+     *
+     * @return number of received notifications
+     */
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    /**
+     * Start listening.
+     */
+    public synchronized void start() {
+        Validate.validState(listener == null, "Listener is already started");
+
+        running = true;
+        listener =
+            Executors
+                .newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("objcache-invalidation").setDaemon(true).build());
+        listener.execute(this::listen);
+    }
+
+    /**
+     * Stop listening, the listener thread ends within the poll timeout.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.shutdown();
+            listener = null;
+        }
+    }
+
+    /**
+     * Encode invalidation of objects into notification payloads, which are JSON arrays of the collection followed by
+     * object keys (no object keys for the whole collection). Object keys not fitting into a single payload are split
+     * into several ones.
+     */
+    static List<String> payloads(final String aCollection, final Collection<String> someObjectKeys)
+        throws IOException {
+        if (someObjectKeys.isEmpty()) {
+            return Collections.singletonList(MAPPER.writeValueAsString(Collections.singletonList(aCollection)));
+        }
+
+        final List<String> thePayloads = new ArrayList<>();
+        final int theCollectionBytes = MAPPER.writeValueAsBytes(aCollection).length + 2;
+        List<String> thePayload = new ArrayList<>();
+        int thePayloadBytes = theCollectionBytes;
+        for (final String theObjectKey : someObjectKeys) {
+            final int theObjectKeyBytes = MAPPER.writeValueAsBytes(theObjectKey).length + 1;
+            if (thePayloadBytes + theObjectKeyBytes > MAX_PAYLOAD_BYTES && thePayload.size() > 1) {
+                thePayloads.add(MAPPER.writeValueAsString(thePayload));
+                thePayload = new ArrayList<>();
+                thePayloadBytes = theCollectionBytes;
+            }
+            if (thePayload.isEmpty()) {
+                thePayload.add(aCollection);
+            }
+            thePayload.add(theObjectKey);
+            thePayloadBytes += theObjectKeyBytes;
+        }
+        thePayloads.add(MAPPER.writeValueAsString(thePayload));
+
+        return thePayloads;
+    }
+
+    static String validateChannel(final String aChannel) {
+        Validate.notNull(aChannel, "Channel must be not null");
+        Validate.matchesPattern(aChannel, "[a-z_][a-z0-9_]{0,62}", "Channel must be a lower case SQL identifier");
+        return aChannel;
+    }
+
+    private void listen() {
+        boolean isReconnect = false;
+        while (running) {
+            try (Connection theConnection = dataSource.getConnection()) {
+                theConnection.setAutoCommit(true);
+                try (Statement theStatement = theConnection.createStatement()) {
+                    theStatement.execute("LISTEN " + channel);
+                }
+
+                LOGGER.debug("Listening to invalidation channel '{}'", channel);
+
+                final PGConnection thePgConnection = theConnection.unwrap(PGConnection.class);
+                try {
+                    if (isReconnect) {
+                        dispatchAll();
+                    }
+                    isReconnect = true;
+
+                    while (running) {
+                        final PGNotification[] theNotifications = thePgConnection.getNotifications(pollTimeoutMillis);
+                        if (theNotifications != null) {
+                            for (final PGNotification theNotification : theNotifications) {
+                                dispatch(theNotification.getParameter());
+                            }
+                        }
+                    }
+                } finally {
+                    unlisten(theConnection, thePgConnection);
+                }
+            } catch (final SQLException anException) {
+                if (!running) {
+                    return;
+                }
+
+                LOGGER.warn("Listening to invalidation channel '" + channel + "' failed", anException);
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(reconnectDelayMillis);
+                } catch (final InterruptedException anInterruptedException) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop listening before the connection is closed, a pooled connection would otherwise keep receiving
+     * notifications nobody reads for its next borrower. Notifications received so far are discarded.
+     */
+    private void unlisten(final Connection aConnection, final PGConnection aPgConnection) {
+        try (Statement theStatement = aConnection.createStatement()) {
+            theStatement.execute("UNLISTEN *");
+            aPgConnection.getNotifications();
+        } catch (final SQLException anException) {
+            LOGGER.debug("Unlistening of invalidation channel '" + channel + "' failed", anException);
+        }
+    }
+
+    private void dispatch(final String aPayload) {
+        receivedCount.increment();
+
+        final List<String> thePayload;
+        try {
+            thePayload = MAPPER.readValue(aPayload, PAYLOAD_TYPE);
+        } catch (final IOException anException) {
+            LOGGER.warn("Ignoring invalid invalidation '{}'", aPayload);
+            return;
+        }
+        if (thePayload.isEmpty()) {
+            LOGGER.warn("Ignoring invalid invalidation '{}'", aPayload);
+            return;
+        }
+
+        final String theCollection = thePayload.get(0);
+        final List<String> theObjectKeys = thePayload.subList(1, thePayload.size());
+        for (final ObjCacheInvalidationSubscriber theSubscriber : subscribers) {
+            try {
+                if (theObjectKeys.isEmpty()) {
+                    theSubscriber.collectionInvalidated(theCollection);
+                } else {
+                    theSubscriber.objectsInvalidated(theCollection, theObjectKeys);
+                }
+            } catch (final Exception anException) {
+                LOGGER.warn("Subscriber failed to process invalidation '" + aPayload + "'", anException);
+            }
+        }
+    }
+
+    private void dispatchAll() {
+        for (final ObjCacheInvalidationSubscriber theSubscriber : subscribers) {
+            try {
+                theSubscriber.allInvalidated();
+            } catch (final Exception anException) {
+                LOGGER.warn("Subscriber failed to invalidate all objects", anException);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.util.Collection;
+
+/**
+ * Subscriber of invalidations dispatched by {@link ObjCacheInvalidationListener}, e.g. a cache of objects. Methods
+ * are called by the listener thread, so they should be cheap.
+ *
+ */
+public interface ObjCacheInvalidationSubscriber {
+
+    /**
+     * Objects have been created, updated or deleted.
+     *
+     * @param aCollection collection
+     * @param someObjectKeys object keys
+     */
+    void objectsInvalidated(String aCollection, Collection<String> someObjectKeys);
+
+    /**
+     * Any object of the collection might have been deleted.
+     *
+     * @param aCollection collection
+     */
+    void collectionInvalidated(String aCollection);
+
+    /**
+     * Invalidations might have been missed, e.g. while the listener was reconnecting, so any object might have
+     * changed.
+     */
+    void allInvalidated();
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Readers and writers of an object mapper cached per class. A reader or writer bound to a class has its root
+ * (de)serializer resolved once, so the serializers do not resolve the type and look the (de)serializer up again on
+ * every call.
+ *
+ */
+final class ObjCacheJacksonCodec {
+
+    private final ClassValue<ObjectReader> readers;
+
+    private final ClassValue<ObjectWriter> writers;
+
+    /**
+     * Constructs a new instance of class ObjCacheJacksonCodec.
+     *
+     * @param anObjectMapper configured object mapper
+     */
+    ObjCacheJacksonCodec(final ObjectMapper anObjectMapper) {
+        Validate.notNull(anObjectMapper, "Object mapper is required");
+        readers = new ClassValue<ObjectReader>() {
+
+            @Override
+            protected ObjectReader computeValue(final Class<?> aClass) {
+                return anObjectMapper.readerFor(aClass);
+            }
+        };
+        writers = new ClassValue<ObjectWriter>() {
+
+            @Override
+            protected ObjectWriter computeValue(final Class<?> aClass) {
+                return anObjectMapper.writerFor(aClass);
+            }
+        };
+    }
+
+    /**
+     * Get reader of objects of given class.
+     *
+     * @param aClass class of the objects
+     * @return reader
+     */
+    ObjectReader reader(final Class<?> aClass) {
+        return readers.get(aClass);
+    }
+
+    /**
+     * Get writer of given object bound to its class.
+     *
+     * @param anObject object to write
+     * @return writer
+     */
+    ObjectWriter writer(final Object anObject) {
+        return writers.get(anObject.getClass());
+    }
+}
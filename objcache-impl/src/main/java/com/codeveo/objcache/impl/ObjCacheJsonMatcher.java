@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.common.ObjCacheJsonUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Matches object properties in memory the way PostgreSQL matches the jsonb properties column: containment of
+ * properties like the {@code @>} operator and predicates like the {@code @@} operator checking the JSON path compiled
+ * by {@link ObjCacheJsonPath} in lax mode. Properties are kept as JSON trees read from their JSON text, so numbers
+ * are compared by value (e.g. 1 equals 1.0) as jsonb does.
+ *
+ */
+final class ObjCacheJsonMatcher {
+
+    /**
+     * Decimals are kept as written (e.g. 5.0 is not read as 5) like jsonb keeps them.
+     */
+    private static final ObjectMapper MAPPER =
+        ObjCacheJsonUtils.createDefaultObjectMapper().setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+    private static final ObjectReader PROPERTIES_READER =
+        MAPPER.readerFor(new TypeReference<Map<String, Object>>() {
+        });
+
+    private ObjCacheJsonMatcher() {
+    }
+
+    /**
+     * Convert properties to JSON as they are stored in the properties column.
+     *
+     * @param someProperties properties (nullable)
+     * @return JSON tree, JSON null if there are no properties
+     * @throws IOException if the properties cannot be written as JSON
+     */
+    static JsonNode toJson(final Map<String, Object> someProperties) throws IOException {
+        return someProperties != null ? MAPPER.readTree(MAPPER.writeValueAsString(someProperties)) : NullNode.instance;
+    }
+
+    /**
+     * Convert JSON of stored properties back to properties.
+     *
+     * @param aJson JSON tree
+     * @return properties, null if the JSON is null
+     * @throws IOException if the JSON is not an object
+     */
+    static Map<String, Object> toProperties(final JsonNode aJson) throws IOException {
+        return PROPERTIES_READER.readValue(aJson);
+    }
+
+    /**
+     * Check whether JSON contains other JSON like the jsonb {@code @>} operator.
+     *
+     * @param aJson JSON, e.g. stored properties
+     * @param aContainedJson JSON to be contained, e.g. searched properties
+     * @return true if contained
+     */
+    static boolean contains(final JsonNode aJson, final JsonNode aContainedJson) {
+        return contains(aJson, aContainedJson, true);
+    }
+
+    /**
+     * Check whether properties match predicate like the jsonb {@code @@} operator does. A predicate whose result is
+     * unknown (e.g. a string property compared to a number) does not match, nor does its negation.
+     *
+     * @param aJson JSON of properties
+     * @param aPredicate predicate
+     * @return true if matched
+     */
+    static boolean matches(final JsonNode aJson, final ObjCachePredicate aPredicate) {
+        return Boolean.TRUE.equals(evaluate(aJson, aPredicate));
+    }
+
+    /**
+     * Get value of a scalar JSON value under which objects are indexed. Values equal by jsonb have equal index
+     * values.
+     *
+     * @param aValue JSON value
+     * @return index value, null if the value is not scalar
+     */
+    static Object indexValue(final JsonNode aValue) {
+        if (aValue.isNumber()) {
+            return aValue.decimalValue().stripTrailingZeros();
+        } else if (aValue.isTextual()) {
+            return aValue.textValue();
+        } else if (aValue.isBoolean()) {
+            return aValue.booleanValue();
+        } else if (aValue.isNull()) {
+            return NullNode.instance;
+        }
+        return null;
+    }
+
+    /**
+     * Get index value of a predicate value.
+     *
+     * @param aValue string, number or boolean
+     * @return index value
+     * @see #indexValue(JsonNode)
+     */
+    static Object indexValue(final Object aValue) {
+        return aValue instanceof Number ? decimal((Number) aValue).stripTrailingZeros() : aValue;
+    }
+
+    private static boolean contains(final JsonNode aJson, final JsonNode aContainedJson, final boolean isTopLevel) {
+        if (aContainedJson.isObject()) {
+            if (!aJson.isObject()) {
+                return false;
+            }
+            final Iterator<Map.Entry<String, JsonNode>> theFields = aContainedJson.fields();
+            while (theFields.hasNext()) {
+                final Map.Entry<String, JsonNode> theField = theFields.next();
+                final JsonNode theValue = aJson.get(theField.getKey());
+                if (theValue == null || !contains(theValue, theField.getValue(), false)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        if (aContainedJson.isArray()) {
+            if (!aJson.isArray()) {
+                return false;
+            }
+            for (final JsonNode theContainedElement : aContainedJson) {
+                if (!containsElement(aJson, theContainedElement)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // only a top level array contains a scalar
+        if (aJson.isArray()) {
+            return isTopLevel && containsElement(aJson, aContainedJson);
+        }
+
+        final Integer theComparison = compare(aJson, aContainedJson);
+        return theComparison != null && theComparison == 0;
+    }
+
+    private static boolean containsElement(final JsonNode anArray, final JsonNode aContainedElement) {
+        for (final JsonNode theElement : anArray) {
+            if (contains(theElement, aContainedElement, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Three-valued result of a predicate, null if unknown.
+     */
+    private static Boolean evaluate(final JsonNode aJson, final ObjCachePredicate aPredicate) {
+        final List<Object> theValues = aPredicate.getValues();
+        switch (aPredicate.getOperator()) {
+            case EQ:
+                return compare(aJson, aPredicate.getPropertyKey(), theValues.get(0), Operator.EQ);
+            case IN:
+                Boolean theIn = false;
+                for (final Object theValue : theValues) {
+                    theIn = or(theIn, compare(aJson, aPredicate.getPropertyKey(), theValue, Operator.EQ));
+                }
+                return theIn;
+            case GT:
+                return compare(aJson, aPredicate.getPropertyKey(), theValues.get(0), Operator.GT);
+            case GE:
+                return compare(aJson, aPredicate.getPropertyKey(), theValues.get(0), Operator.GE);
+            case LT:
+                return compare(aJson, aPredicate.getPropertyKey(), theValues.get(0), Operator.LT);
+            case LE:
+                return compare(aJson, aPredicate.getPropertyKey(), theValues.get(0), Operator.LE);
+            case BETWEEN:
+                return and(
+                    compare(aJson, aPredicate.getPropertyKey(), theValues.get(0), Operator.GE),
+                    compare(aJson, aPredicate.getPropertyKey(), theValues.get(1), Operator.LE));
+            case EXISTS:
+                return aJson.isObject() && aJson.has(aPredicate.getPropertyKey());
+            case AND:
+                Boolean theAnd = true;
+                for (final ObjCachePredicate thePredicate : aPredicate.getPredicates()) {
+                    theAnd = and(theAnd, evaluate(aJson, thePredicate));
+                }
+                return theAnd;
+            case OR:
+                Boolean theOr = false;
+                for (final ObjCachePredicate thePredicate : aPredicate.getPredicates()) {
+                    theOr = or(theOr, evaluate(aJson, thePredicate));
+                }
+                return theOr;
+            case NOT:
+                final Boolean theResult = evaluate(aJson, aPredicate.getPredicates().get(0));
+                return theResult != null ? !theResult : null;
+            default:
+                throw new IllegalArgumentException("Unsupported predicate operator " + aPredicate.getOperator());
+        }
+    }
+
+    /**
+     * Compare property with value. An array property is unwrapped, so the comparison is true if it is true for any
+     * element, unknown if it is unknown for any other element and false otherwise. A missing property is false.
+     */
+    private static Boolean compare(
+        final JsonNode aJson,
+        final String aPropertyKey,
+        final Object aValue,
+        final Operator anOperator) {
+        final JsonNode theProperty = aJson.isObject() ? aJson.get(aPropertyKey) : null;
+        if (theProperty == null) {
+            return false;
+        }
+
+        final JsonNode theValue = valueNode(aValue);
+        if (!theProperty.isArray()) {
+            return compareItem(theProperty, theValue, anOperator);
+        }
+
+        Boolean theResult = false;
+        for (final JsonNode theElement : theProperty) {
+            theResult = or(theResult, compareItem(theElement, theValue, anOperator));
+        }
+        return theResult;
+    }
+
+    /**
+     * Compare single item, items of different types are unknown except null which is not equal to anything.
+     */
+    private static Boolean compareItem(final JsonNode anItem, final JsonNode aValue, final Operator anOperator) {
+        if (anItem.isNull()) {
+            return false;
+        }
+        final Integer theComparison = compare(anItem, aValue);
+        return theComparison != null ? anOperator.test(theComparison) : null;
+    }
+
+    /**
+     * Compare scalars of the same type, null if they are of different types or not scalars.
+     */
+    private static Integer compare(final JsonNode anItem, final JsonNode aValue) {
+        if (anItem.isNumber() && aValue.isNumber()) {
+            return anItem.decimalValue().compareTo(aValue.decimalValue());
+        } else if (anItem.isTextual() && aValue.isTextual()) {
+            return anItem.textValue().compareTo(aValue.textValue());
+        } else if (anItem.isBoolean() && aValue.isBoolean()) {
+            return Boolean.compare(anItem.booleanValue(), aValue.booleanValue());
+        } else if (anItem.isNull() && aValue.isNull()) {
+            return 0;
+        }
+        return null;
+    }
+
+    private static Boolean and(final Boolean aLeft, final Boolean aRight) {
+        if (Boolean.FALSE.equals(aLeft) || Boolean.FALSE.equals(aRight)) {
+            return false;
+        }
+        return aLeft != null && aRight != null ? true : null;
+    }
+
+    private static Boolean or(final Boolean aLeft, final Boolean aRight) {
+        if (Boolean.TRUE.equals(aLeft) || Boolean.TRUE.equals(aRight)) {
+            return true;
+        }
+        return aLeft != null && aRight != null ? false : null;
+    }
+
+    /**
+     * JSON of a predicate value, a number is taken as written in JSON text.
+     */
+    private static JsonNode valueNode(final Object aValue) {
+        if (aValue instanceof Number) {
+            return DecimalNode.valueOf(decimal((Number) aValue));
+        } else if (aValue instanceof Boolean) {
+            return BooleanNode.valueOf((Boolean) aValue);
+        }
+        return TextNode.valueOf((String) aValue);
+    }
+
+    private static BigDecimal decimal(final Number aNumber) {
+        return aNumber instanceof BigDecimal ? (BigDecimal) aNumber : new BigDecimal(aNumber.toString());
+    }
+
+    private enum Operator {
+        EQ,
+        GT,
+        GE,
+        LT,
+        LE;
+
+        private boolean test(final int aComparison) {
+            switch (this) {
+                case EQ:
+                    return aComparison == 0;
+                case GT:
+                    return aComparison > 0;
+                case GE:
+                    return aComparison >= 0;
+                case LT:
+                    return aComparison < 0;
+                default:
+                    return aComparison <= 0;
+            }
+        }
+    }
+}
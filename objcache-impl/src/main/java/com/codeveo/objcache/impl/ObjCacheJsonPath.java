@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.util.List;
+
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.common.ObjCacheJsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compiles {@link ObjCachePredicate} into a SQL/JSON path predicate checked by the jsonb {@code @@} operator. The
+ * whole predicate is a single bind value, so the statement text does not depend on the predicate. Equalities
+ * combined by and/or are served by the GIN index of the properties, other conditions are filtered by the database.
+ *
+ */
+final class ObjCacheJsonPath {
+
+    private static final ObjectMapper MAPPER = ObjCacheJsonUtils.createDefaultObjectMapper();
+
+    private ObjCacheJsonPath() {
+    }
+
+    /**
+     * Compile predicate.
+     *
+     * @param aPredicate predicate
+     * @return JSON path predicate
+     * @throws JsonProcessingException if a property key or value cannot be written as a JSON literal
+     */
+    static String of(final ObjCachePredicate aPredicate) throws JsonProcessingException {
+        final StringBuilder thePath = new StringBuilder();
+        append(thePath, aPredicate);
+        return thePath.toString();
+    }
+
+    private static void append(final StringBuilder aPath, final ObjCachePredicate aPredicate)
+        throws JsonProcessingException {
+        final List<Object> theValues = aPredicate.getValues();
+        switch (aPredicate.getOperator()) {
+            case EQ:
+                appendComparison(aPath, aPredicate, "==", theValues.get(0));
+                break;
+            case IN:
+                aPath.append('(');
+                for (int i = 0; i < theValues.size(); i++) {
+                    if (i > 0) {
+                        aPath.append(" || ");
+                    }
+                    appendComparison(aPath, aPredicate, "==", theValues.get(i));
+                }
+                aPath.append(')');
+                break;
+            case GT:
+                appendComparison(aPath, aPredicate, ">", theValues.get(0));
+                break;
+            case GE:
+                appendComparison(aPath, aPredicate, ">=", theValues.get(0));
+                break;
+            case LT:
+                appendComparison(aPath, aPredicate, "<", theValues.get(0));
+                break;
+            case LE:
+                appendComparison(aPath, aPredicate, "<=", theValues.get(0));
+                break;
+            case BETWEEN:
+                aPath.append('(');
+                appendComparison(aPath, aPredicate, ">=", theValues.get(0));
+                aPath.append(" && ");
+                appendComparison(aPath, aPredicate, "<=", theValues.get(1));
+                aPath.append(')');
+                break;
+            case EXISTS:
+                aPath.append("exists(");
+                appendProperty(aPath, aPredicate);
+                aPath.append(')');
+                break;
+            case AND:
+                appendComposite(aPath, aPredicate.getPredicates(), " && ");
+                break;
+            case OR:
+                appendComposite(aPath, aPredicate.getPredicates(), " || ");
+                break;
+            case NOT:
+                aPath.append('!');
+                appendComposite(aPath, aPredicate.getPredicates(), "");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported predicate operator " + aPredicate.getOperator());
+        }
+    }
+
+    private static void appendComposite(
+        final StringBuilder aPath,
+        final List<ObjCachePredicate> somePredicates,
+        final String anOperator)
+        throws JsonProcessingException {
+        aPath.append('(');
+        for (int i = 0; i < somePredicates.size(); i++) {
+            if (i > 0) {
+                aPath.append(anOperator);
+            }
+            append(aPath, somePredicates.get(i));
+        }
+        aPath.append(')');
+    }
+
+    private static void appendComparison(
+        final StringBuilder aPath,
+        final ObjCachePredicate aPredicate,
+        final String anOperator,
+        final Object aValue)
+        throws JsonProcessingException {
+        appendProperty(aPath, aPredicate);
+        aPath.append(' ').append(anOperator).append(' ').append(MAPPER.writeValueAsString(aValue));
+    }
+
+    /**
+     * Top level property, the key is quoted as a JSON string so any key is accepted.
+     */
+    private static void appendProperty(final StringBuilder aPath, final ObjCachePredicate aPredicate)
+        throws JsonProcessingException {
+        aPath.append("$.").append(MAPPER.writeValueAsString(aPredicate.getPropertyKey()));
+    }
+}
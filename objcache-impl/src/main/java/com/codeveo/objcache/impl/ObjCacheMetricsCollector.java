@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+
+/**
+ * Metrics listener aggregating operations in memory by collection and operation. Aggregated values are available
+ * via {@link #getStats()}; for latency histograms or percentiles feed a metrics registry by an own
+ * {@link ObjCacheMetricsListener} instead.
+ *
+ */
+public class ObjCacheMetricsCollector implements ObjCacheMetricsListener {
+
+    private final Map<String, Map<ObjCacheOperationType, OperationMetrics>> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheMetricsListener#operationCompleted(java.lang.String,
+     *      com.codeveo.objcache.impl.ObjCacheOperationType, long, long, int)
+     */
+    @Override
+    public void operationCompleted(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final long aDatabaseNanos,
+        final long aSerializationNanos,
+        final int aRowCount) {
+        final OperationMetrics theMetrics = metrics(aCollection, anOperation);
+        theMetrics.count.increment();
+        theMetrics.databaseNanos.add(aDatabaseNanos);
+        theMetrics.maxDatabaseNanos.accumulate(aDatabaseNanos);
+        theMetrics.serializationNanos.add(aSerializationNanos);
+        theMetrics.rowCount.add(aRowCount);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheMetricsListener#operationFailed(java.lang.String,
+     *      com.codeveo.objcache.impl.ObjCacheOperationType, com.codeveo.objcache.common.ObjCacheErrorCodeType, long)
+     */
+    @Override
+    public void operationFailed(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final ObjCacheErrorCodeType anErrorCode,
+        final long aDurationNanos) {
+        final OperationMetrics theMetrics = metrics(aCollection, anOperation);
+        theMetrics.failureCount.increment();
+        theMetrics.errorCounts.get(anErrorCode).increment();
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheMetricsListener#itemFailed(java.lang.String,
+     *      com.codeveo.objcache.impl.ObjCacheOperationType, com.codeveo.objcache.common.ObjCacheErrorCodeType)
+     */
+    @Override
+    public void itemFailed(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final ObjCacheErrorCodeType anErrorCode) {
+        final OperationMetrics theMetrics = metrics(aCollection, anOperation);
+        theMetrics.itemFailureCount.increment();
+        theMetrics.errorCounts.get(anErrorCode).increment();
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheMetricsListener#objectSerialized(java.lang.String,
+     *      com.codeveo.objcache.impl.ObjCacheOperationType, com.codeveo.objcache.api.SerializerType, long, long)
+     */
+    @Override
+    public void objectSerialized(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final SerializerType aSerializerType,
+        final long aSize,
+        final long aNanos) {
+        final OperationMetrics theMetrics = metrics(aCollection, anOperation);
+        theMetrics.serializedCount.increment();
+        theMetrics.serializedSize.add(aSize);
+        theMetrics.maxSerializedSize.accumulate(aSize);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheMetricsListener#objectDeserialized(java.lang.String,
+     *      com.codeveo.objcache.impl.ObjCacheOperationType, com.codeveo.objcache.api.SerializerType, long, long)
+     */
+    @Override
+    public void objectDeserialized(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final SerializerType aSerializerType,
+        final long aSize,
+        final long aNanos) {
+        final OperationMetrics theMetrics = metrics(aCollection, anOperation);
+        theMetrics.deserializedCount.increment();
+        theMetrics.deserializedSize.add(aSize);
+        theMetrics.maxDeserializedSize.accumulate(aSize);
+    }
+
+    /**
+     * Get statistics of operations run on given collection.
+     *
+     * @param aCollection collection
+     * @return statistics snapshots of operations run at least once
+     */
+    public List<ObjCacheOperationStats> getStats(final String aCollection) {
+        final Map<ObjCacheOperationType, OperationMetrics> theMetrics = metrics.get(aCollection);
+        if (theMetrics == null) {
+            return Collections.emptyList();
+        }
+
+        final List<ObjCacheOperationStats> theStats = new ArrayList<>();
+        theMetrics.forEach((anOperation, aMetrics) -> {
+            if (aMetrics.count.sum() > 0 || aMetrics.failureCount.sum() > 0) {
+                theStats.add(aMetrics.stats(aCollection, anOperation));
+            }
+        });
+        return theStats;
+    }
+
+    /**
+     * Get statistics of operations of all collections.
+     *
+     * @return statistics snapshots of operations run at least once
+     */
+    public List<ObjCacheOperationStats> getStats() {
+        final List<ObjCacheOperationStats> theStats = new ArrayList<>();
+        metrics.keySet().forEach(aCollection -> theStats.addAll(getStats(aCollection)));
+        return theStats;
+    }
+
+    private OperationMetrics metrics(final String aCollection, final ObjCacheOperationType anOperation) {
+        return metrics.computeIfAbsent(String.valueOf(aCollection), aKey -> {
+            final Map<ObjCacheOperationType, OperationMetrics> theMetrics = new EnumMap<>(ObjCacheOperationType.class);
+            for (final ObjCacheOperationType theOperation : ObjCacheOperationType.values()) {
+                theMetrics.put(theOperation, new OperationMetrics());
+            }
+            return theMetrics;
+        }).get(anOperation);
+    }
+
+    private static final class OperationMetrics {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder failureCount = new LongAdder();
+
+        private final LongAdder itemFailureCount = new LongAdder();
+
+        private final Map<ObjCacheErrorCodeType, LongAdder> errorCounts = new EnumMap<>(ObjCacheErrorCodeType.class);
+
+        private final LongAdder databaseNanos = new LongAdder();
+
+        private final LongAccumulator maxDatabaseNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder serializationNanos = new LongAdder();
+
+        private final LongAdder rowCount = new LongAdder();
+
+        private final LongAdder serializedCount = new LongAdder();
+
+        private final LongAdder serializedSize = new LongAdder();
+
+        private final LongAccumulator maxSerializedSize = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder deserializedCount = new LongAdder();
+
+        private final LongAdder deserializedSize = new LongAdder();
+
+        private final LongAccumulator maxDeserializedSize = new LongAccumulator(Math::max, 0);
+
+        private OperationMetrics() {
+            for (final ObjCacheErrorCodeType theErrorCode : ObjCacheErrorCodeType.values()) {
+                errorCounts.put(theErrorCode, new LongAdder());
+            }
+        }
+
+        private ObjCacheOperationStats stats(final String aCollection, final ObjCacheOperationType anOperation) {
+            final Map<ObjCacheErrorCodeType, Long> theErrorCounts = new EnumMap<>(ObjCacheErrorCodeType.class);
+            errorCounts.forEach((anErrorCode, aCount) -> {
+                if (aCount.sum() > 0) {
+                    theErrorCounts.put(anErrorCode, aCount.sum());
+                }
+            });
+            return new ObjCacheOperationStats(
+                aCollection,
+                anOperation,
+                count.sum(),
+                failureCount.sum(),
+                itemFailureCount.sum(),
+                theErrorCounts,
+                databaseNanos.sum(),
+                maxDatabaseNanos.get(),
+                serializationNanos.sum(),
+                rowCount.sum(),
+                serializedCount.sum(),
+                serializedSize.sum(),
+                maxSerializedSize.get(),
+                deserializedCount.sum(),
+                deserializedSize.sum(),
+                maxDeserializedSize.get());
+        }
+    }
+}
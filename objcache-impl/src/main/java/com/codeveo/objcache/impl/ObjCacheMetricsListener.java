@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+
+/**
+ * Listener of operations of {@link ObjCacheServiceImpl} used to collect metrics, e.g. to feed latency histograms of
+ * a metrics registry. Methods are called synchronously on the thread running the operation, so they should be
+ * cheap and must not throw exceptions. All methods do nothing by default.
+ *
+ */
+public interface ObjCacheMetricsListener {
+
+    /**
+     * Listener ignoring all events.
+     */
+    ObjCacheMetricsListener NONE = new ObjCacheMetricsListener() {
+    };
+
+    /**
+     * Operation has been completed successfully. Time of the operation is split into time spent by serialization
+     * and deserialization of objects and the rest, which is spent mostly by the database (including consumers of
+     * consuming finds).
+     *
+     * @param aCollection collection
+     * @param anOperation operation
+     * @param aDatabaseNanos time spent outside of serialization in nanoseconds
+     * @param aSerializationNanos time spent by serialization and deserialization in nanoseconds
+     * @param aRowCount number of objects read, written or deleted (0 for counts)
+     */
+    default void operationCompleted(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final long aDatabaseNanos,
+        final long aSerializationNanos,
+        final int aRowCount) {
+    }
+
+    /**
+     * Operation has failed, e.g. by an optimistic lock conflict ({@link ObjCacheErrorCodeType#OBJCACHE_EC_0002}).
+     *
+     * @param aCollection collection
+     * @param anOperation operation
+     * @param anErrorCode error code of the failure
+     * @param aDurationNanos time spent by the operation in nanoseconds
+     */
+    default void operationFailed(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final ObjCacheErrorCodeType anErrorCode,
+        final long aDurationNanos) {
+    }
+
+    /**
+     * Single object of a batch operation has failed, the other objects are not affected.
+     *
+     * @param aCollection collection
+     * @param anOperation batch operation
+     * @param anErrorCode error code of the failure
+     */
+    default void itemFailed(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final ObjCacheErrorCodeType anErrorCode) {
+    }
+
+    /**
+     * Object has been serialized.
+     *
+     * @param aCollection collection
+     * @param anOperation operation serializing the object
+     * @param aSerializerType serializer type
+     * @param aSize size of the serialized object (characters of text serializers, bytes of binary ones)
+     * @param aNanos time spent by serialization in nanoseconds
+     */
+    default void objectSerialized(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final SerializerType aSerializerType,
+        final long aSize,
+        final long aNanos) {
+    }
+
+    /**
+     * Object has been deserialized.
+     *
+     * @param aCollection collection
+     * @param anOperation operation deserializing the object
+     * @param aSerializerType serializer type
+     * @param aSize size of the serialized object (characters of text serializers, bytes of binary ones)
+     * @param aNanos time spent by deserialization in nanoseconds
+     */
+    default void objectDeserialized(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final SerializerType aSerializerType,
+        final long aSize,
+        final long aNanos) {
+    }
+}
@@ -0,0 +1,968 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * In-process near cache in front of an object cache service.
+ * <p>
+ * Objects found by {@link #find(String, String, Class)} are kept in a bounded, per collection LRU cache. An entry
+ * lives at most for the configured time to live and never past the expiration time of the object. The services of
+ * this package return the version and the expiration time together with the object; an object read from another
+ * service is cached only when its expiration time is known from a write through this service. Writes made through
+ * this service invalidate affected entries; entries keep the object version so that invalidations carrying an older
+ * version than the cached one are ignored. Queries and counts are always delegated. Writes of other nodes
+ * invalidate entries when the service is subscribed to an {@link ObjCacheInvalidationListener}.
+ * <p>
+ * Cached objects are shared between callers and must be treated as immutable.
+ *
+ */
+public class ObjCacheNearCacheService implements ObjCacheService, ObjCacheInvalidationSubscriber {
+
+    private final ObjCacheService delegate;
+
+    private final long defaultMaximumSize;
+
+    private final long timeToLiveSeconds;
+
+    private final Map<String, Long> collectionMaximumSizes;
+
+    private final ConcurrentMap<String, CollectionCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance of class ObjCacheNearCacheService.
+     *
+     * @param aDelegate underlying object cache service
+     * @param aDefaultMaximumSize maximum number of cached objects per collection
+     * @param aTimeToLiveSeconds maximum time an object stays cached
+     */
+    public ObjCacheNearCacheService(
+        final ObjCacheService aDelegate,
+        final long aDefaultMaximumSize,
+        final long aTimeToLiveSeconds) {
+        this(aDelegate, aDefaultMaximumSize, aTimeToLiveSeconds, Collections.emptyMap());
+    }
+
+    /**
+     * Constructs a new instance of class ObjCacheNearCacheService.
+     *
+     * @param aDelegate underlying object cache service
+     * @param aDefaultMaximumSize maximum number of cached objects per collection
+     * @param aTimeToLiveSeconds maximum time an object stays cached
+     * @param someCollectionMaximumSizes maximum number of cached objects of particular collections (zero disables
+     *            caching of a collection)
+     */
+    public ObjCacheNearCacheService(
+        final ObjCacheService aDelegate,
+        final long aDefaultMaximumSize,
+        final long aTimeToLiveSeconds,
+        final Map<String, Long> someCollectionMaximumSizes) {
+        delegate = Validate.notNull(aDelegate, "Object cache service is required");
+        Validate.isTrue(aDefaultMaximumSize >= 0, "Maximum size must be not negative");
+        Validate.isTrue(aTimeToLiveSeconds > 0, "Time to live must be a positive number");
+        Validate.notNull(someCollectionMaximumSizes, "Collection maximum sizes must be not null");
+        defaultMaximumSize = aDefaultMaximumSize;
+        timeToLiveSeconds = aTimeToLiveSeconds;
+        collectionMaximumSizes = new HashMap<>(someCollectionMaximumSizes);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByCollection(java.lang.String)
+     */
+    @Override
+    public long countByCollection(final String aCollection) throws ObjCacheException {
+        return delegate.countByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public long countByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        return delegate.countByPredicate(aCollection, aPredicate);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public long countByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return delegate.countByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        ObjCacheEntityMeta theMeta = null;
+        try {
+            theMeta = delegate.create(aCollection, anObjectKey, aSerializerType, someProperties, anObject);
+            return theMeta;
+        } finally {
+            written(aCollection, anObjectKey, theMeta);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        ObjCacheEntityMeta theMeta = null;
+        try {
+            theMeta =
+                delegate.create(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+            return theMeta;
+        } finally {
+            written(aCollection, anObjectKey, theMeta);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#createAll(java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> createAll(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        List<ObjCacheBatchResult> theResults = null;
+        try {
+            theResults = delegate.createAll(aCollection, aSerializerType, someItems);
+            return theResults;
+        } finally {
+            written(aCollection, someItems, theResults);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#delete(java.lang.String, java.lang.String)
+     */
+    @Override
+    public int delete(final String aCollection, final String anObjectKey) throws ObjCacheException {
+        try {
+            return delegate.delete(aCollection, anObjectKey);
+        } finally {
+            written(aCollection, anObjectKey, null);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteAll(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public int deleteAll(final String aCollection, final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        try {
+            return delegate.deleteAll(aCollection, someObjectKeys);
+        } finally {
+            if (someObjectKeys != null) {
+                someObjectKeys.forEach(anObjectKey -> written(aCollection, anObjectKey, null));
+            }
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByCollection(java.lang.String)
+     */
+    @Override
+    public int deleteByCollection(final String aCollection) throws ObjCacheException {
+        try {
+            return delegate.deleteByCollection(aCollection);
+        } finally {
+            invalidateCollection(aCollection);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public int deleteByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        try {
+            return delegate.deleteByPredicate(aCollection, aPredicate);
+        } finally {
+            invalidateCollection(aCollection);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public int deleteByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        try {
+            return delegate.deleteByProperties(aCollection, someProperties);
+        } finally {
+            invalidateCollection(aCollection);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByCollection(java.lang.String)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByCollection(final String aCollection) throws ObjCacheException {
+        return delegate.estimateCountByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return delegate.estimateCountByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#find(java.lang.String, java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> Optional<T> find(final String aCollection, final String anObjectKey, final Class<T> aClass)
+        throws ObjCacheException {
+        final CollectionCache theCache = cache(aCollection);
+        final NearCacheEntry theEntry = theCache.entries.getIfPresent(anObjectKey);
+        if (theEntry != null && theEntry.isUsable(aClass, ZonedDateTime.now())) {
+            theCache.hits.increment();
+            return Optional.of(aClass.cast(theEntry.value));
+        }
+
+        theCache.misses.increment();
+
+        final long theGeneration = theCache.generation.get();
+        final Optional<ObjCacheEntry<T>> theLoadedEntry =
+            ObjCacheEntryFinder.findEntry(delegate, aCollection, anObjectKey, aClass);
+        theLoadedEntry.ifPresent(anEntry -> loaded(theCache, theGeneration, anObjectKey, theEntry, anEntry, aClass));
+        return theLoadedEntry.map(ObjCacheEntry::getObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findAll(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, T> findAll(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+        final CollectionCache theCache = cache(aCollection);
+        final ZonedDateTime theNow = ZonedDateTime.now();
+        final Map<String, T> theObjects = new LinkedHashMap<>();
+        final Map<String, NearCacheEntry> theMissedEntries = new HashMap<>();
+        final List<String> theMissedKeys = new ArrayList<>();
+        for (final String theObjectKey : someObjectKeys) {
+            final NearCacheEntry theEntry = theCache.entries.getIfPresent(theObjectKey);
+            if (theEntry != null && theEntry.isUsable(aClass, theNow)) {
+                theCache.hits.increment();
+                theObjects.put(theObjectKey, aClass.cast(theEntry.value));
+            } else {
+                theCache.misses.increment();
+                theMissedKeys.add(theObjectKey);
+                if (theEntry != null) {
+                    theMissedEntries.put(theObjectKey, theEntry);
+                }
+            }
+        }
+
+        if (theMissedKeys.isEmpty()) {
+            return theObjects;
+        }
+
+        final long theGeneration = theCache.generation.get();
+        ObjCacheEntryFinder
+            .findAllEntries(delegate, aCollection, theMissedKeys, aClass)
+            .forEach((anObjectKey, anEntry) -> {
+                loaded(theCache, theGeneration, anObjectKey, theMissedEntries.get(anObjectKey), anEntry, aClass);
+                theObjects.put(anObjectKey, anEntry.getObject());
+            });
+
+        return theObjects;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByCollection(final String aCollection, final Class<T> aClass) throws ObjCacheException {
+        return delegate.findByCollection(aCollection, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class,
+     *      java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return delegate.findByCollection(aCollection, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return delegate.findByPredicate(aCollection, aPredicate, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return delegate.findByPredicate(aCollection, aPredicate, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return delegate.findByProperties(aCollection, someProperties, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return delegate.findByProperties(aCollection, someProperties, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findKeys(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<String> findKeys(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return delegate.findKeys(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findMeta(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<ObjCacheEntityMeta> findMeta(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return delegate.findMeta(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByCollection(java.lang.String, java.lang.Class, int,
+     *      java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return delegate.findPageByCollection(aCollection, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return delegate.findPageByPredicate(aCollection, aPredicate, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return delegate.findPageByProperties(aCollection, someProperties, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findProperties(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public Map<String, Map<String, Object>> findProperties(
+        final String aCollection,
+        final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return delegate.findProperties(aCollection, someObjectKeys);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#getOrLoad(java.lang.String, java.lang.String, java.lang.Class,
+     *      com.codeveo.objcache.api.SerializerType, java.util.function.Supplier, java.time.Duration)
+     */
+    @Override
+    public <T> T getOrLoad(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        final CollectionCache theCache = cache(aCollection);
+        final NearCacheEntry theEntry = theCache.entries.getIfPresent(anObjectKey);
+        if (theEntry != null && theEntry.isUsable(aClass, ZonedDateTime.now())) {
+            theCache.hits.increment();
+            return aClass.cast(theEntry.value);
+        }
+
+        theCache.misses.increment();
+
+        // the delegate finds the object or loads and puts it, either way its meta data comes with it
+        final long theGeneration = theCache.generation.get();
+        final ObjCacheEntry<T> theLoadedEntry =
+            ObjCacheEntryFinder
+                .getOrLoadEntry(delegate, aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive);
+        loaded(theCache, theGeneration, anObjectKey, theEntry, theLoadedEntry, aClass);
+        return theLoadedEntry.getObject();
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        ObjCacheEntityMeta theMeta = null;
+        try {
+            theMeta = delegate.put(aCollection, anObjectKey, aSerializerType, someProperties, anObject);
+            return theMeta;
+        } finally {
+            written(aCollection, anObjectKey, theMeta);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        ObjCacheEntityMeta theMeta = null;
+        try {
+            theMeta =
+                delegate.put(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+            return theMeta;
+        } finally {
+            written(aCollection, anObjectKey, theMeta);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String,
+     *      java.lang.Integer, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        ObjCacheEntityMeta theMeta = null;
+        try {
+            theMeta = delegate.update(aCollection, anObjectKey, aVersion, someProperties, anObject, anExpirationTime);
+            return theMeta;
+        } finally {
+            written(aCollection, anObjectKey, theMeta);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String, java.util.Map,
+     *      java.lang.Integer, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Integer aVersion,
+        final Object anObject)
+        throws ObjCacheException {
+        ObjCacheEntityMeta theMeta = null;
+        try {
+            theMeta = delegate.update(aCollection, anObjectKey, someProperties, aVersion, anObject);
+            // the expiration time has not been changed by this update
+            if (theMeta != null) {
+                final NearCacheEntry theEntry = cache(aCollection).entries.getIfPresent(anObjectKey);
+                if (theEntry != null && theEntry.expirationTime != null) {
+                    theMeta =
+                        new ObjCacheEntityMeta(
+                            theMeta.getCollection(),
+                            theMeta.getObjectKey(),
+                            theMeta.getSerializerType(),
+                            theMeta.getVersion(),
+                            theEntry.expirationTime);
+                }
+            }
+            return theMeta;
+        } finally {
+            written(aCollection, anObjectKey, theMeta);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#updateAll(java.lang.String, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> updateAll(final String aCollection, final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        List<ObjCacheBatchResult> theResults = null;
+        try {
+            theResults = delegate.updateAll(aCollection, someItems);
+            return theResults;
+        } finally {
+            written(aCollection, someItems, theResults);
+        }
+    }
+
+    /**
+     * Invalidate cached object unless the cached object is known to have the given or a newer version.
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @param aVersion version of the object which made the cached object stale, null if unknown
+     */
+    public void invalidate(final String aCollection, final String anObjectKey, final Integer aVersion) {
+        final CollectionCache theCache = cache(aCollection);
+        theCache.generation.incrementAndGet();
+        final NearCacheEntry theEntry = theCache.entries.getIfPresent(anObjectKey);
+        if (theEntry == null) {
+            return;
+        }
+
+        if (aVersion == null || theEntry.version == null || theEntry.version < aVersion) {
+            theCache.entries.asMap().remove(anObjectKey, theEntry);
+        }
+    }
+
+    /**
+     * Invalidate all cached objects of given collection.
+     *
+     * @param aCollection collection
+     */
+    public void invalidateCollection(final String aCollection) {
+        final CollectionCache theCache = cache(aCollection);
+        theCache.generation.incrementAndGet();
+        theCache.entries.invalidateAll();
+    }
+
+    /**
+     * Invalidate all cached objects.
+     */
+    public void invalidateAll() {
+        caches.keySet().forEach(this::invalidateCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheInvalidationSubscriber#objectsInvalidated(java.lang.String,
+     *      java.util.Collection)
+     */
+    @Override
+    public void objectsInvalidated(final String aCollection, final Collection<String> someObjectKeys) {
+        // collections not cached by this node are not cached by a running load either
+        final CollectionCache theCache = caches.get(aCollection);
+        if (theCache != null) {
+            theCache.generation.incrementAndGet();
+            theCache.entries.invalidateAll(someObjectKeys);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheInvalidationSubscriber#collectionInvalidated(java.lang.String)
+     */
+    @Override
+    public void collectionInvalidated(final String aCollection) {
+        if (caches.containsKey(aCollection)) {
+            invalidateCollection(aCollection);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheInvalidationSubscriber#allInvalidated()
+     */
+    @Override
+    public void allInvalidated() {
+        invalidateAll();
+    }
+
+    /**
+     * Get version of the cached object if known.
+     *
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @return version of the cached object or empty
+     */
+    public Optional<Integer> getCachedVersion(final String aCollection, final String anObjectKey) {
+        final NearCacheEntry theEntry = cache(aCollection).entries.getIfPresent(anObjectKey);
+        return theEntry != null ? Optional.ofNullable(theEntry.version) : Optional.empty();
+    }
+
+    /**
+     * Get statistics of given collection.
+     *
+     * @param aCollection collection
+     * @return statistics snapshot
+     */
+    public ObjCacheNearCacheStats getStats(final String aCollection) {
+        return cache(aCollection).stats(aCollection);
+    }
+
+    /**
+     * Get statistics of all collections accessed so far.
+     *
+     * @return statistics snapshots by collection
+     */
+    public Map<String, ObjCacheNearCacheStats> getStats() {
+        final Map<String, ObjCacheNearCacheStats> theStats = new HashMap<>();
+        caches.forEach((aCollection, aCache) -> theStats.put(aCollection, aCache.stats(aCollection)));
+        return theStats;
+    }
+
+    /**
+     * Cache object loaded from the delegate unless a local write since the load started might have made it stale.
+     * An object of unknown expiration time is cached only when the expiration time is known from a previous write
+     * through this service.
+     * <p>
+     * Writes and invalidations bump the generation before they touch the entry, so a write running between the
+     * generation check and the put either touches the entry after the put or is seen by the check following the put,
+     * which then removes the cached object again.
+     */
+    private <T> void loaded(
+        final CollectionCache aCache,
+        final long aGeneration,
+        final String anObjectKey,
+        final NearCacheEntry aPreviousEntry,
+        final ObjCacheEntry<T> aLoadedEntry,
+        final Class<T> aClass) {
+        final ObjCacheEntityMeta theMeta = aLoadedEntry.getMeta();
+        final NearCacheEntry theEntry;
+        if (aLoadedEntry.getObject() == null) {
+            return;
+        } else if (theMeta != null) {
+            theEntry =
+                new NearCacheEntry(aLoadedEntry.getObject(), aClass, theMeta.getVersion(), theMeta.getExpirationTime());
+        } else if (aPreviousEntry != null) {
+            theEntry =
+                new NearCacheEntry(
+                    aLoadedEntry.getObject(),
+                    aClass,
+                    aPreviousEntry.version,
+                    aPreviousEntry.expirationTime);
+        } else {
+            return;
+        }
+
+        if (aCache.generation.get() != aGeneration) {
+            return;
+        }
+
+        final boolean isCached =
+            aPreviousEntry != null
+                ? aCache.entries.asMap().replace(anObjectKey, aPreviousEntry, theEntry)
+                : aCache.entries.asMap().putIfAbsent(anObjectKey, theEntry) == null;
+        if (isCached && aCache.generation.get() != aGeneration) {
+            aCache.entries.asMap().remove(anObjectKey, theEntry);
+        }
+    }
+
+    private void written(final String aCollection, final String anObjectKey, final ObjCacheEntityMeta aMeta) {
+        final CollectionCache theCache = cache(aCollection);
+        theCache.generation.incrementAndGet();
+        if (aMeta != null) {
+            // keep the written object meta so the next load knows its version and expiration time
+            theCache.entries
+                .put(anObjectKey, new NearCacheEntry(null, null, aMeta.getVersion(), aMeta.getExpirationTime()));
+        } else {
+            theCache.entries.invalidate(anObjectKey);
+        }
+    }
+
+    private void written(
+        final String aCollection,
+        final List<ObjCacheBatchItem> someItems,
+        final List<ObjCacheBatchResult> someResults) {
+        if (someItems == null) {
+            return;
+        }
+
+        for (int i = 0; i < someItems.size(); i++) {
+            final ObjCacheBatchResult theResult = someResults != null ? someResults.get(i) : null;
+            // only successfully written objects are known to the batch results, the others are just invalidated
+            written(
+                aCollection,
+                someItems.get(i).getObjectKey(),
+                theResult != null && theResult.isSuccessful() ? theResult.getMeta() : null);
+        }
+    }
+
+    private CollectionCache cache(final String aCollection) {
+        return caches
+            .computeIfAbsent(
+                aCollection,
+                aKey -> new CollectionCache(collectionMaximumSizes.getOrDefault(aKey, defaultMaximumSize)));
+    }
+
+    private final class CollectionCache {
+
+        private final Cache<String, NearCacheEntry> entries;
+
+        private final AtomicLong generation = new AtomicLong();
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private CollectionCache(final long aMaximumSize) {
+            entries =
+                CacheBuilder
+                    .newBuilder()
+                    .maximumSize(aMaximumSize)
+                    .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+        }
+
+        private ObjCacheNearCacheStats stats(final String aCollection) {
+            return new ObjCacheNearCacheStats(
+                aCollection,
+                hits.sum(),
+                misses.sum(),
+                entries.stats().evictionCount(),
+                entries.size());
+        }
+    }
+
+    private static final class NearCacheEntry {
+
+        private final Object value;
+
+        private final Class<?> type;
+
+        private final Integer version;
+
+        private final ZonedDateTime expirationTime;
+
+        private NearCacheEntry(
+            final Object aValue,
+            final Class<?> aType,
+            final Integer aVersion,
+            final ZonedDateTime anExpirationTime) {
+            value = aValue;
+            type = aType;
+            version = aVersion;
+            expirationTime = anExpirationTime;
+        }
+
+        private boolean isUsable(final Class<?> aClass, final ZonedDateTime aCurrentDateTime) {
+            return value != null
+                && aClass.equals(type)
+                && (expirationTime == null || expirationTime.isAfter(aCurrentDateTime));
+        }
+    }
+}
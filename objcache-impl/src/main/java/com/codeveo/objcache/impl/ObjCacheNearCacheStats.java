@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+/**
+ * Near cache statistics snapshot of a single collection.
+ *
+ */
+public class ObjCacheNearCacheStats {
+
+    private final String collection;
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long size;
+
+    /**
+     * Constructs a new instance of class ObjCacheNearCacheStats.
+     *
+     * @param aCollection collection
+     * @param aHitCount number of finds served from the near cache
+     * @param aMissCount number of finds delegated to the underlying service
+     * @param anEvictionCount number of entries evicted due to size or time limits
+     * @param aSize current number of cached entries
+     */
+    public ObjCacheNearCacheStats(
+        final String aCollection,
+        final long aHitCount,
+        final long aMissCount,
+        final long anEvictionCount,
+        final long aSize) {
+        collection = aCollection;
+        hitCount = aHitCount;
+        missCount = aMissCount;
+        evictionCount = anEvictionCount;
+        size = aSize;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Ratio of finds served from the near cache, 1.0 when there were no finds yet.
+     *
+     * @return hit rate
+     */
+    public double getHitRate() {
+        final long theRequestCount = hitCount + missCount;
+        return theRequestCount == 0 ? 1.0 : (double) hitCount / theRequestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjCacheNearCacheStats [collection="
+            + collection
+            + ", hitCount="
+            + hitCount
+            + ", missCount="
+            + missCount
+            + ", evictionCount="
+            + evictionCount
+            + ", size="
+            + size
+            + "]";
+    }
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+
+/**
+ * Statistics snapshot of a single operation run on a single collection, see {@link ObjCacheMetricsCollector}. Times
+ * are in nanoseconds, sizes of serialized objects in characters for text serializers and in bytes for binary ones.
+ *
+ */
+public class ObjCacheOperationStats {
+
+    private final String collection;
+
+    private final ObjCacheOperationType operation;
+
+    private final long count;
+
+    private final long failureCount;
+
+    private final long itemFailureCount;
+
+    private final Map<ObjCacheErrorCodeType, Long> errorCounts;
+
+    private final long databaseNanos;
+
+    private final long maxDatabaseNanos;
+
+    private final long serializationNanos;
+
+    private final long rowCount;
+
+    private final long serializedCount;
+
+    private final long serializedSize;
+
+    private final long maxSerializedSize;
+
+    private final long deserializedCount;
+
+    private final long deserializedSize;
+
+    private final long maxDeserializedSize;
+
+    /**
+     * Constructs a new instance of class ObjCacheOperationStats.
+     *
+     * @param aCollection collection
+     * @param anOperation operation
+     * @param aCount number of successfully completed operations
+     * @param aFailureCount number of failed operations
+     * @param anItemFailureCount number of failed objects of completed batch operations
+     * @param someErrorCounts numbers of failed operations and objects by error code
+     * @param aDatabaseNanos total time of completed operations spent outside of serialization
+     * @param aMaxDatabaseNanos maximum time of a completed operation spent outside of serialization
+     * @param aSerializationNanos total time of completed operations spent by serialization
+     * @param aRowCount total number of objects read, written or deleted
+     * @param aSerializedCount number of serialized objects
+     * @param aSerializedSize total size of serialized objects
+     * @param aMaxSerializedSize maximum size of a serialized object
+     * @param aDeserializedCount number of deserialized objects
+     * @param aDeserializedSize total size of deserialized objects
+     * @param aMaxDeserializedSize maximum size of a deserialized object
+     */
+    public ObjCacheOperationStats(
+        final String aCollection,
+        final ObjCacheOperationType anOperation,
+        final long aCount,
+        final long aFailureCount,
+        final long anItemFailureCount,
+        final Map<ObjCacheErrorCodeType, Long> someErrorCounts,
+        final long aDatabaseNanos,
+        final long aMaxDatabaseNanos,
+        final long aSerializationNanos,
+        final long aRowCount,
+        final long aSerializedCount,
+        final long aSerializedSize,
+        final long aMaxSerializedSize,
+        final long aDeserializedCount,
+        final long aDeserializedSize,
+        final long aMaxDeserializedSize) {
+        collection = aCollection;
+        operation = anOperation;
+        count = aCount;
+        failureCount = aFailureCount;
+        itemFailureCount = anItemFailureCount;
+        errorCounts = Collections.unmodifiableMap(someErrorCounts);
+        databaseNanos = aDatabaseNanos;
+        maxDatabaseNanos = aMaxDatabaseNanos;
+        serializationNanos = aSerializationNanos;
+        rowCount = aRowCount;
+        serializedCount = aSerializedCount;
+        serializedSize = aSerializedSize;
+        maxSerializedSize = aMaxSerializedSize;
+        deserializedCount = aDeserializedCount;
+        deserializedSize = aDeserializedSize;
+        maxDeserializedSize = aMaxDeserializedSize;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public ObjCacheOperationType getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public long getItemFailureCount() {
+        return itemFailureCount;
+    }
+
+    public Map<ObjCacheErrorCodeType, Long> getErrorCounts() {
+        return errorCounts;
+    }
+
+    public long getDatabaseNanos() {
+        return databaseNanos;
+    }
+
+    public long getMaxDatabaseNanos() {
+        return maxDatabaseNanos;
+    }
+
+    public long getSerializationNanos() {
+        return serializationNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getSerializedCount() {
+        return serializedCount;
+    }
+
+    public long getSerializedSize() {
+        return serializedSize;
+    }
+
+    public long getMaxSerializedSize() {
+        return maxSerializedSize;
+    }
+
+    public long getDeserializedCount() {
+        return deserializedCount;
+    }
+
+    public long getDeserializedSize() {
+        return deserializedSize;
+    }
+
+    public long getMaxDeserializedSize() {
+        return maxDeserializedSize;
+    }
+
+    /**
+     * Number of optimistic lock conflicts ({@link ObjCacheErrorCodeType#OBJCACHE_EC_0002}) of operations and objects
+     * of batch operations.
+     *
+     * @return conflict count
+     */
+    public long getConflictCount() {
+        return errorCounts.getOrDefault(ObjCacheErrorCodeType.OBJCACHE_EC_0002, 0L);
+    }
+
+    /**
+     * Ratio of optimistic lock conflicts to all objects the operation has been run for including the failed ones,
+     * 0.0 when the operation has not been run yet.
+     *
+     * @return conflict rate
+     */
+    public double getConflictRate() {
+        final long theAttemptCount = rowCount + failureCount + itemFailureCount;
+        return theAttemptCount == 0 ? 0.0 : (double) getConflictCount() / theAttemptCount;
+    }
+
+    /**
+     * Mean time of a completed operation spent outside of serialization, 0 when no operation has been completed.
+     *
+     * @return mean time
+     */
+    public long getMeanDatabaseNanos() {
+        return count == 0 ? 0 : databaseNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjCacheOperationStats [collection="
+            + collection
+            + ", operation="
+            + operation
+            + ", count="
+            + count
+            + ", failureCount="
+            + failureCount
+            + ", itemFailureCount="
+            + itemFailureCount
+            + ", errorCounts="
+            + errorCounts
+            + ", databaseNanos="
+            + databaseNanos
+            + ", maxDatabaseNanos="
+            + maxDatabaseNanos
+            + ", serializationNanos="
+            + serializationNanos
+            + ", rowCount="
+            + rowCount
+            + ", serializedCount="
+            + serializedCount
+            + ", serializedSize="
+            + serializedSize
+            + ", maxSerializedSize="
+            + maxSerializedSize
+            + ", deserializedCount="
+            + deserializedCount
+            + ", deserializedSize="
+            + deserializedSize
+            + ", maxDeserializedSize="
+            + maxDeserializedSize
+            + "]";
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+/**
+ * Operations of the object cache service reported to {@link ObjCacheMetricsListener}.
+ *
+ */
+public enum ObjCacheOperationType {
+    COUNT_BY_COLLECTION,
+    COUNT_BY_PREDICATE,
+    COUNT_BY_PROPERTIES,
+    CREATE,
+    CREATE_ALL,
+    DELETE,
+    DELETE_ALL,
+    DELETE_BY_COLLECTION,
+    DELETE_BY_PREDICATE,
+    DELETE_BY_PROPERTIES,
+    ESTIMATE_COUNT_BY_COLLECTION,
+    ESTIMATE_COUNT_BY_PROPERTIES,
+    FIND,
+    FIND_ALL,
+    FIND_BY_COLLECTION,
+    FIND_BY_PREDICATE,
+    FIND_BY_PROPERTIES,
+    FIND_KEYS,
+    FIND_META,
+    FIND_PAGE_BY_COLLECTION,
+    FIND_PAGE_BY_PREDICATE,
+    FIND_PAGE_BY_PROPERTIES,
+    FIND_PROPERTIES,
+    PUT,
+    UPDATE,
+    UPDATE_ALL
+}
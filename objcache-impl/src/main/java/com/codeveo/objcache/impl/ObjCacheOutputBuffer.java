@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Output buffer reused by the serializers of a thread, so serializing an object does not grow a new buffer from a few
+ * bytes up to the size of the object on every call.
+ * <p>
+ * A buffer is acquired before writing and released when its content has been copied out. Nested use in the same
+ * thread (e.g. by a delegating serializer) gets a fresh buffer. Buffers grown over {@link #MAX_RETAINED_SIZE} are
+ * shrunk on release, so a single big object does not hold a big array for the life of the thread. Virtual threads get
+ * a fresh buffer each time, they run a single task and would never reuse their buffer.
+ *
+ */
+final class ObjCacheOutputBuffer extends ByteArrayOutputStream {
+
+    static final int INITIAL_SIZE = 1024;
+
+    static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ObjCacheOutputBuffer> BUFFERS = ThreadLocal.withInitial(ObjCacheOutputBuffer::new);
+
+    /**
+     * Thread#isVirtual() of Java 21+, null if not supported (the project is compiled for Java 8).
+     */
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    private boolean acquired;
+
+    private ObjCacheOutputBuffer() {
+        super(INITIAL_SIZE);
+    }
+
+    /**
+     * Acquire empty buffer of the current thread.
+     *
+     * @return buffer to be released by {@link #release()}
+     */
+    static ObjCacheOutputBuffer acquire() {
+        if (isVirtualThread()) {
+            final ObjCacheOutputBuffer theVirtualBuffer = new ObjCacheOutputBuffer();
+            theVirtualBuffer.acquired = true;
+            return theVirtualBuffer;
+        }
+
+        final ObjCacheOutputBuffer theBuffer = BUFFERS.get();
+        if (theBuffer.acquired) {
+            final ObjCacheOutputBuffer theNestedBuffer = new ObjCacheOutputBuffer();
+            theNestedBuffer.acquired = true;
+            return theNestedBuffer;
+        }
+
+        theBuffer.acquired = true;
+        return theBuffer;
+    }
+
+    /**
+     * Release the buffer for reuse. Content of the buffer is discarded.
+     */
+    void release() {
+        acquired = false;
+        if (buf.length > MAX_RETAINED_SIZE) {
+            buf = new byte[INITIAL_SIZE];
+        }
+        reset();
+    }
+
+    /**
+     * Get content of the buffer encoded in Base64 without copying it out first.
+     *
+     * @return Base64 text
+     */
+    String toBase64String() {
+        final ByteBuffer theEncoded = Base64.getEncoder().encode(ByteBuffer.wrap(buf, 0, count));
+        return new String(theEncoded.array(), 0, theEncoded.limit(), StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (final Throwable anException) {
+            return false;
+        }
+    }
+
+    private static MethodHandle findIsVirtual() {
+        try {
+            return MethodHandles
+                .publicLookup()
+                .findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (final ReflectiveOperationException anException) {
+            return null;
+        }
+    }
+}
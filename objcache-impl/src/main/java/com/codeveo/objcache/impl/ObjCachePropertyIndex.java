@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.Validate;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Declaration of a property queried by find, count and delete by properties of a single collection. The property is
+ * indexed by a btree expression index restricted to the collection, see
+ * {@link ObjCacheServiceImpl#createPropertyIndexes()}.
+ *
+ */
+public class ObjCachePropertyIndex {
+
+    private final String collection;
+
+    private final String propertyKey;
+
+    private final ObjCachePropertyType type;
+
+    /**
+     * Constructs a new instance of class ObjCachePropertyIndex.
+     *
+     * @param aCollection collection
+     * @param aPropertyKey key of a top level property
+     * @param aType type of the property values
+     */
+    public ObjCachePropertyIndex(
+        final String aCollection,
+        final String aPropertyKey,
+        final ObjCachePropertyType aType) {
+        collection = Validate.notBlank(aCollection, "Collection must be not blank");
+        propertyKey = Validate.notBlank(aPropertyKey, "Property key must be not blank");
+        type = Validate.notNull(aType, "Property type must be not null");
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public ObjCachePropertyType getType() {
+        return type;
+    }
+
+    /**
+     * Name of the database index, readable part of the collection and property key followed by a hash of both to
+     * stay unique within the PostgreSQL identifier length.
+     *
+     * @return index name
+     */
+    public String getIndexName() {
+        return "idx_prop_"
+            + identifierPart(collection)
+            + "_"
+            + identifierPart(propertyKey)
+            + "_"
+            + Hashing
+                .murmur3_32()
+                .hashString(collection + "." + propertyKey + "." + type, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    /**
+     * Name of the database index on the partition dedicated to the collection when the table is partitioned. It
+     * differs from {@link #getIndexName()} of the index on the default partition, which is left behind when the
+     * collection is moved into its partition.
+     *
+     * @return index name
+     */
+    public String getPartitionIndexName() {
+        return getIndexName() + "_p";
+    }
+
+    @Override
+    public String toString() {
+        return "ObjCachePropertyIndex [collection="
+            + collection
+            + ", propertyKey="
+            + propertyKey
+            + ", type="
+            + type
+            + "]";
+    }
+
+    private static String identifierPart(final String aName) {
+        final String thePart = aName.toLowerCase().replaceAll("[^a-z0-9_]", "_");
+        return thePart.length() > 16 ? thePart.substring(0, 16) : thePart;
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.math.BigDecimal;
+
+/**
+ * Type of a property value indexed by {@link ObjCachePropertyIndex}. Values of other JSON types are not indexed.
+ *
+ */
+public enum ObjCachePropertyType {
+    STRING("string", "text", String.class),
+    NUMBER("number", "numeric", BigDecimal.class),
+    BOOLEAN("boolean", "boolean", Boolean.class);
+
+    private final String jsonType;
+
+    private final String sqlType;
+
+    private final Class<?> javaType;
+
+    private ObjCachePropertyType(final String aJsonType, final String aSqlType, final Class<?> aJavaType) {
+        jsonType = aJsonType;
+        sqlType = aSqlType;
+        javaType = aJavaType;
+    }
+
+    /**
+     * Name of the type as returned by the jsonb_typeof function.
+     *
+     * @return JSON type
+     */
+    public String getJsonType() {
+        return jsonType;
+    }
+
+    /**
+     * SQL type the indexed value is cast to.
+     *
+     * @return SQL type
+     */
+    public String getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Java type of the bind value the indexed value is compared with.
+     *
+     * @return Java type
+     */
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    /**
+     * Check whether given property value is of this type, i.e. whether the index can be used to search by it.
+     *
+     * @param aValue property value (nullable)
+     * @return true if the value is of this type
+     */
+    public boolean accepts(final Object aValue) {
+        switch (this) {
+            case STRING:
+                return aValue instanceof String;
+            case NUMBER:
+                return aValue instanceof Number;
+            case BOOLEAN:
+                return aValue instanceof Boolean;
+            default:
+                return false;
+        }
+    }
+}
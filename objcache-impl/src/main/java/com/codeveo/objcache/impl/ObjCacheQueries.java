@@ -0,0 +1,811 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep7;
+import org.jooq.Param;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Record1;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.UpdateSetMoreStep;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+/**
+ * Parameterized SQL statements of the object cache service.
+ * <p>
+ * Each statement shape is rendered only once and then executed with bound values, so the database sees a stable
+ * statement text and is able to reuse its execution plan. The bind values have to be passed in the order described
+ * at each statement.
+ *
+ */
+final class ObjCacheQueries {
+
+    static final String TABLE_NAME = "t_objcache";
+
+    static final Table<Record> TABLE = DSL.table(DSL.name(TABLE_NAME));
+
+    static final Field<Long> COL_ID = DSL.field(DSL.name("id"), Long.class);
+
+    static final Field<String> COL_COLLECTION_ID = DSL.field(DSL.name("collection_id"), String.class);
+
+    static final Field<String> COL_OBJECT_KEY = DSL.field(DSL.name("object_key"), String.class);
+
+    static final Field<Integer> COL_VERSION = DSL.field(DSL.name("version"), Integer.class);
+
+    static final Field<String> COL_OBJECT_DATA = DSL.field(DSL.name("object_data"), String.class);
+
+    static final Field<byte[]> COL_OBJECT_DATA_BIN = DSL.field(DSL.name("object_data_bin"), SQLDataType.BLOB);
+
+    static final Field<String> COL_SERIALIZER_TYPE = DSL.field(DSL.name("serializer_type"), String.class);
+
+    static final Field<String> COL_OBJECT_PROPERTIES = DSL.field(DSL.name("properties"), String.class);
+
+    static final Field<OffsetDateTime> COL_EXPIRATION_TIME =
+        DSL.field(DSL.name("expiration_time"), SQLDataType.TIMESTAMPWITHTIMEZONE);
+
+    private static final DSLContext CTX = DSL.using(SQLDialect.POSTGRES);
+
+    /**
+     * Binds: collection, current time
+     */
+    static final String COUNT_BY_COLLECTION =
+        render(
+            CTX
+                .selectCount()
+                .from(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, predicate, current time
+     */
+    static final String COUNT_BY_PREDICATE =
+        render(PropertiesStatement.COUNT.query(conditionCollection(), conditionMatchesPredicate()));
+
+    /**
+     * Binds: collection, properties, current time
+     */
+    static final String COUNT_BY_PROPERTIES =
+        render(PropertiesStatement.COUNT.query(conditionCollection(), conditionContainsProperties()));
+
+    /**
+     * Binds: collection, current time; returns: JSON plan of the query with estimated number of rows
+     */
+    static final String EXPLAIN_BY_COLLECTION =
+        explain(CTX.selectOne().from(TABLE).where(COL_COLLECTION_ID.eq(paramCollection())).and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, properties, current time; returns: JSON plan of the query with estimated number of rows
+     */
+    static final String EXPLAIN_BY_PROPERTIES =
+        explain(
+            CTX
+                .selectOne()
+                .from(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(conditionContainsProperties())
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, object key, serializer type, object data, properties, expiration time
+     */
+    static final String INSERT = render(insert(COL_OBJECT_DATA));
+
+    /**
+     * Binds: collection, object key, serializer type, binary object data, properties, expiration time
+     */
+    static final String INSERT_BINARY = render(insert(COL_OBJECT_DATA_BIN));
+
+    /**
+     * Binds: collection, object key, serializer type, object data, properties, expiration time; returns: object key
+     * of an inserted object
+     */
+    static final String INSERT_IF_NOT_EXISTS =
+        render(
+            insert(COL_OBJECT_DATA).onConflict(COL_COLLECTION_ID, COL_OBJECT_KEY).doNothing().returning(COL_OBJECT_KEY));
+
+    /**
+     * Binds: collection, object key, serializer type, binary object data, properties, expiration time; returns:
+     * object key of an inserted object
+     */
+    static final String INSERT_IF_NOT_EXISTS_BINARY =
+        render(
+            insert(COL_OBJECT_DATA_BIN).onConflict(COL_COLLECTION_ID, COL_OBJECT_KEY).doNothing().returning(COL_OBJECT_KEY));
+
+    /**
+     * Binds: collection, object key, serializer type, object data, binary object data, properties, expiration time,
+     * current time; returns: version
+     */
+    static final String PUT =
+        render(
+            CTX
+                .insertInto(TABLE)
+                .columns(
+                    COL_COLLECTION_ID,
+                    COL_OBJECT_KEY,
+                    COL_SERIALIZER_TYPE,
+                    COL_VERSION,
+                    COL_OBJECT_DATA,
+                    COL_OBJECT_DATA_BIN,
+                    COL_OBJECT_PROPERTIES,
+                    COL_EXPIRATION_TIME)
+                .values(
+                    paramCollection(),
+                    paramObjectKey(),
+                    paramSerializerType(),
+                    DSL.inline(1),
+                    paramObjectData(COL_OBJECT_DATA),
+                    paramObjectData(COL_OBJECT_DATA_BIN),
+                    jsonb(paramProperties()),
+                    paramExpirationTime())
+                .onConflict(COL_COLLECTION_ID, COL_OBJECT_KEY)
+                .doUpdate()
+                // an expired object is replaced as if it has been deleted
+                .set(
+                    COL_VERSION,
+                    DSL
+                        .when(existing(COL_EXPIRATION_TIME).le(paramCurrentTime()), DSL.inline(1))
+                        .otherwise(existing(COL_VERSION).plus(DSL.inline(1))))
+                .set(COL_SERIALIZER_TYPE, excluded(COL_SERIALIZER_TYPE))
+                .set(COL_OBJECT_DATA, excluded(COL_OBJECT_DATA))
+                .set(COL_OBJECT_DATA_BIN, excluded(COL_OBJECT_DATA_BIN))
+                .set(COL_OBJECT_PROPERTIES, excluded(COL_OBJECT_PROPERTIES))
+                .set(COL_EXPIRATION_TIME, excluded(COL_EXPIRATION_TIME))
+                .returning(COL_VERSION));
+
+    /**
+     * Binds: collection, object key
+     */
+    static final String DELETE =
+        render(
+            CTX
+                .deleteFrom(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(COL_OBJECT_KEY.eq(paramObjectKey())));
+
+    /**
+     * Binds: collection, object keys
+     */
+    static final String DELETE_ALL =
+        render(CTX.deleteFrom(TABLE).where(COL_COLLECTION_ID.eq(paramCollection())).and(conditionObjectKeyIn()));
+
+    /**
+     * Binds: collection
+     */
+    static final String DELETE_BY_COLLECTION =
+        render(CTX.deleteFrom(TABLE).where(COL_COLLECTION_ID.eq(paramCollection())));
+
+    /**
+     * Binds: collection; returns: name of the partition dedicated to the collection, no row when the table is not
+     * partitioned or the collection is stored in a shared partition
+     */
+    static final String FIND_COLLECTION_PARTITION =
+        "select c.relname from pg_catalog.pg_inherits i join pg_catalog.pg_class c on c.oid = i.inhrelid"
+            + " where i.inhparent = to_regclass('"
+            + TABLE_NAME
+            + "') and pg_catalog.pg_get_expr(c.relpartbound, c.oid) = 'FOR VALUES IN (' || quote_literal(?) || ')'";
+
+    /**
+     * Name of the default partition of the partitioned table storing collections without a partition of their own.
+     */
+    static final String DEFAULT_PARTITION_NAME = TABLE_NAME + "_default";
+
+    /**
+     * Binds: table or partition name; returns: number of rows of the table estimated like the query planner does from
+     * the rows per page of the last analyze and the current number of pages, no row or zero if it is not known
+     */
+    static final String ESTIMATE_TABLE_ROWS =
+        "select case when c.relpages > 0 and c.reltuples > 0 then c.reltuples / c.relpages"
+            + " * (pg_catalog.pg_relation_size(c.oid) / pg_catalog.current_setting('block_size')::int) else 0 end"
+            + " from pg_catalog.pg_class c where c.oid = pg_catalog.to_regclass(?)";
+
+    /**
+     * Binds: current time, batch size
+     */
+    static final String DELETE_EXPIRED_BATCH =
+        render(
+            CTX
+                .deleteFrom(TABLE)
+                .where(
+                    COL_ID
+                        .in(
+                            CTX
+                                .select(COL_ID)
+                                .from(TABLE)
+                                .where(COL_EXPIRATION_TIME.le(paramCurrentTime()))
+                                .limit(paramLimit())
+                                .forUpdate()
+                                .skipLocked())));
+
+    /**
+     * Binds: collection, predicate
+     */
+    static final String DELETE_BY_PREDICATE =
+        render(PropertiesStatement.DELETE.query(conditionCollection(), conditionMatchesPredicate()));
+
+    /**
+     * Binds: collection, properties
+     */
+    static final String DELETE_BY_PROPERTIES =
+        render(PropertiesStatement.DELETE.query(conditionCollection(), conditionContainsProperties()));
+
+    /**
+     * Binds: collection, object key, current time
+     */
+    static final String FIND =
+        render(
+            CTX
+                .selectFrom(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(COL_OBJECT_KEY.eq(paramObjectKey()))
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, object keys, current time
+     */
+    static final String FIND_ALL =
+        render(
+            CTX
+                .selectFrom(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(conditionObjectKeyIn())
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, current time
+     */
+    static final String FIND_BY_COLLECTION =
+        render(CTX.selectFrom(TABLE).where(COL_COLLECTION_ID.eq(paramCollection())).and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, predicate, current time
+     */
+    static final String FIND_BY_PREDICATE =
+        render(PropertiesStatement.FIND.query(conditionCollection(), conditionMatchesPredicate()));
+
+    /**
+     * Binds: collection, properties, current time
+     */
+    static final String FIND_BY_PROPERTIES =
+        render(PropertiesStatement.FIND.query(conditionCollection(), conditionContainsProperties()));
+
+    /**
+     * Binds: collection, current time
+     */
+    static final String FIND_KEYS =
+        render(PropertiesStatement.FIND_KEYS.query(conditionCollection(), DSL.noCondition()));
+
+    /**
+     * Binds: collection, properties, current time
+     */
+    static final String FIND_KEYS_BY_PROPERTIES =
+        render(PropertiesStatement.FIND_KEYS.query(conditionCollection(), conditionContainsProperties()));
+
+    /**
+     * Binds: collection, current time
+     */
+    static final String FIND_META =
+        render(PropertiesStatement.FIND_META.query(conditionCollection(), DSL.noCondition()));
+
+    /**
+     * Binds: collection, properties, current time
+     */
+    static final String FIND_META_BY_PROPERTIES =
+        render(PropertiesStatement.FIND_META.query(conditionCollection(), conditionContainsProperties()));
+
+    /**
+     * Binds: collection, last object key of the previous page, current time, limit
+     */
+    static final String FIND_PAGE_BY_COLLECTION =
+        render(
+            CTX
+                .selectFrom(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(COL_OBJECT_KEY.gt(paramObjectKey()))
+                .and(conditionNotExpired())
+                .orderBy(COL_OBJECT_KEY)
+                .limit(paramLimit()));
+
+    /**
+     * Binds: collection, last object key of the previous page, predicate, current time, limit
+     */
+    static final String FIND_PAGE_BY_PREDICATE =
+        render(PropertiesStatement.FIND_PAGE.query(conditionCollection(), conditionMatchesPredicate()));
+
+    /**
+     * Binds: collection, last object key of the previous page, properties, current time, limit
+     */
+    static final String FIND_PAGE_BY_PROPERTIES =
+        render(PropertiesStatement.FIND_PAGE.query(conditionCollection(), conditionContainsProperties()));
+
+    /**
+     * Binds: collection, object keys, current time
+     */
+    static final String FIND_PROPERTIES =
+        render(
+            CTX
+                .select(COL_OBJECT_KEY, COL_OBJECT_PROPERTIES)
+                .from(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(conditionObjectKeyIn())
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, object key, current time
+     */
+    static final String FIND_VERSION_SERIALIZER_TYPE =
+        render(
+            CTX
+                .select(COL_VERSION, COL_SERIALIZER_TYPE)
+                .from(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(COL_OBJECT_KEY.eq(paramObjectKey()))
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: collection, object keys, current time
+     */
+    static final String FIND_ALL_VERSION_SERIALIZER_TYPE =
+        render(
+            CTX
+                .select(COL_OBJECT_KEY, COL_VERSION, COL_SERIALIZER_TYPE)
+                .from(TABLE)
+                .where(COL_COLLECTION_ID.eq(paramCollection()))
+                .and(conditionObjectKeyIn())
+                .and(conditionNotExpired()));
+
+    /**
+     * Binds: channel, payload
+     */
+    static final String NOTIFY =
+        render(
+            CTX
+                .select(
+                    DSL
+                        .function(
+                            "pg_notify",
+                            Object.class,
+                            DSL.param("channel", String.class),
+                            DSL.param("payload", String.class))));
+
+    /**
+     * Binds: sampled percentage of table pages, collection, current time; returns: count, sum of squared counts per
+     * page
+     */
+    static final String SAMPLE_COUNT_BY_COLLECTION =
+        sampleCount(conditionNotExpired());
+
+    /**
+     * Binds: sampled percentage of table pages, collection, properties, current time; returns: count, sum of squared
+     * counts per page
+     */
+    static final String SAMPLE_COUNT_BY_PROPERTIES =
+        sampleCount(conditionContainsProperties().and(conditionNotExpired()));
+
+    /**
+     * Binds: new version, properties, object data, collection, object key, version, serializer type, current time
+     */
+    static final String UPDATE_KEYED = render(updateKeyed(update(COL_OBJECT_DATA)));
+
+    /**
+     * Binds: new version, properties, binary object data, collection, object key, version, serializer type, current
+     * time
+     */
+    static final String UPDATE_KEYED_BINARY = render(updateKeyed(update(COL_OBJECT_DATA_BIN)));
+
+    /**
+     * Binds: new version, properties, object data, expiration time, collection, object key, version, serializer type,
+     * current time
+     */
+    static final String UPDATE_KEYED_WITH_EXPIRATION_TIME =
+        render(updateKeyed(update(COL_OBJECT_DATA).set(COL_EXPIRATION_TIME, paramExpirationTime())));
+
+    /**
+     * Binds: new version, properties, binary object data, expiration time, collection, object key, version,
+     * serializer type, current time
+     */
+    static final String UPDATE_KEYED_WITH_EXPIRATION_TIME_BINARY =
+        render(updateKeyed(update(COL_OBJECT_DATA_BIN).set(COL_EXPIRATION_TIME, paramExpirationTime())));
+
+    /**
+     * Statements searching objects of a collection by properties. The collection condition is given, so the same
+     * statement can either bind the collection or restrict it to a collection with declared property indexes, and
+     * so is the properties condition matching either contained properties or a predicate.
+     */
+    enum PropertiesStatement {
+        COUNT(
+            (aCollectionCondition, aPropertiesCondition) -> CTX
+                .selectCount()
+                .from(TABLE)
+                .where(aCollectionCondition)
+                .and(aPropertiesCondition)
+                .and(conditionNotExpired())),
+        DELETE(
+            (aCollectionCondition, aPropertiesCondition) -> CTX
+                .deleteFrom(TABLE)
+                .where(aCollectionCondition)
+                .and(aPropertiesCondition)),
+        FIND(
+            (aCollectionCondition, aPropertiesCondition) -> CTX
+                .selectFrom(TABLE)
+                .where(aCollectionCondition)
+                .and(aPropertiesCondition)
+                .and(conditionNotExpired())),
+        FIND_PAGE(
+            (aCollectionCondition, aPropertiesCondition) -> CTX
+                .selectFrom(TABLE)
+                .where(aCollectionCondition)
+                .and(COL_OBJECT_KEY.gt(paramObjectKey()))
+                .and(aPropertiesCondition)
+                .and(conditionNotExpired())
+                .orderBy(COL_OBJECT_KEY)
+                .limit(paramLimit())),
+        FIND_KEYS(
+            (aCollectionCondition, aPropertiesCondition) -> CTX
+                .select(COL_OBJECT_KEY)
+                .from(TABLE)
+                .where(aCollectionCondition)
+                .and(aPropertiesCondition)
+                .and(conditionNotExpired())
+                .orderBy(COL_OBJECT_KEY)),
+        FIND_META(
+            (aCollectionCondition, aPropertiesCondition) -> CTX
+                .select(COL_OBJECT_KEY, COL_SERIALIZER_TYPE, COL_VERSION, COL_EXPIRATION_TIME)
+                .from(TABLE)
+                .where(aCollectionCondition)
+                .and(aPropertiesCondition)
+                .and(conditionNotExpired())
+                .orderBy(COL_OBJECT_KEY));
+
+        private final BiFunction<Condition, Condition, Query> builder;
+
+        private PropertiesStatement(final BiFunction<Condition, Condition, Query> aBuilder) {
+            builder = aBuilder;
+        }
+
+        private Query query(final Condition aCollectionCondition, final Condition aPropertiesCondition) {
+            return builder.apply(aCollectionCondition, aPropertiesCondition);
+        }
+    }
+
+    private ObjCacheQueries() {
+    }
+
+    /**
+     * Create statement searching objects of given collection by properties using declared property indexes. The
+     * collection is inlined, so the statement matches the partial indexes restricted to the collection, and each
+     * index is searched by an equality of its expression.
+     * <p>
+     * Binds: values of the property indexes, other bind values of the statement without collection, where
+     * properties are only those not searched by the indexes
+     *
+     * @param aStatement statement
+     * @param aCollection collection
+     * @param someIndexes property indexes
+     * @return statement
+     */
+    static String propertiesStatement(
+        final PropertiesStatement aStatement,
+        final String aCollection,
+        final List<ObjCachePropertyIndex> someIndexes) {
+        Condition theCondition = COL_COLLECTION_ID.eq(DSL.inline(aCollection));
+        for (final ObjCachePropertyIndex theIndex : someIndexes) {
+            theCondition =
+                theCondition
+                    .and(
+                        DSL
+                            .condition(
+                                "{0} = {1}",
+                                propertyExpression(theIndex),
+                                DSL.param(theIndex.getPropertyKey(), theIndex.getType().getJavaType())));
+        }
+        return render(aStatement.query(theCondition, conditionContainsProperties()));
+    }
+
+    /**
+     * Create statement creating index of a declared property restricted to rows of its collection. The index is
+     * created concurrently, the statement must not run in a transaction. PostgreSQL does not create indexes of a
+     * partitioned table concurrently, so the index is then created on the partition storing the collection.
+     *
+     * @param anIndex property index
+     * @param aTable name of the table or of the partition storing the collection
+     * @param anIndexName index name
+     * @return statement
+     */
+    static String createPropertyIndex(
+        final ObjCachePropertyIndex anIndex,
+        final String aTable,
+        final String anIndexName) {
+        return "create index concurrently if not exists "
+            + CTX.render(DSL.name(anIndexName))
+            + " on "
+            + CTX.render(DSL.table(DSL.name(aTable)))
+            + " (("
+            + CTX.render(propertyExpression(anIndex))
+            + ")) where "
+            + CTX.renderInlined(COL_COLLECTION_ID.eq(DSL.inline(anIndex.getCollection())));
+    }
+
+    /**
+     * Create bind value of a timestamp column.
+     *
+     * @param aDateTime date time (nullable)
+     * @return bind value
+     */
+    static Object timestamp(final ZonedDateTime aDateTime) {
+        return aDateTime != null
+            ? Timestamp.from(aDateTime.toInstant())
+            : new SqlParameterValue(Types.TIMESTAMP, null);
+    }
+
+    /**
+     * Create bind value of a text column which may be null.
+     *
+     * @param aText text (nullable)
+     * @return bind value
+     */
+    static Object text(final String aText) {
+        return new SqlParameterValue(Types.VARCHAR, aText);
+    }
+
+    /**
+     * Create bind value of a binary column which may be null.
+     *
+     * @param someBytes bytes (nullable)
+     * @return bind value
+     */
+    static Object binary(final byte[] someBytes) {
+        return new SqlParameterValue(Types.BINARY, someBytes);
+    }
+
+    /**
+     * Create statement locking given partition against concurrent reads and writes.
+     *
+     * @param aPartition partition table name
+     * @return statement
+     */
+    static String lockPartition(final String aPartition) {
+        return "lock table " + CTX.render(DSL.name(aPartition)) + " in access exclusive mode";
+    }
+
+    /**
+     * Create statement counting all rows of given partition.
+     *
+     * @param aPartition partition table name
+     * @return statement
+     */
+    static String countPartition(final String aPartition) {
+        return render(CTX.selectCount().from(DSL.table(DSL.name(aPartition))));
+    }
+
+    /**
+     * Create statement truncating given partition.
+     *
+     * @param aPartition partition table name
+     * @return statement
+     */
+    static String truncatePartition(final String aPartition) {
+        return render(CTX.truncate(DSL.table(DSL.name(aPartition))));
+    }
+
+    /**
+     * Create bind value of a varchar array.
+     *
+     * @param someValues array values
+     * @return bind value
+     */
+    static SqlTypeValue varcharArray(final Collection<String> someValues) {
+        return new AbstractSqlTypeValue() {
+
+            @Override
+            protected Object createTypeValue(final Connection aConnection, final int aSqlType, final String aTypeName)
+                throws SQLException {
+                return aConnection.createArrayOf("varchar", someValues.toArray());
+            }
+        };
+    }
+
+    private static String render(final Query aQuery) {
+        return aQuery.getSQL(ParamType.INDEXED);
+    }
+
+    private static String explain(final Query aQuery) {
+        return "explain (format json) " + render(aQuery);
+    }
+
+    /**
+     * Count of objects in a sample of whole table pages, so only the sampled percentage of the table is read. Counts
+     * are summed up per page, the sum of their squares gives the variance of the estimate.
+     */
+    private static String sampleCount(final Condition aCondition) {
+        final Field<Integer> thePageCount = DSL.count().as("page_count");
+        final Table<Record1<Integer>> thePages = CTX
+            .select(thePageCount)
+            .from(DSL.table("{0} tablesample system ({1})", TABLE, DSL.param("percentage", Float.class)))
+            .where(COL_COLLECTION_ID.eq(paramCollection()))
+            .and(aCondition)
+            .groupBy(DSL.field("(ctid::text::point)[0]"))
+            .asTable("pages");
+        final Field<Long> theCount = DSL.field(DSL.name("page_count"), Long.class);
+
+        return render(
+            CTX
+                .select(
+                    DSL.coalesce(DSL.sum(theCount), DSL.inline(BigDecimal.ZERO)).as("sample_count"),
+                    DSL.coalesce(DSL.sum(theCount.mul(theCount)), DSL.inline(BigDecimal.ZERO)).as("sample_squares"))
+                .from(thePages));
+    }
+
+    private static <D> InsertValuesStep7<Record, String, String, String, Integer, D, String, OffsetDateTime> insert(
+        final Field<D> anObjectDataColumn) {
+        return CTX
+            .insertInto(TABLE)
+            .columns(
+                COL_COLLECTION_ID,
+                COL_OBJECT_KEY,
+                COL_SERIALIZER_TYPE,
+                COL_VERSION,
+                anObjectDataColumn,
+                COL_OBJECT_PROPERTIES,
+                COL_EXPIRATION_TIME)
+            .values(
+                paramCollection(),
+                paramObjectKey(),
+                paramSerializerType(),
+                DSL.inline(1),
+                paramObjectData(anObjectDataColumn),
+                jsonb(paramProperties()),
+                paramExpirationTime());
+    }
+
+    private static <D> UpdateSetMoreStep<Record> update(final Field<D> anObjectDataColumn) {
+        return CTX
+            .update(TABLE)
+            .set(COL_VERSION, paramVersion())
+            .set(COL_OBJECT_PROPERTIES, jsonb(paramProperties()))
+            .set(anObjectDataColumn, paramObjectData(anObjectDataColumn));
+    }
+
+    /**
+     * Restrict update to a single object of given version and serializer type. The serializer type condition makes
+     * sure the object data is written into the column the stored serializer reads.
+     */
+    private static Query updateKeyed(final UpdateSetMoreStep<Record> anUpdate) {
+        return anUpdate
+            .where(COL_COLLECTION_ID.eq(paramCollection()))
+            .and(COL_OBJECT_KEY.eq(paramObjectKey()))
+            .and(COL_VERSION.eq(paramVersion()))
+            .and(COL_SERIALIZER_TYPE.eq(paramSerializerType()))
+            .and(conditionNotExpired());
+    }
+
+    /**
+     * Value of a top level property of the declared type, null if the property holds other JSON type, so the cast
+     * never fails.
+     */
+    private static Field<Object> propertyExpression(final ObjCachePropertyIndex anIndex) {
+        final ObjCachePropertyType theType = anIndex.getType();
+        return DSL
+            .field(
+                "CASE WHEN jsonb_typeof({0} -> {1}) = {2} THEN CAST({0} ->> {1} AS " + theType.getSqlType() + ") END",
+                Object.class,
+                COL_OBJECT_PROPERTIES,
+                DSL.inline(anIndex.getPropertyKey()),
+                DSL.inline(theType.getJsonType()));
+    }
+
+    private static Condition conditionCollection() {
+        return COL_COLLECTION_ID.eq(paramCollection());
+    }
+
+    private static Condition conditionNotExpired() {
+        return COL_EXPIRATION_TIME.isNull().or(COL_EXPIRATION_TIME.gt(paramCurrentTime()));
+    }
+
+    private static Condition conditionContainsProperties() {
+        return DSL.condition("{0} @> {1}", COL_OBJECT_PROPERTIES, jsonb(paramProperties()));
+    }
+
+    private static Condition conditionMatchesPredicate() {
+        return DSL
+            .condition("{0} @@ CAST({1} AS jsonpath)", COL_OBJECT_PROPERTIES, DSL.param("predicate", String.class));
+    }
+
+    private static Condition conditionObjectKeyIn() {
+        return DSL
+            .condition(
+                "{0} = ANY({1})",
+                COL_OBJECT_KEY,
+                DSL.param("objectKeys", SQLDataType.VARCHAR.getArrayDataType()));
+    }
+
+    /**
+     * Column of the existing row in the update part of an upsert.
+     */
+    private static <T> Field<T> existing(final Field<T> aColumn) {
+        return DSL.field(DSL.name(TABLE_NAME, aColumn.getName()), aColumn.getDataType());
+    }
+
+    /**
+     * Column of the row proposed for insertion in the update part of an upsert.
+     */
+    private static <T> Field<T> excluded(final Field<T> aColumn) {
+        return DSL.field(DSL.name("excluded", aColumn.getName()), aColumn.getDataType());
+    }
+
+    private static Field<String> jsonb(final Field<String> aField) {
+        return DSL.field("CAST({0} AS jsonb)", String.class, aField);
+    }
+
+    private static Param<String> paramCollection() {
+        return DSL.param("collection", String.class);
+    }
+
+    private static Param<String> paramObjectKey() {
+        return DSL.param("objectKey", String.class);
+    }
+
+    private static <D> Param<D> paramObjectData(final Field<D> anObjectDataColumn) {
+        return DSL.param("objectData", anObjectDataColumn.getDataType());
+    }
+
+    private static Param<String> paramSerializerType() {
+        return DSL.param("serializerType", String.class);
+    }
+
+    private static Param<String> paramProperties() {
+        return DSL.param("properties", String.class);
+    }
+
+    private static Param<Integer> paramVersion() {
+        return DSL.param("version", Integer.class);
+    }
+
+    private static Param<OffsetDateTime> paramExpirationTime() {
+        return DSL.param("expirationTime", SQLDataType.TIMESTAMPWITHTIMEZONE);
+    }
+
+    private static Param<Integer> paramLimit() {
+        return DSL.param("limit", Integer.class);
+    }
+
+    private static Param<OffsetDateTime> paramCurrentTime() {
+        return DSL.param("currentTime", SQLDataType.TIMESTAMPWITHTIMEZONE);
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheException;
+
+/**
+ * Read-through of objects of an object cache service, which loads and puts missing objects. Concurrent misses of
+ * the same object wait for the first one to load and put the object instead of doing it again.
+ *
+ */
+final class ObjCacheReadThrough {
+
+    /**
+     * Running loads of missing objects by collection and object key.
+     */
+    private final ConcurrentMap<LoadKey, CompletableFuture<ObjCacheEntry<?>>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Find object by given service or load it and put it to the service if it does not exist or has expired.
+     *
+     * @param aService service storing the objects
+     * @param aCollection collection
+     * @param anObjectKey object key
+     * @param aClass object class
+     * @param aSerializerType serializer type of a loaded object
+     * @param aLoader loader of a missing object, a null object is returned but not stored
+     * @param aTimeToLive time to live of a loaded object, null if it never expires
+     * @return found or loaded object with its meta data
+     * @throws ObjCacheException
+     * @see ObjCacheService#getOrLoad(String, String, Class, SerializerType, Supplier, Duration)
+     */
+    <S extends ObjCacheService & ObjCacheEntryFinder, T> ObjCacheEntry<T> getOrLoad(
+        final S aService,
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        Validate.notNull(aSerializerType, "Serializer type must be not null");
+        Validate.notNull(aLoader, "Loader must be not null");
+
+        final Optional<ObjCacheEntry<T>> theEntry = aService.findEntry(aCollection, anObjectKey, aClass);
+        if (theEntry.isPresent()) {
+            return theEntry.get();
+        }
+
+        // concurrent misses wait for the first one to load and put the object instead of doing it again
+        final LoadKey theLoadKey = new LoadKey(aCollection, anObjectKey);
+        final CompletableFuture<ObjCacheEntry<?>> theLoad = new CompletableFuture<>();
+        final CompletableFuture<ObjCacheEntry<?>> theRunningLoad = loads.putIfAbsent(theLoadKey, theLoad);
+        if (theRunningLoad != null) {
+            final ObjCacheEntry<?> theLoadedEntry = awaitLoad(theRunningLoad);
+            if (theLoadedEntry.getObject() == null || aClass.isInstance(theLoadedEntry.getObject())) {
+                return new ObjCacheEntry<>(aClass.cast(theLoadedEntry.getObject()), theLoadedEntry.getMeta());
+            }
+            return aService.findEntry(aCollection, anObjectKey, aClass).orElse(new ObjCacheEntry<>(null, null));
+        }
+
+        try {
+            // the object might have been put by a load finished since the find
+            final ObjCacheEntry<T> theLoadedEntry =
+                aService.findEntry(aCollection, anObjectKey, aClass).orElseGet(() -> {
+                    final T theNewObject = aLoader.get();
+                    if (theNewObject == null) {
+                        return new ObjCacheEntry<>(null, null);
+                    }
+
+                    // an expired object is overwritten
+                    return new ObjCacheEntry<>(
+                        theNewObject,
+                        aService
+                            .put(
+                                aCollection,
+                                anObjectKey,
+                                aSerializerType,
+                                Collections.emptyMap(),
+                                theNewObject,
+                                aTimeToLive != null ? ZonedDateTime.now().plus(aTimeToLive) : null));
+                });
+            theLoad.complete(theLoadedEntry);
+            return theLoadedEntry;
+        } catch (final RuntimeException | Error anException) {
+            theLoad.completeExceptionally(anException);
+            throw anException;
+        } finally {
+            loads.remove(theLoadKey, theLoad);
+        }
+    }
+
+    /**
+     * Wait for a load of another thread, failures of the load are rethrown.
+     */
+    private static ObjCacheEntry<?> awaitLoad(final CompletableFuture<ObjCacheEntry<?>> aLoad) {
+        try {
+            return aLoad.join();
+        } catch (final CompletionException anException) {
+            if (anException.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) anException.getCause();
+            } else if (anException.getCause() instanceof Error) {
+                throw (Error) anException.getCause();
+            }
+            throw anException;
+        }
+    }
+
+    private static final class LoadKey {
+
+        private final String collection;
+
+        private final String objectKey;
+
+        private LoadKey(final String aCollection, final String anObjectKey) {
+            collection = aCollection;
+            objectKey = anObjectKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(collection, objectKey);
+        }
+
+        @Override
+        public boolean equals(final Object anObject) {
+            if (this == anObject) {
+                return true;
+            }
+            if (!(anObject instanceof LoadKey)) {
+                return false;
+            }
+            final LoadKey theOther = (LoadKey) anObject;
+            return Objects.equals(collection, theOther.collection) && Objects.equals(objectKey, theOther.objectKey);
+        }
+    }
+}
@@ -0,0 +1,614 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheException;
+
+/**
+ * Object cache service storing collections in different object cache services, e.g. some collections only in the
+ * memory of the process by {@link ObjCacheInMemoryService} and the others in the database by
+ * {@link ObjCacheServiceImpl}.
+ * <p>
+ * Every operation works with a single collection, so it is delegated to the service of its collection or to the
+ * default service if no service is assigned to the collection.
+ *
+ */
+public class ObjCacheRoutingService implements ObjCacheService, ObjCacheEntryFinder {
+
+    private final ObjCacheService defaultService;
+
+    private final Map<String, ObjCacheService> collectionServices;
+
+    /**
+     * Constructs a new instance of class ObjCacheRoutingService.
+     *
+     * @param aDefaultService service of collections without an assigned service
+     * @param someCollectionServices services of particular collections
+     */
+    public ObjCacheRoutingService(
+        final ObjCacheService aDefaultService,
+        final Map<String, ObjCacheService> someCollectionServices) {
+        defaultService = Validate.notNull(aDefaultService, "Object cache service is required");
+        Validate.notNull(someCollectionServices, "Collection services must be not null");
+        Validate.noNullElements(someCollectionServices.values(), "Collection services must be not null");
+        collectionServices = new HashMap<>(someCollectionServices);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByCollection(java.lang.String)
+     */
+    @Override
+    public long countByCollection(final String aCollection) throws ObjCacheException {
+        return service(aCollection).countByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public long countByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        return service(aCollection).countByPredicate(aCollection, aPredicate);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public long countByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return service(aCollection).countByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        return service(aCollection).create(aCollection, anObjectKey, aSerializerType, someProperties, anObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return service(aCollection)
+            .create(
+                aCollection,
+                anObjectKey,
+                aSerializerType,
+                someProperties,
+                anObject,
+                anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#createAll(java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> createAll(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        return service(aCollection).createAll(aCollection, aSerializerType, someItems);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#delete(java.lang.String, java.lang.String)
+     */
+    @Override
+    public int delete(final String aCollection, final String anObjectKey) throws ObjCacheException {
+        return service(aCollection).delete(aCollection, anObjectKey);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteAll(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public int deleteAll(final String aCollection, final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return service(aCollection).deleteAll(aCollection, someObjectKeys);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByCollection(java.lang.String)
+     */
+    @Override
+    public int deleteByCollection(final String aCollection) throws ObjCacheException {
+        return service(aCollection).deleteByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public int deleteByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        return service(aCollection).deleteByPredicate(aCollection, aPredicate);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public int deleteByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return service(aCollection).deleteByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByCollection(java.lang.String)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByCollection(final String aCollection) throws ObjCacheException {
+        return service(aCollection).estimateCountByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return service(aCollection).estimateCountByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#find(java.lang.String, java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> Optional<T> find(final String aCollection, final String anObjectKey, final Class<T> aClass)
+        throws ObjCacheException {
+        return service(aCollection).find(aCollection, anObjectKey, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findAll(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, T> findAll(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return service(aCollection).findAll(aCollection, someObjectKeys, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Optional<ObjCacheEntry<T>> findEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return ObjCacheEntryFinder.findEntry(service(aCollection), aCollection, anObjectKey, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findAllEntries(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, ObjCacheEntry<T>> findAllEntries(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return ObjCacheEntryFinder.findAllEntries(service(aCollection), aCollection, someObjectKeys, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByCollection(final String aCollection, final Class<T> aClass) throws ObjCacheException {
+        return service(aCollection).findByCollection(aCollection, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class,
+     *      java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return service(aCollection).findByCollection(aCollection, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return service(aCollection).findByPredicate(aCollection, aPredicate, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return service(aCollection).findByPredicate(aCollection, aPredicate, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return service(aCollection).findByProperties(aCollection, someProperties, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return service(aCollection).findByProperties(aCollection, someProperties, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findKeys(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<String> findKeys(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return service(aCollection).findKeys(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findMeta(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<ObjCacheEntityMeta> findMeta(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return service(aCollection).findMeta(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByCollection(java.lang.String, java.lang.Class, int,
+     *      java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return service(aCollection).findPageByCollection(aCollection, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return service(aCollection).findPageByPredicate(aCollection, aPredicate, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return service(aCollection).findPageByProperties(aCollection, someProperties, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findProperties(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public Map<String, Map<String, Object>> findProperties(
+        final String aCollection,
+        final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return service(aCollection).findProperties(aCollection, someObjectKeys);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#getOrLoad(java.lang.String, java.lang.String, java.lang.Class,
+     *      com.codeveo.objcache.api.SerializerType, java.util.function.Supplier, java.time.Duration)
+     */
+    @Override
+    public <T> T getOrLoad(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return service(aCollection).getOrLoad(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#getOrLoadEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class, com.codeveo.objcache.api.SerializerType, java.util.function.Supplier,
+     *      java.time.Duration)
+     */
+    @Override
+    public <T> ObjCacheEntry<T> getOrLoadEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return ObjCacheEntryFinder
+            .getOrLoadEntry(
+                service(aCollection),
+                aCollection,
+                anObjectKey,
+                aClass,
+                aSerializerType,
+                aLoader,
+                aTimeToLive);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        return service(aCollection).put(aCollection, anObjectKey, aSerializerType, someProperties, anObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return service(aCollection)
+            .put(
+                aCollection,
+                anObjectKey,
+                aSerializerType,
+                someProperties,
+                anObject,
+                anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String,
+     *      java.lang.Integer, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return service(aCollection)
+            .update(
+                aCollection,
+                anObjectKey,
+                aVersion,
+                someProperties,
+                anObject,
+                anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String, java.util.Map,
+     *      java.lang.Integer, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Integer aVersion,
+        final Object anObject)
+        throws ObjCacheException {
+        return service(aCollection).update(aCollection, anObjectKey, someProperties, aVersion, anObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#updateAll(java.lang.String, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> updateAll(final String aCollection, final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        return service(aCollection).updateAll(aCollection, someItems);
+    }
+
+    /**
+     * Service storing collection.
+     */
+    private ObjCacheService service(final String aCollection) {
+        final ObjCacheService theService = aCollection != null ? collectionServices.get(aCollection) : null;
+        return theService != null ? theService : defaultService;
+    }
+}
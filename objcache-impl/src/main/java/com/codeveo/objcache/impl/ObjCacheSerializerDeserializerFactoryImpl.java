@@ -11,6 +11,30 @@ public class ObjCacheSerializerDeserializerFactoryImpl implements ObjCacheSerial
     private static final JavaBase64ObjSerializerDeserializer JAVABASE64_SERDER =
         new JavaBase64ObjSerializerDeserializer();
 
+    private static final JavaObjSerializerDeserializer JAVA_SERDER = new JavaObjSerializerDeserializer();
+
+    private static final SmileObjSerializerDeserializer SMILE_SERDER = new SmileObjSerializerDeserializer();
+
+    private final DeflateObjSerializerDeserializer jsonDeflateSerDer;
+
+    private final DeflateObjSerializerDeserializer javaDeflateSerDer;
+
+    public ObjCacheSerializerDeserializerFactoryImpl() {
+        this(DeflateObjSerializerDeserializer.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new instance of class ObjCacheSerializerDeserializerFactoryImpl.
+     *
+     * @param aCompressionThreshold minimal size in bytes of serialized objects compressed by compressing serializers
+     */
+    public ObjCacheSerializerDeserializerFactoryImpl(final int aCompressionThreshold) {
+        jsonDeflateSerDer =
+            new DeflateObjSerializerDeserializer(SerializerType.JSON_DEFLATE, JSON_SERDER, aCompressionThreshold);
+        javaDeflateSerDer =
+            new DeflateObjSerializerDeserializer(SerializerType.JAVA_DEFLATE, JAVA_SERDER, aCompressionThreshold);
+    }
+
     /**
      * Overrides an inherit method or implements an abstract method.
      *
@@ -19,10 +43,18 @@ public class ObjCacheSerializerDeserializerFactoryImpl implements ObjCacheSerial
     @Override
     public ObjCacheSerializerDeserializer getSerializer(SerializerType aSerializerType) {
         switch (aSerializerType) {
+            case JAVA:
+                return JAVA_SERDER;
             case JAVA_BASE64:
                 return JAVABASE64_SERDER;
             case JSON:
                 return JSON_SERDER;
+            case JSON_DEFLATE:
+                return jsonDeflateSerDer;
+            case JAVA_DEFLATE:
+                return javaDeflateSerDer;
+            case SMILE:
+                return SMILE_SERDER;
         }
 
         throw new ObjCacheException(
@@ -17,69 +17,146 @@
  ******************************************************************************/
 package com.codeveo.objcache.impl;
 
-import java.time.ZoneId;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.Validate;
-import org.jooq.Condition;
-import org.jooq.Field;
-import org.jooq.Record;
-import org.jooq.Table;
-import org.jooq.UpdateSetMoreStep;
-import org.jooq.conf.ParamType;
-import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
 import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
 import com.codeveo.objcache.api.ObjCacheService;
 import com.codeveo.objcache.api.SerializerType;
-import com.codeveo.objcache.common.ObjCacheCommonUtils;
 import com.codeveo.objcache.common.ObjCacheErrorCodeType;
 import com.codeveo.objcache.common.ObjCacheException;
 import com.codeveo.objcache.common.ObjCacheJsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.CountingInputStream;
 
 /**
  * Object cache service implementation.
  *
  */
-public class ObjCacheServiceImpl implements ObjCacheService {
+public class ObjCacheServiceImpl implements ObjCacheService, ObjCacheEntryFinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ObjCacheServiceImpl.class);
 
     private static final ObjectMapper MAPPER = ObjCacheJsonUtils.createDefaultObjectMapper();
 
-    private static final String TABLE_NAME = "t_objcache";
+    private static final TypeReference<Map<String, Object>> PROPERTIES_TYPE =
+        new TypeReference<Map<String, Object>>() {
+        };
 
-    private static final Table<Record> TABLE = DSL.table(DSL.name(TABLE_NAME));
+    /**
+     * Default number of rows fetched at once by consuming finds.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
 
-    private static final Field<Long> COL_ID = DSL.field(DSL.name("id"), Long.class);
+    /**
+     * Default maximum estimated count of objects, which are counted exactly by estimating counts.
+     */
+    public static final long DEFAULT_EXACT_COUNT_THRESHOLD = 10000;
 
-    private static final Field<String> COL_COLLECTION_ID = DSL.field(DSL.name("collection_id"), String.class);
+    /**
+     * Default number of table rows sampled by estimating counts.
+     */
+    public static final long DEFAULT_ESTIMATE_SAMPLE_SIZE = 10000;
 
-    private static final Field<String> COL_OBJECT_KEY = DSL.field(DSL.name("object_key"), String.class);
+    /**
+     * Default maximum fraction of the table sampled by estimating counts.
+     */
+    public static final double DEFAULT_ESTIMATE_MAX_SAMPLE_FRACTION = 0.1;
 
-    private static final Field<Integer> COL_VERSION = DSL.field(DSL.name("version"), Integer.class);
+    /**
+     * Z-score of the 95% confidence of estimated counts.
+     */
+    private static final double ESTIMATE_Z_SCORE = 1.96;
 
-    private static final Field<String> COL_OBJECT_DATA = DSL.field(DSL.name("object_data"), String.class);
+    private final TransactionTemplate txTemplate;
 
-    private static final Field<String> COL_SERIALIZER_TYPE = DSL.field(DSL.name("serializer_type"), String.class);
+    private final JdbcTemplate jdbcTemplate;
 
-    private static final Field<String> COL_OBJECT_PROPERTIES = DSL.field(DSL.name("properties"), String.class);
+    private final ObjCacheSerializerDeserializerFactory objSerDerFactory;
 
-    private static final Field<String> COL_EXPIRATION_TIME = DSL.field(DSL.name("expiration_time"), String.class);
+    private int fetchSize = DEFAULT_FETCH_SIZE;
 
-    private final TransactionTemplate txTemplate;
+    private long exactCountThreshold = DEFAULT_EXACT_COUNT_THRESHOLD;
 
-    private final JdbcTemplate jdbcTemplate;
+    private long estimateSampleSize = DEFAULT_ESTIMATE_SAMPLE_SIZE;
 
-    private final ObjCacheSerializerDeserializerFactory objSerDerFactory;
+    private double estimateMaxSampleFraction = DEFAULT_ESTIMATE_MAX_SAMPLE_FRACTION;
+
+    private String invalidationChannel;
+
+    private boolean partitioned;
+
+    /**
+     * Serializer type last written per collection, used to serialize updated objects without looking up their
+     * serializer type first.
+     */
+    private final Map<String, SerializerType> serializerTypeHints = new ConcurrentHashMap<>();
+
+    /**
+     * Collections whose objects have been found stored by several serializers, their updated objects are serialized
+     * only after looking up their serializer type.
+     */
+    private final Set<String> mixedSerializerCollections = ConcurrentHashMap.newKeySet();
+
+    private ObjCacheMetricsListener metricsListener = ObjCacheMetricsListener.NONE;
+
+    /**
+     * Metrics of the operation running on the current thread, set only while a metrics listener is used.
+     */
+    private final ThreadLocal<OperationMetrics> operationMetrics = new ThreadLocal<>();
+
+    /**
+     * Declared property indexes by collection and property key.
+     */
+    private volatile Map<String, SortedMap<String, ObjCachePropertyIndex>> propertyIndexes = Collections.emptyMap();
+
+    /**
+     * Rendered statements using property indexes by statement, collection and indexed property keys.
+     */
+    private final Map<String, String> propertiesStatements = new ConcurrentHashMap<>();
+
+    private final ObjCacheReadThrough readThrough = new ObjCacheReadThrough();
 
     public ObjCacheServiceImpl(
         TransactionTemplate aTxTemplate,
@@ -90,6 +167,151 @@ public class ObjCacheServiceImpl implements ObjCacheService {
         objSerDerFactory = Validate.notNull(anObjSerDerFactory, "ObjCache serializer factory is required");
     }
 
+    /**
+     * Set number of rows fetched at once by consuming finds. The rows are read through a database cursor in chunks of
+     * this size, so the memory used by a consuming find does not depend on the number of found objects.
+     *
+     * @param aFetchSize fetch size
+     */
+    public void setFetchSize(final int aFetchSize) {
+        Validate.isTrue(aFetchSize > 0, "Fetch size must be a positive number");
+        fetchSize = aFetchSize;
+    }
+
+    /**
+     * Set maximum number of objects estimated by the query planner, which are counted exactly by estimating counts.
+     *
+     * @param anExactCountThreshold exact count threshold
+     */
+    public void setExactCountThreshold(final long anExactCountThreshold) {
+        Validate.isTrue(anExactCountThreshold >= 0, "Exact count threshold must be not negative");
+        exactCountThreshold = anExactCountThreshold;
+    }
+
+    /**
+     * Set number of table rows to be sampled by estimating counts of collections above the exact count threshold. The
+     * table is shared by collections, so the sample contains objects of a collection in proportion to its share of
+     * the table. The error bound of an estimate shrinks with the square root of the sample size.
+     *
+     * @param anEstimateSampleSize sample size
+     */
+    public void setEstimateSampleSize(final long anEstimateSampleSize) {
+        Validate.isTrue(anEstimateSampleSize > 0, "Estimate sample size must be a positive number");
+        estimateSampleSize = anEstimateSampleSize;
+    }
+
+    /**
+     * Set maximum fraction of the table (or of the partition of a collection) sampled by estimating counts. Objects
+     * are counted exactly when the sample size would take a larger fraction of the table, because reading most of the
+     * table is not cheaper than counting the objects of the collection.
+     *
+     * @param anEstimateMaxSampleFraction maximum sampled fraction of the table, between 0 and 1
+     */
+    public void setEstimateMaxSampleFraction(final double anEstimateMaxSampleFraction) {
+        Validate
+            .isTrue(
+                anEstimateMaxSampleFraction > 0 && anEstimateMaxSampleFraction <= 1,
+                "Estimate maximum sample fraction must be between 0 and 1");
+        estimateMaxSampleFraction = anEstimateMaxSampleFraction;
+    }
+
+    /**
+     * Set whether the table is partitioned by collection (see <i>schema-postgresql-partitioned.sql</i>), false by
+     * default. Only then the partition of a collection is looked up, e.g. to truncate it when all objects of the
+     * collection are deleted.
+     *
+     * @param isPartitioned true if the table is partitioned
+     */
+    public void setPartitioned(final boolean isPartitioned) {
+        partitioned = isPartitioned;
+    }
+
+    /**
+     * Set channel of PostgreSQL notifications published by writes to invalidate objects cached by other nodes (see
+     * {@link ObjCacheInvalidationListener}), null (default) publishes nothing.
+     *
+     * @param anInvalidationChannel channel, e.g. {@link ObjCacheInvalidationListener#DEFAULT_CHANNEL}
+     */
+    public void setInvalidationChannel(final String anInvalidationChannel) {
+        invalidationChannel =
+            anInvalidationChannel != null ? ObjCacheInvalidationListener.validateChannel(anInvalidationChannel) : null;
+    }
+
+    /**
+     * Set listener of operations used to collect metrics, {@link ObjCacheMetricsListener#NONE} by default.
+     *
+     * @param aMetricsListener metrics listener
+     */
+    public void setMetricsListener(final ObjCacheMetricsListener aMetricsListener) {
+        metricsListener = Validate.notNull(aMetricsListener, "Metrics listener must be not null");
+    }
+
+    /**
+     * Set properties searched by find, count and delete by properties of their collections. A search by properties
+     * including a declared property whose value is of the declared type restricts the collection and the property
+     * value so, that the database uses the index created by {@link #createPropertyIndexes()} instead of scanning all
+     * objects containing the properties.
+     *
+     * @param someIndexes declared property indexes
+     */
+    public void setPropertyIndexes(final Collection<ObjCachePropertyIndex> someIndexes) {
+        Validate.noNullElements(someIndexes, "Property indexes must be not null");
+        final Map<String, SortedMap<String, ObjCachePropertyIndex>> theIndexes = new HashMap<>();
+        for (final ObjCachePropertyIndex theIndex : someIndexes) {
+            theIndexes
+                .computeIfAbsent(theIndex.getCollection(), aCollection -> new TreeMap<>())
+                .put(theIndex.getPropertyKey(), theIndex);
+        }
+        propertyIndexes = theIndexes;
+        propertiesStatements.clear();
+    }
+
+    /**
+     * Create database indexes of the declared property indexes, which do not exist yet. Each index covers only rows
+     * of its collection. The indexes are created concurrently without blocking writes, so this method must not run
+     * within a transaction.
+     * <p>
+     * When the table is partitioned, each index is created on the partition storing its collection, i.e. the
+     * partition dedicated to the collection or the default partition. The index on the default partition does not
+     * follow a collection moved into a partition of its own, so this method should run again after the move.
+     *
+     * @throws ObjCacheException if an index cannot be created
+     */
+    public void createPropertyIndexes() throws ObjCacheException {
+        for (final Map<String, ObjCachePropertyIndex> theIndexes : propertyIndexes.values()) {
+            for (final ObjCachePropertyIndex theIndex : theIndexes.values()) {
+                try {
+                    final String theStatement;
+                    if (partitioned) {
+                        final String thePartition = findCollectionPartition(theIndex.getCollection());
+                        theStatement =
+                            thePartition != null
+                                ? ObjCacheQueries
+                                    .createPropertyIndex(theIndex, thePartition, theIndex.getPartitionIndexName())
+                                : ObjCacheQueries
+                                    .createPropertyIndex(
+                                        theIndex,
+                                        ObjCacheQueries.DEFAULT_PARTITION_NAME,
+                                        theIndex.getIndexName());
+                    } else {
+                        theStatement =
+                            ObjCacheQueries
+                                .createPropertyIndex(theIndex, ObjCacheQueries.TABLE_NAME, theIndex.getIndexName());
+                    }
+
+                    LOGGER.debug("Running statement '{}'", theStatement);
+
+                    jdbcTemplate.execute(theStatement);
+                } catch (final Exception anException) {
+                    throw new ObjCacheException(
+                        ObjCacheErrorCodeType.OBJCACHE_EC_0005,
+                        anException,
+                        "Error occured while creating index of '" + theIndex + "'");
+                }
+            }
+        }
+    }
+
     /**
      * Overrides an inherit method or implements an abstract method.
      *
@@ -97,21 +319,16 @@ public class ObjCacheServiceImpl implements ObjCacheService {
      */
     @Override
     public long countByCollection(final String aCollection) throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.COUNT_BY_COLLECTION, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
 
-                final String theQuery =
-                    DSL
-                        .selectCount()
-                        .from(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(conditionExpiredRecs(ZonedDateTime.now()))
-                        .getSQL(ParamType.INLINED);
+                final String theQuery = ObjCacheQueries.COUNT_BY_COLLECTION;
 
                 LOGGER.debug("Running query '{}'", theQuery);
 
-                return jdbcTemplate.queryForObject(theQuery, long.class);
+                return jdbcTemplate
+                    .queryForObject(theQuery, long.class, aCollection, ObjCacheQueries.timestamp(ZonedDateTime.now()));
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
@@ -123,6 +340,46 @@ public class ObjCacheServiceImpl implements ObjCacheService {
         });
     }
 
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public long countByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.COUNT_BY_PREDICATE, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aPredicate, "Predicate must be not null");
+
+                final String theQuery = ObjCacheQueries.COUNT_BY_PREDICATE;
+
+                LOGGER.debug("Running query '{}'", theQuery);
+
+                return jdbcTemplate
+                    .queryForObject(
+                        theQuery,
+                        long.class,
+                        aCollection,
+                        ObjCacheJsonPath.of(aPredicate),
+                        ObjCacheQueries.timestamp(ZonedDateTime.now()));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query for collection '"
+                        + aCollection
+                        + "' and predicate '"
+                        + aPredicate
+                        + "'");
+            }
+        });
+    }
+
     /**
      * Overrides an inherit method or implements an abstract method.
      *
@@ -132,27 +389,20 @@ public class ObjCacheServiceImpl implements ObjCacheService {
     @Override
     public long countByProperties(final String aCollection, final Map<String, Object> someProperties)
         throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.COUNT_BY_PROPERTIES, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
 
-                final String theQuery =
-                    DSL
-                        .selectCount()
-                        .from(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(
-                            DSL
-                                .condition(
-                                    "{0} @> {1}",
-                                    COL_OBJECT_PROPERTIES,
-                                    MAPPER.writeValueAsString(someProperties)))
-                        .and(conditionExpiredRecs(ZonedDateTime.now()))
-                        .getSQL(ParamType.INLINED);
+                final PropertiesQuery theQuery =
+                    propertiesQuery(ObjCacheQueries.PropertiesStatement.COUNT, aCollection, someProperties);
 
-                LOGGER.debug("Running query '{}'", theQuery);
+                LOGGER.debug("Running query '{}'", theQuery.statement);
 
-                return jdbcTemplate.queryForObject(theQuery, long.class);
+                return jdbcTemplate
+                    .queryForObject(
+                        theQuery.statement,
+                        long.class,
+                        theQuery.args(theQuery.properties, ObjCacheQueries.timestamp(ZonedDateTime.now())));
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
@@ -178,9 +428,10 @@ public class ObjCacheServiceImpl implements ObjCacheService {
         final Map<String, Object> someProperties,
         final Object anObject)
         throws ObjCacheException {
-        return txTemplate
-            .execute(
-                aStatus -> createCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, null));
+        return execute(
+            ObjCacheOperationType.CREATE,
+            aCollection,
+            aStatus -> createCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, null));
     }
 
     /**
@@ -198,15 +449,103 @@ public class ObjCacheServiceImpl implements ObjCacheService {
         final Object anObject,
         final ZonedDateTime anExpirationTime)
         throws ObjCacheException {
-        return txTemplate
-            .execute(
-                aStatus -> createCommon(
-                    aCollection,
-                    anObjectKey,
-                    aSerializerType,
-                    someProperties,
-                    anObject,
-                    anExpirationTime));
+        return execute(
+            ObjCacheOperationType.CREATE,
+            aCollection,
+            aStatus -> createCommon(
+                aCollection,
+                anObjectKey,
+                aSerializerType,
+                someProperties,
+                anObject,
+                anExpirationTime));
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#createAll(java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> createAll(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.CREATE_ALL, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aSerializerType, "Serializer type must be not null");
+                Validate.notNull(someItems, "Items must be not null");
+
+                final ObjCacheBatchResult[] theResults = new ObjCacheBatchResult[someItems.size()];
+                final List<Integer> theBatchIndexes = new ArrayList<>(someItems.size());
+                final List<Object[]> theBatchArgs = new ArrayList<>(someItems.size());
+                for (int i = 0; i < someItems.size(); i++) {
+                    final ObjCacheBatchItem theItem = someItems.get(i);
+                    Validate.notBlank(theItem.getObjectKey(), "Object key must be not blank");
+
+                    try {
+                        theBatchArgs
+                            .add(
+                                new Object[] {
+                                    aCollection,
+                                    theItem.getObjectKey(),
+                                    aSerializerType.name(),
+                                    serializeObjectData(
+                                        aCollection,
+                                        theItem.getObjectKey(),
+                                        aSerializerType,
+                                        theItem.getObject()),
+                                    MAPPER.writeValueAsString(theItem.getProperties()),
+                                    ObjCacheQueries.timestamp(theItem.getExpirationTime()) });
+                        theBatchIndexes.add(i);
+                    } catch (final Exception anException) {
+                        theResults[i] = new ObjCacheBatchResult(theItem.getObjectKey(), batchErrorCode(anException));
+                    }
+                }
+
+                if (!theBatchArgs.isEmpty()) {
+                    final String theQuery =
+                        isBinary(aSerializerType)
+                            ? ObjCacheQueries.INSERT_IF_NOT_EXISTS_BINARY
+                            : ObjCacheQueries.INSERT_IF_NOT_EXISTS;
+
+                    LOGGER.debug("Running batch query '{}' for {} objects", theQuery, theBatchArgs.size());
+
+                    final Set<String> theCreatedKeys = batchInsert(theQuery, theBatchArgs);
+                    for (int i = 0; i < theBatchIndexes.size(); i++) {
+                        final int theIndex = theBatchIndexes.get(i);
+                        final ObjCacheBatchItem theItem = someItems.get(theIndex);
+                        // an object key given more than once is created by its first item only
+                        theResults[theIndex] =
+                            theCreatedKeys.remove(theItem.getObjectKey())
+                                ? new ObjCacheBatchResult(
+                                    new ObjCacheEntityMeta(
+                                        aCollection,
+                                        theItem.getObjectKey(),
+                                        aSerializerType,
+                                        1,
+                                        theItem.getExpirationTime()))
+                                : new ObjCacheBatchResult(
+                                    theItem.getObjectKey(),
+                                    ObjCacheErrorCodeType.OBJCACHE_EC_0005);
+                    }
+                }
+
+                publishInvalidation(aCollection, theResults);
+
+                return Arrays.asList(theResults);
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running batch create query for collection '" + aCollection + "'");
+            }
+        });
     }
 
     /**
@@ -217,21 +556,21 @@ public class ObjCacheServiceImpl implements ObjCacheService {
      */
     @Override
     public int delete(final String aCollection, final String anObjectKey) throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.DELETE, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
                 Validate.notBlank(anObjectKey, "Object key must be not blank");
 
-                final String theQuery =
-                    DSL
-                        .deleteFrom(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(COL_OBJECT_KEY.eq(anObjectKey))
-                        .getSQL(ParamType.INLINED);
+                final String theQuery = ObjCacheQueries.DELETE;
 
                 LOGGER.debug("Running query '{}'", theQuery);
 
-                return jdbcTemplate.update(theQuery);
+                final int theCount = jdbcTemplate.update(theQuery, aCollection, anObjectKey);
+                if (theCount > 0) {
+                    publishInvalidation(aCollection, Collections.singletonList(anObjectKey));
+                }
+
+                return theCount;
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
@@ -247,6 +586,49 @@ public class ObjCacheServiceImpl implements ObjCacheService {
         });
     }
 
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteAll(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public int deleteAll(final String aCollection, final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.DELETE_ALL, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+                if (someObjectKeys.isEmpty()) {
+                    return 0;
+                }
+
+                final String theQuery = ObjCacheQueries.DELETE_ALL;
+
+                LOGGER.debug("Running query '{}'", theQuery);
+
+                final int theCount =
+                    jdbcTemplate.update(theQuery, aCollection, ObjCacheQueries.varcharArray(someObjectKeys));
+                if (theCount > 0) {
+                    publishInvalidation(aCollection, someObjectKeys);
+                }
+
+                return theCount;
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running delete query objects for collection '"
+                        + aCollection
+                        + "' and object keys '"
+                        + someObjectKeys
+                        + "'");
+            }
+        });
+    }
+
     /**
      * Overrides an inherit method or implements an abstract method.
      *
@@ -254,16 +636,26 @@ public class ObjCacheServiceImpl implements ObjCacheService {
      */
     @Override
     public int deleteByCollection(final String aCollection) throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.DELETE_BY_COLLECTION, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
 
-                final String theQuery =
-                    DSL.deleteFrom(TABLE).where(COL_COLLECTION_ID.eq(aCollection)).getSQL(ParamType.INLINED);
+                final String thePartition = partitioned ? findCollectionPartition(aCollection) : null;
+                final int theCount;
+                if (thePartition != null) {
+                    theCount = truncatePartition(thePartition);
+                } else {
+                    final String theQuery = ObjCacheQueries.DELETE_BY_COLLECTION;
 
-                LOGGER.debug("Running query '{}'", theQuery);
+                    LOGGER.debug("Running query '{}'", theQuery);
+
+                    theCount = jdbcTemplate.update(theQuery, aCollection);
+                }
+                if (theCount > 0) {
+                    publishInvalidation(aCollection, Collections.emptyList());
+                }
 
-                return jdbcTemplate.update(theQuery);
+                return theCount;
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
@@ -278,31 +670,27 @@ public class ObjCacheServiceImpl implements ObjCacheService {
     /**
      * Overrides an inherit method or implements an abstract method.
      *
-     * @see com.codeveo.objcache.api.ObjCacheService#deleteByProperties(com.codeveo.objcache.api.String,
-     *      java.lang.String)
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
      */
     @Override
-    public int deleteByProperties(final String aCollection, Map<String, Object> someProperties)
+    public int deleteByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
         throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.DELETE_BY_PREDICATE, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aPredicate, "Predicate must be not null");
 
-                final String theQuery =
-                    DSL
-                        .deleteFrom(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(
-                            DSL
-                                .condition(
-                                    "{0} @> {1}",
-                                    COL_OBJECT_PROPERTIES,
-                                    MAPPER.writeValueAsString(someProperties)))
-                        .getSQL(ParamType.INLINED);
+                final String theQuery = ObjCacheQueries.DELETE_BY_PREDICATE;
 
                 LOGGER.debug("Running query '{}'", theQuery);
 
-                return jdbcTemplate.update(theQuery);
+                final int theCount = jdbcTemplate.update(theQuery, aCollection, ObjCacheJsonPath.of(aPredicate));
+                if (theCount > 0) {
+                    publishInvalidation(aCollection, Collections.emptyList());
+                }
+
+                return theCount;
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
@@ -311,8 +699,8 @@ public class ObjCacheServiceImpl implements ObjCacheService {
                     anException,
                     "Error occured while running delete query objects for collection '"
                         + aCollection
-                        + "' and propeties '"
-                        + someProperties
+                        + "' and predicate '"
+                        + aPredicate
                         + "'");
             }
         });
@@ -321,42 +709,38 @@ public class ObjCacheServiceImpl implements ObjCacheService {
     /**
      * Overrides an inherit method or implements an abstract method.
      *
-     * @see com.codeveo.objcache.api.ObjCacheService#find(com.codeveo.objcache.api.String,
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByProperties(com.codeveo.objcache.api.String,
      *      java.lang.String)
      */
     @Override
-    public <T> Optional<T> find(final String aCollection, final String anObjectKey, Class<T> aClass)
+    public int deleteByProperties(final String aCollection, Map<String, Object> someProperties)
         throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.DELETE_BY_PROPERTIES, aCollection, aStatus -> {
             try {
-                final String theQuery =
-                    DSL
-                        .selectFrom(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(COL_OBJECT_KEY.eq(anObjectKey))
-                        .and(conditionExpiredRecs(ZonedDateTime.now()))
-                        .getSQL(ParamType.INLINED);
+                Validate.notBlank(aCollection, "Collection must be not blank");
 
-                LOGGER.debug("Running query '{}'", theQuery);
+                final PropertiesQuery theQuery =
+                    propertiesQuery(ObjCacheQueries.PropertiesStatement.DELETE, aCollection, someProperties);
 
-                final T theObjectData = jdbcTemplate.queryForObject(theQuery, (aRowMapper, aRowNum) -> {
-                    final String theColObjectData = aRowMapper.getString(COL_OBJECT_DATA.getName());
-                    final SerializerType theSerializerType =
-                        SerializerType.valueOf(aRowMapper.getString(COL_SERIALIZER_TYPE.getName()));
-                    return objSerDerFactory
-                        .getSerializer(theSerializerType)
-                        .deserialize(aCollection, anObjectKey, theColObjectData, aClass);
-                });
+                LOGGER.debug("Running query '{}'", theQuery.statement);
+
+                final int theCount = jdbcTemplate.update(theQuery.statement, theQuery.args(theQuery.properties));
+                if (theCount > 0) {
+                    publishInvalidation(aCollection, Collections.emptyList());
+                }
 
-                return Optional.ofNullable(theObjectData);
+                return theCount;
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
                 throw new ObjCacheException(
-                    ObjCacheErrorCodeType.OBJCACHE_EC_0005,
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
                     anException,
-                    anObjectKey,
-                    aCollection);
+                    "Error occured while running delete query objects for collection '"
+                        + aCollection
+                        + "' and propeties '"
+                        + someProperties
+                        + "'");
             }
         });
     }
@@ -364,40 +748,28 @@ public class ObjCacheServiceImpl implements ObjCacheService {
     /**
      * Overrides an inherit method or implements an abstract method.
      *
-     * @see com.codeveo.objcache.api.ObjCacheService#findAll(com.codeveo.objcache.api.String)
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByCollection(java.lang.String)
      */
     @Override
-    public <T> List<T> findByCollection(final String aCollection, Class<T> aClass) throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+    public ObjCacheCountEstimate estimateCountByCollection(final String aCollection) throws ObjCacheException {
+        return execute(ObjCacheOperationType.ESTIMATE_COUNT_BY_COLLECTION, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
-                final String theQuery =
-                    DSL
-                        .selectFrom(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(conditionExpiredRecs(ZonedDateTime.now()))
-                        .getSQL(ParamType.INLINED);
-
-                LOGGER.debug("Running query '{}'", theQuery);
-
-                final List<T> theObjectsList = jdbcTemplate.query(theQuery, (aRowMapper, aRowNum) -> {
-                    final String theColObjectData = aRowMapper.getString(COL_OBJECT_DATA.getName());
-                    final String theObjectKey = aRowMapper.getString(COL_OBJECT_KEY.getName());
-                    final SerializerType theSerializerType =
-                        SerializerType.valueOf(aRowMapper.getString(COL_SERIALIZER_TYPE.getName()));
-                    return objSerDerFactory
-                        .getSerializer(theSerializerType)
-                        .deserialize(aCollection, theObjectKey, theColObjectData, aClass);
-                });
 
-                return theObjectsList;
+                return estimateCount(
+                    aCollection,
+                    ObjCacheQueries.EXPLAIN_BY_COLLECTION,
+                    ObjCacheQueries.COUNT_BY_COLLECTION,
+                    ObjCacheQueries.SAMPLE_COUNT_BY_COLLECTION,
+                    aCollection,
+                    ObjCacheQueries.timestamp(ZonedDateTime.now()));
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
                 throw new ObjCacheException(
                     ObjCacheErrorCodeType.OBJCACHE_EC_0006,
                     anException,
-                    "Error occured while running query objects for collection '" + aCollection + "'");
+                    "Error occured while estimating count for collection '" + aCollection + "'");
             }
         });
     }
@@ -405,52 +777,32 @@ public class ObjCacheServiceImpl implements ObjCacheService {
     /**
      * Overrides an inherit method or implements an abstract method.
      *
-     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(com.codeveo.objcache.api.String,
-     *      java.util.Map)
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByProperties(java.lang.String, java.util.Map)
      */
     @Override
-    public <T> List<T> findByProperties(
+    public ObjCacheCountEstimate estimateCountByProperties(
         final String aCollection,
-        final Map<String, Object> someProperties,
-        Class<T> aClass)
+        final Map<String, Object> someProperties)
         throws ObjCacheException {
-        return txTemplate.execute(aStatus -> {
+        return execute(ObjCacheOperationType.ESTIMATE_COUNT_BY_PROPERTIES, aCollection, aStatus -> {
             try {
                 Validate.notBlank(aCollection, "Collection must be not blank");
 
-                final String theQuery =
-                    DSL
-                        .selectFrom(TABLE)
-                        .where(COL_COLLECTION_ID.eq(aCollection))
-                        .and(
-                            DSL
-                                .condition(
-                                    "{0} @> {1}",
-                                    COL_OBJECT_PROPERTIES,
-                                    MAPPER.writeValueAsString(someProperties)))
-                        .and(conditionExpiredRecs(ZonedDateTime.now()))
-                        .getSQL(ParamType.INLINED);
-
-                LOGGER.debug("Running query '{}'", theQuery);
-
-                final List<T> theObjectsList = jdbcTemplate.query(theQuery, (aRowMapper, aRowNum) -> {
-                    final String theColObjectData = aRowMapper.getString(COL_OBJECT_DATA.getName());
-                    final String theObjectKey = aRowMapper.getString(COL_OBJECT_KEY.getName());
-                    final SerializerType theSerializerType =
-                        SerializerType.valueOf(aRowMapper.getString(COL_SERIALIZER_TYPE.getName()));
-                    return objSerDerFactory
-                        .getSerializer(theSerializerType)
-                        .deserialize(aCollection, theObjectKey, theColObjectData, aClass);
-                });
-
-                return theObjectsList;
+                return estimateCount(
+                    aCollection,
+                    ObjCacheQueries.EXPLAIN_BY_PROPERTIES,
+                    ObjCacheQueries.COUNT_BY_PROPERTIES,
+                    ObjCacheQueries.SAMPLE_COUNT_BY_PROPERTIES,
+                    aCollection,
+                    MAPPER.writeValueAsString(someProperties),
+                    ObjCacheQueries.timestamp(ZonedDateTime.now()));
             } catch (final ObjCacheException anException) {
                 throw anException;
             } catch (final Exception anException) {
                 throw new ObjCacheException(
                     ObjCacheErrorCodeType.OBJCACHE_EC_0006,
                     anException,
-                    "Error occured while running query objects for collection '" + aCollection + "'");
+                    "Error occured while estimating count for collection '" + aCollection + "'");
             }
         });
     }
@@ -458,97 +810,1001 @@ public class ObjCacheServiceImpl implements ObjCacheService {
     /**
      * Overrides an inherit method or implements an abstract method.
      *
-     * @see com.codeveo.objcache.api.ObjCacheService#update(com.codeveo.objcache.api.String,
-     *      java.lang.String, java.lang.Long, java.util.Map, java.io.Object,
-     *      java.time.ZonedDateTime)
+     * @see com.codeveo.objcache.api.ObjCacheService#find(com.codeveo.objcache.api.String,
+     *      java.lang.String)
      */
     @Override
-    public ObjCacheEntityMeta update(
-        final String aCollection,
-        final String anObjectKey,
-        final Integer aVersion,
-        final Map<String, Object> someProperties,
-        final Object anObject,
-        final ZonedDateTime anExpirationTime)
+    public <T> Optional<T> find(final String aCollection, final String anObjectKey, Class<T> aClass)
         throws ObjCacheException {
-        return txTemplate
-            .execute(
-                aStatus -> updateCommon(
-                    aCollection,
-                    anObjectKey,
-                    aVersion,
-                    someProperties,
-                    anObject,
-                    true,
-                    anExpirationTime));
+        return findEntry(aCollection, anObjectKey, aClass).map(ObjCacheEntry::getObject);
     }
 
     /**
      * Overrides an inherit method or implements an abstract method.
      *
-     * @see com.codeveo.objcache.api.ObjCacheService#update(com.codeveo.objcache.api.String,
-     *      java.lang.String, java.util.Map, java.lang.Long, java.io.Object)
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class)
      */
     @Override
-    public ObjCacheEntityMeta update(
+    public <T> Optional<ObjCacheEntry<T>> findEntry(
         final String aCollection,
         final String anObjectKey,
-        final Map<String, Object> someProperties,
-        final Integer aVersion,
-        final Object anObject)
+        final Class<T> aClass)
         throws ObjCacheException {
-        return txTemplate
-            .execute(
-                aStatus -> updateCommon(aCollection, anObjectKey, aVersion, someProperties, anObject, false, null));
-    }
+        return execute(ObjCacheOperationType.FIND, aCollection, aStatus -> {
+            try {
+                final String theQuery = ObjCacheQueries.FIND;
 
-    private ObjCacheEntityMeta createCommon(
-        final String aCollection,
-        final String anObjectKey,
-        SerializerType aSerializerType,
-        final Map<String, Object> someProperties,
-        final Object anObject,
-        final ZonedDateTime anExpirationTime) {
-        try {
-            Validate.notBlank(aCollection, "Collection must be not blank");
-            Validate.notBlank(anObjectKey, "Object key must be not blank");
-            Validate.notNull(aSerializerType, "Serializer type must be not null");
+                LOGGER.debug("Running query '{}'", theQuery);
 
-            final String theProps = MAPPER.writeValueAsString(someProperties);
-            final String theObjDataSerialized =
-                serializeObjectData(aCollection, anObjectKey, aSerializerType, anObject);
-            final String theQuery =
-                DSL
-                    .insertInto(TABLE)
-                    .columns(
-                        COL_COLLECTION_ID,
-                        COL_OBJECT_KEY,
-                        COL_SERIALIZER_TYPE,
-                        COL_VERSION,
-                        COL_OBJECT_DATA,
-                        COL_OBJECT_PROPERTIES,
-                        COL_EXPIRATION_TIME)
-                    .values(
-                        aCollection,
-                        anObjectKey,
-                        aSerializerType.name(),
-                        1,
-                        theObjDataSerialized,
+                final List<ObjCacheEntry<T>> theEntries =
+                    jdbcTemplate
+                        .query(
+                            theQuery,
+                            entryRowMapper(aCollection, aClass),
+                            aCollection,
+                            anObjectKey,
+                            ObjCacheQueries.timestamp(ZonedDateTime.now()));
+
+                return theEntries.isEmpty() || theEntries.get(0).getObject() == null
+                    ? Optional.empty()
+                    : Optional.of(theEntries.get(0));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0005,
+                    anException,
+                    anObjectKey,
+                    aCollection);
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findAll(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, T> findAll(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        final Map<String, T> theObjects = new LinkedHashMap<>();
+        findAllEntries(aCollection, someObjectKeys, aClass)
+            .forEach((anObjectKey, anEntry) -> theObjects.put(anObjectKey, anEntry.getObject()));
+        return theObjects;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findAllEntries(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, ObjCacheEntry<T>> findAllEntries(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_ALL, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+                final Map<String, ObjCacheEntry<T>> theEntries = new LinkedHashMap<>();
+                if (someObjectKeys.isEmpty()) {
+                    return theEntries;
+                }
+
+                final String theQuery = ObjCacheQueries.FIND_ALL;
+
+                LOGGER.debug("Running query '{}'", theQuery);
+
+                final RowMapper<ObjCacheEntry<T>> theRowMapper = entryRowMapper(aCollection, aClass);
+                jdbcTemplate
+                    .query(
+                        theQuery,
+                        aResultSet -> {
+                            theEntries
+                                .put(
+                                    aResultSet.getString(ObjCacheQueries.COL_OBJECT_KEY.getName()),
+                                    theRowMapper.mapRow(aResultSet, aResultSet.getRow()));
+                        },
+                        aCollection,
+                        ObjCacheQueries.varcharArray(someObjectKeys),
+                        ObjCacheQueries.timestamp(ZonedDateTime.now()));
+
+                return theEntries;
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '"
+                        + aCollection
+                        + "' and object keys '"
+                        + someObjectKeys
+                        + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findAll(com.codeveo.objcache.api.String)
+     */
+    @Override
+    public <T> List<T> findByCollection(final String aCollection, Class<T> aClass) throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_BY_COLLECTION, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                final String theQuery = ObjCacheQueries.FIND_BY_COLLECTION;
+
+                LOGGER.debug("Running query '{}'", theQuery);
+
+                final List<T> theObjectsList =
+                    jdbcTemplate
+                        .query(
+                            theQuery,
+                            objectRowMapper(aCollection, aClass),
+                            aCollection,
+                            ObjCacheQueries.timestamp(ZonedDateTime.now()));
+
+                return theObjectsList;
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class,
+     *      java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_BY_COLLECTION, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aConsumer, "Consumer must be not null");
+
+                return consumeObjects(
+                    ObjCacheQueries.FIND_BY_COLLECTION,
+                    objectRowMapper(aCollection, aClass),
+                    aConsumer,
+                    aCollection,
+                    ObjCacheQueries.timestamp(ZonedDateTime.now()));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_BY_PREDICATE, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aPredicate, "Predicate must be not null");
+
+                final String theQuery = ObjCacheQueries.FIND_BY_PREDICATE;
+
+                LOGGER.debug("Running query '{}'", theQuery);
+
+                return jdbcTemplate
+                    .query(
+                        theQuery,
+                        objectRowMapper(aCollection, aClass),
+                        aCollection,
+                        ObjCacheJsonPath.of(aPredicate),
+                        ObjCacheQueries.timestamp(ZonedDateTime.now()));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '"
+                        + aCollection
+                        + "' and predicate '"
+                        + aPredicate
+                        + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_BY_PREDICATE, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aPredicate, "Predicate must be not null");
+                Validate.notNull(aConsumer, "Consumer must be not null");
+
+                return consumeObjects(
+                    ObjCacheQueries.FIND_BY_PREDICATE,
+                    objectRowMapper(aCollection, aClass),
+                    aConsumer,
+                    aCollection,
+                    ObjCacheJsonPath.of(aPredicate),
+                    ObjCacheQueries.timestamp(ZonedDateTime.now()));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '"
+                        + aCollection
+                        + "' and predicate '"
+                        + aPredicate
+                        + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(com.codeveo.objcache.api.String,
+     *      java.util.Map)
+     */
+    @Override
+    public <T> List<T> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        Class<T> aClass)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_BY_PROPERTIES, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+
+                final PropertiesQuery theQuery =
+                    propertiesQuery(ObjCacheQueries.PropertiesStatement.FIND, aCollection, someProperties);
+
+                LOGGER.debug("Running query '{}'", theQuery.statement);
+
+                final List<T> theObjectsList =
+                    jdbcTemplate
+                        .query(
+                            theQuery.statement,
+                            objectRowMapper(aCollection, aClass),
+                            theQuery.args(theQuery.properties, ObjCacheQueries.timestamp(ZonedDateTime.now())));
+
+                return theObjectsList;
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_BY_PROPERTIES, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aConsumer, "Consumer must be not null");
+
+                final PropertiesQuery theQuery =
+                    propertiesQuery(ObjCacheQueries.PropertiesStatement.FIND, aCollection, someProperties);
+
+                return consumeObjects(
+                    theQuery.statement,
+                    objectRowMapper(aCollection, aClass),
+                    aConsumer,
+                    theQuery.args(theQuery.properties, ObjCacheQueries.timestamp(ZonedDateTime.now())));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query objects for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findKeys(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<String> findKeys(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_KEYS, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+
+                final PropertiesQuery theQuery =
+                    projectionQuery(ObjCacheQueries.PropertiesStatement.FIND_KEYS, aCollection, someProperties);
+
+                LOGGER.debug("Running query '{}'", theQuery.statement);
+
+                return jdbcTemplate
+                    .queryForList(
+                        theQuery.statement,
+                        String.class,
+                        theQuery.args(ObjCacheQueries.timestamp(ZonedDateTime.now())));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query object keys for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findMeta(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<ObjCacheEntityMeta> findMeta(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_META, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+
+                final PropertiesQuery theQuery =
+                    projectionQuery(ObjCacheQueries.PropertiesStatement.FIND_META, aCollection, someProperties);
+
+                LOGGER.debug("Running query '{}'", theQuery.statement);
+
+                return jdbcTemplate.query(theQuery.statement, (aResultSet, aRowNum) -> {
+                    final OffsetDateTime theExpirationTime =
+                        aResultSet.getObject(ObjCacheQueries.COL_EXPIRATION_TIME.getName(), OffsetDateTime.class);
+                    return new ObjCacheEntityMeta(
+                        aCollection,
+                        aResultSet.getString(ObjCacheQueries.COL_OBJECT_KEY.getName()),
+                        SerializerType.valueOf(aResultSet.getString(ObjCacheQueries.COL_SERIALIZER_TYPE.getName())),
+                        aResultSet.getInt(ObjCacheQueries.COL_VERSION.getName()),
+                        theExpirationTime != null ? theExpirationTime.toZonedDateTime() : null);
+                }, theQuery.args(ObjCacheQueries.timestamp(ZonedDateTime.now())));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query object meta data for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByCollection(java.lang.String, java.lang.Class, int,
+     *      java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_PAGE_BY_COLLECTION, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.isTrue(aPageSize > 0, "Page size must be a positive number");
+
+                return findPage(
+                    ObjCacheQueries.FIND_PAGE_BY_COLLECTION,
+                    objectRowMapper(aCollection, aClass),
+                    aPageSize,
+                    aCollection,
+                    decodePageToken(aPageToken),
+                    ObjCacheQueries.timestamp(ZonedDateTime.now()),
+                    aPageSize + 1);
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running page query objects for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_PAGE_BY_PREDICATE, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(aPredicate, "Predicate must be not null");
+                Validate.isTrue(aPageSize > 0, "Page size must be a positive number");
+
+                return findPage(
+                    ObjCacheQueries.FIND_PAGE_BY_PREDICATE,
+                    objectRowMapper(aCollection, aClass),
+                    aPageSize,
+                    aCollection,
+                    decodePageToken(aPageToken),
+                    ObjCacheJsonPath.of(aPredicate),
+                    ObjCacheQueries.timestamp(ZonedDateTime.now()),
+                    aPageSize + 1);
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running page query objects for collection '"
+                        + aCollection
+                        + "' and predicate '"
+                        + aPredicate
+                        + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_PAGE_BY_PROPERTIES, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.isTrue(aPageSize > 0, "Page size must be a positive number");
+
+                final PropertiesQuery theQuery =
+                    propertiesQuery(ObjCacheQueries.PropertiesStatement.FIND_PAGE, aCollection, someProperties);
+
+                return findPage(
+                    theQuery.statement,
+                    objectRowMapper(aCollection, aClass),
+                    aPageSize,
+                    theQuery
+                        .args(
+                            decodePageToken(aPageToken),
+                            theQuery.properties,
+                            ObjCacheQueries.timestamp(ZonedDateTime.now()),
+                            aPageSize + 1));
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running page query objects for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findProperties(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public Map<String, Map<String, Object>> findProperties(
+        final String aCollection,
+        final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.FIND_PROPERTIES, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+                final Map<String, Map<String, Object>> theProperties = new LinkedHashMap<>();
+                if (someObjectKeys.isEmpty()) {
+                    return theProperties;
+                }
+
+                final String theQuery = ObjCacheQueries.FIND_PROPERTIES;
+
+                LOGGER.debug("Running query '{}'", theQuery);
+
+                final List<Map<String, Object>> theRows =
+                    jdbcTemplate
+                        .queryForList(
+                            theQuery,
+                            aCollection,
+                            ObjCacheQueries.varcharArray(someObjectKeys),
+                            ObjCacheQueries.timestamp(ZonedDateTime.now()));
+                for (final Map<String, Object> theRow : theRows) {
+                    theProperties
+                        .put(
+                            (String) theRow.get(ObjCacheQueries.COL_OBJECT_KEY.getName()),
+                            MAPPER
+                                .readValue(
+                                    String.valueOf(theRow.get(ObjCacheQueries.COL_OBJECT_PROPERTIES.getName())),
+                                    PROPERTIES_TYPE));
+                }
+
+                return theProperties;
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running query properties for collection '"
+                        + aCollection
+                        + "' and object keys '"
+                        + someObjectKeys
+                        + "'");
+            }
+        });
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#getOrLoad(java.lang.String, java.lang.String, java.lang.Class,
+     *      com.codeveo.objcache.api.SerializerType, java.util.function.Supplier, java.time.Duration)
+     */
+    @Override
+    public <T> T getOrLoad(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return getOrLoadEntry(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive).getObject();
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#getOrLoadEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class, com.codeveo.objcache.api.SerializerType, java.util.function.Supplier,
+     *      java.time.Duration)
+     */
+    @Override
+    public <T> ObjCacheEntry<T> getOrLoadEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return readThrough.getOrLoad(this, aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        return execute(
+            ObjCacheOperationType.PUT,
+            aCollection,
+            aStatus -> putCommon(aCollection, anObjectKey, aSerializerType, someProperties, anObject, null));
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return execute(
+            ObjCacheOperationType.PUT,
+            aCollection,
+            aStatus -> putCommon(
+                aCollection,
+                anObjectKey,
+                aSerializerType,
+                someProperties,
+                anObject,
+                anExpirationTime));
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(com.codeveo.objcache.api.String,
+     *      java.lang.String, java.lang.Long, java.util.Map, java.io.Object,
+     *      java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        return execute(
+            ObjCacheOperationType.UPDATE,
+            aCollection,
+            aStatus -> updateCommon(
+                aCollection,
+                anObjectKey,
+                aVersion,
+                someProperties,
+                anObject,
+                true,
+                anExpirationTime));
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(com.codeveo.objcache.api.String,
+     *      java.lang.String, java.util.Map, java.lang.Long, java.io.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Integer aVersion,
+        final Object anObject)
+        throws ObjCacheException {
+        return execute(
+            ObjCacheOperationType.UPDATE,
+            aCollection,
+            aStatus -> updateCommon(aCollection, anObjectKey, aVersion, someProperties, anObject, false, null));
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#updateAll(java.lang.String, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> updateAll(final String aCollection, final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        return execute(ObjCacheOperationType.UPDATE_ALL, aCollection, aStatus -> {
+            try {
+                Validate.notBlank(aCollection, "Collection must be not blank");
+                Validate.notNull(someItems, "Items must be not null");
+
+                final List<String> theObjectKeys = new ArrayList<>(someItems.size());
+                for (final ObjCacheBatchItem theItem : someItems) {
+                    Validate.notBlank(theItem.getObjectKey(), "Object key must be not blank");
+                    Validate
+                        .isTrue(
+                            theItem.getVersion() != null && theItem.getVersion() > 0,
+                            "Version must be a positive number");
+                    theObjectKeys.add(theItem.getObjectKey());
+                }
+
+                if (someItems.isEmpty()) {
+                    return new ArrayList<>();
+                }
+
+                final ZonedDateTime theNow = ZonedDateTime.now();
+                final String theQueryVersionSerType = ObjCacheQueries.FIND_ALL_VERSION_SERIALIZER_TYPE;
+
+                LOGGER.debug("Running query '{}'", theQueryVersionSerType);
+
+                final Map<String, ObjCacheEntityMeta> theCurrentMetas = new HashMap<>();
+                jdbcTemplate.query(theQueryVersionSerType, aResultSet -> {
+                    final String theObjectKey = aResultSet.getString(ObjCacheQueries.COL_OBJECT_KEY.getName());
+                    theCurrentMetas
+                        .put(
+                            theObjectKey,
+                            new ObjCacheEntityMeta(
+                                aCollection,
+                                theObjectKey,
+                                SerializerType
+                                    .valueOf(aResultSet.getString(ObjCacheQueries.COL_SERIALIZER_TYPE.getName())),
+                                aResultSet.getInt(ObjCacheQueries.COL_VERSION.getName()),
+                                null));
+                }, aCollection, ObjCacheQueries.varcharArray(theObjectKeys), ObjCacheQueries.timestamp(theNow));
+
+                final ObjCacheBatchResult[] theResults = new ObjCacheBatchResult[someItems.size()];
+                // objects of text and binary serializers are updated by different statements
+                final Map<String, List<Integer>> theBatchIndexes = new LinkedHashMap<>();
+                final Map<String, List<Object[]>> theBatchArgs = new LinkedHashMap<>();
+                for (int i = 0; i < someItems.size(); i++) {
+                    final ObjCacheBatchItem theItem = someItems.get(i);
+                    final ObjCacheEntityMeta theCurrentMeta = theCurrentMetas.get(theItem.getObjectKey());
+                    if (theCurrentMeta == null) {
+                        theResults[i] =
+                            new ObjCacheBatchResult(theItem.getObjectKey(), ObjCacheErrorCodeType.OBJCACHE_EC_0006);
+                        continue;
+                    }
+
+                    if (!theCurrentMeta.getVersion().equals(theItem.getVersion())) {
+                        theResults[i] =
+                            new ObjCacheBatchResult(theItem.getObjectKey(), ObjCacheErrorCodeType.OBJCACHE_EC_0002);
+                        continue;
+                    }
+
+                    try {
+                        final Object[] theArgs =
+                            new Object[] {
+                                theItem.getVersion() + 1,
+                                MAPPER.writeValueAsString(theItem.getProperties()),
+                                serializeObjectData(
+                                    aCollection,
+                                    theItem.getObjectKey(),
+                                    theCurrentMeta.getSerializerType(),
+                                    theItem.getObject()),
+                                ObjCacheQueries.timestamp(theItem.getExpirationTime()),
+                                aCollection,
+                                theItem.getObjectKey(),
+                                theItem.getVersion(),
+                                theCurrentMeta.getSerializerType().name(),
+                                ObjCacheQueries.timestamp(theNow) };
+                        final String theQuery =
+                            isBinary(theCurrentMeta.getSerializerType())
+                                ? ObjCacheQueries.UPDATE_KEYED_WITH_EXPIRATION_TIME_BINARY
+                                : ObjCacheQueries.UPDATE_KEYED_WITH_EXPIRATION_TIME;
+                        theBatchArgs.computeIfAbsent(theQuery, aKey -> new ArrayList<>()).add(theArgs);
+                        theBatchIndexes.computeIfAbsent(theQuery, aKey -> new ArrayList<>()).add(i);
+                    } catch (final Exception anException) {
+                        theResults[i] = new ObjCacheBatchResult(theItem.getObjectKey(), batchErrorCode(anException));
+                    }
+                }
+
+                for (final Map.Entry<String, List<Object[]>> theBatch : theBatchArgs.entrySet()) {
+                    final String theQuery = theBatch.getKey();
+
+                    LOGGER.debug("Running batch query '{}' for {} objects", theQuery, theBatch.getValue().size());
+
+                    final int[] theCounts = jdbcTemplate.batchUpdate(theQuery, theBatch.getValue());
+                    for (int i = 0; i < theCounts.length; i++) {
+                        final int theIndex = theBatchIndexes.get(theQuery).get(i);
+                        final ObjCacheBatchItem theItem = someItems.get(theIndex);
+                        theResults[theIndex] =
+                            isBatchRowAffected(theCounts[i])
+                                ? new ObjCacheBatchResult(
+                                    new ObjCacheEntityMeta(
+                                        aCollection,
+                                        theItem.getObjectKey(),
+                                        theCurrentMetas.get(theItem.getObjectKey()).getSerializerType(),
+                                        theItem.getVersion() + 1,
+                                        theItem.getExpirationTime()))
+                                : new ObjCacheBatchResult(
+                                    theItem.getObjectKey(),
+                                    ObjCacheErrorCodeType.OBJCACHE_EC_0002);
+                    }
+                }
+
+                publishInvalidation(aCollection, theResults);
+
+                return Arrays.asList(theResults);
+            } catch (final ObjCacheException anException) {
+                throw anException;
+            } catch (final Exception anException) {
+                throw new ObjCacheException(
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    anException,
+                    "Error occured while running batch update query for collection '" + aCollection + "'");
+            }
+        });
+    }
+
+    private ObjCacheEntityMeta createCommon(
+        final String aCollection,
+        final String anObjectKey,
+        SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        try {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notBlank(anObjectKey, "Object key must be not blank");
+            Validate.notNull(aSerializerType, "Serializer type must be not null");
+
+            final String theProps = MAPPER.writeValueAsString(someProperties);
+            final Object theObjDataSerialized =
+                serializeObjectData(aCollection, anObjectKey, aSerializerType, anObject);
+            final String theQuery = isBinary(aSerializerType) ? ObjCacheQueries.INSERT_BINARY : ObjCacheQueries.INSERT;
+
+            LOGGER.debug("Running query '{}'", theQuery);
+
+            final int theCount =
+                jdbcTemplate
+                    .update(
+                        theQuery,
+                        aCollection,
+                        anObjectKey,
+                        aSerializerType.name(),
+                        theObjDataSerialized,
                         theProps,
-                        anExpirationTime != null
-                            ? ObjCacheCommonUtils.formatDateTimeWithZoneSameInstant(anExpirationTime, ZoneId.of("UTC"))
-                            : null)
-                    .getSQL(ParamType.INLINED);
+                        ObjCacheQueries.timestamp(anExpirationTime));
+
+            if (theCount != 1) {
+                throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0005, anObjectKey, aCollection);
+            }
+
+            serializerTypeHints.put(aCollection, aSerializerType);
+            publishInvalidation(aCollection, Collections.singletonList(anObjectKey));
+
+            return new ObjCacheEntityMeta(aCollection, anObjectKey, aSerializerType, 1, anExpirationTime);
+        } catch (final ObjCacheException anException) {
+            throw anException;
+        } catch (final Exception anException) {
+            throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0005, anException, anObjectKey, aCollection);
+        }
+    }
+
+    /**
+     * Find partition dedicated to a collection.
+     *
+     * @return partition name, null if the collection is stored in a shared partition
+     */
+    private String findCollectionPartition(final String aCollection) {
+        final String theQuery = ObjCacheQueries.FIND_COLLECTION_PARTITION;
+
+        LOGGER.debug("Running query '{}'", theQuery);
+
+        final List<String> thePartitions = jdbcTemplate.queryForList(theQuery, String.class, aCollection);
+        return thePartitions.isEmpty() ? null : thePartitions.get(0);
+    }
+
+    /**
+     * Delete all objects of a collection stored in a partition of its own by truncating the partition. The partition
+     * is locked until the end of the transaction.
+     *
+     * @return deleted objects count
+     */
+    private int truncatePartition(final String aPartition) {
+        final String theQueryLock = ObjCacheQueries.lockPartition(aPartition);
+
+        LOGGER.debug("Running query '{}'", theQueryLock);
+
+        jdbcTemplate.execute(theQueryLock);
+
+        final String theQueryCount = ObjCacheQueries.countPartition(aPartition);
+
+        LOGGER.debug("Running query '{}'", theQueryCount);
+
+        final Integer theCount = jdbcTemplate.queryForObject(theQueryCount, Integer.class);
+
+        final String theQuery = ObjCacheQueries.truncatePartition(aPartition);
+
+        LOGGER.debug("Running query '{}'", theQuery);
+
+        jdbcTemplate.execute(theQuery);
+        return theCount;
+    }
+
+    private ObjCacheEntityMeta putCommon(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime) {
+        try {
+            Validate.notBlank(aCollection, "Collection must be not blank");
+            Validate.notBlank(anObjectKey, "Object key must be not blank");
+            Validate.notNull(aSerializerType, "Serializer type must be not null");
+
+            final String theProps = MAPPER.writeValueAsString(someProperties);
+            final Object theObjDataSerialized =
+                serializeObjectData(aCollection, anObjectKey, aSerializerType, anObject);
+            final boolean isBinary = isBinary(aSerializerType);
+            final String theQuery = ObjCacheQueries.PUT;
 
             LOGGER.debug("Running query '{}'", theQuery);
 
-            final int theCount = jdbcTemplate.update(theQuery);
+            // the object data column of the other serializer kind is cleared as the serializer type may change
+            final Integer theVersion =
+                jdbcTemplate
+                    .queryForObject(
+                        theQuery,
+                        Integer.class,
+                        aCollection,
+                        anObjectKey,
+                        aSerializerType.name(),
+                        isBinary ? ObjCacheQueries.text(null) : theObjDataSerialized,
+                        isBinary ? theObjDataSerialized : ObjCacheQueries.binary(null),
+                        theProps,
+                        ObjCacheQueries.timestamp(anExpirationTime),
+                        ObjCacheQueries.timestamp(ZonedDateTime.now()));
 
-            if (theCount != 1) {
-                throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0005, anObjectKey, aCollection);
-            }
+            serializerTypeHints.put(aCollection, aSerializerType);
+            publishInvalidation(aCollection, Collections.singletonList(anObjectKey));
 
-            return new ObjCacheEntityMeta(aCollection, anObjectKey, aSerializerType, 1, anExpirationTime);
+            return new ObjCacheEntityMeta(aCollection, anObjectKey, aSerializerType, theVersion, anExpirationTime);
         } catch (final ObjCacheException anException) {
             throw anException;
         } catch (final Exception anException) {
@@ -556,22 +1812,402 @@ public class ObjCacheServiceImpl implements ObjCacheService {
         }
     }
 
-    private String serializeObjectData(
+    /**
+     * Serialize object into the bind value of the object data column matching the serializer (see
+     * {@link #isBinary(SerializerType)}).
+     */
+    private Object serializeObjectData(
         final String aCollection,
         final String anObjectKey,
         SerializerType aSerializerType,
         final Object anObject) {
         final ObjCacheSerializerDeserializer theSerializer = objSerDerFactory.getSerializer(aSerializerType);
+        final long theStart = System.nanoTime();
+        if (theSerializer instanceof ObjCacheBinarySerializerDeserializer) {
+            final byte[] theObjectData =
+                ((ObjCacheBinarySerializerDeserializer) theSerializer)
+                    .serializeBinary(aCollection, anObjectKey, anObject);
+            serialized(aCollection, aSerializerType, theObjectData != null ? theObjectData.length : 0, theStart);
+            return ObjCacheQueries.binary(theObjectData);
+        }
+
+        final String theObjectData = theSerializer.serialize(aCollection, anObjectKey, anObject);
+        serialized(aCollection, aSerializerType, theObjectData != null ? theObjectData.length() : 0, theStart);
+        return ObjCacheQueries.text(theObjectData);
+    }
+
+    /**
+     * Objects of binary serializers are stored in the binary object data column, the others in the text one.
+     */
+    private boolean isBinary(final SerializerType aSerializerType) {
+        return objSerDerFactory.getSerializer(aSerializerType) instanceof ObjCacheBinarySerializerDeserializer;
+    }
+
+    /**
+     * Run operation in a transaction and report it to the metrics listener.
+     */
+    private <R> R execute(
+        final ObjCacheOperationType anOperation,
+        final String aCollection,
+        final TransactionCallback<R> anAction) {
+        if (metricsListener == ObjCacheMetricsListener.NONE) {
+            return txTemplate.execute(anAction);
+        }
+
+        // operations may be nested, e.g. when called by a consumer of a consuming find
+        final OperationMetrics theOuterMetrics = operationMetrics.get();
+        final OperationMetrics theMetrics = new OperationMetrics(anOperation);
+        operationMetrics.set(theMetrics);
+        final long theStart = System.nanoTime();
+        try {
+            final R theResult = txTemplate.execute(anAction);
+            final long theDuration = System.nanoTime() - theStart;
+            metricsListener
+                .operationCompleted(
+                    aCollection,
+                    anOperation,
+                    theDuration - theMetrics.serializationNanos,
+                    theMetrics.serializationNanos,
+                    rowCount(anOperation, aCollection, theResult));
+            return theResult;
+        } catch (final ObjCacheException anException) {
+            metricsListener
+                .operationFailed(aCollection, anOperation, anException.getErrorCode(), System.nanoTime() - theStart);
+            throw anException;
+        } catch (final RuntimeException anException) {
+            // failures outside of the operation, e.g. of the transaction begin or commit
+            metricsListener
+                .operationFailed(
+                    aCollection,
+                    anOperation,
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                    System.nanoTime() - theStart);
+            throw anException;
+        } finally {
+            if (theOuterMetrics != null) {
+                operationMetrics.set(theOuterMetrics);
+            } else {
+                operationMetrics.remove();
+            }
+        }
+    }
+
+    /**
+     * Number of objects read, written or deleted by a completed operation. Failed objects of batch operations are
+     * reported to the metrics listener.
+     */
+    private int rowCount(final ObjCacheOperationType anOperation, final String aCollection, final Object aResult) {
+        if (aResult instanceof Optional) {
+            return ((Optional<?>) aResult).isPresent() ? 1 : 0;
+        } else if (aResult instanceof Map) {
+            return ((Map<?, ?>) aResult).size();
+        } else if (aResult instanceof ObjCachePage) {
+            return ((ObjCachePage<?>) aResult).getObjects().size();
+        } else if (aResult instanceof ObjCacheEntityMeta) {
+            return 1;
+        } else if (aResult instanceof List && (anOperation == ObjCacheOperationType.CREATE_ALL
+            || anOperation == ObjCacheOperationType.UPDATE_ALL)) {
+            int theCount = 0;
+            for (final Object theResult : (List<?>) aResult) {
+                final ObjCacheBatchResult theBatchResult = (ObjCacheBatchResult) theResult;
+                if (theBatchResult.isSuccessful()) {
+                    theCount++;
+                } else {
+                    metricsListener.itemFailed(aCollection, anOperation, theBatchResult.getErrorCode());
+                }
+            }
+            return theCount;
+        } else if (aResult instanceof List) {
+            return ((List<?>) aResult).size();
+        } else if (aResult instanceof Number && anOperation != ObjCacheOperationType.COUNT_BY_COLLECTION
+            && anOperation != ObjCacheOperationType.COUNT_BY_PREDICATE
+            && anOperation != ObjCacheOperationType.COUNT_BY_PROPERTIES) {
+            return ((Number) aResult).intValue();
+        }
+
+        return 0;
+    }
+
+    private void serialized(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final long aSize,
+        final long aStart) {
+        final OperationMetrics theMetrics = operationMetrics.get();
+        if (theMetrics != null) {
+            final long theNanos = System.nanoTime() - aStart;
+            theMetrics.serializationNanos += theNanos;
+            metricsListener.objectSerialized(aCollection, theMetrics.operation, aSerializerType, aSize, theNanos);
+        }
+    }
+
+    private void deserialized(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final long aSize,
+        final long aStart) {
+        final OperationMetrics theMetrics = operationMetrics.get();
+        if (theMetrics != null) {
+            final long theNanos = System.nanoTime() - aStart;
+            theMetrics.serializationNanos += theNanos;
+            metricsListener.objectDeserialized(aCollection, theMetrics.operation, aSerializerType, aSize, theNanos);
+        }
+    }
+
+    static ObjCacheErrorCodeType batchErrorCode(final Exception anException) {
+        return anException instanceof ObjCacheException
+            ? ((ObjCacheException) anException).getErrorCode()
+            : ObjCacheErrorCodeType.OBJCACHE_EC_0003;
+    }
+
+    /**
+     * Run batch of inserts returning object keys of the inserted objects. JDBC drivers rewriting batches of inserts
+     * to multi-row statements (e.g. PostgreSQL driver with reWriteBatchedInserts) do not report row counts, so the
+     * inserted objects are told by the returned keys instead.
+     */
+    private Set<String> batchInsert(final String aQuery, final List<Object[]> someBatchArgs) {
+        return jdbcTemplate
+            .execute(
+                (PreparedStatementCreator) aConnection -> aConnection
+                    .prepareStatement(aQuery, new String[] { ObjCacheQueries.COL_OBJECT_KEY.getName() }),
+                (PreparedStatementCallback<Set<String>>) aPreparedStatement -> {
+                    for (final Object[] theArgs : someBatchArgs) {
+                        new ArgumentPreparedStatementSetter(theArgs).setValues(aPreparedStatement);
+                        aPreparedStatement.addBatch();
+                    }
+                    aPreparedStatement.executeBatch();
+
+                    final Set<String> theObjectKeys = new HashSet<>();
+                    try (ResultSet theKeys = aPreparedStatement.getGeneratedKeys()) {
+                        while (theKeys.next()) {
+                            theObjectKeys.add(theKeys.getString(1));
+                        }
+                    }
+                    return theObjectKeys;
+                });
+    }
+
+    /**
+     * Batches of updates are not rewritten to multi-row statements, so their row counts are reported. A driver not
+     * reporting them is trusted the row has been affected.
+     */
+    private boolean isBatchRowAffected(final int aCount) {
+        return aCount > 0 || aCount == Statement.SUCCESS_NO_INFO;
+    }
+
+    /**
+     * Publish invalidation of written objects (whole collection if no object keys are given) to the invalidation
+     * channel. PostgreSQL delivers the notifications when the transaction commits and drops them on rollback.
+     */
+    private void publishInvalidation(final String aCollection, final Collection<String> someObjectKeys)
+        throws IOException {
+        if (invalidationChannel == null) {
+            return;
+        }
+
+        final String theQuery = ObjCacheQueries.NOTIFY;
+        for (final String thePayload : ObjCacheInvalidationListener.payloads(aCollection, someObjectKeys)) {
+            LOGGER.debug("Running query '{}'", theQuery);
+
+            jdbcTemplate.queryForList(theQuery, invalidationChannel, thePayload);
+        }
+    }
+
+    /**
+     * Publish invalidation of successfully written objects of a batch.
+     */
+    private void publishInvalidation(final String aCollection, final ObjCacheBatchResult[] someResults)
+        throws IOException {
+        final List<String> theObjectKeys = new ArrayList<>(someResults.length);
+        for (final ObjCacheBatchResult theResult : someResults) {
+            if (theResult.isSuccessful()) {
+                theObjectKeys.add(theResult.getMeta().getObjectKey());
+            }
+        }
+        if (!theObjectKeys.isEmpty()) {
+            publishInvalidation(aCollection, theObjectKeys);
+        }
+    }
+
+    /**
+     * Estimate count of objects. Counts estimated by the query planner up to the exact count threshold are counted
+     * exactly. Larger counts are estimated from a sample of table pages containing about the sample size of rows of
+     * the table (the share of the table sampled reads the same share of pages of the table, not of the collection),
+     * the error bound follows from the counts of objects found per sampled page. Objects are counted exactly when the
+     * sample would exceed the maximum sampled fraction of the table or the size of the table is not known.
+     */
+    private ObjCacheCountEstimate estimateCount(
+        final String aCollection,
+        final String anExplainQuery,
+        final String aCountQuery,
+        final String aSampleCountQuery,
+        final Object... someArgs)
+        throws IOException {
+        LOGGER.debug("Running query '{}'", anExplainQuery);
+
+        final String thePlan = jdbcTemplate.queryForObject(anExplainQuery, String.class, someArgs);
+        final long thePlannedCount = MAPPER.readTree(thePlan).path(0).path("Plan").path("Plan Rows").asLong();
+        final double theTableRows = thePlannedCount > exactCountThreshold ? estimateTableRows(aCollection) : 0;
+        final double theFraction = theTableRows > 0 ? estimateSampleSize / theTableRows : 1;
+        if (thePlannedCount <= exactCountThreshold || theFraction > estimateMaxSampleFraction) {
+            LOGGER.debug("Running query '{}'", aCountQuery);
+
+            return new ObjCacheCountEstimate(jdbcTemplate.queryForObject(aCountQuery, long.class, someArgs), 0, true);
+        }
+
+        final Object[] theArgs = new Object[someArgs.length + 1];
+        theArgs[0] = (float) (theFraction * 100);
+        System.arraycopy(someArgs, 0, theArgs, 1, someArgs.length);
+
+        LOGGER.debug("Running query '{}'", aSampleCountQuery);
+
+        return jdbcTemplate.queryForObject(aSampleCountQuery, (aResultSet, aRowNum) -> {
+            final long theSampleCount = aResultSet.getLong("sample_count");
+            final long theSampleSquares = Math.max(aResultSet.getLong("sample_squares"), 1);
+            final double theErrorBound =
+                ESTIMATE_Z_SCORE * Math.sqrt(theSampleSquares * (1 - theFraction)) / theFraction;
+
+            return new ObjCacheCountEstimate(
+                Math.round(theSampleCount / theFraction),
+                Math.round(theErrorBound),
+                false);
+        }, theArgs);
+    }
+
+    /**
+     * Estimate number of rows of the table sampled for a collection, the partition storing the collection when the
+     * table is partitioned.
+     *
+     * @return number of rows, zero if not known
+     */
+    private double estimateTableRows(final String aCollection) {
+        final String theTable;
+        if (partitioned) {
+            final String thePartition = findCollectionPartition(aCollection);
+            theTable = thePartition != null ? thePartition : ObjCacheQueries.DEFAULT_PARTITION_NAME;
+        } else {
+            theTable = ObjCacheQueries.TABLE_NAME;
+        }
+
+        final String theQuery = ObjCacheQueries.ESTIMATE_TABLE_ROWS;
+
+        LOGGER.debug("Running query '{}'", theQuery);
+
+        final List<Double> theRows = jdbcTemplate.queryForList(theQuery, Double.class, theTable);
+        return theRows.isEmpty() || theRows.get(0) == null ? 0 : theRows.get(0);
+    }
+
+    /**
+     * Run query and pass mapped rows to the consumer as they are read. Must be called within a transaction, the
+     * PostgreSQL driver reads rows through a cursor only when auto commit is off and a fetch size is set.
+     */
+    private <T> long consumeObjects(
+        final String aQuery,
+        final RowMapper<T> aRowMapper,
+        final Consumer<? super T> aConsumer,
+        final Object... someArgs) {
+        LOGGER.debug("Running query '{}' with fetch size {}", aQuery, fetchSize);
+
+        final ArgumentPreparedStatementSetter theArgsSetter = new ArgumentPreparedStatementSetter(someArgs);
+        final long[] theCount = new long[1];
+        jdbcTemplate.query(aQuery, aPreparedStatement -> {
+            aPreparedStatement.setFetchSize(fetchSize);
+            theArgsSetter.setValues(aPreparedStatement);
+        }, aResultSet -> {
+            aConsumer.accept(aRowMapper.mapRow(aResultSet, (int) theCount[0]));
+            theCount[0]++;
+        });
+
+        return theCount[0];
+    }
+
+    /**
+     * Run keyset page query which fetches one object more than the page size to find out whether there is a next
+     * page. The token of the next page is the last object key of the page.
+     */
+    private <T> ObjCachePage<T> findPage(
+        final String aQuery,
+        final RowMapper<T> aRowMapper,
+        final int aPageSize,
+        final Object... someArgs) {
+        LOGGER.debug("Running query '{}'", aQuery);
+
+        final List<T> theObjects = new ArrayList<>(aPageSize);
+        final String[] theLastObjectKey = new String[1];
+        final boolean[] theHasNext = new boolean[1];
+        jdbcTemplate.query(aQuery, aResultSet -> {
+            if (theObjects.size() == aPageSize) {
+                theHasNext[0] = true;
+                return;
+            }
+            theObjects.add(aRowMapper.mapRow(aResultSet, theObjects.size()));
+            theLastObjectKey[0] = aResultSet.getString(ObjCacheQueries.COL_OBJECT_KEY.getName());
+        }, someArgs);
+
+        return new ObjCachePage<>(theObjects, theHasNext[0] ? encodePageToken(theLastObjectKey[0]) : null);
+    }
+
+    static String encodePageToken(final String anObjectKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(anObjectKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Object keys are never blank, so an empty key precedes all keys of the first page.
+     */
+    static String decodePageToken(final String aPageToken) {
+        return aPageToken != null
+            ? new String(Base64.getUrlDecoder().decode(aPageToken), StandardCharsets.UTF_8)
+            : "";
+    }
+
+    private <T> RowMapper<T> objectRowMapper(final String aCollection, final Class<T> aClass) {
+        return (aResultSet, aRowNum) -> {
+            final String theObjectKey = aResultSet.getString(ObjCacheQueries.COL_OBJECT_KEY.getName());
+            final SerializerType theSerializerType =
+                SerializerType.valueOf(aResultSet.getString(ObjCacheQueries.COL_SERIALIZER_TYPE.getName()));
+            final ObjCacheSerializerDeserializer theDeserializer = objSerDerFactory.getSerializer(theSerializerType);
+            if (theDeserializer instanceof ObjCacheBinarySerializerDeserializer) {
+                final InputStream theColObjectData =
+                    aResultSet.getBinaryStream(ObjCacheQueries.COL_OBJECT_DATA_BIN.getName());
+                if (theColObjectData == null) {
+                    return null;
+                }
+
+                final long theStart = System.nanoTime();
+                final CountingInputStream theCountingObjectData = new CountingInputStream(theColObjectData);
+                final T theObject =
+                    ((ObjCacheBinarySerializerDeserializer) theDeserializer)
+                        .deserializeBinary(aCollection, theObjectKey, theCountingObjectData, aClass);
+                deserialized(aCollection, theSerializerType, theCountingObjectData.getCount(), theStart);
+                return theObject;
+            }
 
-        return theSerializer.serialize(aCollection, anObjectKey, anObject);
+            final String theColObjectData = aResultSet.getString(ObjCacheQueries.COL_OBJECT_DATA.getName());
+            final long theStart = System.nanoTime();
+            final T theObject = theDeserializer.deserialize(aCollection, theObjectKey, theColObjectData, aClass);
+            deserialized(
+                aCollection,
+                theSerializerType,
+                theColObjectData != null ? theColObjectData.length() : 0,
+                theStart);
+            return theObject;
+        };
     }
 
-    private Condition conditionExpiredRecs(ZonedDateTime aCurrentDateTime) {
-        return COL_EXPIRATION_TIME
-            .isNull()
-            .or(
-                COL_EXPIRATION_TIME
-                    .gt(ObjCacheCommonUtils.formatDateTimeWithZoneSameInstant(aCurrentDateTime, ZoneId.of("UTC"))));
+    private <T> RowMapper<ObjCacheEntry<T>> entryRowMapper(final String aCollection, final Class<T> aClass) {
+        final RowMapper<T> theObjectRowMapper = objectRowMapper(aCollection, aClass);
+        return (aResultSet, aRowNum) -> {
+            final OffsetDateTime theExpirationTime =
+                aResultSet.getObject(ObjCacheQueries.COL_EXPIRATION_TIME.getName(), OffsetDateTime.class);
+            return new ObjCacheEntry<>(
+                theObjectRowMapper.mapRow(aResultSet, aRowNum),
+                new ObjCacheEntityMeta(
+                    aCollection,
+                    aResultSet.getString(ObjCacheQueries.COL_OBJECT_KEY.getName()),
+                    SerializerType.valueOf(aResultSet.getString(ObjCacheQueries.COL_SERIALIZER_TYPE.getName())),
+                    aResultSet.getInt(ObjCacheQueries.COL_VERSION.getName()),
+                    theExpirationTime != null ? theExpirationTime.toZonedDateTime() : null));
+        };
     }
 
     private ObjCacheEntityMeta updateCommon(
@@ -587,79 +2223,56 @@ public class ObjCacheServiceImpl implements ObjCacheService {
             Validate.notBlank(anObjectKey, "Object key must be not blank");
             Validate.isTrue(aVersion != null && aVersion > 0, "Version must be a positive number");
 
-            final String theQueryVersioSerType =
-                DSL
-                    .select(COL_VERSION, COL_SERIALIZER_TYPE)
-                    .from(TABLE)
-                    .where(COL_COLLECTION_ID.eq(aCollection))
-                    .and(COL_OBJECT_KEY.eq(anObjectKey))
-                    .and(conditionExpiredRecs(ZonedDateTime.now()))
-                    .getSQL(ParamType.INLINED);
-
-            final List<Map<String, Object>> theObjectData = jdbcTemplate.queryForList(theQueryVersioSerType);
-            if (theObjectData == null || theObjectData.isEmpty()) {
-                throw new ObjCacheException(
-                    ObjCacheErrorCodeType.OBJCACHE_EC_0006,
-                    String
-                        .format(
-                            "The object with collection %s and key %s not found (deleted or expired)",
-                            aCollection,
-                            anObjectKey));
-            }
-
-            final Integer theCurrentVersion = (Integer) theObjectData.get(0).get(COL_VERSION.getName());
-            if (!theCurrentVersion.equals(aVersion)) {
-                throw new ObjCacheException(
-                    ObjCacheErrorCodeType.OBJCACHE_EC_0002,
-                    String
-                        .format(
-                            "The object with collection %s and key %s has been deleted or expired",
-                            aCollection,
-                            anObjectKey));
-            }
-
-            final SerializerType theSerializerType =
-                SerializerType.valueOf((String) theObjectData.get(0).get(COL_SERIALIZER_TYPE.getName()));
             final String theProps = MAPPER.writeValueAsString(someProperties);
-            final String theObjDataSerialized =
-                serializeObjectData(aCollection, anObjectKey, theSerializerType, anObject);
-            final Integer theNewVersion = aVersion + 1;
-
-            final UpdateSetMoreStep<Record> theQuerybuilder =
-                DSL
-                    .update(TABLE)
-                    .set(COL_VERSION, theNewVersion)
-                    .set(COL_OBJECT_PROPERTIES, theProps)
-                    .set(COL_OBJECT_DATA, theObjDataSerialized);
-
-            if (withExpTime) {
-                theQuerybuilder
-                    .set(
-                        COL_EXPIRATION_TIME,
-                        anExpirationTime != null
-                            ? ObjCacheCommonUtils.formatDateTimeWithZoneSameInstant(anExpirationTime, ZoneId.of("UTC"))
-                            : null);
-            }
-
-            final String theQuery =
-                theQuerybuilder
-                    .where(COL_VERSION.eq(aVersion))
-                    .and(conditionExpiredRecs(ZonedDateTime.now()))
-                    .getSQL(ParamType.INLINED);
 
-            LOGGER.debug("Running query '{}'", theQuery);
-
-            final long theCount = jdbcTemplate.update(theQuery);
-
-            if (theCount > 1) {
-                throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0007, anObjectKey, aCollection);
+            // objects of a collection are usually stored by one serializer, so the object is serialized by the one
+            // last seen in the collection and the current serializer type is looked up only when the update misses,
+            // or up front in collections known to mix serializers
+            SerializerType theSerializerType =
+                mixedSerializerCollections.contains(aCollection) ? null : serializerTypeHints.get(aCollection);
+            if (theSerializerType == null) {
+                theSerializerType = findSerializerType(aCollection, anObjectKey, aVersion);
             }
 
+            int theCount =
+                updateKeyed(
+                    aCollection,
+                    anObjectKey,
+                    aVersion,
+                    theProps,
+                    theSerializerType,
+                    anObject,
+                    withExpTime,
+                    anExpirationTime);
             if (theCount != 1) {
-                throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0002, anObjectKey, aCollection);
+                final SerializerType theCurrentSerializerType =
+                    findSerializerType(aCollection, anObjectKey, aVersion);
+                if (theCurrentSerializerType == theSerializerType) {
+                    throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0002, anObjectKey, aCollection);
+                }
+
+                // a hint flipping between the serializers would serialize every other update twice
+                mixedSerializerCollections.add(aCollection);
+                theSerializerType = theCurrentSerializerType;
+                theCount =
+                    updateKeyed(
+                        aCollection,
+                        anObjectKey,
+                        aVersion,
+                        theProps,
+                        theSerializerType,
+                        anObject,
+                        withExpTime,
+                        anExpirationTime);
+                if (theCount != 1) {
+                    throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0002, anObjectKey, aCollection);
+                }
             }
 
-            return new ObjCacheEntityMeta(aCollection, anObjectKey, theSerializerType, theNewVersion, anExpirationTime);
+            serializerTypeHints.put(aCollection, theSerializerType);
+            publishInvalidation(aCollection, Collections.singletonList(anObjectKey));
+
+            return new ObjCacheEntityMeta(aCollection, anObjectKey, theSerializerType, aVersion + 1, anExpirationTime);
         } catch (final ObjCacheException anException) {
             throw anException;
         } catch (final Exception anException) {
@@ -669,4 +2282,218 @@ public class ObjCacheServiceImpl implements ObjCacheService {
                 "Error occured while running query objects for collection '" + aCollection + "'");
         }
     }
+
+    /**
+     * Find serializer type of a stored object of given version.
+     *
+     * @throws ObjCacheException with code {@link ObjCacheErrorCodeType#OBJCACHE_EC_0006} if the object is not found
+     *         and {@link ObjCacheErrorCodeType#OBJCACHE_EC_0002} if it has another version
+     */
+    private SerializerType findSerializerType(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion) {
+        final String theQuery = ObjCacheQueries.FIND_VERSION_SERIALIZER_TYPE;
+
+        LOGGER.debug("Running query '{}'", theQuery);
+
+        final List<Map<String, Object>> theObjectData =
+            jdbcTemplate
+                .queryForList(theQuery, aCollection, anObjectKey, ObjCacheQueries.timestamp(ZonedDateTime.now()));
+        if (theObjectData == null || theObjectData.isEmpty()) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0006,
+                String
+                    .format(
+                        "The object with collection %s and key %s not found (deleted or expired)",
+                        aCollection,
+                        anObjectKey));
+        }
+
+        final Integer theCurrentVersion = (Integer) theObjectData.get(0).get(ObjCacheQueries.COL_VERSION.getName());
+        if (!theCurrentVersion.equals(aVersion)) {
+            throw new ObjCacheException(ObjCacheErrorCodeType.OBJCACHE_EC_0002, anObjectKey, aCollection);
+        }
+
+        return SerializerType
+            .valueOf((String) theObjectData.get(0).get(ObjCacheQueries.COL_SERIALIZER_TYPE.getName()));
+    }
+
+    /**
+     * Update single object of given version stored by given serializer.
+     *
+     * @return number of updated rows (0 if the object is not found, has another version or serializer type)
+     */
+    private int updateKeyed(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final String aProps,
+        final SerializerType aSerializerType,
+        final Object anObject,
+        boolean withExpTime,
+        final ZonedDateTime anExpirationTime) {
+        final Object theObjDataSerialized = serializeObjectData(aCollection, anObjectKey, aSerializerType, anObject);
+        final boolean isBinary = isBinary(aSerializerType);
+        final Object theCurrentTime = ObjCacheQueries.timestamp(ZonedDateTime.now());
+
+        final String theQuery;
+        final Object[] theArgs;
+        if (withExpTime) {
+            theQuery =
+                isBinary
+                    ? ObjCacheQueries.UPDATE_KEYED_WITH_EXPIRATION_TIME_BINARY
+                    : ObjCacheQueries.UPDATE_KEYED_WITH_EXPIRATION_TIME;
+            theArgs =
+                new Object[] {
+                    aVersion + 1,
+                    aProps,
+                    theObjDataSerialized,
+                    ObjCacheQueries.timestamp(anExpirationTime),
+                    aCollection,
+                    anObjectKey,
+                    aVersion,
+                    aSerializerType.name(),
+                    theCurrentTime };
+        } else {
+            theQuery = isBinary ? ObjCacheQueries.UPDATE_KEYED_BINARY : ObjCacheQueries.UPDATE_KEYED;
+            theArgs =
+                new Object[] {
+                    aVersion + 1,
+                    aProps,
+                    theObjDataSerialized,
+                    aCollection,
+                    anObjectKey,
+                    aVersion,
+                    aSerializerType.name(),
+                    theCurrentTime };
+        }
+
+        LOGGER.debug("Running query '{}'", theQuery);
+
+        return jdbcTemplate.update(theQuery, theArgs);
+    }
+
+    /**
+     * Create query searching by given properties. Properties with a declared index and a value of the indexed type
+     * are searched by the index, the others by containment.
+     */
+    private PropertiesQuery propertiesQuery(
+        final ObjCacheQueries.PropertiesStatement aStatement,
+        final String aCollection,
+        final Map<String, Object> someProperties)
+        throws JsonProcessingException {
+        final Map<String, ObjCachePropertyIndex> theDeclaredIndexes = propertyIndexes.get(aCollection);
+        final List<ObjCachePropertyIndex> theIndexes = new ArrayList<>();
+        if (theDeclaredIndexes != null && someProperties != null) {
+            for (final ObjCachePropertyIndex theIndex : theDeclaredIndexes.values()) {
+                if (theIndex.getType().accepts(someProperties.get(theIndex.getPropertyKey()))) {
+                    theIndexes.add(theIndex);
+                }
+            }
+        }
+
+        if (theIndexes.isEmpty()) {
+            return new PropertiesQuery(
+                defaultPropertiesStatement(aStatement),
+                new Object[] { aCollection },
+                MAPPER.writeValueAsString(someProperties));
+        }
+
+        final StringBuilder theStatementKey = new StringBuilder(aStatement.name()).append('/').append(aCollection);
+        final Object[] theIndexValues = new Object[theIndexes.size()];
+        final Map<String, Object> theOtherProperties = new LinkedHashMap<>(someProperties);
+        for (int i = 0; i < theIndexes.size(); i++) {
+            final String thePropertyKey = theIndexes.get(i).getPropertyKey();
+            theStatementKey.append('/').append(thePropertyKey);
+            theIndexValues[i] = theOtherProperties.remove(thePropertyKey);
+        }
+
+        final String theStatement =
+            propertiesStatements
+                .computeIfAbsent(
+                    theStatementKey.toString(),
+                    aKey -> ObjCacheQueries.propertiesStatement(aStatement, aCollection, theIndexes));
+
+        return new PropertiesQuery(theStatement, theIndexValues, MAPPER.writeValueAsString(theOtherProperties));
+    }
+
+    /**
+     * Create query of a projection searching by given properties or reading the whole collection if there are none.
+     * The properties are part of the collection condition bind values.
+     */
+    private PropertiesQuery projectionQuery(
+        final ObjCacheQueries.PropertiesStatement aStatement,
+        final String aCollection,
+        final Map<String, Object> someProperties)
+        throws JsonProcessingException {
+        if (someProperties == null || someProperties.isEmpty()) {
+            final String theStatement =
+                aStatement == ObjCacheQueries.PropertiesStatement.FIND_KEYS
+                    ? ObjCacheQueries.FIND_KEYS
+                    : ObjCacheQueries.FIND_META;
+            return new PropertiesQuery(theStatement, new Object[] { aCollection }, null);
+        }
+
+        final PropertiesQuery theQuery = propertiesQuery(aStatement, aCollection, someProperties);
+        return new PropertiesQuery(theQuery.statement, theQuery.args(theQuery.properties), null);
+    }
+
+    private static String defaultPropertiesStatement(final ObjCacheQueries.PropertiesStatement aStatement) {
+        switch (aStatement) {
+            case COUNT:
+                return ObjCacheQueries.COUNT_BY_PROPERTIES;
+            case DELETE:
+                return ObjCacheQueries.DELETE_BY_PROPERTIES;
+            case FIND:
+                return ObjCacheQueries.FIND_BY_PROPERTIES;
+            case FIND_PAGE:
+                return ObjCacheQueries.FIND_PAGE_BY_PROPERTIES;
+            case FIND_KEYS:
+                return ObjCacheQueries.FIND_KEYS_BY_PROPERTIES;
+            case FIND_META:
+                return ObjCacheQueries.FIND_META_BY_PROPERTIES;
+            default:
+                throw new IllegalArgumentException("Unsupported properties statement " + aStatement);
+        }
+    }
+
+    /**
+     * Statement searching by properties with bind values of the collection condition (collection or values of the
+     * used property indexes) and properties left to be searched by containment.
+     */
+    private static final class PropertiesQuery {
+
+        private final String statement;
+
+        private final Object[] collectionArgs;
+
+        private final String properties;
+
+        private PropertiesQuery(final String aStatement, final Object[] someCollectionArgs, final String aProperties) {
+            statement = aStatement;
+            collectionArgs = someCollectionArgs;
+            properties = aProperties;
+        }
+
+        /**
+         * Bind values of the statement, the collection condition ones followed by the given ones.
+         */
+        private Object[] args(final Object... someArgs) {
+            final Object[] theArgs = Arrays.copyOf(collectionArgs, collectionArgs.length + someArgs.length);
+            System.arraycopy(someArgs, 0, theArgs, collectionArgs.length, someArgs.length);
+            return theArgs;
+        }
+    }
+
+    private static final class OperationMetrics {
+
+        private final ObjCacheOperationType operation;
+
+        private long serializationNanos;
+
+        private OperationMetrics(final ObjCacheOperationType anOperation) {
+            operation = anOperation;
+        }
+    }
 }
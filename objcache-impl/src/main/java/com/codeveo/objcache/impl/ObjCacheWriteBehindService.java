@@ -0,0 +1,1087 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Write-behind buffer in front of an object cache service.
+ * <p>
+ * Objects put by {@link #put(String, String, SerializerType, Map, Object, ZonedDateTime)} into buffered collections
+ * are kept in memory and written later, only the latest object of a collection and key is written. Pending objects
+ * are written in batches, each batch in a single transaction, when the number of pending objects reaches the batch
+ * size or periodically. Callers putting into a full buffer write the pending objects themselves. If a batch fails,
+ * its objects are written one by one and the objects which fail again are lost (see {@link #getStats()}).
+ * <p>
+ * Pending objects are found by {@link #find(String, String, Class)} and {@link #findAll(String, Collection, Class)}.
+ * Other operations of a collection write its pending objects first, so they see the buffered writes as well. The
+ * version of a buffered object is not known, so the returned meta data has no version.
+ * <p>
+ * Buffered objects are held by reference until written: a pending object found by {@link #find(String, String, Class)}
+ * is the instance put, and changes of the instance after the put change what is written. Put objects must not be
+ * changed afterwards.
+ * <p>
+ * Start buffering with {@link #start()} and stop it with {@link #stop()} (e.g. as Spring init and destroy methods),
+ * objects put before the start or after the stop are written immediately. Stopping writes all pending objects.
+ *
+ */
+public class ObjCacheWriteBehindService implements ObjCacheService, ObjCacheEntryFinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjCacheWriteBehindService.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final int DEFAULT_MAX_PENDING_WRITES = 10000;
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final ObjCacheService delegate;
+
+    private final TransactionTemplate txTemplate;
+
+    /**
+     * Buffered collections, null if all collections are buffered.
+     */
+    private final Set<String> collections;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxPendingWrites = DEFAULT_MAX_PENDING_WRITES;
+
+    private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+
+    /**
+     * Pending writes by collection and object key.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, PendingWrite>> pendingWrites = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * Held while writing pending objects, so objects of a collection and key are written in order.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Write lock is held while starting or stopping, so no object is buffered after the last flush.
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder bufferedCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder writtenCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private boolean running;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new instance of class ObjCacheWriteBehindService buffering all collections.
+     *
+     * @param aDelegate underlying object cache service
+     * @param aTxTemplate transaction template of the batches, the same as of the underlying service
+     */
+    public ObjCacheWriteBehindService(final ObjCacheService aDelegate, final TransactionTemplate aTxTemplate) {
+        delegate = Validate.notNull(aDelegate, "Object cache service is required");
+        txTemplate = Validate.notNull(aTxTemplate, "Transaction template is required");
+        collections = null;
+    }
+
+    /**
+     * Constructs a new instance of class ObjCacheWriteBehindService.
+     *
+     * @param aDelegate underlying object cache service
+     * @param aTxTemplate transaction template of the batches, the same as of the underlying service
+     * @param someCollections buffered collections, objects of the others are written immediately
+     */
+    public ObjCacheWriteBehindService(
+        final ObjCacheService aDelegate,
+        final TransactionTemplate aTxTemplate,
+        final Collection<String> someCollections) {
+        delegate = Validate.notNull(aDelegate, "Object cache service is required");
+        txTemplate = Validate.notNull(aTxTemplate, "Transaction template is required");
+        collections = new HashSet<>(Validate.notNull(someCollections, "Collections must be not null"));
+    }
+
+    /**
+     * Set number of pending objects written in a single transaction, reaching it starts writing.
+     *
+     * @param aBatchSize batch size
+     */
+    public void setBatchSize(final int aBatchSize) {
+        Validate.isTrue(aBatchSize > 0, "Batch size must be a positive number");
+        batchSize = aBatchSize;
+    }
+
+    /**
+     * Set maximum number of pending objects, callers putting more objects write the pending objects themselves.
+     *
+     * @param aMaxPendingWrites maximum number of pending objects
+     */
+    public void setMaxPendingWrites(final int aMaxPendingWrites) {
+        Validate.isTrue(aMaxPendingWrites > 0, "Maximum pending writes must be a positive number");
+        maxPendingWrites = aMaxPendingWrites;
+    }
+
+    /**
+     * Set maximum time an object stays pending when the batch size is not reached.
+     *
+     * @param aFlushIntervalMillis interval in milliseconds
+     */
+    public void setFlushIntervalMillis(final long aFlushIntervalMillis) {
+        Validate.isTrue(aFlushIntervalMillis > 0, "Flush interval must be a positive number");
+        flushIntervalMillis = aFlushIntervalMillis;
+    }
+
+    /**
+     * Start buffering writes.
+     */
+    public void start() {
+        stateLock.writeLock().lock();
+        try {
+            Validate.validState(!running, "Write-behind service is already started");
+
+            scheduler =
+                Executors
+                    .newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("objcache-write-behind").setDaemon(true).build());
+            scheduler
+                .scheduleWithFixedDelay(
+                    this::flushQuietly,
+                    flushIntervalMillis,
+                    flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+            running = true;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop buffering writes and write all pending objects.
+     *
+     * @throws InterruptedException
+     */
+    public void stop() throws InterruptedException {
+        stateLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+
+            running = false;
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            scheduler = null;
+
+            // written while holding the lock, so no object put meanwhile is overwritten by an older pending one
+            flush();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByCollection(java.lang.String)
+     */
+    @Override
+    public long countByCollection(final String aCollection) throws ObjCacheException {
+        flush(aCollection);
+        return delegate.countByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public long countByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.countByPredicate(aCollection, aPredicate);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#countByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public long countByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.countByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        flush(aCollection, anObjectKey);
+        return delegate.create(aCollection, anObjectKey, aSerializerType, someProperties, anObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#create(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta create(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        flush(aCollection, anObjectKey);
+        return delegate.create(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#createAll(java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> createAll(
+        final String aCollection,
+        final SerializerType aSerializerType,
+        final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.createAll(aCollection, aSerializerType, someItems);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#delete(java.lang.String, java.lang.String)
+     */
+    @Override
+    public int delete(final String aCollection, final String anObjectKey) throws ObjCacheException {
+        Validate.notBlank(aCollection, "Collection must be not blank");
+        Validate.notBlank(anObjectKey, "Object key must be not blank");
+
+        // a pending write is dropped instead of being written and deleted, no flush may write it meanwhile
+        flushLock.lock();
+        try {
+            final boolean isPending = removePendingWrite(aCollection, anObjectKey);
+            final int theCount = delegate.delete(aCollection, anObjectKey);
+            return isPending ? Math.max(theCount, 1) : theCount;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteAll(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public int deleteAll(final String aCollection, final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.deleteAll(aCollection, someObjectKeys);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByCollection(java.lang.String)
+     */
+    @Override
+    public int deleteByCollection(final String aCollection) throws ObjCacheException {
+        flush(aCollection);
+        return delegate.deleteByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate)
+     */
+    @Override
+    public int deleteByPredicate(final String aCollection, final ObjCachePredicate aPredicate)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.deleteByPredicate(aCollection, aPredicate);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#deleteByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public int deleteByProperties(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.deleteByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByCollection(java.lang.String)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByCollection(final String aCollection) throws ObjCacheException {
+        flush(aCollection);
+        return delegate.estimateCountByCollection(aCollection);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#estimateCountByProperties(java.lang.String, java.util.Map)
+     */
+    @Override
+    public ObjCacheCountEstimate estimateCountByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.estimateCountByProperties(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#find(java.lang.String, java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> Optional<T> find(final String aCollection, final String anObjectKey, final Class<T> aClass)
+        throws ObjCacheException {
+        return findEntry(aCollection, anObjectKey, aClass).map(ObjCacheEntry::getObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Optional<ObjCacheEntry<T>> findEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        final PendingWrite theWrite = pendingWrite(aCollection, anObjectKey);
+        if (theWrite != null) {
+            if (theWrite.isExpired(ZonedDateTime.now())) {
+                return Optional.empty();
+            } else if (aClass.isInstance(theWrite.object)) {
+                return Optional.of(theWrite.toEntry(aClass));
+            }
+
+            // the object is read as another class than it has been written
+            flush(aCollection, anObjectKey);
+        }
+
+        return ObjCacheEntryFinder.findEntry(delegate, aCollection, anObjectKey, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findAll(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, T> findAll(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        final Map<String, T> theObjects = new LinkedHashMap<>();
+        findAllEntries(aCollection, someObjectKeys, aClass)
+            .forEach((anObjectKey, anEntry) -> theObjects.put(anObjectKey, anEntry.getObject()));
+        return theObjects;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#findAllEntries(java.lang.String, java.util.Collection,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> Map<String, ObjCacheEntry<T>> findAllEntries(
+        final String aCollection,
+        final Collection<String> someObjectKeys,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        Validate.notNull(someObjectKeys, "Object keys must be not null");
+
+        final ZonedDateTime theNow = ZonedDateTime.now();
+        final Map<String, ObjCacheEntry<T>> theEntries = new LinkedHashMap<>();
+        final List<String> theMissedKeys = new ArrayList<>();
+        boolean isFlushNeeded = false;
+        for (final String theObjectKey : someObjectKeys) {
+            final PendingWrite theWrite = pendingWrite(aCollection, theObjectKey);
+            if (theWrite == null) {
+                theMissedKeys.add(theObjectKey);
+            } else if (!theWrite.isExpired(theNow)) {
+                if (aClass.isInstance(theWrite.object)) {
+                    theEntries.put(theObjectKey, theWrite.toEntry(aClass));
+                } else {
+                    theMissedKeys.add(theObjectKey);
+                    isFlushNeeded = true;
+                }
+            }
+        }
+
+        if (theMissedKeys.isEmpty()) {
+            return theEntries;
+        }
+
+        if (isFlushNeeded) {
+            flush(aCollection);
+        }
+        theEntries.putAll(ObjCacheEntryFinder.findAllEntries(delegate, aCollection, theMissedKeys, aClass));
+        return theEntries;
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByCollection(final String aCollection, final Class<T> aClass) throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findByCollection(aCollection, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByCollection(java.lang.String, java.lang.Class,
+     *      java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findByCollection(aCollection, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findByPredicate(aCollection, aPredicate, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findByPredicate(aCollection, aPredicate, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class)
+     */
+    @Override
+    public <T> List<T> findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findByProperties(aCollection, someProperties, aClass);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, java.util.function.Consumer)
+     */
+    @Override
+    public <T> long findByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final Consumer<? super T> aConsumer)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findByProperties(aCollection, someProperties, aClass, aConsumer);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findKeys(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<String> findKeys(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findKeys(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findMeta(java.lang.String, java.util.Map)
+     */
+    @Override
+    public List<ObjCacheEntityMeta> findMeta(final String aCollection, final Map<String, Object> someProperties)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findMeta(aCollection, someProperties);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByCollection(java.lang.String, java.lang.Class, int,
+     *      java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByCollection(
+        final String aCollection,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findPageByCollection(aCollection, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByPredicate(java.lang.String,
+     *      com.codeveo.objcache.api.ObjCachePredicate, java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByPredicate(
+        final String aCollection,
+        final ObjCachePredicate aPredicate,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findPageByPredicate(aCollection, aPredicate, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findPageByProperties(java.lang.String, java.util.Map,
+     *      java.lang.Class, int, java.lang.String)
+     */
+    @Override
+    public <T> ObjCachePage<T> findPageByProperties(
+        final String aCollection,
+        final Map<String, Object> someProperties,
+        final Class<T> aClass,
+        final int aPageSize,
+        final String aPageToken)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findPageByProperties(aCollection, someProperties, aClass, aPageSize, aPageToken);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#findProperties(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public Map<String, Map<String, Object>> findProperties(
+        final String aCollection,
+        final Collection<String> someObjectKeys)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.findProperties(aCollection, someObjectKeys);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#getOrLoad(java.lang.String, java.lang.String, java.lang.Class,
+     *      com.codeveo.objcache.api.SerializerType, java.util.function.Supplier, java.time.Duration)
+     */
+    @Override
+    public <T> T getOrLoad(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        return getOrLoadEntry(aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive).getObject();
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheEntryFinder#getOrLoadEntry(java.lang.String, java.lang.String,
+     *      java.lang.Class, com.codeveo.objcache.api.SerializerType, java.util.function.Supplier,
+     *      java.time.Duration)
+     */
+    @Override
+    public <T> ObjCacheEntry<T> getOrLoadEntry(
+        final String aCollection,
+        final String anObjectKey,
+        final Class<T> aClass,
+        final SerializerType aSerializerType,
+        final Supplier<T> aLoader,
+        final Duration aTimeToLive)
+        throws ObjCacheException {
+        final Optional<ObjCacheEntry<T>> theEntry = findEntry(aCollection, anObjectKey, aClass);
+        if (theEntry.isPresent()) {
+            return theEntry.get();
+        }
+
+        return ObjCacheEntryFinder
+            .getOrLoadEntry(delegate, aCollection, anObjectKey, aClass, aSerializerType, aLoader, aTimeToLive);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject)
+        throws ObjCacheException {
+        return put(aCollection, anObjectKey, aSerializerType, someProperties, anObject, null);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#put(java.lang.String, java.lang.String,
+     *      com.codeveo.objcache.api.SerializerType, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta put(
+        final String aCollection,
+        final String anObjectKey,
+        final SerializerType aSerializerType,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        Validate.notBlank(aCollection, "Collection must be not blank");
+        Validate.notBlank(anObjectKey, "Object key must be not blank");
+        Validate.notNull(aSerializerType, "Serializer type must be not null");
+
+        stateLock.readLock().lock();
+        try {
+            if (!running || collections != null && !collections.contains(aCollection)) {
+                flush(aCollection, anObjectKey);
+                return delegate
+                    .put(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+            }
+
+            // the caller writes pending objects itself while the buffer is full
+            if (pendingCount.get() >= maxPendingWrites) {
+                flush();
+            }
+
+            final PendingWrite theWrite =
+                new PendingWrite(aCollection, anObjectKey, aSerializerType, someProperties, anObject, anExpirationTime);
+            bufferedCount.increment();
+            if (pendingWrites(aCollection).put(anObjectKey, theWrite) != null) {
+                coalescedCount.increment();
+            } else if (pendingCount.incrementAndGet() >= batchSize) {
+                requestFlush();
+            }
+
+            // the version is not known until the object is written
+            return new ObjCacheEntityMeta(aCollection, anObjectKey, aSerializerType, null, anExpirationTime);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String,
+     *      java.lang.Integer, java.util.Map, java.lang.Object, java.time.ZonedDateTime)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Integer aVersion,
+        final Map<String, Object> someProperties,
+        final Object anObject,
+        final ZonedDateTime anExpirationTime)
+        throws ObjCacheException {
+        flush(aCollection, anObjectKey);
+        return delegate.update(aCollection, anObjectKey, aVersion, someProperties, anObject, anExpirationTime);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#update(java.lang.String, java.lang.String, java.util.Map,
+     *      java.lang.Integer, java.lang.Object)
+     */
+    @Override
+    public ObjCacheEntityMeta update(
+        final String aCollection,
+        final String anObjectKey,
+        final Map<String, Object> someProperties,
+        final Integer aVersion,
+        final Object anObject)
+        throws ObjCacheException {
+        flush(aCollection, anObjectKey);
+        return delegate.update(aCollection, anObjectKey, someProperties, aVersion, anObject);
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.api.ObjCacheService#updateAll(java.lang.String, java.util.List)
+     */
+    @Override
+    public List<ObjCacheBatchResult> updateAll(final String aCollection, final List<ObjCacheBatchItem> someItems)
+        throws ObjCacheException {
+        flush(aCollection);
+        return delegate.updateAll(aCollection, someItems);
+    }
+
+    /**
+     * Write all pending objects.
+     *
+     * @return number of written objects
+     */
+    public int flush() {
+        return flush(null);
+    }
+
+    /**
+     * Get statistics of writes so far.
+     *
+     * @return statistics snapshot
+     */
+    public ObjCacheWriteBehindStats getStats() {
+        return new ObjCacheWriteBehindStats(
+            bufferedCount.sum(),
+            coalescedCount.sum(),
+            batchCount.sum(),
+            writtenCount.sum(),
+            failedCount.sum(),
+            pendingCount.get());
+    }
+
+    /**
+     * Write pending objects of given collection, all pending objects if the collection is null.
+     */
+    private int flush(final String aCollection) {
+        // objects stay pending until written, so a collection without pending objects is not being written
+        if (aCollection != null) {
+            final ConcurrentMap<String, PendingWrite> theWrites = pendingWrites.get(aCollection);
+            if (theWrites == null || theWrites.isEmpty()) {
+                return 0;
+            }
+        }
+
+        flushLock.lock();
+        try {
+            int theCount = 0;
+            final List<PendingWrite> theBatch = new ArrayList<>();
+            for (final Map.Entry<String, ConcurrentMap<String, PendingWrite>> theEntry : pendingWrites.entrySet()) {
+                if (aCollection != null && !aCollection.equals(theEntry.getKey())) {
+                    continue;
+                }
+
+                for (final PendingWrite theWrite : theEntry.getValue().values()) {
+                    theBatch.add(theWrite);
+                    if (theBatch.size() >= batchSize) {
+                        theCount += write(theBatch);
+                        theBatch.clear();
+                    }
+                }
+            }
+            if (!theBatch.isEmpty()) {
+                theCount += write(theBatch);
+            }
+            return theCount;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write pending object of given collection and key if there is one.
+     */
+    private void flush(final String aCollection, final String anObjectKey) {
+        if (pendingWrite(aCollection, anObjectKey) == null) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            final PendingWrite theWrite = pendingWrite(aCollection, anObjectKey);
+            if (theWrite != null) {
+                final List<PendingWrite> theBatch = new ArrayList<>();
+                theBatch.add(theWrite);
+                write(theBatch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (final Exception anException) {
+            LOGGER.warn("Writing of pending objects failed", anException);
+        }
+    }
+
+    /**
+     * Let the scheduler write pending objects as soon as possible. Called while holding the read lock of the state,
+     * so the scheduler is running.
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Write objects in a single transaction, the objects stay pending until written so they are still found. If the
+     * transaction fails, the objects are written one by one.
+     */
+    private int write(final List<PendingWrite> someWrites) {
+        int theCount = 0;
+        try {
+            txTemplate.execute(aStatus -> {
+                someWrites.forEach(this::write);
+                return null;
+            });
+            theCount = someWrites.size();
+        } catch (final RuntimeException anException) {
+            LOGGER.warn("Writing of " + someWrites.size() + " objects failed, writing them one by one", anException);
+
+            for (final PendingWrite theWrite : someWrites) {
+                try {
+                    txTemplate.execute(aStatus -> {
+                        write(theWrite);
+                        return null;
+                    });
+                    theCount++;
+                } catch (final RuntimeException anItemException) {
+                    failedCount.increment();
+                    LOGGER
+                        .error(
+                            "Writing of object '"
+                                + theWrite.objectKey
+                                + "' of collection '"
+                                + theWrite.collection
+                                + "' failed, the object is lost",
+                            anItemException);
+                }
+            }
+        } finally {
+            // objects put again meanwhile stay pending
+            someWrites.forEach(aWrite -> {
+                if (pendingWrites(aWrite.collection).remove(aWrite.objectKey, aWrite)) {
+                    pendingCount.decrementAndGet();
+                }
+            });
+        }
+
+        batchCount.increment();
+        writtenCount.add(theCount);
+        return theCount;
+    }
+
+    private void write(final PendingWrite aWrite) {
+        delegate
+            .put(
+                aWrite.collection,
+                aWrite.objectKey,
+                aWrite.serializerType,
+                aWrite.properties,
+                aWrite.object,
+                aWrite.expirationTime);
+    }
+
+    private PendingWrite pendingWrite(final String aCollection, final String anObjectKey) {
+        final ConcurrentMap<String, PendingWrite> theWrites = pendingWrites.get(aCollection);
+        return theWrites != null && anObjectKey != null ? theWrites.get(anObjectKey) : null;
+    }
+
+    private boolean removePendingWrite(final String aCollection, final String anObjectKey) {
+        final ConcurrentMap<String, PendingWrite> theWrites = pendingWrites.get(aCollection);
+        if (theWrites != null && theWrites.remove(anObjectKey) != null) {
+            pendingCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private ConcurrentMap<String, PendingWrite> pendingWrites(final String aCollection) {
+        return pendingWrites.computeIfAbsent(aCollection, aKey -> new ConcurrentHashMap<>());
+    }
+
+    private static final class PendingWrite {
+
+        private final String collection;
+
+        private final String objectKey;
+
+        private final SerializerType serializerType;
+
+        private final Map<String, Object> properties;
+
+        private final Object object;
+
+        private final ZonedDateTime expirationTime;
+
+        private PendingWrite(
+            final String aCollection,
+            final String anObjectKey,
+            final SerializerType aSerializerType,
+            final Map<String, Object> someProperties,
+            final Object anObject,
+            final ZonedDateTime anExpirationTime) {
+            collection = aCollection;
+            objectKey = anObjectKey;
+            serializerType = aSerializerType;
+            properties = someProperties;
+            object = anObject;
+            expirationTime = anExpirationTime;
+        }
+
+        private boolean isExpired(final ZonedDateTime aCurrentDateTime) {
+            return expirationTime != null && !expirationTime.isAfter(aCurrentDateTime);
+        }
+
+        private <T> ObjCacheEntry<T> toEntry(final Class<T> aClass) {
+            // the version is assigned by the delegate once the write is flushed
+            return new ObjCacheEntry<>(
+                aClass.cast(object),
+                new ObjCacheEntityMeta(collection, objectKey, serializerType, null, expirationTime));
+        }
+    }
+}
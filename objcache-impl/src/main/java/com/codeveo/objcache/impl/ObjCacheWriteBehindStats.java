@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+/**
+ * Write-behind service statistics snapshot.
+ *
+ */
+public class ObjCacheWriteBehindStats {
+
+    private final long bufferedCount;
+
+    private final long coalescedCount;
+
+    private final long batchCount;
+
+    private final long writtenCount;
+
+    private final long failedCount;
+
+    private final long pendingCount;
+
+    /**
+     * Constructs a new instance of class ObjCacheWriteBehindStats.
+     *
+     * @param aBufferedCount number of buffered writes
+     * @param aCoalescedCount number of buffered writes replacing a pending write of the same object
+     * @param aBatchCount number of written batches
+     * @param aWrittenCount number of written objects
+     * @param aFailedCount number of objects failed to be written, their writes are lost
+     * @param aPendingCount number of objects waiting to be written
+     */
+    public ObjCacheWriteBehindStats(
+        final long aBufferedCount,
+        final long aCoalescedCount,
+        final long aBatchCount,
+        final long aWrittenCount,
+        final long aFailedCount,
+        final long aPendingCount) {
+        bufferedCount = aBufferedCount;
+        coalescedCount = aCoalescedCount;
+        batchCount = aBatchCount;
+        writtenCount = aWrittenCount;
+        failedCount = aFailedCount;
+        pendingCount = aPendingCount;
+    }
+
+    public long getBufferedCount() {
+        return bufferedCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjCacheWriteBehindStats [bufferedCount="
+            + bufferedCount
+            + ", coalescedCount="
+            + coalescedCount
+            + ", batchCount="
+            + batchCount
+            + ", writtenCount="
+            + writtenCount
+            + ", failedCount="
+            + failedCount
+            + ", pendingCount="
+            + pendingCount
+            + "]";
+    }
+}
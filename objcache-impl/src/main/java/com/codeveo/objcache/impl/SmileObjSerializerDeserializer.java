@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl;
+
+import java.io.InputStream;
+
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.codeveo.objcache.common.ObjCacheJsonUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Jackson Smile (binary JSON) serializer. Objects are mapped exactly like by the JSON serializer, only the encoding
+ * is binary which makes it smaller and faster to write and parse.
+ *
+ */
+public class SmileObjSerializerDeserializer implements ObjCacheBinarySerializerDeserializer {
+
+    private static final ObjCacheJacksonCodec CODEC =
+        new ObjCacheJacksonCodec(ObjCacheJsonUtils.configureDefaultObjectMapper(new ObjectMapper(new SmileFactory())));
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer#serializeBinary(java.lang.String,
+     *      java.lang.String, java.lang.Object)
+     */
+    @Override
+    public byte[] serializeBinary(final String aCollectionId, final String anObjectKey, final Object anObject) {
+        try {
+            return anObject != null ? CODEC.writer(anObject).writeValueAsBytes(anObject) : null;
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0003,
+                anException,
+                aCollectionId,
+                anObjectKey);
+        }
+    }
+
+    /**
+     * Overrides an inherit method or implements an abstract method.
+     *
+     * @see com.codeveo.objcache.impl.ObjCacheBinarySerializerDeserializer#deserializeBinary(java.lang.String,
+     *      java.lang.String, java.io.InputStream, java.lang.Class)
+     */
+    @Override
+    public <T> T deserializeBinary(
+        final String aCollectionId,
+        final String anObjectKey,
+        final InputStream aSerializedObject,
+        final Class<T> aClass) {
+        try {
+            return CODEC.reader(aClass).readValue(aSerializedObject);
+        } catch (final Exception anException) {
+            throw new ObjCacheException(
+                ObjCacheErrorCodeType.OBJCACHE_EC_0004,
+                anException,
+                aCollectionId,
+                anObjectKey);
+        }
+    }
+
+    @Override
+    public SerializerType getSerializerType() {
+        return SerializerType.SMILE;
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl.test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.codeveo.objcache.impl.ObjCacheAsyncServiceImpl;
+import com.codeveo.objcache.impl.ObjCacheInMemoryService;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactory;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@ContextConfiguration("classpath:test-context.xml")
+public class ObjCacheAsyncServiceImplTest extends AbstractTransactionalTestNGSpringContextTests {
+
+    @Autowired
+    private ObjCacheService objCacheService;
+
+    @Autowired
+    private ObjCacheSerializerDeserializerFactory objSerDerFactory;
+
+    @Test
+    @DirtiesContext
+    public void testCreateFind() throws Exception {
+        // operations run on the calling thread to stay within the rolled back test transaction
+        final ObjCacheAsyncServiceImpl theAsyncService = new ObjCacheAsyncServiceImpl(objCacheService, Runnable::run);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+
+        final ObjCacheEntityMeta theMeta =
+            theAsyncService
+                .create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj)
+                .get();
+        Assert.assertEquals(theMeta.getVersion().intValue(), 1);
+        Assert.assertEquals(theAsyncService.find(TestObj.COLLECTION, "test1", TestObj.class).get().get(), theTestObj);
+        Assert.assertEquals(theAsyncService.countByCollection(TestObj.COLLECTION).get().longValue(), 1);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testDefaultExecutor() throws Exception {
+        final ObjCacheAsyncServiceImpl theAsyncService = new ObjCacheAsyncServiceImpl(objCacheService, 2);
+        try {
+            Assert.assertFalse(theAsyncService.find(TestObj.COLLECTION, "missing", TestObj.class).get().isPresent());
+
+            final ExecutionException theException =
+                Assert
+                    .expectThrows(
+                        ExecutionException.class,
+                        () -> theAsyncService
+                            .update(TestObj.COLLECTION, "missing", ImmutableMap.of("a", 1), 1, new TestObj())
+                            .get());
+            Assert.assertTrue(theException.getCause() instanceof ObjCacheException);
+            Assert
+                .assertEquals(
+                    ((ObjCacheException) theException.getCause()).getErrorCode(),
+                    ObjCacheErrorCodeType.OBJCACHE_EC_0006);
+        } finally {
+            theAsyncService.shutdown();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void testDefaultExecutorQueueFull() throws Exception {
+        final ExecutorService theExecutor = ObjCacheAsyncServiceImpl.createDefaultExecutor(1, 1);
+        if (!(theExecutor instanceof ThreadPoolExecutor)) {
+            theExecutor.shutdown();
+            throw new SkipException("Operations on virtual threads are not queued");
+        }
+
+        // the in-memory delegate lets the loads run on threads of their own outside of the test transaction
+        final ObjCacheAsyncServiceImpl theAsyncService =
+            new ObjCacheAsyncServiceImpl(new ObjCacheInMemoryService(objSerDerFactory), theExecutor);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final CountDownLatch theRelease = new CountDownLatch(1);
+        final Map<String, Thread> theLoadingThreads = new ConcurrentHashMap<>();
+        final Function<String, CompletableFuture<TestObj>> theLoad =
+            anObjectKey -> theAsyncService
+                .getOrLoad(TestObj.COLLECTION, anObjectKey, TestObj.class, SerializerType.JSON, () -> {
+                    theLoadingThreads.put(anObjectKey, Thread.currentThread());
+                    if ("test1".equals(anObjectKey)) {
+                        Uninterruptibles.awaitUninterruptibly(theRelease);
+                    }
+                    return theTestObj;
+                }, null);
+        try {
+            // the first load occupies the only thread, the second one waits in the queue
+            final CompletableFuture<TestObj> theLoad1 = theLoad.apply("test1");
+            final CompletableFuture<TestObj> theLoad2 = theLoad.apply("test2");
+
+            // the queue is full, the third load runs on the calling thread
+            final CompletableFuture<TestObj> theLoad3 = theLoad.apply("test3");
+            Assert.assertTrue(theLoad3.isDone());
+            Assert.assertSame(theLoadingThreads.get("test3"), Thread.currentThread());
+            Assert.assertFalse(theLoad2.isDone());
+
+            theRelease.countDown();
+            Assert.assertEquals(theLoad1.get(), theTestObj);
+            Assert.assertEquals(theLoad2.get(), theTestObj);
+        } finally {
+            theRelease.countDown();
+            theAsyncService.shutdown();
+        }
+
+        Assert.expectThrows(RejectedExecutionException.class, () -> theLoad.apply("test4"));
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl.test;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheExpiredReaper;
+import com.codeveo.objcache.impl.ObjCacheExpiredReaperStats;
+import com.google.common.collect.ImmutableMap;
+
+@ContextConfiguration("classpath:test-context.xml")
+public class ObjCacheExpiredReaperTest extends AbstractTransactionalTestNGSpringContextTests {
+
+    @Autowired
+    private ObjCacheService objCacheService;
+
+    @Autowired
+    private TransactionTemplate txTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DirtiesContext
+    public void testPurge() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        for (int i = 0; i < 5; i++) {
+            objCacheService
+                .create(
+                    TestObj.COLLECTION,
+                    "expired" + i,
+                    SerializerType.JSON,
+                    ImmutableMap.of("a", 1),
+                    theTestObj,
+                    ZonedDateTime.now().minusMinutes(1));
+        }
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "valid1",
+                SerializerType.JSON,
+                ImmutableMap.of("a", 1),
+                theTestObj,
+                ZonedDateTime.now().plusHours(1));
+        objCacheService.create(TestObj.COLLECTION, "valid2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+
+        final ObjCacheExpiredReaper theReaper = new ObjCacheExpiredReaper(txTemplate, jdbcTemplate);
+        theReaper.setBatchSize(2);
+        theReaper.setMaxBatchesPerRun(2);
+
+        Assert.assertEquals(theReaper.purge(), 4);
+        Assert.assertEquals(theReaper.purge(), 1);
+        Assert.assertEquals(theReaper.purge(), 0);
+
+        final ObjCacheExpiredReaperStats theStats = theReaper.getStats();
+        Assert.assertEquals(theStats.getRunCount(), 3);
+        Assert.assertEquals(theStats.getBatchCount(), 4);
+        Assert.assertEquals(theStats.getPurgedCount(), 5);
+        Assert.assertEquals(
+            jdbcTemplate
+                .queryForObject(
+                    "SELECT count(*) FROM t_objcache WHERE collection_id = ?",
+                    Long.class,
+                    TestObj.COLLECTION)
+                .longValue(),
+            2L);
+    }
+}
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl.test;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.codeveo.objcache.impl.ObjCacheInMemoryService;
+import com.codeveo.objcache.impl.ObjCacheRoutingService;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactory;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Runs the same operations against the in-memory service and the database service, both must give the same results.
+ */
+@ContextConfiguration("classpath:test-context.xml")
+public class ObjCacheInMemoryServiceTest extends AbstractTransactionalTestNGSpringContextTests {
+
+    private static final ZonedDateTime PAST = ZonedDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+
+    private static final ZonedDateTime FUTURE = ZonedDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private ObjCacheService objCacheService;
+
+    @Autowired
+    private ObjCacheSerializerDeserializerFactory objSerDerFactory;
+
+    @Test
+    @DirtiesContext
+    public void testWrites() {
+        assertSameResults(aService -> {
+            final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+            final TestObj theTestObjUpdated = new TestObj("b", 2, ImmutableMap.of("k1", 2));
+            final Map<String, Object> theProperties = ImmutableMap.of("status", "open");
+            final List<Object> theResults = new ArrayList<>();
+
+            theResults
+                .add(
+                    describe(
+                        aService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, theProperties, theTestObj)));
+            theResults
+                .add(
+                    describe(
+                        aService.put(TestObj.COLLECTION, "test1", SerializerType.SMILE, theProperties, theTestObj)));
+            theResults
+                .add(
+                    describe(
+                        aService
+                            .put(TestObj.COLLECTION, "test2", SerializerType.JAVA, theProperties, theTestObj, PAST)));
+            theResults.add(aService.find(TestObj.COLLECTION, "test2", TestObj.class).isPresent());
+            // an expired object is replaced as a new one
+            theResults
+                .add(
+                    describe(
+                        aService.put(TestObj.COLLECTION, "test2", SerializerType.JAVA, theProperties, theTestObj)));
+
+            theResults
+                .add(
+                    errorCode(
+                        () -> aService.update(TestObj.COLLECTION, "test1", theProperties, 1, theTestObjUpdated)));
+            theResults
+                .add(
+                    errorCode(
+                        () -> aService.update(TestObj.COLLECTION, "none", theProperties, 1, theTestObjUpdated)));
+            theResults
+                .add(
+                    describe(
+                        aService.update(TestObj.COLLECTION, "test1", 2, theProperties, theTestObjUpdated, FUTURE)));
+            theResults.add(aService.find(TestObj.COLLECTION, "test1", TestObj.class).get());
+            theResults
+                .add(aService.findAll(TestObj.COLLECTION, Arrays.asList("test2", "none", "test1"), TestObj.class));
+
+            theResults
+                .add(
+                    describe(
+                        aService
+                            .createAll(
+                                TestObj.COLLECTION,
+                                SerializerType.JAVA_DEFLATE,
+                                Arrays
+                                    .asList(
+                                        new ObjCacheBatchItem("test3", theProperties, theTestObj, PAST),
+                                        new ObjCacheBatchItem("test1", theProperties, theTestObj, null)))));
+            theResults
+                .add(
+                    describe(
+                        aService
+                            .updateAll(
+                                TestObj.COLLECTION,
+                                Arrays
+                                    .asList(
+                                        new ObjCacheBatchItem("test1", 3, theProperties, theTestObj, null),
+                                        new ObjCacheBatchItem("test2", 5, theProperties, theTestObj, null),
+                                        new ObjCacheBatchItem("test3", 1, theProperties, theTestObj, null)))));
+            theResults.add(describe(aService.findMeta(TestObj.COLLECTION, null)));
+            theResults.add(aService.find(TestObj.COLLECTION, "test1", TestObj.class).get());
+
+            // deletes include expired objects
+            theResults.add(aService.delete(TestObj.COLLECTION, "test3"));
+            theResults.add(aService.deleteAll(TestObj.COLLECTION, Arrays.asList("test1", "none")));
+            theResults.add(aService.countByCollection(TestObj.COLLECTION));
+            // the failed insert aborts the database transaction, so it goes last
+            theResults
+                .add(
+                    errorCode(
+                        () -> aService
+                            .create(TestObj.COLLECTION, "test2", SerializerType.JSON, theProperties, theTestObj)));
+            return theResults;
+        });
+    }
+
+    @Test
+    @DirtiesContext
+    public void testQueries() {
+        assertSameResults(aService -> {
+            final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+            aService
+                .create(
+                    TestObj.COLLECTION,
+                    "test1",
+                    SerializerType.JSON,
+                    ImmutableMap.of("status", "open", "priority", 1, "tags", Arrays.asList("a", "b")),
+                    theTestObj);
+            aService
+                .create(
+                    TestObj.COLLECTION,
+                    "test2",
+                    SerializerType.SMILE,
+                    ImmutableMap.of("status", "open", "priority", 5.0, "tags", Arrays.asList("b"), "owner", "x"),
+                    theTestObj);
+            aService
+                .create(
+                    TestObj.COLLECTION,
+                    "test3",
+                    SerializerType.JAVA,
+                    ImmutableMap.of("status", "closed", "priority", 3, "nested", ImmutableMap.of("k", 1, "l", 2)),
+                    theTestObj);
+            aService
+                .create(
+                    TestObj.COLLECTION,
+                    "test4",
+                    SerializerType.JSON,
+                    ImmutableMap.of("status", "new", "priority", "3", "active", true),
+                    theTestObj);
+            aService
+                .create(
+                    TestObj.COLLECTION,
+                    "test5",
+                    SerializerType.JSON,
+                    ImmutableMap.of("status", "open", "priority", 2),
+                    theTestObj,
+                    PAST);
+            final List<Object> theResults = new ArrayList<>();
+
+            theResults.add(aService.findKeys(TestObj.COLLECTION, null));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, ImmutableMap.of("status", "open")));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, ImmutableMap.of("tags", Arrays.asList("b"))));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, ImmutableMap.of("tags", "a")));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, ImmutableMap.of("priority", 5)));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, ImmutableMap.of("nested", ImmutableMap.of("k", 1))));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, ImmutableMap.of("status", "open", "owner", "y")));
+            theResults.add(aService.countByProperties(TestObj.COLLECTION, ImmutableMap.of("active", true)));
+            theResults.add(aService.countByProperties(TestObj.COLLECTION, Collections.emptyMap()));
+
+            for (final ObjCachePredicate thePredicate : Arrays
+                .asList(
+                    ObjCachePredicate.eq("status", "open"),
+                    ObjCachePredicate.eq("tags", "a"),
+                    ObjCachePredicate.eq("priority", 5),
+                    ObjCachePredicate.in("status", "open", "closed"),
+                    ObjCachePredicate.gt("priority", 1),
+                    ObjCachePredicate.between("priority", 1, 3),
+                    ObjCachePredicate.le("priority", 3.5),
+                    ObjCachePredicate.eq("priority", "3"),
+                    ObjCachePredicate.exists("owner"),
+                    ObjCachePredicate.not(ObjCachePredicate.gt("priority", 2)),
+                    ObjCachePredicate.not(ObjCachePredicate.exists("owner")),
+                    ObjCachePredicate
+                        .and(ObjCachePredicate.eq("status", "open"), ObjCachePredicate.lt("priority", 3)),
+                    ObjCachePredicate
+                        .or(ObjCachePredicate.eq("status", "new"), ObjCachePredicate.ge("priority", 5)),
+                    ObjCachePredicate
+                        .or(ObjCachePredicate.eq("status", "closed"), ObjCachePredicate.eq("active", true)))) {
+                theResults.add(thePredicate + " " + aService.countByPredicate(TestObj.COLLECTION, thePredicate));
+            }
+
+            final List<Object> thePageKeys = new ArrayList<>();
+            String thePageToken = null;
+            do {
+                final ObjCachePage<TestObj> thePage =
+                    aService
+                        .findPageByPredicate(
+                            TestObj.COLLECTION,
+                            ObjCachePredicate.ge("priority", 1),
+                            TestObj.class,
+                            2,
+                            thePageToken);
+                thePageKeys.add(thePage.getObjects().size());
+                thePageToken = thePage.getNextToken();
+            } while (thePageToken != null);
+            theResults.add(thePageKeys);
+            theResults
+                .add(
+                    aService
+                        .findPageByProperties(
+                            TestObj.COLLECTION,
+                            ImmutableMap.of("status", "open"),
+                            TestObj.class,
+                            1,
+                            null)
+                        .hasNext());
+
+            theResults.add(aService.findProperties(TestObj.COLLECTION, Arrays.asList("test3", "test5", "test2")));
+            theResults
+                .add(aService.findByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "closed"), TestObj.class));
+            theResults.add(aService.findByCollection(TestObj.COLLECTION, TestObj.class, aTestObj -> {}));
+
+            theResults.add(aService.deleteByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "open")));
+            theResults.add(aService.deleteByPredicate(TestObj.COLLECTION, ObjCachePredicate.eq("priority", "3")));
+            theResults.add(aService.findKeys(TestObj.COLLECTION, null));
+            return theResults;
+        });
+    }
+
+    @Test
+    @DirtiesContext
+    public void testRouting() {
+        final ObjCacheInMemoryService theInMemoryService = new ObjCacheInMemoryService(objSerDerFactory);
+        final ObjCacheRoutingService theRoutingService =
+            new ObjCacheRoutingService(objCacheService, ImmutableMap.of("InMemory", theInMemoryService));
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+
+        theRoutingService.create("InMemory", "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        theRoutingService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+
+        Assert.assertEquals(theInMemoryService.findKeys("InMemory", null), Arrays.asList("test1"));
+        Assert.assertEquals(theInMemoryService.countByCollection(TestObj.COLLECTION), 0);
+        Assert.assertEquals(objCacheService.countByCollection("InMemory"), 0);
+        Assert.assertEquals(theRoutingService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObj);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testPurgeExpired() {
+        final ObjCacheInMemoryService theInMemoryService = new ObjCacheInMemoryService(objSerDerFactory);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        theInMemoryService.put(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        theInMemoryService
+            .put(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj, PAST);
+
+        Assert.assertEquals(theInMemoryService.purgeExpired(), 1);
+        Assert.assertEquals(theInMemoryService.deleteByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 1)), 1);
+        // the key of the purged object can be created again
+        Assert
+            .assertEquals(
+                theInMemoryService
+                    .create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj)
+                    .getVersion()
+                    .intValue(),
+                1);
+    }
+
+    private void assertSameResults(final Function<ObjCacheService, List<Object>> aScenario) {
+        final List<Object> theInMemoryResults = aScenario.apply(new ObjCacheInMemoryService(objSerDerFactory));
+        final List<Object> theDatabaseResults = aScenario.apply(objCacheService);
+        Assert.assertEquals(theInMemoryResults, theDatabaseResults);
+    }
+
+    private static ObjCacheErrorCodeType errorCode(final Runnable anOperation) {
+        try {
+            anOperation.run();
+            return null;
+        } catch (final ObjCacheException anException) {
+            return anException.getErrorCode();
+        }
+    }
+
+    private static String describe(final ObjCacheEntityMeta aMeta) {
+        return aMeta.getCollection() + "/" + aMeta.getObjectKey() + "/" + aMeta.getSerializerType() + "/"
+            + aMeta.getVersion() + "/"
+            + (aMeta.getExpirationTime() != null ? aMeta.getExpirationTime().toInstant() : null);
+    }
+
+    private static List<String> describe(final List<?> someResults) {
+        final List<String> theDescriptions = new ArrayList<>();
+        for (final Object theResult : someResults) {
+            if (theResult instanceof ObjCacheBatchResult) {
+                final ObjCacheBatchResult theBatchResult = (ObjCacheBatchResult) theResult;
+                theDescriptions
+                    .add(
+                        theBatchResult.isSuccessful()
+                            ? describe(theBatchResult.getMeta())
+                            : theBatchResult.getObjectKey() + "/" + theBatchResult.getErrorCode());
+            } else {
+                theDescriptions.add(describe((ObjCacheEntityMeta) theResult));
+            }
+        }
+        return theDescriptions;
+    }
+}
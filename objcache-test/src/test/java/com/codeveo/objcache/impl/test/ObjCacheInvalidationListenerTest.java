@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheInvalidationListener;
+import com.codeveo.objcache.impl.ObjCacheInvalidationSubscriber;
+import com.codeveo.objcache.impl.ObjCacheNearCacheService;
+import com.codeveo.objcache.impl.ObjCacheServiceImpl;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Notifications are delivered on commit, so the test is not transactional and deletes its objects.
+ */
+@ContextConfiguration("classpath:test-context.xml")
+public class ObjCacheInvalidationListenerTest extends AbstractTestNGSpringContextTests {
+
+    private static final String PROBE = "probe";
+
+    @Autowired
+    private ObjCacheService objCacheService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DirtiesContext
+    public void testInvalidations() throws InterruptedException {
+        final BlockingQueue<String> theInvalidations = new LinkedBlockingQueue<>();
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final ObjCacheInvalidationListener theListener = new ObjCacheInvalidationListener(dataSource);
+        theListener.setPollTimeoutMillis(100);
+        // subscribers are called in order, the near cache is invalidated before the recorded invalidation is seen
+        theListener.subscribe(theNearCache);
+        theListener.subscribe(new ObjCacheInvalidationSubscriber() {
+
+            @Override
+            public void objectsInvalidated(final String aCollection, final Collection<String> someObjectKeys) {
+                theInvalidations.add(aCollection + someObjectKeys);
+            }
+
+            @Override
+            public void collectionInvalidated(final String aCollection) {
+                if (!PROBE.equals(aCollection)) {
+                    theInvalidations.add(aCollection);
+                }
+            }
+
+            @Override
+            public void allInvalidated() {
+                theInvalidations.add("*");
+            }
+        });
+        theListener.start();
+        try {
+            awaitListening(theListener);
+            ((ObjCacheServiceImpl) objCacheService)
+                .setInvalidationChannel(ObjCacheInvalidationListener.DEFAULT_CHANNEL);
+
+            final TestObj theTestObj1 = new TestObj("a", 1, ImmutableMap.of("k1", 1));
+            final TestObj theTestObj2 = new TestObj("b", 2, ImmutableMap.of("k1", 2));
+            objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of(), theTestObj1);
+            objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of(), theTestObj1);
+            Assert.assertEquals(theInvalidations.poll(5, TimeUnit.SECONDS), TestObj.COLLECTION + "[test1]");
+            Assert.assertEquals(theInvalidations.poll(5, TimeUnit.SECONDS), TestObj.COLLECTION + "[test2]");
+
+            // update by another node is seen by the near cache
+            Assert.assertEquals(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObj1);
+            objCacheService.update(TestObj.COLLECTION, "test1", ImmutableMap.of(), 1, theTestObj2);
+            Assert.assertEquals(theInvalidations.poll(5, TimeUnit.SECONDS), TestObj.COLLECTION + "[test1]");
+            Assert.assertEquals(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObj2);
+
+            Assert.assertEquals(objCacheService.deleteAll(TestObj.COLLECTION, Arrays.asList("test2", "missing")), 1);
+            Assert.assertEquals(theInvalidations.poll(5, TimeUnit.SECONDS), TestObj.COLLECTION + "[test2, missing]");
+
+            Assert.assertEquals(objCacheService.deleteByCollection(TestObj.COLLECTION), 1);
+            Assert.assertEquals(theInvalidations.poll(5, TimeUnit.SECONDS), TestObj.COLLECTION);
+            Assert.assertFalse(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).isPresent());
+
+            // nothing deleted, nothing published
+            Assert.assertEquals(objCacheService.delete(TestObj.COLLECTION, "test1"), 0);
+            Assert.assertNull(theInvalidations.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            theListener.stop();
+            objCacheService.deleteByCollection(TestObj.COLLECTION);
+        }
+    }
+
+    /**
+     * Notifications sent before the listener listens are lost, so wait until a probe is received. More probes may
+     * arrive later, they are ignored by the subscriber.
+     */
+    private void awaitListening(final ObjCacheInvalidationListener aListener) throws InterruptedException {
+        for (int i = 0; i < 100 && aListener.getReceivedCount() == 0; i++) {
+            jdbcTemplate
+                .queryForList(
+                    "select pg_notify(?, ?)",
+                    ObjCacheInvalidationListener.DEFAULT_CHANNEL,
+                    "[\"" + PROBE + "\"]");
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Assert.assertTrue(aListener.getReceivedCount() > 0);
+    }
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl.test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheInMemoryService;
+import com.codeveo.objcache.impl.ObjCacheNearCacheService;
+import com.codeveo.objcache.impl.ObjCacheNearCacheStats;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactory;
+import com.google.common.collect.ImmutableMap;
+
+@ContextConfiguration("classpath:test-context.xml")
+public class ObjCacheNearCacheServiceTest extends AbstractTransactionalTestNGSpringContextTests {
+
+    @Autowired
+    private ObjCacheService objCacheService;
+
+    @Autowired
+    private ObjCacheSerializerDeserializerFactory objSerDerFactory;
+
+    @Test
+    @DirtiesContext
+    public void testFindCached() {
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        theNearCache.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+
+        final Optional<TestObj> theFound1 = theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class);
+        final Optional<TestObj> theFound2 = theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class);
+        Assert.assertEquals(theFound1.get(), theTestObj);
+        Assert.assertSame(theFound2.get(), theFound1.get());
+
+        final ObjCacheNearCacheStats theStats = theNearCache.getStats(TestObj.COLLECTION);
+        Assert.assertEquals(theStats.getHitCount(), 1);
+        Assert.assertEquals(theStats.getMissCount(), 1);
+        Assert.assertEquals(theNearCache.getCachedVersion(TestObj.COLLECTION, "test1").get().intValue(), 1);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testFindAllCached() {
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        theNearCache.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        theNearCache.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class);
+
+        final Map<String, TestObj> theFound =
+            theNearCache.findAll(TestObj.COLLECTION, Arrays.asList("test1", "test2", "missing"), TestObj.class);
+        Assert.assertEquals(theFound.size(), 2);
+        Assert.assertEquals(theFound.get("test2"), theTestObj);
+
+        final ObjCacheNearCacheStats theStats = theNearCache.getStats(TestObj.COLLECTION);
+        Assert.assertEquals(theStats.getHitCount(), 1);
+        Assert.assertEquals(theStats.getMissCount(), 3);
+        Assert.assertTrue(theNearCache.find(TestObj.COLLECTION, "test2", TestObj.class).isPresent());
+        Assert.assertEquals(theNearCache.getStats(TestObj.COLLECTION).getHitCount(), 2);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testFindRespectsExpirationTime() throws InterruptedException {
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        // written by another node, so the near cache learns the expiration time only when loading the object
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test1",
+                SerializerType.JSON,
+                ImmutableMap.of("a", 1),
+                theTestObj,
+                ZonedDateTime.now().plusSeconds(1));
+
+        Assert.assertTrue(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).isPresent());
+        Assert.assertTrue(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).isPresent());
+        Assert.assertEquals(theNearCache.getStats(TestObj.COLLECTION).getHitCount(), 1);
+        Assert.assertEquals(theNearCache.getCachedVersion(TestObj.COLLECTION, "test1").get().intValue(), 1);
+
+        Thread.sleep(1500);
+
+        Assert.assertFalse(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).isPresent());
+        Assert.assertEquals(theNearCache.getStats(TestObj.COLLECTION).getMissCount(), 2);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testGetOrLoadCached() {
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final AtomicInteger theLoads = new AtomicInteger();
+        final Supplier<TestObj> theLoader = () -> {
+            theLoads.incrementAndGet();
+            return theTestObj;
+        };
+
+        final TestObj theLoaded1 =
+            theNearCache
+                .getOrLoad(TestObj.COLLECTION, "test1", TestObj.class, SerializerType.JSON, theLoader, null);
+        final TestObj theLoaded2 =
+            theNearCache
+                .getOrLoad(TestObj.COLLECTION, "test1", TestObj.class, SerializerType.JSON, theLoader, null);
+        Assert.assertSame(theLoaded1, theTestObj);
+        Assert.assertSame(theLoaded2, theTestObj);
+        Assert.assertEquals(theLoads.get(), 1);
+
+        // the loaded object is cached instead of being read back
+        final ObjCacheNearCacheStats theStats = theNearCache.getStats(TestObj.COLLECTION);
+        Assert.assertEquals(theStats.getHitCount(), 1);
+        Assert.assertEquals(theStats.getMissCount(), 1);
+        Assert.assertEquals(theNearCache.getCachedVersion(TestObj.COLLECTION, "test1").get().intValue(), 1);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObj);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testUpdateInvalidates() {
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        theNearCache.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class);
+
+        final TestObj theTestObjUpdated = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        final ObjCacheEntityMeta theMeta =
+            theNearCache.update(TestObj.COLLECTION, "test1", ImmutableMap.of("a", 2), 1, theTestObjUpdated);
+        Assert.assertEquals(theMeta.getVersion().intValue(), 2);
+
+        final Optional<TestObj> theFound = theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class);
+        Assert.assertEquals(theFound.get(), theTestObjUpdated);
+        Assert.assertEquals(theNearCache.getStats(TestObj.COLLECTION).getMissCount(), 2);
+
+        // an invalidation carrying an older version does not evict the newer cached object
+        theNearCache.invalidate(TestObj.COLLECTION, "test1", 1);
+        Assert.assertTrue(theNearCache.getCachedVersion(TestObj.COLLECTION, "test1").isPresent());
+
+        theNearCache.invalidate(TestObj.COLLECTION, "test1", 3);
+        Assert.assertFalse(theNearCache.getCachedVersion(TestObj.COLLECTION, "test1").isPresent());
+    }
+
+    @Test
+    @DirtiesContext
+    public void testDeleteInvalidates() {
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(objCacheService, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        theNearCache.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class);
+
+        theNearCache.delete(TestObj.COLLECTION, "test1");
+
+        Assert.assertFalse(theNearCache.find(TestObj.COLLECTION, "test1", TestObj.class).isPresent());
+    }
+
+    @Test
+    @DirtiesContext
+    public void testDeleteDuringLoad() throws Exception {
+        // the delegate is not transactional, so the load and the delete can run in threads of their own
+        final ObjCacheService theDelegate = new ObjCacheInMemoryService(objSerDerFactory);
+        final ObjCacheNearCacheService theNearCache = new ObjCacheNearCacheService(theDelegate, 100, 60);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final ExecutorService theExecutor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                final String theObjectKey = "test" + i;
+                theDelegate
+                    .create(TestObj.COLLECTION, theObjectKey, SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+
+                final CyclicBarrier theBarrier = new CyclicBarrier(2);
+                final Future<?> theLoad = theExecutor.submit(() -> {
+                    theBarrier.await();
+                    return theNearCache.find(TestObj.COLLECTION, theObjectKey, TestObj.class);
+                });
+                final Future<?> theDelete = theExecutor.submit(() -> {
+                    theBarrier.await();
+                    return theNearCache.delete(TestObj.COLLECTION, theObjectKey);
+                });
+                theLoad.get();
+                theDelete.get();
+
+                // however the load and the delete interleave, the deleted object is not served from the near cache
+                Assert.assertFalse(theNearCache.find(TestObj.COLLECTION, theObjectKey, TestObj.class).isPresent());
+            }
+        } finally {
+            theExecutor.shutdownNow();
+        }
+    }
+}
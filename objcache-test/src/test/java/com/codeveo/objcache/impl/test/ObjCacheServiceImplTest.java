@@ -17,22 +17,58 @@
  ******************************************************************************/
 package com.codeveo.objcache.impl.test;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.codeveo.objcache.api.ObjCacheBatchItem;
+import com.codeveo.objcache.api.ObjCacheBatchResult;
+import com.codeveo.objcache.api.ObjCacheCountEstimate;
 import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCachePage;
+import com.codeveo.objcache.api.ObjCachePredicate;
 import com.codeveo.objcache.api.ObjCacheService;
 import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.common.ObjCacheErrorCodeType;
+import com.codeveo.objcache.common.ObjCacheException;
+import com.codeveo.objcache.impl.ObjCacheMetricsCollector;
+import com.codeveo.objcache.impl.ObjCacheOperationStats;
+import com.codeveo.objcache.impl.ObjCacheOperationType;
+import com.codeveo.objcache.impl.ObjCachePropertyIndex;
+import com.codeveo.objcache.impl.ObjCachePropertyType;
+import com.codeveo.objcache.impl.ObjCacheSerializerDeserializerFactoryImpl;
+import com.codeveo.objcache.impl.ObjCacheServiceImpl;
 import com.google.common.collect.ImmutableMap;
 
 @ContextConfiguration("classpath:test-context.xml")
@@ -43,6 +79,12 @@ public class ObjCacheServiceImplTest extends AbstractTransactionalTestNGSpringCo
     @Autowired
     private ObjCacheService objCacheService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
     @Test
     @DirtiesContext
     public void testCreate() {
@@ -64,6 +106,79 @@ public class ObjCacheServiceImplTest extends AbstractTransactionalTestNGSpringCo
         Assert.assertTrue(theTestObj.isPresent());
     }
 
+    @Test
+    @DirtiesContext
+    public void testCreateBinary() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final ObjCacheEntityMeta theMeta =
+            objCacheService
+                .create(TestObj.COLLECTION, "test1", SerializerType.JAVA, ImmutableMap.of("a", 1), theTestObj);
+        Assert.assertEquals(theMeta.getSerializerType(), SerializerType.JAVA);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObj);
+
+        final TestObj theTestObjUpdated = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        objCacheService.update(TestObj.COLLECTION, "test1", ImmutableMap.of("a", 2), 1, theTestObjUpdated);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObjUpdated);
+
+        final List<ObjCacheBatchResult> theResults =
+            objCacheService
+                .updateAll(
+                    TestObj.COLLECTION,
+                    Arrays.asList(new ObjCacheBatchItem("test1", 2, ImmutableMap.of("a", 3), theTestObj, null)));
+        Assert.assertTrue(theResults.get(0).isSuccessful());
+        Assert
+            .assertEquals(
+                objCacheService.findByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 3), TestObj.class),
+                Arrays.asList(theTestObj));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testCreateBinaryFormats() {
+        final Map<String, Object> theBigMap = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            theBigMap.put("key" + i, "value" + i);
+        }
+        final TestObj theSmallTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final TestObj theBigTestObj = new TestObj("b", 2, theBigMap);
+        objCacheService
+            .create(TestObj.COLLECTION, "test1", SerializerType.JSON_DEFLATE, ImmutableMap.of("a", 1), theSmallTestObj);
+        objCacheService
+            .create(TestObj.COLLECTION, "test2", SerializerType.JSON_DEFLATE, ImmutableMap.of("a", 1), theBigTestObj);
+        objCacheService
+            .create(TestObj.COLLECTION, "test3", SerializerType.JAVA_DEFLATE, ImmutableMap.of("a", 1), theBigTestObj);
+        objCacheService
+            .create(TestObj.COLLECTION, "test4", SerializerType.SMILE, ImmutableMap.of("a", 1), theBigTestObj);
+
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theSmallTestObj);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test2", TestObj.class).get(), theBigTestObj);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test3", TestObj.class).get(), theBigTestObj);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test4", TestObj.class).get(), theBigTestObj);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testFindNotExisting() {
+        final Optional<TestObj> theTestObj = objCacheService.find(TestObj.COLLECTION, "missing", TestObj.class);
+        Assert.assertFalse(theTestObj.isPresent());
+    }
+
+    @Test
+    @DirtiesContext
+    public void testFindAll() {
+        final TestObj theTestObj1 = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final TestObj theTestObj2 = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj1);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj2);
+
+        final Map<String, TestObj> theTestObjs =
+            objCacheService.findAll(TestObj.COLLECTION, Arrays.asList("test1", "test2", "missing"), TestObj.class);
+        Assert.assertEquals(theTestObjs.size(), 2);
+        Assert.assertEquals(theTestObjs.get("test1"), theTestObj1);
+        Assert.assertEquals(theTestObjs.get("test2"), theTestObj2);
+        Assert.assertFalse(theTestObjs.containsKey("missing"));
+    }
+
     @Test
     @DirtiesContext
     public void testFindByCollection() {
@@ -141,6 +256,74 @@ public class ObjCacheServiceImplTest extends AbstractTransactionalTestNGSpringCo
         Assert.assertEqualsNoOrder(theTestObjs.toArray(), new Object[] { theTestObj2 });
     }
 
+    @Test
+    @DirtiesContext
+    public void testFindByCollectionConsumer() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        for (int i = 0; i < 5; i++) {
+            objCacheService
+                .create(TestObj.COLLECTION, "test" + i, SerializerType.JSON, ImmutableMap.of("a", i % 2), theTestObj);
+        }
+
+        final List<TestObj> theConsumedObjs = new ArrayList<>();
+        final long theCount = objCacheService.findByCollection(TestObj.COLLECTION, TestObj.class, theConsumedObjs::add);
+        Assert.assertEquals(theCount, 5);
+        Assert.assertEquals(theConsumedObjs.size(), 5);
+        Assert.assertEquals(theConsumedObjs.get(0), theTestObj);
+
+        theConsumedObjs.clear();
+        final long thePropsCount =
+            objCacheService
+                .findByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 1), TestObj.class, theConsumedObjs::add);
+        Assert.assertEquals(thePropsCount, 2);
+        Assert.assertEquals(theConsumedObjs.size(), 2);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testFindPageByCollection() {
+        for (int i = 0; i < 5; i++) {
+            objCacheService
+                .create(
+                    TestObj.COLLECTION,
+                    "test" + i,
+                    SerializerType.JSON,
+                    ImmutableMap.of("a", i % 2),
+                    new TestObj("a", i, ImmutableMap.of("k1", i)));
+        }
+
+        final ObjCachePage<TestObj> thePage1 =
+            objCacheService.findPageByCollection(TestObj.COLLECTION, TestObj.class, 2, null);
+        Assert.assertEquals(thePage1.getObjects().size(), 2);
+        Assert.assertEquals(thePage1.getObjects().get(0).getPropInt().intValue(), 0);
+        Assert.assertTrue(thePage1.hasNext());
+
+        final ObjCachePage<TestObj> thePage2 =
+            objCacheService.findPageByCollection(TestObj.COLLECTION, TestObj.class, 2, thePage1.getNextToken());
+        Assert.assertEquals(thePage2.getObjects().get(0).getPropInt().intValue(), 2);
+
+        final ObjCachePage<TestObj> thePage3 =
+            objCacheService.findPageByCollection(TestObj.COLLECTION, TestObj.class, 2, thePage2.getNextToken());
+        Assert.assertEquals(thePage3.getObjects().size(), 1);
+        Assert.assertFalse(thePage3.hasNext());
+
+        final ObjCachePage<TestObj> thePropsPage1 =
+            objCacheService
+                .findPageByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 0), TestObj.class, 2, null);
+        Assert.assertEquals(thePropsPage1.getObjects().size(), 2);
+        final ObjCachePage<TestObj> thePropsPage2 =
+            objCacheService
+                .findPageByProperties(
+                    TestObj.COLLECTION,
+                    ImmutableMap.of("a", 0),
+                    TestObj.class,
+                    2,
+                    thePropsPage1.getNextToken());
+        Assert.assertEquals(thePropsPage2.getObjects().size(), 1);
+        Assert.assertEquals(thePropsPage2.getObjects().get(0).getPropInt().intValue(), 4);
+        Assert.assertNull(thePropsPage2.getNextToken());
+    }
+
     @Test
     @DirtiesContext
     public void testCountByCollection() {
@@ -363,6 +546,20 @@ public class ObjCacheServiceImplTest extends AbstractTransactionalTestNGSpringCo
         Assert.assertEquals(theDeletedCount2, 1);
     }
 
+    @Test
+    @DirtiesContext
+    public void testDeleteByCollectionPartitioned() {
+        // the test table is not partitioned, so no partition of the collection is found and its rows are deleted
+        ((ObjCacheServiceImpl) objCacheService).setPartitioned(true);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 2), theTestObj);
+        objCacheService.create("TestCol2", "test3", SerializerType.JSON, ImmutableMap.of("a", 3), theTestObj);
+
+        Assert.assertEquals(objCacheService.deleteByCollection(TestObj.COLLECTION), 2);
+        Assert.assertEquals(objCacheService.countByCollection("TestCol2"), 1);
+    }
+
     @Test
     @DirtiesContext
     public void testDeleteByProperties() {
@@ -458,4 +655,723 @@ public class ObjCacheServiceImplTest extends AbstractTransactionalTestNGSpringCo
         Assert.assertEquals(theStoredObjs.size(), 1);
         Assert.assertEquals(theStoredObjs.get(0), theTestObjUpdated);
     }
+
+    @Test
+    @DirtiesContext
+    public void testUpdateKeyed() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final Map<String, Object> theProps = ImmutableMap.of("a", 1);
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, theProps, theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, theProps, theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test3", SerializerType.JAVA, theProps, theTestObj);
+
+        // objects of the same version and other keys are not touched
+        final TestObj theTestObjUpdated = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        final ObjCacheEntityMeta theMeta1 =
+            objCacheService.update(TestObj.COLLECTION, "test1", theProps, 1, theTestObjUpdated);
+        Assert.assertEquals(theMeta1.getVersion().intValue(), 2);
+        Assert.assertEquals(theMeta1.getSerializerType(), SerializerType.JSON);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObjUpdated);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test2", TestObj.class).get(), theTestObj);
+
+        // objects of another serializer in the same collection
+        final ObjCacheEntityMeta theMeta3 =
+            objCacheService.update(TestObj.COLLECTION, "test3", theProps, 1, theTestObjUpdated);
+        Assert.assertEquals(theMeta3.getSerializerType(), SerializerType.JAVA);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test3", TestObj.class).get(), theTestObjUpdated);
+
+        final ObjCacheException theConflict =
+            Assert
+                .expectThrows(
+                    ObjCacheException.class,
+                    () -> objCacheService.update(TestObj.COLLECTION, "test1", theProps, 1, theTestObjUpdated));
+        Assert.assertEquals(theConflict.getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0002);
+        Assert.assertTrue(theConflict.getCauseString().contains("key 'test1' stored under collection"));
+
+        final ObjCacheException theNotFound =
+            Assert
+                .expectThrows(
+                    ObjCacheException.class,
+                    () -> objCacheService.update(TestObj.COLLECTION, "missing", theProps, 1, theTestObjUpdated));
+        Assert.assertEquals(theNotFound.getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0006);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testUpdateMixedSerializers() {
+        final ObjCacheMetricsCollector theCollector = new ObjCacheMetricsCollector();
+        ((ObjCacheServiceImpl) objCacheService).setMetricsListener(theCollector);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final Map<String, Object> theProps = ImmutableMap.of("a", 1);
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, theProps, theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JAVA, theProps, theTestObj);
+
+        for (int i = 1; i <= 3; i++) {
+            Assert
+                .assertEquals(
+                    objCacheService.update(TestObj.COLLECTION, "test1", theProps, i, theTestObj).getSerializerType(),
+                    SerializerType.JSON);
+            Assert
+                .assertEquals(
+                    objCacheService.update(TestObj.COLLECTION, "test2", theProps, i, theTestObj).getSerializerType(),
+                    SerializerType.JAVA);
+        }
+
+        // only the first update misses the serializer type, the others look it up first
+        final ObjCacheOperationStats theUpdateStats =
+            theCollector
+                .getStats(TestObj.COLLECTION)
+                .stream()
+                .filter(aStats -> aStats.getOperation() == ObjCacheOperationType.UPDATE)
+                .findFirst()
+                .get();
+        Assert.assertEquals(theUpdateStats.getCount(), 6);
+        Assert.assertEquals(theUpdateStats.getSerializedCount(), 7);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testPut() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final Map<String, Object> theProps = ImmutableMap.of("a", 1);
+        final ObjCacheEntityMeta theMeta1 =
+            objCacheService.put(TestObj.COLLECTION, "test1", SerializerType.JSON, theProps, theTestObj);
+        Assert.assertEquals(theMeta1.getVersion().intValue(), 1);
+
+        // overwritten by another serializer
+        final TestObj theTestObjUpdated = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        final ObjCacheEntityMeta theMeta2 =
+            objCacheService.put(TestObj.COLLECTION, "test1", SerializerType.JAVA, theProps, theTestObjUpdated);
+        Assert.assertEquals(theMeta2.getVersion().intValue(), 2);
+        Assert.assertEquals(theMeta2.getSerializerType(), SerializerType.JAVA);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObjUpdated);
+        Assert.assertEquals(objCacheService.countByCollection(TestObj.COLLECTION), 1);
+
+        // an expired object is overwritten as a new one
+        objCacheService
+            .put(
+                TestObj.COLLECTION,
+                "test1",
+                SerializerType.JSON,
+                theProps,
+                theTestObj,
+                ZonedDateTime.now().minusSeconds(1));
+        Assert.assertFalse(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).isPresent());
+        final ObjCacheEntityMeta theMeta3 =
+            objCacheService.put(TestObj.COLLECTION, "test1", SerializerType.JSON, theProps, theTestObj);
+        Assert.assertEquals(theMeta3.getVersion().intValue(), 1);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObj);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testMetrics() {
+        final ObjCacheMetricsCollector theCollector = new ObjCacheMetricsCollector();
+        ((ObjCacheServiceImpl) objCacheService).setMetricsListener(theCollector);
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final Map<String, Object> theProps = ImmutableMap.of("a", 1);
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, theProps, theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.SMILE, theProps, theTestObj);
+        objCacheService.findByCollection(TestObj.COLLECTION, TestObj.class);
+        objCacheService.update(TestObj.COLLECTION, "test1", theProps, 1, theTestObj);
+        Assert
+            .expectThrows(
+                ObjCacheException.class,
+                () -> objCacheService.update(TestObj.COLLECTION, "test1", theProps, 1, theTestObj));
+
+        final Map<ObjCacheOperationType, ObjCacheOperationStats> theStats = new HashMap<>();
+        theCollector.getStats(TestObj.COLLECTION).forEach(aStats -> theStats.put(aStats.getOperation(), aStats));
+        LOGGER.info("Operation stats: {}", theStats);
+
+        final ObjCacheOperationStats theCreateStats = theStats.get(ObjCacheOperationType.CREATE);
+        Assert.assertEquals(theCreateStats.getCount(), 2);
+        Assert.assertEquals(theCreateStats.getRowCount(), 2);
+        Assert.assertEquals(theCreateStats.getSerializedCount(), 2);
+        Assert.assertTrue(theCreateStats.getMaxSerializedSize() > 0);
+
+        final ObjCacheOperationStats theFindStats = theStats.get(ObjCacheOperationType.FIND_BY_COLLECTION);
+        Assert.assertEquals(theFindStats.getRowCount(), 2);
+        Assert.assertEquals(theFindStats.getDeserializedCount(), 2);
+        Assert.assertEquals(theFindStats.getDeserializedSize(), theCreateStats.getSerializedSize());
+
+        final ObjCacheOperationStats theUpdateStats = theStats.get(ObjCacheOperationType.UPDATE);
+        Assert.assertEquals(theUpdateStats.getCount(), 1);
+        Assert.assertEquals(theUpdateStats.getFailureCount(), 1);
+        Assert.assertEquals(theUpdateStats.getConflictCount(), 1);
+        Assert.assertEquals(theUpdateStats.getConflictRate(), 0.5);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testMetricsTransactionFailure() {
+        // no connection can be made, so the transaction fails before the operation runs
+        final ObjCacheServiceImpl theService =
+            service(new DriverManagerDataSource("jdbc:postgresql://localhost:1/test_cdv_objcache", "none", "none"));
+        final ObjCacheMetricsCollector theCollector = new ObjCacheMetricsCollector();
+        theService.setMetricsListener(theCollector);
+        Assert
+            .expectThrows(
+                CannotCreateTransactionException.class,
+                () -> theService.find(TestObj.COLLECTION, "test1", TestObj.class));
+
+        final ObjCacheOperationStats theFindStats = theCollector.getStats(TestObj.COLLECTION).get(0);
+        Assert.assertEquals(theFindStats.getOperation(), ObjCacheOperationType.FIND);
+        Assert.assertEquals(theFindStats.getFailureCount(), 1);
+        Assert.assertEquals(theFindStats.getErrorCounts().get(ObjCacheErrorCodeType.OBJCACHE_EC_0006).longValue(), 1);
+    }
+
+    /**
+     * Loads run on other threads commit, so the test is not transactional and deletes its objects.
+     */
+    @Test
+    @DirtiesContext
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testGetOrLoad() throws Exception {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final AtomicInteger theLoadCount = new AtomicInteger();
+        final Supplier<TestObj> theLoader = () -> {
+            theLoadCount.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(300);
+            } catch (final InterruptedException anException) {
+                Thread.currentThread().interrupt();
+            }
+            return theTestObj;
+        };
+        final ExecutorService theExecutor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<TestObj>> theResults = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                theResults
+                    .add(
+                        theExecutor
+                            .submit(
+                                () -> objCacheService
+                                    .getOrLoad(
+                                        TestObj.COLLECTION,
+                                        "hot",
+                                        TestObj.class,
+                                        SerializerType.JSON,
+                                        theLoader,
+                                        Duration.ofMinutes(1))));
+            }
+            for (final Future<TestObj> theResult : theResults) {
+                Assert.assertEquals(theResult.get(), theTestObj);
+            }
+            Assert.assertEquals(theLoadCount.get(), 1);
+
+            final ObjCacheEntityMeta theMeta = objCacheService.findMeta(TestObj.COLLECTION, null).get(0);
+            Assert.assertEquals(theMeta.getObjectKey(), "hot");
+            Assert.assertNotNull(theMeta.getExpirationTime());
+
+            // found objects are not loaded
+            Assert
+                .assertEquals(
+                    objCacheService
+                        .getOrLoad(TestObj.COLLECTION, "hot", TestObj.class, SerializerType.JSON, theLoader, null),
+                    theTestObj);
+            Assert.assertEquals(theLoadCount.get(), 1);
+
+            // expired objects are overwritten
+            objCacheService
+                .put(
+                    TestObj.COLLECTION,
+                    "hot",
+                    SerializerType.JSON,
+                    ImmutableMap.of(),
+                    new TestObj("b", 2, ImmutableMap.of()),
+                    ZonedDateTime.now().minusMinutes(1));
+            Assert
+                .assertEquals(
+                    objCacheService
+                        .getOrLoad(TestObj.COLLECTION, "hot", TestObj.class, SerializerType.JSON, theLoader, null),
+                    theTestObj);
+            Assert.assertEquals(theLoadCount.get(), 2);
+            Assert.assertNull(objCacheService.findMeta(TestObj.COLLECTION, null).get(0).getExpirationTime());
+
+            // null objects are not stored
+            Assert
+                .assertNull(
+                    objCacheService
+                        .getOrLoad(TestObj.COLLECTION, "null", TestObj.class, SerializerType.JSON, () -> null, null));
+            Assert.assertEquals(objCacheService.countByCollection(TestObj.COLLECTION), 1);
+        } finally {
+            theExecutor.shutdownNow();
+            objCacheService.deleteByCollection(TestObj.COLLECTION);
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void testProjections() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final ZonedDateTime theExpirationTime = ZonedDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test1",
+                SerializerType.SMILE,
+                ImmutableMap.of("a", 2, "b", "text"),
+                theTestObj,
+                theExpirationTime);
+        objCacheService.update(TestObj.COLLECTION, "test2", ImmutableMap.of("a", 1), 1, theTestObj);
+
+        Assert.assertEquals(objCacheService.findKeys(TestObj.COLLECTION, null), Arrays.asList("test1", "test2"));
+        Assert
+            .assertEquals(
+                objCacheService.findKeys(TestObj.COLLECTION, ImmutableMap.of("a", 1)),
+                Arrays.asList("test2"));
+
+        final List<ObjCacheEntityMeta> theMeta = objCacheService.findMeta(TestObj.COLLECTION, ImmutableMap.of());
+        Assert.assertEquals(theMeta.size(), 2);
+        Assert.assertEquals(theMeta.get(0).getObjectKey(), "test1");
+        Assert.assertEquals(theMeta.get(0).getSerializerType(), SerializerType.SMILE);
+        Assert.assertEquals(theMeta.get(0).getVersion().intValue(), 1);
+        Assert.assertEquals(theMeta.get(0).getExpirationTime().toInstant(), theExpirationTime.toInstant());
+        Assert.assertEquals(theMeta.get(1).getVersion().intValue(), 2);
+        Assert.assertNull(theMeta.get(1).getExpirationTime());
+        Assert
+            .assertEquals(
+                objCacheService.findMeta(TestObj.COLLECTION, ImmutableMap.of("b", "text")).get(0).getObjectKey(),
+                "test1");
+
+        final Map<String, Map<String, Object>> theProperties =
+            objCacheService.findProperties(TestObj.COLLECTION, Arrays.asList("test1", "missing"));
+        Assert.assertEquals(theProperties, ImmutableMap.of("test1", ImmutableMap.of("a", 2, "b", "text")));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testEstimateCount() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test3", SerializerType.SMILE, ImmutableMap.of("a", 2), theTestObj);
+
+        ObjCacheCountEstimate theEstimate = objCacheService.estimateCountByCollection(TestObj.COLLECTION);
+        Assert.assertTrue(theEstimate.isExact());
+        Assert.assertEquals(theEstimate.getCount(), 3);
+        Assert.assertEquals(theEstimate.getErrorBound(), 0);
+
+        theEstimate = objCacheService.estimateCountByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 1));
+        Assert.assertTrue(theEstimate.isExact());
+        Assert.assertEquals(theEstimate.getCount(), 2);
+
+        ((ObjCacheServiceImpl) objCacheService).setExactCountThreshold(0);
+        ((ObjCacheServiceImpl) objCacheService).setEstimateSampleSize(1);
+
+        theEstimate = objCacheService.estimateCountByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 2));
+        Assert.assertTrue(theEstimate.getCount() >= 0);
+        Assert.assertTrue(theEstimate.isExact() ? theEstimate.getCount() == 1 : theEstimate.getErrorBound() > 0);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testEstimateCountSharedTable() {
+        // 2000 objects of the collection spread among 20000 objects of another collection
+        jdbcTemplate
+            .update(
+                "INSERT INTO t_objcache (collection_id, object_key, serializer_type, version, object_data, properties)"
+                    + " SELECT CASE WHEN i % 11 = 0 THEN ? ELSE 'TestLarge' END, 'key' || i, 'JSON', 1, '{}', '{}'"
+                    + " FROM generate_series(1, 22000) i",
+                TestObj.COLLECTION);
+        jdbcTemplate.execute("ANALYZE t_objcache");
+        final ObjCacheServiceImpl theService = (ObjCacheServiceImpl) objCacheService;
+        theService.setExactCountThreshold(1000);
+
+        // the sample of 1000 rows is less than 10% of the table
+        theService.setEstimateSampleSize(1000);
+        ObjCacheCountEstimate theEstimate = objCacheService.estimateCountByCollection(TestObj.COLLECTION);
+        Assert.assertFalse(theEstimate.isExact());
+        Assert.assertTrue(theEstimate.getErrorBound() > 0);
+
+        // the sample of 3000 rows would be more than 10% of the table, even though it is less than the collection
+        theService.setEstimateSampleSize(3000);
+        theEstimate = objCacheService.estimateCountByCollection(TestObj.COLLECTION);
+        Assert.assertTrue(theEstimate.isExact());
+        Assert.assertEquals(theEstimate.getCount(), 2000);
+
+        theService.setEstimateSampleSize(1000);
+        theService.setEstimateMaxSampleFraction(0.01);
+        theEstimate = objCacheService.estimateCountByProperties(TestObj.COLLECTION, ImmutableMap.of());
+        Assert.assertTrue(theEstimate.isExact());
+        Assert.assertEquals(theEstimate.getCount(), 2000);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testFindByPredicate() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test1",
+                SerializerType.JSON,
+                ImmutableMap.of("status", "open", "priority", 1, "owner", "x"),
+                theTestObj);
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test2",
+                SerializerType.JSON,
+                ImmutableMap.of("status", "open", "priority", 5),
+                theTestObj);
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test3",
+                SerializerType.SMILE,
+                ImmutableMap.of("status", "closed", "priority", 3, "owner \"quoted\"", true),
+                theTestObj);
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test4",
+                SerializerType.JSON,
+                ImmutableMap.of("status", "new", "priority", "3"),
+                theTestObj);
+
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.eq("status", "open")), 2);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.in("status", "open", "closed")), 3);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.gt("priority", 1)), 2);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.between("priority", 1, 3)), 2);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.le("priority", 3.5)), 2);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.eq("priority", "3")), 1);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.exists("owner")), 1);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.exists("owner \"quoted\"")), 1);
+        Assert.assertEquals(countByPredicate(ObjCachePredicate.not(ObjCachePredicate.eq("status", "open"))), 2);
+        Assert.expectThrows(IllegalArgumentException.class, () -> ObjCachePredicate.eq("priority", Double.NaN));
+        Assert
+            .expectThrows(
+                IllegalArgumentException.class,
+                () -> ObjCachePredicate.gt("priority", Float.POSITIVE_INFINITY));
+        Assert
+            .expectThrows(
+                IllegalArgumentException.class,
+                () -> ObjCachePredicate.in("priority", 1, Double.NEGATIVE_INFINITY));
+
+        final ObjCachePredicate theOpenWithoutOwner =
+            ObjCachePredicate
+                .and(
+                    ObjCachePredicate.eq("status", "open"),
+                    ObjCachePredicate.not(ObjCachePredicate.exists("owner")));
+        Assert
+            .assertEquals(
+                countByPredicate(ObjCachePredicate.or(theOpenWithoutOwner, ObjCachePredicate.lt("priority", 4))),
+                3);
+
+        final ObjCachePredicate thePrioritized = ObjCachePredicate.ge("priority", 1);
+        final ObjCachePage<TestObj> thePage =
+            objCacheService.findPageByPredicate(TestObj.COLLECTION, thePrioritized, TestObj.class, 2, null);
+        Assert.assertEquals(thePage.getObjects().size(), 2);
+        Assert
+            .assertEquals(
+                objCacheService
+                    .findPageByPredicate(TestObj.COLLECTION, thePrioritized, TestObj.class, 2, thePage.getNextToken())
+                    .getObjects()
+                    .size(),
+                1);
+
+        final List<TestObj> theFound = new ArrayList<>();
+        Assert
+            .assertEquals(
+                objCacheService
+                    .findByPredicate(
+                        TestObj.COLLECTION,
+                        ObjCachePredicate.eq("status", "closed"),
+                        TestObj.class,
+                        theFound::add),
+                1);
+        Assert.assertEquals(theFound, Arrays.asList(theTestObj));
+
+        Assert
+            .assertEquals(
+                objCacheService.deleteByPredicate(TestObj.COLLECTION, ObjCachePredicate.in("status", "open", "new")),
+                3);
+        Assert
+            .assertEquals(
+                objCacheService.findByPredicate(TestObj.COLLECTION, ObjCachePredicate.exists("status"), TestObj.class),
+                Arrays.asList(theTestObj));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testPropertyIndexes() {
+        ((ObjCacheServiceImpl) objCacheService)
+            .setPropertyIndexes(
+                Arrays
+                    .asList(
+                        new ObjCachePropertyIndex(TestObj.COLLECTION, "status", ObjCachePropertyType.STRING),
+                        new ObjCachePropertyIndex(TestObj.COLLECTION, "priority", ObjCachePropertyType.NUMBER),
+                        new ObjCachePropertyIndex(TestObj.COLLECTION, "active", ObjCachePropertyType.BOOLEAN)));
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test1",
+                SerializerType.JSON,
+                ImmutableMap.of("status", "new", "priority", 1, "active", true, "a", 1),
+                theTestObj);
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test2",
+                SerializerType.JSON,
+                ImmutableMap.of("status", "new", "priority", 1.0, "active", false),
+                theTestObj);
+        objCacheService
+            .create(
+                TestObj.COLLECTION,
+                "test3",
+                SerializerType.JSON,
+                ImmutableMap.of("status", "done", "priority", "1", "active", "true"),
+                theTestObj);
+
+        Assert.assertEquals(objCacheService.countByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "new")), 2);
+        Assert
+            .assertEquals(
+                objCacheService
+                    .countByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "new", "priority", 1, "a", 1)),
+                1);
+        Assert.assertEquals(objCacheService.countByProperties(TestObj.COLLECTION, ImmutableMap.of("priority", 1)), 2);
+        Assert.assertEquals(objCacheService.countByProperties(TestObj.COLLECTION, ImmutableMap.of("priority", "1")), 1);
+        Assert.assertEquals(objCacheService.countByProperties(TestObj.COLLECTION, ImmutableMap.of("active", true)), 1);
+        Assert.assertEquals(objCacheService.countByProperties("otherCollection", ImmutableMap.of("status", "new")), 0);
+
+        final ObjCachePage<TestObj> thePage =
+            objCacheService
+                .findPageByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "new"), TestObj.class, 1, null);
+        Assert.assertEquals(thePage.getObjects().size(), 1);
+        Assert.assertNotNull(thePage.getNextToken());
+
+        final List<TestObj> theFound = new ArrayList<>();
+        Assert
+            .assertEquals(
+                objCacheService
+                    .findByProperties(
+                        TestObj.COLLECTION,
+                        ImmutableMap.of("active", false, "status", "new"),
+                        TestObj.class,
+                        theFound::add),
+                1);
+        Assert.assertEquals(theFound, Arrays.asList(theTestObj));
+
+        Assert
+            .assertEquals(objCacheService.deleteByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "new")), 2);
+        Assert
+            .assertEquals(
+                objCacheService.findByProperties(TestObj.COLLECTION, ImmutableMap.of("status", "done"), TestObj.class),
+                Arrays.asList(theTestObj));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testPropertyIndexesPartitioned() {
+        // indexes are created concurrently outside of the test transaction, the partitioned table is created in a
+        // schema of its own
+        final String theSchema = "objcache_partitioned_test";
+        final String thePartitionedCollection = "TestColPartition";
+        final String thePartition = "t_objcache_testcolpartition";
+        final Properties theProperties = new Properties();
+        theProperties.setProperty("currentSchema", theSchema);
+        final DataSource theDataSource = dataSource(theProperties);
+        final JdbcTemplate theJdbcTemplate = new JdbcTemplate(theDataSource);
+        theJdbcTemplate.execute("drop schema if exists " + theSchema + " cascade");
+        theJdbcTemplate.execute("create schema " + theSchema);
+        try {
+            theJdbcTemplate
+                .execute(
+                    "create table t_objcache (id serial not null, collection_id varchar(64) not null,"
+                        + " object_key varchar(64) not null, serializer_type varchar(16) not null,"
+                        + " version integer not null, object_data text, object_data_bin bytea, properties jsonb,"
+                        + " expiration_time timestamp with time zone, primary key (collection_id, id),"
+                        + " unique (collection_id, object_key)) partition by list (collection_id)");
+            theJdbcTemplate.execute("create table t_objcache_default partition of t_objcache default");
+            theJdbcTemplate
+                .execute(
+                    "create table "
+                        + thePartition
+                        + " partition of t_objcache for values in ('"
+                        + thePartitionedCollection
+                        + "')");
+
+            final ObjCachePropertyIndex theDefaultIndex =
+                new ObjCachePropertyIndex(TestObj.COLLECTION, "status", ObjCachePropertyType.STRING);
+            final ObjCachePropertyIndex thePartitionIndex =
+                new ObjCachePropertyIndex(thePartitionedCollection, "status", ObjCachePropertyType.STRING);
+            final ObjCacheServiceImpl theService = service(theDataSource);
+            theService.setPartitioned(true);
+            theService.setPropertyIndexes(Arrays.asList(theDefaultIndex, thePartitionIndex));
+            theService.createPropertyIndexes();
+
+            // collections without a partition of their own are indexed on the default partition
+            final String theQuery = "select tablename from pg_indexes where schemaname = ? and indexname = ?";
+            Assert
+                .assertEquals(
+                    theJdbcTemplate.queryForList(theQuery, String.class, theSchema, theDefaultIndex.getIndexName()),
+                    Arrays.asList("t_objcache_default"));
+            Assert
+                .assertEquals(
+                    theJdbcTemplate
+                        .queryForList(theQuery, String.class, theSchema, thePartitionIndex.getPartitionIndexName()),
+                    Arrays.asList(thePartition));
+
+            final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+            theService
+                .create(
+                    thePartitionedCollection,
+                    "test1",
+                    SerializerType.JSON,
+                    ImmutableMap.of("status", "new"),
+                    theTestObj);
+            Assert
+                .assertEquals(
+                    theService.countByProperties(thePartitionedCollection, ImmutableMap.of("status", "new")),
+                    1);
+
+            // indexes which exist already are skipped
+            theService.createPropertyIndexes();
+        } finally {
+            theJdbcTemplate.execute("drop schema " + theSchema + " cascade");
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void testCreateAll() {
+        final TestObj theTestObj1 = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final TestObj theTestObj2 = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 2), theTestObj2);
+
+        final List<ObjCacheBatchResult> theResults =
+            objCacheService
+                .createAll(
+                    TestObj.COLLECTION,
+                    SerializerType.JSON,
+                    Arrays
+                        .asList(
+                            new ObjCacheBatchItem("test1", ImmutableMap.of("a", 1), theTestObj1, null),
+                            new ObjCacheBatchItem("test2", ImmutableMap.of("a", 3), theTestObj1, null),
+                            new ObjCacheBatchItem("test3", ImmutableMap.of("a", 1), theTestObj1, null)));
+        Assert.assertEquals(theResults.size(), 3);
+        Assert.assertTrue(theResults.get(0).isSuccessful());
+        Assert.assertEquals(theResults.get(0).getMeta().getVersion().intValue(), 1);
+        Assert.assertFalse(theResults.get(1).isSuccessful());
+        Assert.assertEquals(theResults.get(1).getObjectKey(), "test2");
+        Assert.assertEquals(theResults.get(1).getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0005);
+        Assert.assertTrue(theResults.get(2).isSuccessful());
+
+        Assert.assertEquals(objCacheService.countByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 1)), 2);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test2", TestObj.class).get(), theTestObj2);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testCreateAllRewrittenBatch() {
+        // the driver rewrites the batch to multi-row inserts and reports no row counts, the objects are created
+        // outside of the test transaction
+        final Properties theProperties = new Properties();
+        theProperties.setProperty("reWriteBatchedInserts", "true");
+        final ObjCacheService theService = service(dataSource(theProperties));
+        final String theCollection = "TestColRewrite";
+        final TestObj theTestObj1 = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final TestObj theTestObj2 = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        try {
+            theService.create(theCollection, "test2", SerializerType.JSON, ImmutableMap.of("a", 2), theTestObj2);
+
+            final List<ObjCacheBatchResult> theResults =
+                theService
+                    .createAll(
+                        theCollection,
+                        SerializerType.JSON,
+                        Arrays
+                            .asList(
+                                new ObjCacheBatchItem("test1", ImmutableMap.of("a", 1), theTestObj1, null),
+                                new ObjCacheBatchItem("test2", ImmutableMap.of("a", 3), theTestObj1, null),
+                                new ObjCacheBatchItem("test1", ImmutableMap.of("a", 3), theTestObj2, null),
+                                new ObjCacheBatchItem("test3", ImmutableMap.of("a", 1), theTestObj1, null)));
+            Assert.assertEquals(theResults.size(), 4);
+            Assert.assertTrue(theResults.get(0).isSuccessful());
+            Assert.assertEquals(theResults.get(0).getMeta().getVersion().intValue(), 1);
+            Assert.assertEquals(theResults.get(1).getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0005);
+            Assert.assertEquals(theResults.get(2).getObjectKey(), "test1");
+            Assert.assertEquals(theResults.get(2).getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0005);
+            Assert.assertTrue(theResults.get(3).isSuccessful());
+
+            Assert.assertEquals(theService.find(theCollection, "test1", TestObj.class).get(), theTestObj1);
+            Assert.assertEquals(theService.find(theCollection, "test2", TestObj.class).get(), theTestObj2);
+        } finally {
+            theService.deleteByCollection(theCollection);
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void testUpdateAll() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        final TestObj theTestObjUpdated = new TestObj("b", 2, ImmutableMap.of("k1", 2, "k2", "v3"));
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+
+        final List<ObjCacheBatchResult> theResults =
+            objCacheService
+                .updateAll(
+                    TestObj.COLLECTION,
+                    Arrays
+                        .asList(
+                            new ObjCacheBatchItem("test1", 1, ImmutableMap.of("a", 2), theTestObjUpdated, null),
+                            new ObjCacheBatchItem("test2", 2, ImmutableMap.of("a", 2), theTestObjUpdated, null),
+                            new ObjCacheBatchItem("test3", 1, ImmutableMap.of("a", 2), theTestObjUpdated, null)));
+        Assert.assertEquals(theResults.size(), 3);
+        Assert.assertTrue(theResults.get(0).isSuccessful());
+        Assert.assertEquals(theResults.get(0).getMeta().getVersion().intValue(), 2);
+        Assert.assertEquals(theResults.get(1).getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0002);
+        Assert.assertEquals(theResults.get(2).getErrorCode(), ObjCacheErrorCodeType.OBJCACHE_EC_0006);
+
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test1", TestObj.class).get(), theTestObjUpdated);
+        Assert.assertEquals(objCacheService.find(TestObj.COLLECTION, "test2", TestObj.class).get(), theTestObj);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testDeleteAll() {
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1, "k2", "v2"));
+        objCacheService.create(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+        objCacheService.create(TestObj.COLLECTION, "test3", SerializerType.JSON, ImmutableMap.of("a", 1), theTestObj);
+
+        final int theDeletedCount =
+            objCacheService.deleteAll(TestObj.COLLECTION, Arrays.asList("test1", "test3", "missing"));
+        Assert.assertEquals(theDeletedCount, 2);
+        Assert.assertEquals(objCacheService.countByCollection(TestObj.COLLECTION), 1);
+    }
+
+    /**
+     * Data source connecting to the test database like the one of the test context, with given connection properties.
+     */
+    private DataSource dataSource(final Properties someProperties) {
+        final DriverManagerDataSource theDataSource = (DriverManagerDataSource) dataSource;
+        final DriverManagerDataSource theNewDataSource =
+            new DriverManagerDataSource(
+                theDataSource.getUrl(),
+                theDataSource.getUsername(),
+                theDataSource.getPassword());
+        theNewDataSource.setConnectionProperties(someProperties);
+        return theNewDataSource;
+    }
+
+    /**
+     * Service running its own transactions on given data source, outside of the test transaction.
+     */
+    private ObjCacheServiceImpl service(final DataSource aDataSource) {
+        return new ObjCacheServiceImpl(
+            new TransactionTemplate(new DataSourceTransactionManager(aDataSource)),
+            new JdbcTemplate(aDataSource),
+            new ObjCacheSerializerDeserializerFactoryImpl());
+    }
+
+    private long countByPredicate(final ObjCachePredicate aPredicate) {
+        return objCacheService.countByPredicate(TestObj.COLLECTION, aPredicate);
+    }
 }
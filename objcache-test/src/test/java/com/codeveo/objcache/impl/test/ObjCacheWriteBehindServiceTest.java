@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2018 Codeveo Ltd.
+ *
+ * Written by Ladislav Klenovic <lklenovic@codeveo.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.codeveo.objcache.impl.test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTransactionalTestNGSpringContextTests;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codeveo.objcache.api.ObjCacheEntityMeta;
+import com.codeveo.objcache.api.ObjCacheService;
+import com.codeveo.objcache.api.SerializerType;
+import com.codeveo.objcache.impl.ObjCacheWriteBehindService;
+import com.codeveo.objcache.impl.ObjCacheWriteBehindStats;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Pending objects are written by the test thread only (the batch size and the flush interval are never reached), so
+ * the writes join the test transaction.
+ */
+@ContextConfiguration("classpath:test-context.xml")
+public class ObjCacheWriteBehindServiceTest extends AbstractTransactionalTestNGSpringContextTests {
+
+    @Autowired
+    private ObjCacheService objCacheService;
+
+    @Autowired
+    private TransactionTemplate txTemplate;
+
+    @Test
+    @DirtiesContext
+    public void testCoalescedWrites() throws InterruptedException {
+        final ObjCacheWriteBehindService theWriteBehind = writeBehind();
+        theWriteBehind.start();
+        try {
+            for (int i = 1; i <= 3; i++) {
+                final ObjCacheEntityMeta theMeta =
+                    theWriteBehind
+                        .put(
+                            TestObj.COLLECTION,
+                            "session",
+                            SerializerType.JSON,
+                            ImmutableMap.of("a", i),
+                            new TestObj("a", i, ImmutableMap.of()));
+                Assert.assertNull(theMeta.getVersion());
+            }
+
+            Assert.assertFalse(objCacheService.find(TestObj.COLLECTION, "session", TestObj.class).isPresent());
+            Assert
+                .assertEquals(
+                    theWriteBehind.find(TestObj.COLLECTION, "session", TestObj.class).get().getPropInt().intValue(),
+                    3);
+
+            ObjCacheWriteBehindStats theStats = theWriteBehind.getStats();
+            Assert.assertEquals(theStats.getBufferedCount(), 3);
+            Assert.assertEquals(theStats.getCoalescedCount(), 2);
+            Assert.assertEquals(theStats.getPendingCount(), 1);
+
+            // queries of the collection write its pending objects first
+            Assert.assertEquals(theWriteBehind.countByProperties(TestObj.COLLECTION, ImmutableMap.of("a", 3)), 1);
+            Assert.assertEquals(objCacheService.findMeta(TestObj.COLLECTION, null).get(0).getVersion().intValue(), 1);
+
+            theStats = theWriteBehind.getStats();
+            Assert.assertEquals(theStats.getBatchCount(), 1);
+            Assert.assertEquals(theStats.getWrittenCount(), 1);
+            Assert.assertEquals(theStats.getPendingCount(), 0);
+        } finally {
+            theWriteBehind.stop();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void testPendingWrites() throws InterruptedException {
+        final ObjCacheWriteBehindService theWriteBehind = writeBehind();
+        theWriteBehind.setMaxPendingWrites(2);
+        theWriteBehind.start();
+
+        final TestObj theTestObj = new TestObj("a", 1, ImmutableMap.of("k1", 1));
+        theWriteBehind.put(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of(), theTestObj);
+        theWriteBehind.put(TestObj.COLLECTION, "test2", SerializerType.JSON, ImmutableMap.of(), theTestObj);
+        Assert.assertEquals(objCacheService.findKeys(TestObj.COLLECTION, null).size(), 0);
+
+        // the buffer is full, the caller writes the pending objects
+        theWriteBehind.put(TestObj.COLLECTION, "test3", SerializerType.SMILE, ImmutableMap.of(), theTestObj);
+        Assert.assertEquals(objCacheService.findKeys(TestObj.COLLECTION, null), Arrays.asList("test1", "test2"));
+
+        final Map<String, TestObj> theFound =
+            theWriteBehind.findAll(TestObj.COLLECTION, Arrays.asList("test1", "test3", "missing"), TestObj.class);
+        Assert.assertEquals(theFound.keySet(), new HashSet<>(Arrays.asList("test1", "test3")));
+
+        // a pending object is deleted without being written
+        theWriteBehind.put(TestObj.COLLECTION, "test4", SerializerType.JSON, ImmutableMap.of(), theTestObj);
+        Assert.assertEquals(theWriteBehind.delete(TestObj.COLLECTION, "test4"), 1);
+        Assert.assertFalse(theWriteBehind.find(TestObj.COLLECTION, "test4", TestObj.class).isPresent());
+
+        // stopping writes the pending objects, then the objects are written immediately
+        theWriteBehind.stop();
+        Assert
+            .assertEquals(objCacheService.findKeys(TestObj.COLLECTION, null), Arrays.asList("test1", "test2", "test3"));
+        Assert
+            .assertEquals(
+                theWriteBehind
+                    .put(TestObj.COLLECTION, "test1", SerializerType.JSON, ImmutableMap.of(), theTestObj)
+                    .getVersion()
+                    .intValue(),
+                2);
+        Assert.assertEquals(theWriteBehind.getStats().getWrittenCount(), 3);
+    }
+
+    private ObjCacheWriteBehindService writeBehind() {
+        final ObjCacheWriteBehindService theWriteBehind = new ObjCacheWriteBehindService(objCacheService, txTemplate);
+        theWriteBehind.setBatchSize(1000);
+        theWriteBehind.setFlushIntervalMillis(60000);
+        return theWriteBehind;
+    }
+}
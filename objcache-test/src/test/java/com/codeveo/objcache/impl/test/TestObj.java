@@ -6,9 +6,12 @@
  */
 package com.codeveo.objcache.impl.test;
 
+import java.io.Serializable;
 import java.util.Map;
 
-public class TestObj {
+public class TestObj implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public static final String COLLECTION = "Test";
 